@@ -3,8 +3,10 @@ package com.app.ErgonomicCalculator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ErgonomicCalculatorApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,17 @@
+package com.app.ErgonomicCalculator.calculator;
+
+/**
+ * One compiled workspace metric formula, evaluated against a calculator input row.
+ */
+@FunctionalInterface
+public interface Formula {
+
+    /**
+     * Evaluates the formula.
+     *
+     * @param in       array holding the input row, see {@link WorkspaceRowLayout#INPUT_LENGTH}.
+     * @param inOffset index of the first value of the input row.
+     * @return metric value, NaN if a measure the formula depends on is missing.
+     */
+    double evaluate(double[] in, int inOffset);
+}
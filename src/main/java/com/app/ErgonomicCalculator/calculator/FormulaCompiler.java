@@ -0,0 +1,270 @@
+package com.app.ErgonomicCalculator.calculator;
+
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+
+/**
+ * Compiles a formula expression into a {@link Formula}. Expressions combine anthropometric measure names
+ * (e.g. {@code elbowHeight + lowerLegLength}), numbers, {@code + - * /}, parentheses and the functions
+ * {@code min}, {@code max} and {@code abs}.
+ * <p>
+ * The expression is parsed once into a tree of small lambdas: constant sub-expressions are folded and the
+ * common shapes (a measure, a measure plus a measure, a measure plus a constant) get dedicated lambdas, so
+ * evaluating a formula does no parsing, lookups or boxing, and the JIT can inline the short call chains.
+ */
+public final class FormulaCompiler {
+
+    private final String expression;
+    private int position;
+
+    private FormulaCompiler(final String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Compiles a formula expression.
+     *
+     * @param expression formula expression over anthropometric measure names.
+     * @return compiled formula.
+     * @throws InvalidDataException if the expression is empty, malformed or uses an unknown name.
+     */
+    public static Formula compile(final String expression) throws InvalidDataException {
+        if (expression == null || expression.isBlank()) {
+            throw new InvalidDataException("Formula expression is empty.");
+        }
+        final FormulaCompiler compiler = new FormulaCompiler(expression);
+        final Node node = compiler.parseExpression();
+        compiler.skipWhitespace();
+        if (compiler.position < expression.length()) {
+            throw compiler.error("Unexpected '" + expression.charAt(compiler.position) + "'");
+        }
+        return node.compile();
+    }
+
+    private Node parseExpression() throws InvalidDataException {
+        Node node = parseTerm();
+        while (true) {
+            if (consume('+')) {
+                node = Node.binary('+', node, parseTerm());
+            } else if (consume('-')) {
+                node = Node.binary('-', node, parseTerm());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node parseTerm() throws InvalidDataException {
+        Node node = parseFactor();
+        while (true) {
+            if (consume('*')) {
+                node = Node.binary('*', node, parseFactor());
+            } else if (consume('/')) {
+                node = Node.binary('/', node, parseFactor());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node parseFactor() throws InvalidDataException {
+        skipWhitespace();
+        if (consume('-')) {
+            return Node.binary('-', Node.constant(0), parseFactor());
+        }
+        if (consume('(')) {
+            final Node node = parseExpression();
+            expect(')');
+            return node;
+        }
+        if (position < expression.length() && (Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+            return parseNumber();
+        }
+        if (position < expression.length() && Character.isJavaIdentifierStart(expression.charAt(position))) {
+            return parseName();
+        }
+        throw error(position < expression.length() ? "Unexpected '" + expression.charAt(position) + "'" : "Unexpected end");
+    }
+
+    private Node parseNumber() throws InvalidDataException {
+        final int start = position;
+        while (position < expression.length() && (Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+            position++;
+        }
+        try {
+            return Node.constant(Double.parseDouble(expression.substring(start, position)));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + expression.substring(start, position) + "'");
+        }
+    }
+
+    private Node parseName() throws InvalidDataException {
+        final int start = position;
+        while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+            position++;
+        }
+        final String name = expression.substring(start, position);
+        if (consume('(')) {
+            return parseFunction(name);
+        }
+        final int index = WorkspaceRowLayout.INPUT_NAMES.indexOf(name);
+        if (index < 0) {
+            throw error("Unknown measure '" + name + "'");
+        }
+        return Node.input(index);
+    }
+
+    private Node parseFunction(final String name) throws InvalidDataException {
+        final Node first = parseExpression();
+        switch (name) {
+            case "abs":
+                expect(')');
+                return Node.abs(first);
+            case "min":
+            case "max":
+                expect(',');
+                final Node second = parseExpression();
+                expect(')');
+                return Node.binary(name.equals("min") ? '<' : '>', first, second);
+            default:
+                throw error("Unknown function '" + name + "'");
+        }
+    }
+
+    private boolean consume(final char expected) {
+        skipWhitespace();
+        if (position < expression.length() && expression.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char expected) throws InvalidDataException {
+        if (!consume(expected)) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+    }
+
+    private InvalidDataException error(final String message) {
+        return new InvalidDataException(message + " at position " + position + " of formula '" + expression + "'.");
+    }
+
+    /**
+     * Parsed expression tree node. Binary operators are '+', '-', '*', '/', '&lt;' for min and '&gt;' for max.
+     */
+    private static final class Node {
+
+        private final char operator;
+        private final double value;
+        private final int index;
+        private final Node left;
+        private final Node right;
+
+        private Node(final char operator, final double value, final int index, final Node left, final Node right) {
+            this.operator = operator;
+            this.value = value;
+            this.index = index;
+            this.left = left;
+            this.right = right;
+        }
+
+        static Node constant(final double value) {
+            return new Node('c', value, -1, null, null);
+        }
+
+        static Node input(final int index) {
+            return new Node('i', Double.NaN, index, null, null);
+        }
+
+        static Node abs(final Node operand) {
+            if (operand.isConstant()) {
+                return constant(Math.abs(operand.value));
+            }
+            return new Node('a', Double.NaN, -1, operand, null);
+        }
+
+        static Node binary(final char operator, final Node left, final Node right) {
+            if (left.isConstant() && right.isConstant()) {
+                return constant(apply(operator, left.value, right.value));
+            }
+            return new Node(operator, Double.NaN, -1, left, right);
+        }
+
+        boolean isConstant() {
+            return operator == 'c';
+        }
+
+        boolean isInput() {
+            return operator == 'i';
+        }
+
+        static double apply(final char operator, final double left, final double right) {
+            switch (operator) {
+                case '+':
+                    return left + right;
+                case '-':
+                    return left - right;
+                case '*':
+                    return left * right;
+                case '/':
+                    return left / right;
+                case '<':
+                    return Math.min(left, right);
+                default:
+                    return Math.max(left, right);
+            }
+        }
+
+        Formula compile() {
+            if (isConstant()) {
+                final double constant = value;
+                return (in, offset) -> constant;
+            }
+            if (isInput()) {
+                final int i = index;
+                return (in, offset) -> in[offset + i];
+            }
+            if (operator == 'a') {
+                final Formula operand = left.compile();
+                return (in, offset) -> Math.abs(operand.evaluate(in, offset));
+            }
+            if (operator == '+' && left.isInput() && right.isInput()) {
+                final int a = left.index;
+                final int b = right.index;
+                return (in, offset) -> in[offset + a] + in[offset + b];
+            }
+            if (operator == '+' && left.isInput() && right.isConstant()) {
+                final int a = left.index;
+                final double b = right.value;
+                return (in, offset) -> in[offset + a] + b;
+            }
+            if (operator == '-' && left.isInput() && right.isConstant()) {
+                final int a = left.index;
+                final double b = right.value;
+                return (in, offset) -> in[offset + a] - b;
+            }
+            final Formula l = left.compile();
+            final Formula r = right.compile();
+            switch (operator) {
+                case '+':
+                    return (in, offset) -> l.evaluate(in, offset) + r.evaluate(in, offset);
+                case '-':
+                    return (in, offset) -> l.evaluate(in, offset) - r.evaluate(in, offset);
+                case '*':
+                    return (in, offset) -> l.evaluate(in, offset) * r.evaluate(in, offset);
+                case '/':
+                    return (in, offset) -> l.evaluate(in, offset) / r.evaluate(in, offset);
+                case '<':
+                    return (in, offset) -> Math.min(l.evaluate(in, offset), r.evaluate(in, offset));
+                default:
+                    return (in, offset) -> Math.max(l.evaluate(in, offset), r.evaluate(in, offset));
+            }
+        }
+    }
+}
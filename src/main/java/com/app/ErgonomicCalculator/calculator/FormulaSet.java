@@ -0,0 +1,121 @@
+package com.app.ErgonomicCalculator.calculator;
+
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned set of compiled formulas, one per workspace metric. Calculates rows laid out as described by
+ * {@link WorkspaceRowLayout}, with the formulas given as configuration instead of code.
+ */
+public final class FormulaSet {
+
+    private final String version;
+    private final Map<String, String> definitions;
+    /*
+     * One field and one call site per metric instead of a loop over an array: every call site then only ever sees
+     * its own lambda class and the JIT inlines it, a loop would make the single call site megamorphic.
+     */
+    private final Formula tableHeightSeated;
+    private final Formula tableHeightStanding;
+    private final Formula tableWidth;
+    private final Formula displayHeightSeated;
+    private final Formula displayHeightStanding;
+    private final Formula chairSeatHeight;
+    private final Formula chairSeatWidth;
+    private final Formula armRestHeight;
+    private final Formula chairBackSupportHeight;
+    private final Formula chairBackSupportWidth;
+    private final Formula chairHeadSupportHeight;
+
+    private FormulaSet(final String version, final Map<String, String> definitions, final Formula[] formulas) {
+        this.version = version;
+        this.definitions = definitions;
+        this.tableHeightSeated = formulas[WorkspaceRowLayout.TABLE_HEIGHT_SEATED];
+        this.tableHeightStanding = formulas[WorkspaceRowLayout.TABLE_HEIGHT_STANDING];
+        this.tableWidth = formulas[WorkspaceRowLayout.TABLE_WIDTH];
+        this.displayHeightSeated = formulas[WorkspaceRowLayout.DISPLAY_HEIGHT_SEATED];
+        this.displayHeightStanding = formulas[WorkspaceRowLayout.DISPLAY_HEIGHT_STANDING];
+        this.chairSeatHeight = formulas[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT];
+        this.chairSeatWidth = formulas[WorkspaceRowLayout.CHAIR_SEAT_WIDTH];
+        this.armRestHeight = formulas[WorkspaceRowLayout.ARM_REST_HEIGHT];
+        this.chairBackSupportHeight = formulas[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_HEIGHT];
+        this.chairBackSupportWidth = formulas[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_WIDTH];
+        this.chairHeadSupportHeight = formulas[WorkspaceRowLayout.CHAIR_HEAD_SUPPORT_HEIGHT];
+    }
+
+    /**
+     * Compiles formula definitions into a formula set.
+     *
+     * @param version     version recorded on every workspace calculated with the set.
+     * @param definitions formula expression per workspace metric name, see {@link WorkspaceRowLayout#OUTPUT_NAMES}.
+     * @return compiled formula set.
+     * @throws InvalidDataException if the version is missing, a metric has no formula, a name is unknown or an expression is invalid.
+     */
+    public static FormulaSet compile(final String version, final Map<String, String> definitions) throws InvalidDataException {
+        if (version == null || version.isBlank()) {
+            throw new InvalidDataException("Formula set version is missing.");
+        }
+        for (String metric : definitions.keySet()) {
+            if (!WorkspaceRowLayout.OUTPUT_NAMES.contains(metric)) {
+                throw new InvalidDataException("Unknown workspace metric '" + metric + "'.");
+            }
+        }
+        final Map<String, String> orderedDefinitions = new LinkedHashMap<>();
+        final Formula[] formulas = new Formula[WorkspaceRowLayout.OUTPUT_LENGTH];
+        for (int i = 0; i < formulas.length; i++) {
+            final String metric = WorkspaceRowLayout.OUTPUT_NAMES.get(i);
+            final String expression = definitions.get(metric);
+            if (expression == null) {
+                throw new InvalidDataException("Formula of workspace metric '" + metric + "' is missing.");
+            }
+            formulas[i] = FormulaCompiler.compile(expression);
+            orderedDefinitions.put(metric, expression.trim());
+        }
+        return new FormulaSet(version.trim(), Collections.unmodifiableMap(orderedDefinitions), formulas);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Map<String, String> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * Calculates the workspace metrics of one person.
+     *
+     * @param anthropometrics input row of {@link WorkspaceRowLayout#INPUT_LENGTH} anthropometric values.
+     * @return new output row of {@link WorkspaceRowLayout#OUTPUT_LENGTH} workspace metrics.
+     */
+    public double[] calculate(final double[] anthropometrics) {
+        final double[] metrics = new double[WorkspaceRowLayout.OUTPUT_LENGTH];
+        calculate(anthropometrics, 0, metrics, 0);
+        return metrics;
+    }
+
+    /**
+     * Calculates the workspace metrics of one input row into an output row, without allocating.
+     *
+     * @param in        array holding the input row.
+     * @param inOffset  index of the first value of the input row.
+     * @param out       array receiving the output row.
+     * @param outOffset index of the first value of the output row.
+     */
+    public void calculate(final double[] in, final int inOffset, final double[] out, final int outOffset) {
+        out[outOffset + WorkspaceRowLayout.TABLE_HEIGHT_SEATED] = tableHeightSeated.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.TABLE_HEIGHT_STANDING] = tableHeightStanding.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.TABLE_WIDTH] = tableWidth.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.DISPLAY_HEIGHT_SEATED] = displayHeightSeated.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.DISPLAY_HEIGHT_STANDING] = displayHeightStanding.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.CHAIR_SEAT_HEIGHT] = chairSeatHeight.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.CHAIR_SEAT_WIDTH] = chairSeatWidth.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.ARM_REST_HEIGHT] = armRestHeight.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.CHAIR_BACK_SUPPORT_HEIGHT] = chairBackSupportHeight.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.CHAIR_BACK_SUPPORT_WIDTH] = chairBackSupportWidth.evaluate(in, inOffset);
+        out[outOffset + WorkspaceRowLayout.CHAIR_HEAD_SUPPORT_HEIGHT] = chairHeadSupportHeight.evaluate(in, inOffset);
+    }
+}
@@ -0,0 +1,87 @@
+package com.app.ErgonomicCalculator.calculator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row layout and built-in formulas of the workspace calculation. Inputs and outputs are flat {@code double} rows
+ * addressed by the index constants below, so the calculation in {@link FormulaSet} does not depend on JPA entities
+ * and does not box. Bulk callers can keep many rows in one array and pass the row offsets.
+ */
+public final class WorkspaceRowLayout {
+
+    public static final int HEIGHT = 0;
+    public static final int SITTING_HEIGHT = 1;
+    public static final int SHOULDER_HEIGHT = 2;
+    public static final int LOWER_LEG_LENGTH = 3;
+    public static final int HIP_BREADTH = 4;
+    public static final int ELBOW_HEIGHT = 5;
+    public static final int EYE_HEIGHT_STANDING = 6;
+    public static final int ELBOW_HEIGHT_STANDING = 7;
+    public static final int THIGH_CLEARANCE = 8;
+    public static final int EYE_HEIGHT = 9;
+    public static final int SHOULDER_BREADTH = 10;
+    public static final int KNEE_HEIGHT = 11;
+    /**
+     * Number of anthropometric values in one input row.
+     */
+    public static final int INPUT_LENGTH = 12;
+    /**
+     * Anthropometric measure names by input index, as used in formula expressions.
+     */
+    public static final List<String> INPUT_NAMES = List.of("height", "sittingHeight", "shoulderHeight", "lowerLegLength",
+            "hipBreadth", "elbowHeight", "eyeHeightStanding", "elbowHeightStanding", "thighClearance", "eyeHeight",
+            "shoulderBreadth", "kneeHeight");
+
+    public static final int TABLE_HEIGHT_SEATED = 0;
+    public static final int TABLE_HEIGHT_STANDING = 1;
+    public static final int TABLE_WIDTH = 2;
+    public static final int DISPLAY_HEIGHT_SEATED = 3;
+    public static final int DISPLAY_HEIGHT_STANDING = 4;
+    public static final int CHAIR_SEAT_HEIGHT = 5;
+    public static final int CHAIR_SEAT_WIDTH = 6;
+    public static final int ARM_REST_HEIGHT = 7;
+    public static final int CHAIR_BACK_SUPPORT_HEIGHT = 8;
+    public static final int CHAIR_BACK_SUPPORT_WIDTH = 9;
+    public static final int CHAIR_HEAD_SUPPORT_HEIGHT = 10;
+    /**
+     * Number of workspace metrics in one output row.
+     */
+    public static final int OUTPUT_LENGTH = 11;
+    /**
+     * Workspace metric names by output index, as used in formula definitions.
+     */
+    public static final List<String> OUTPUT_NAMES = List.of("tableHeightSeated", "tableHeightStanding", "tableWidth",
+            "displayHeightSeated", "displayHeightStanding", "chairSeatHeight", "chairSeatWidth", "armRestHeight",
+            "chairBackSupportHeight", "chairBackSupportWidth", "chairHeadSupportHeight");
+
+    /**
+     * Version of the built-in formulas, used while no other formula set is configured.
+     */
+    public static final String DEFAULT_FORMULA_VERSION = "builtin-1";
+    /**
+     * The built-in workspace metric formulas as expressions, see {@link FormulaSet}.
+     */
+    public static final Map<String, String> DEFAULT_FORMULAS = defaultFormulas();
+
+    private WorkspaceRowLayout() {
+    }
+
+    private static Map<String, String> defaultFormulas() {
+        final Map<String, String> formulas = new LinkedHashMap<>();
+        formulas.put("tableHeightSeated", "elbowHeight + lowerLegLength");
+        formulas.put("tableHeightStanding", "elbowHeightStanding");
+        formulas.put("tableWidth", "thighClearance");
+        formulas.put("displayHeightSeated", "eyeHeight + lowerLegLength");
+        formulas.put("displayHeightStanding", "eyeHeightStanding");
+        formulas.put("chairSeatHeight", "lowerLegLength");
+        formulas.put("chairSeatWidth", "hipBreadth");
+        formulas.put("armRestHeight", "elbowHeight + lowerLegLength");
+        formulas.put("chairBackSupportHeight", "lowerLegLength + shoulderHeight");
+        formulas.put("chairBackSupportWidth", "shoulderBreadth");
+        formulas.put("chairHeadSupportHeight", "lowerLegLength + sittingHeight");
+        return Collections.unmodifiableMap(formulas);
+    }
+}
@@ -0,0 +1,231 @@
+package com.app.ErgonomicCalculator.catalogue;
+
+import com.app.ErgonomicCalculator.dto.FurnitureMatchDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory furniture catalogue. Products are loaded from a CSV file into one {@link RTree} per furniture type,
+ * so recommendations for a workspace are tree searches instead of catalogue scans. A reload builds new trees
+ * and swaps them in at once.
+ * <p>
+ * The CSV has the columns {@code sku}, {@code type}, {@code name} and a {@code <metric>Min} and {@code <metric>Max}
+ * column for every workspace metric a furniture type is matched on, see {@link FurnitureType}. Columns of other
+ * types are left empty.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FurnitureCatalogue {
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${furniture.catalogue.location:classpath:furniture-catalogue.csv}")
+    private String location;
+
+    @Value("${furniture.catalogue.node-capacity:16}")
+    private int nodeCapacity;
+
+    @Value("${furniture.catalogue.recommendations:3}")
+    private int recommendations;
+
+    private final AtomicReference<Map<FurnitureType, RTree>> indexes = new AtomicReference<>(new EnumMap<>(FurnitureType.class));
+
+    /**
+     * Loads the catalogue.
+     *
+     * @throws IOException          if the catalogue file can not be read.
+     * @throws InvalidDataException if the catalogue header is invalid.
+     */
+    @PostConstruct
+    protected void init() throws IOException, InvalidDataException {
+        reload();
+    }
+
+    /**
+     * Reads the catalogue file again and replaces the indexed products. Invalid product rows are skipped.
+     *
+     * @return number of indexed products.
+     * @throws IOException          if the catalogue file can not be read.
+     * @throws InvalidDataException if the catalogue header is invalid.
+     */
+    public int reload() throws IOException, InvalidDataException {
+        final Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            log.warn("Furniture catalogue " + location + " not found, no furniture is recommended.");
+            indexes.set(new EnumMap<>(FurnitureType.class));
+            return 0;
+        }
+        final List<FurnitureProduct> products;
+        try (InputStream inputStream = resource.getInputStream()) {
+            products = read(inputStream);
+        }
+        load(products);
+        log.info("Furniture catalogue loaded, " + products.size() + " products indexed.");
+        return products.size();
+    }
+
+    /**
+     * Replaces the indexed products.
+     *
+     * @param products catalogue products.
+     */
+    public void load(final List<FurnitureProduct> products) {
+        final Map<FurnitureType, List<FurnitureProduct>> byType = new EnumMap<>(FurnitureType.class);
+        for (FurnitureProduct product : products) {
+            byType.computeIfAbsent(product.getType(), type -> new ArrayList<>()).add(product);
+        }
+        final Map<FurnitureType, RTree> rebuilt = new EnumMap<>(FurnitureType.class);
+        byType.forEach((type, typeProducts) -> rebuilt.put(type, new RTree(typeProducts, type.dimensions(), nodeCapacity)));
+        indexes.set(rebuilt);
+    }
+
+    /**
+     * Recommends the closest fitting products of every furniture type for a workspace.
+     *
+     * @param metricsRow workspace metrics row, see {@link com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout#OUTPUT_LENGTH}.
+     * @return up to the configured number of products per type, closest first.
+     */
+    public List<FurnitureMatchDto> recommend(final double[] metricsRow) {
+        final List<FurnitureMatchDto> matches = new ArrayList<>();
+        for (FurnitureType type : FurnitureType.values()) {
+            matches.addAll(nearest(type, metricsRow, recommendations));
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the products of a type closest to a workspace.
+     *
+     * @param type       furniture type.
+     * @param metricsRow workspace metrics row.
+     * @param k          maximum number of products.
+     * @return up to k products, closest first.
+     */
+    public List<FurnitureMatchDto> nearest(final FurnitureType type, final double[] metricsRow, final int k) {
+        final RTree index = indexes.get().get(type);
+        final List<FurnitureMatchDto> matches = new ArrayList<>();
+        if (index != null) {
+            for (RTree.Match match : index.nearest(type.point(metricsRow), k)) {
+                matches.add(toDto(match.getProduct(), match.getDistance()));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds all products of a type whose adjustable ranges contain the workspace metrics.
+     *
+     * @param type       furniture type.
+     * @param metricsRow workspace metrics row.
+     * @return fitting products.
+     */
+    public List<FurnitureMatchDto> fitting(final FurnitureType type, final double[] metricsRow) {
+        final RTree index = indexes.get().get(type);
+        final List<FurnitureMatchDto> matches = new ArrayList<>();
+        if (index != null) {
+            for (FurnitureProduct product : index.containing(type.point(metricsRow))) {
+                matches.add(toDto(product, 0));
+            }
+        }
+        return matches;
+    }
+
+    private static FurnitureMatchDto toDto(final FurnitureProduct product, final double distance) {
+        return FurnitureMatchDto.builder()
+                .sku(product.getSku())
+                .name(product.getName())
+                .type(product.getType().name())
+                .distance(distance)
+                .fits(distance == 0)
+                .build();
+    }
+
+    /**
+     * Parses the catalogue CSV. Values must not contain commas.
+     *
+     * @param inputStream catalogue content.
+     * @return valid products.
+     * @throws IOException          if the content can not be read.
+     * @throws InvalidDataException if a required column is missing.
+     */
+    static List<FurnitureProduct> read(final InputStream inputStream) throws IOException, InvalidDataException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        final String header = reader.readLine();
+        if (header == null) {
+            return List.of();
+        }
+        final Map<String, Integer> columns = new HashMap<>();
+        final String[] names = header.replace("﻿", "").split(",");
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim(), i);
+        }
+        for (String required : List.of("sku", "type", "name")) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidDataException("Furniture catalogue column " + required + " is missing.");
+            }
+        }
+
+        final List<FurnitureProduct> products = new ArrayList<>();
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                products.add(parseProduct(line.split(",", -1), columns));
+            } catch (IllegalArgumentException e) {
+                log.warn("Furniture catalogue line " + lineNumber + " skipped: " + e.getMessage());
+            }
+        }
+        return products;
+    }
+
+    private static FurnitureProduct parseProduct(final String[] values, final Map<String, Integer> columns) {
+        final FurnitureType type = FurnitureType.valueOf(value(values, columns, "type").toUpperCase());
+        final double[] min = new double[type.dimensions()];
+        final double[] max = new double[type.dimensions()];
+        for (int i = 0; i < type.dimensions(); i++) {
+            min[i] = Double.parseDouble(value(values, columns, type.metricName(i) + "Min"));
+            max[i] = Double.parseDouble(value(values, columns, type.metricName(i) + "Max"));
+            if (min[i] > max[i]) {
+                throw new IllegalArgumentException(type.metricName(i) + " range is empty.");
+            }
+        }
+        return FurnitureProduct.builder()
+                .sku(value(values, columns, "sku"))
+                .name(value(values, columns, "name"))
+                .type(type)
+                .min(min)
+                .max(max)
+                .build();
+    }
+
+    private static String value(final String[] values, final Map<String, Integer> columns, final String column) {
+        final Integer index = columns.get(column);
+        if (index == null || index >= values.length || values[index].isBlank()) {
+            throw new IllegalArgumentException(column + " is missing.");
+        }
+        return values[index].trim();
+    }
+}
@@ -0,0 +1,19 @@
+package com.app.ErgonomicCalculator.catalogue;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Catalogue product with one adjustable range per dimension of its type, e.g. the seat height range of a chair.
+ * A product fits a workspace when every range contains the matching workspace metric.
+ */
+@Getter
+@Builder
+public class FurnitureProduct {
+
+    private final String sku;
+    private final String name;
+    private final FurnitureType type;
+    private final double[] min;
+    private final double[] max;
+}
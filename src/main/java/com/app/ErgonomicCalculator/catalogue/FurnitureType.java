@@ -0,0 +1,59 @@
+package com.app.ErgonomicCalculator.catalogue;
+
+import com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout;
+
+/**
+ * Kinds of catalogue products and the workspace metrics their adjustable ranges are matched against.
+ */
+public enum FurnitureType {
+
+    /**
+     * Desks, matched on the seated and standing desk height. Fixed height desks give the same range for both.
+     */
+    DESK(WorkspaceRowLayout.TABLE_HEIGHT_SEATED, WorkspaceRowLayout.TABLE_HEIGHT_STANDING),
+
+    /**
+     * Chairs, matched on seat height, seat width, back support height and arm rest height.
+     */
+    CHAIR(WorkspaceRowLayout.CHAIR_SEAT_HEIGHT, WorkspaceRowLayout.CHAIR_SEAT_WIDTH,
+            WorkspaceRowLayout.CHAIR_BACK_SUPPORT_HEIGHT, WorkspaceRowLayout.ARM_REST_HEIGHT);
+
+    private final int[] metrics;
+
+    FurnitureType(final int... metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Number of dimensions of the products of this type.
+     *
+     * @return number of matched workspace metrics.
+     */
+    public int dimensions() {
+        return metrics.length;
+    }
+
+    /**
+     * Workspace metric matched by a dimension.
+     *
+     * @param dimension dimension of the products of this type.
+     * @return workspace metric name, see {@link WorkspaceRowLayout#OUTPUT_NAMES}.
+     */
+    public String metricName(final int dimension) {
+        return WorkspaceRowLayout.OUTPUT_NAMES.get(metrics[dimension]);
+    }
+
+    /**
+     * Picks the metrics of this type from a workspace metrics row.
+     *
+     * @param metricsRow output row, see {@link WorkspaceRowLayout#OUTPUT_LENGTH}.
+     * @return query point with one coordinate per dimension.
+     */
+    public double[] point(final double[] metricsRow) {
+        final double[] point = new double[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+            point[i] = metricsRow[metrics[i]];
+        }
+        return point;
+    }
+}
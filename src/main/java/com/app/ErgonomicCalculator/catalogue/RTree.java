@@ -0,0 +1,210 @@
+package com.app.ErgonomicCalculator.catalogue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Static R-tree over the range boxes of catalogue products, bulk loaded with Sort-Tile-Recursive packing, so nodes
+ * are full and barely overlap. The catalogue is rebuilt as a whole on reload, the tree is never updated.
+ * <p>
+ * Query coordinates that are NaN, i.e. missing workspace metrics, are ignored: every range contains them and
+ * they add nothing to a distance.
+ */
+final class RTree {
+
+    private static final class Node {
+        private final double[] min;
+        private final double[] max;
+        private final Node[] children;
+        private final FurnitureProduct product;
+
+        private Node(final double[] min, final double[] max, final Node[] children, final FurnitureProduct product) {
+            this.min = min;
+            this.max = max;
+            this.children = children;
+            this.product = product;
+        }
+    }
+
+    private static final class Candidate {
+        private final Node node;
+        private final double distance;
+
+        private Candidate(final Node node, final double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Product found by a nearest query with its distance to the query point.
+     */
+    static final class Match {
+        private final FurnitureProduct product;
+        private final double distance;
+
+        private Match(final FurnitureProduct product, final double distance) {
+            this.product = product;
+            this.distance = distance;
+        }
+
+        FurnitureProduct getProduct() {
+            return product;
+        }
+
+        double getDistance() {
+            return distance;
+        }
+    }
+
+    private final int dimensions;
+    private final int size;
+    private final Node root;
+
+    /**
+     * Bulk loads the tree.
+     *
+     * @param products     products, all with ranges of the given number of dimensions.
+     * @param dimensions   number of dimensions.
+     * @param nodeCapacity maximum number of children of a node.
+     */
+    RTree(final List<FurnitureProduct> products, final int dimensions, final int nodeCapacity) {
+        this.dimensions = dimensions;
+        this.size = products.size();
+        List<Node> level = new ArrayList<>(products.size());
+        for (FurnitureProduct product : products) {
+            level.add(new Node(product.getMin(), product.getMax(), null, product));
+        }
+        while (level.size() > 1 || (level.size() == 1 && level.get(0).product != null)) {
+            final List<List<Node>> groups = new ArrayList<>();
+            tile(level, 0, nodeCapacity, groups);
+            level = new ArrayList<>(groups.size());
+            for (List<Node> group : groups) {
+                level.add(parent(group));
+            }
+        }
+        root = level.isEmpty() ? null : level.get(0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds the products whose ranges all contain the point.
+     *
+     * @param point query point, one coordinate per dimension.
+     * @return fitting products.
+     */
+    List<FurnitureProduct> containing(final double[] point) {
+        final List<FurnitureProduct> result = new ArrayList<>();
+        if (root != null) {
+            collectContaining(root, point, result);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the products closest to the point, by euclidean distance from the point to their range box.
+     * Fitting products have distance 0.
+     *
+     * @param point query point, one coordinate per dimension.
+     * @param k     maximum number of products.
+     * @return up to k products, closest first.
+     */
+    List<Match> nearest(final double[] point, final int k) {
+        final List<Match> result = new ArrayList<>(k);
+        if (root == null || k <= 0) {
+            return result;
+        }
+        final PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble(candidate -> candidate.distance));
+        queue.add(new Candidate(root, 0));
+        while (!queue.isEmpty() && result.size() < k) {
+            final Candidate candidate = queue.poll();
+            if (candidate.node.product != null) {
+                result.add(new Match(candidate.node.product, Math.sqrt(candidate.distance)));
+                continue;
+            }
+            for (Node child : candidate.node.children) {
+                queue.add(new Candidate(child, squaredDistance(child, point)));
+            }
+        }
+        return result;
+    }
+
+    private void collectContaining(final Node node, final double[] point, final List<FurnitureProduct> result) {
+        if (!contains(node, point)) {
+            return;
+        }
+        if (node.product != null) {
+            result.add(node.product);
+            return;
+        }
+        for (Node child : node.children) {
+            collectContaining(child, point, result);
+        }
+    }
+
+    private boolean contains(final Node node, final double[] point) {
+        for (int i = 0; i < dimensions; i++) {
+            if (point[i] < node.min[i] || point[i] > node.max[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double squaredDistance(final Node node, final double[] point) {
+        double distance = 0;
+        for (int i = 0; i < dimensions; i++) {
+            final double delta = point[i] < node.min[i] ? node.min[i] - point[i]
+                    : point[i] > node.max[i] ? point[i] - node.max[i] : 0;
+            distance += delta * delta;
+        }
+        return distance;
+    }
+
+    /**
+     * Sort-Tile-Recursive: sorts the entries by the centre of one dimension, cuts them into slabs and tiles every
+     * slab on the next dimension, until the last dimension is cut into groups of one node each.
+     */
+    private void tile(final List<Node> entries, final int dimension, final int capacity, final List<List<Node>> groups) {
+        if (entries.size() <= capacity) {
+            groups.add(entries);
+            return;
+        }
+        entries.sort(Comparator.comparingDouble(node -> node.min[dimension] + node.max[dimension]));
+        final int pages = (entries.size() + capacity - 1) / capacity;
+        final int sliceSize;
+        if (dimension == dimensions - 1) {
+            sliceSize = capacity;
+        } else {
+            final int slabs = (int) Math.ceil(Math.pow(pages, 1.0 / (dimensions - dimension)));
+            sliceSize = capacity * ((pages + slabs - 1) / slabs);
+        }
+        for (int from = 0; from < entries.size(); from += sliceSize) {
+            final List<Node> slice = new ArrayList<>(entries.subList(from, Math.min(from + sliceSize, entries.size())));
+            if (dimension == dimensions - 1) {
+                groups.add(slice);
+            } else {
+                tile(slice, dimension + 1, capacity, groups);
+            }
+        }
+    }
+
+    private Node parent(final List<Node> children) {
+        final double[] min = new double[dimensions];
+        final double[] max = new double[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            min[i] = Double.POSITIVE_INFINITY;
+            max[i] = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                min[i] = Math.min(min[i], child.min[i]);
+                max[i] = Math.max(max[i], child.max[i]);
+            }
+        }
+        return new Node(min, max, children.toArray(new Node[0]), null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.app.ErgonomicCalculator.config;
+
+import com.app.ErgonomicCalculator.dto.PersonDto;
+import com.app.ErgonomicCalculator.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Authorizes the admin endpoints. The admin role is stored on the person and checked in the database on every
+ * admin request, a token only proves the email and never carries the role, whichever way it was validated.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private final PersonRepository personRepository;
+
+    /**
+     * Grants access if the authenticated person is a registered admin.
+     *
+     * @param authentication authentication of the request.
+     * @param context        request being authorized.
+     * @return granted decision for admins, denied otherwise.
+     */
+    @Override
+    public AuthorizationDecision check(final Supplier<Authentication> authentication, final RequestAuthorizationContext context) {
+        final Object principal = authentication.get().getPrincipal();
+        if (!(principal instanceof PersonDto) || ((PersonDto) principal).getEmail() == null) {
+            return new AuthorizationDecision(false);
+        }
+        return new AuthorizationDecision(personRepository.existsByEmailAndAdminTrueAndPasswordIsNotNull(((PersonDto) principal).getEmail()));
+    }
+}
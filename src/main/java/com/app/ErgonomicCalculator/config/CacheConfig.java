@@ -0,0 +1,58 @@
+package com.app.ErgonomicCalculator.config;
+
+import com.app.ErgonomicCalculator.dto.CacheStatsDto;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches of the lookups by email that are repeated on every authenticated request and every PDF download or open.
+ * The cache type and size are configured under {@code spring.cache}. Missing rows are not cached, so a created row
+ * needs no eviction.
+ * <p>
+ * Evictions run on the node that committed the write. With the default caffeine cache, other nodes keep their entry
+ * until it expires, so the expiry bounds how long they may serve a deleted person or an outdated PDF. Deployments
+ * with more than one node either accept that window or configure a shared cache such as redis or a clustered
+ * JCache provider, which needs no code changes because the cached values are serializable.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Authenticated person by email, without the password hash. Evicted when a person registers or is deleted.
+     */
+    public static final String PERSON_PRINCIPALS = "personPrincipals";
+
+    /**
+     * Workspace PDF source by email. Evicted after every committed insert, update or delete of a workspace.
+     */
+    public static final String WORKSPACE_PDF_SOURCES = "workspacePdfSources";
+
+    /**
+     * Reads size and hit counters of a cache. Counters are only kept by caffeine caches, other caches and caches
+     * the manager does not know are reported by name with {@code statsAvailable} false.
+     *
+     * @param name  cache name.
+     * @param cache the cache, null if the cache manager does not know the name.
+     * @return statistics of the cache.
+     */
+    public static CacheStatsDto toCacheStats(final String name, final Cache cache) {
+        if (!(cache instanceof CaffeineCache)) {
+            return CacheStatsDto.builder().name(name).build();
+        }
+        final CaffeineCache caffeineCache = (CaffeineCache) cache;
+        final CacheStats stats = caffeineCache.getNativeCache().stats();
+        return CacheStatsDto.builder()
+                .name(name)
+                .statsAvailable(true)
+                .size(caffeineCache.getNativeCache().estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+}
@@ -1,9 +1,9 @@
 package com.app.ErgonomicCalculator.config;
 
 import com.app.ErgonomicCalculator.dto.PersonDto;
+import com.app.ErgonomicCalculator.dto.PersonPrincipal;
 import com.app.ErgonomicCalculator.exception.PersonNotFoundException;
 import com.app.ErgonomicCalculator.mapper.PersonMapper;
-import com.app.ErgonomicCalculator.model.Person;
 import com.app.ErgonomicCalculator.repository.PersonRepository;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
@@ -88,7 +88,7 @@ public class PersonAuthProvider {
         final JWTVerifier verifier = JWT.require(algorithm).build();
         final DecodedJWT decoded = verifier.verify(token);
 
-        final Person person = personRepository.findByEmail(decoded.getIssuer())
+        final PersonPrincipal person = personRepository.findPrincipalByEmail(decoded.getIssuer())
                 .orElseThrow(() -> new PersonNotFoundException("Unknown user"));
 
         return new UsernamePasswordAuthenticationToken(personMapper.toPersonDto(person), null, Collections.emptyList());
@@ -17,9 +17,11 @@ import org.springframework.security.web.authentication.www.BasicAuthenticationFi
 public class SecurityConfig {
 
     private final PersonAuthProvider personAuthProvider;
+    private final AdminAuthorizationManager adminAuthorizationManager;
 
     /**
-     * Configures the security filter chain for the application.
+     * Configures the security filter chain for the application. Endpoints that change formulas, rebuild derived data,
+     * import people or expose data and statistics of all people require the admin role, see {@link AdminAuthorizationManager}.
      *
      * @param http the HttpSecurity object used to configure security settings.
      * @return a SecurityFilterChain instance representing the configured security filter chain.
@@ -34,12 +36,24 @@ public class SecurityConfig {
                 .addFilterBefore(new JwtAuthFilter(personAuthProvider), BasicAuthenticationFilter.class)
                 .authorizeHttpRequests((requests) ->
                         requests
+                                .antMatchers(HttpMethod.PUT, "/api/ergonomic/formulas").access(adminAuthorizationManager)
+                                .antMatchers("/api/ergonomic/recompute").access(adminAuthorizationManager)
+                                .antMatchers(HttpMethod.POST, "/api/ergonomic/statistics/rebuild").access(adminAuthorizationManager)
+                                .antMatchers(HttpMethod.POST, "/api/ergonomic/catalogue/reload").access(adminAuthorizationManager)
+                                .antMatchers(HttpMethod.POST, "/api/ergonomic/import").access(adminAuthorizationManager)
+                                .antMatchers(HttpMethod.GET, "/api/ergonomic/procurement/plan").access(adminAuthorizationManager)
+                                .antMatchers(HttpMethod.GET, "/api/ergonomic/cache/stats").access(adminAuthorizationManager)
+                                .antMatchers(HttpMethod.GET, "/api/ergonomic/render/stats", "/api/ergonomic/render/memory",
+                                        "/api/ergonomic/render/sweep").access(adminAuthorizationManager)
+                                .antMatchers(HttpMethod.GET, "/api/ergonomic/workspaces/search/**").access(adminAuthorizationManager)
                                 .antMatchers(HttpMethod.POST, "/api/person/login").permitAll()
                                 .antMatchers(HttpMethod.PUT, "/api/person/register").permitAll()
                                 .antMatchers(HttpMethod.GET, "/api/ergonomic/openPdf/**").permitAll()
                                 .antMatchers(HttpMethod.POST, "/api/ergonomic/new").permitAll()
+                                .antMatchers(HttpMethod.POST, "/api/ergonomic/calculate/**").permitAll()
                                 .antMatchers(HttpMethod.DELETE, "/api/person/delete/**").permitAll()
                                 .antMatchers(HttpMethod.GET, "/api/ergonomic/download/**").permitAll()
+                                .regexMatchers(HttpMethod.GET, "/api/ergonomic/render/[0-9a-fA-F-]{36}").permitAll()
                                 .anyRequest().authenticated()
                 );
         return http.build();
@@ -0,0 +1,61 @@
+package com.app.ErgonomicCalculator.config;
+
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener of {@link WorkspaceMetrics} that evicts the cached PDF source of the person once a workspace
+ * insert, update or delete is committed, so every write path is covered: submits, PDF renders, recomputes, imports
+ * and deletes. Evicting after commit keeps a concurrent read from caching the row as it was before the write.
+ * Hibernate obtains the listener from the Spring context.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkspaceCacheEvictor {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    /**
+     * Evicts the PDF source of the workspace's person after commit, or right away without a transaction.
+     *
+     * @param workspaceMetrics written workspace metrics.
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evictAfterCommit(final WorkspaceMetrics workspaceMetrics) {
+        if (workspaceMetrics.getPerson() == null) {
+            return;
+        }
+        final String email = workspaceMetrics.getPerson().getEmail();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(email);
+            }
+        });
+    }
+
+    private void evict(final String email) {
+        cacheManager.ifAvailable(manager -> {
+            final Cache cache = manager.getCache(CacheConfig.WORKSPACE_PDF_SOURCES);
+            if (cache != null) {
+                cache.evict(email);
+            }
+        });
+    }
+}
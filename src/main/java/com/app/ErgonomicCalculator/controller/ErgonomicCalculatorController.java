@@ -1,19 +1,30 @@
 package com.app.ErgonomicCalculator.controller;
 
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogue;
 import com.app.ErgonomicCalculator.dto.*;
 import com.app.ErgonomicCalculator.exception.InvalidDataException;
 import com.app.ErgonomicCalculator.exception.ResourceNotFoundException;
+import com.app.ErgonomicCalculator.service.AnthropometricsImportService;
+import com.app.ErgonomicCalculator.service.BulkCalculationService;
 import com.app.ErgonomicCalculator.service.ErgonomicCalculatorService;
+import com.app.ErgonomicCalculator.service.PdfRenderJob;
+import com.app.ErgonomicCalculator.service.ProcurementService;
+import com.app.ErgonomicCalculator.service.WorkspaceRecomputeService;
+import com.app.ErgonomicCalculator.service.WorkspaceSearchService;
+import com.app.ErgonomicCalculator.service.WorkspaceStatisticsService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 
 /**
@@ -25,121 +36,373 @@ import java.io.*;
 @CrossOrigin(origins = "http://localhost:4200")
 public class ErgonomicCalculatorController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final ErgonomicCalculatorService service;
+    private final BulkCalculationService bulkCalculationService;
+    private final AnthropometricsImportService anthropometricsImportService;
+    private final WorkspaceRecomputeService workspaceRecomputeService;
+    private final WorkspaceStatisticsService workspaceStatisticsService;
+    private final FurnitureCatalogue furnitureCatalogue;
+    private final ProcurementService procurementService;
+    private final WorkspaceSearchService workspaceSearchService;
+    private final PdfResponseWriter pdfResponseWriter;
+
+    /**
+     * Method calculates workspace metrics from the anthropometric data provided in the request body.
+     * Nothing is saved and no PDF is created, the person email may be omitted.
+     *
+     * @param anthropometrics the Data Transfer Object containing the anthropometric information.
+     * @return ResponseEntity containing the calculated workspace metrics.
+     * @throws InvalidDataException if the provided in request body data is invalid.
+     */
+    @PostMapping("/calculate")
+    public ResponseEntity<WorkspaceMetricsDto> calculateWorkspaceMetrics(@RequestBody final AnthropometricsRequestDto anthropometrics) throws InvalidDataException {
+        return ResponseEntity.status(HttpStatus.OK).body(service.calculateWorkspaceMetrics(anthropometrics));
+    }
+
+    /**
+     * Method calculates workspace metrics for many people at once. The request body holds one JSON anthropometric
+     * record per line, the response holds one JSON result per record, either the metrics or the validation error,
+     * and is written while the request is still being read. Nothing is saved and no PDF is created.
+     *
+     * @param request  the HTTP request with the NDJSON records.
+     * @param response the HTTP response the NDJSON results are written to.
+     * @throws IOException if the records can not be read or the results written.
+     */
+    @PostMapping(value = "/calculate/bulk", consumes = NDJSON_VALUE)
+    public void calculateWorkspaceMetricsInBulk(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        bulkCalculationService.calculate(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Method imports anthropometric measurements from a CSV request body and creates or updates the people,
+     * anthropometrics and workspace metrics. An import that failed part way is resumed by sending the same
+     * file with the same import id.
+     *
+     * @param importId identifies the import and its checkpoint.
+     * @param request  the HTTP request with the CSV content.
+     * @return ResponseEntity containing the import report, status 500 if the import stopped on an error.
+     * @throws InvalidDataException if the CSV header is missing or invalid.
+     * @throws IOException          if the CSV can not be read.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReportDto> importAnthropometrics(@RequestParam final String importId, final HttpServletRequest request) throws InvalidDataException, IOException {
+        final ImportReportDto report = anthropometricsImportService.importCsv(importId, request.getInputStream());
+        return ResponseEntity.status(report.isFailed() ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK).body(report);
+    }
 
     /**
      * Method handles the processing of new anthropometric data provided in the request body.
      * It invokes the service to process that data and create workspace metrics.
+     * When the PDF is rendered in the background, responds with 202 and the id of the render job.
      *
      * @param anthropometrics the Data Transfer Object containing the anthropometric information and person email.
      * @return ResponseEntity containing status and message indicating the result of the operation.
-     * @throws InvalidDataException   if the provided in request body data is invalid.
-     * @throws IllegalAccessException if there is an illegal access error during processing.
-     * @throws IOException            if an input/output error occurs during processing.
+     * @throws InvalidDataException if the provided in request body data is invalid.
+     * @throws IOException          if an input/output error occurs during processing.
      */
     @PostMapping("/new")
-    public ResponseEntity<String> addNewAnthropometrics(@RequestBody final AnthropometricsRequestDto anthropometrics) throws InvalidDataException, IllegalAccessException, IOException {
-        service.getNewPersonAnthropometricsAndCreateWorkspace(anthropometrics);
-        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body("{\"message\":\"Person Anthropometrics processed and Workspace Metrics calculated.\"}");
+    public ResponseEntity<String> addNewAnthropometrics(@RequestBody final AnthropometricsRequestDto anthropometrics) throws InvalidDataException, IOException {
+        var renderJob = service.getNewPersonAnthropometricsAndCreateWorkspace(anthropometrics);
+        return processedResponse(renderJob);
     }
 
     /**
      * Method handles the processing of new anthropometric data when person authenticates themselves.
      * It invokes the service to process that data and create workspace metrics.
      *
+     * When the PDF is rendered in the background, responds with 202 and the id of the render job.
+     *
      * @param anthropometrics the Data Transfer Object containing the anthropometric information.
      * @param authentication  the authentication information from the current person, used to recognize the user.
      * @return Response entity containing status and message indicating the result of operation.
-     * @throws InvalidDataException   if the provided in request body data is invalid.
-     * @throws IOException            if there is an illegal access error during processing.
-     * @throws IllegalAccessException if an input/output error occurs during processing.
+     * @throws InvalidDataException if the provided in request body data is invalid.
+     * @throws IOException          if an input/output error occurs during processing.
      */
     @PostMapping("/anthropometrics")
-    public ResponseEntity<String> addAnthropometricsAfterAuth(@RequestBody final AnthropometricsRequestDtoAfterAuth anthropometrics, final Authentication authentication) throws InvalidDataException, IOException, IllegalAccessException {
-        service.updateOrCreateAnthropometricsAndWorkspace(anthropometrics, authentication);
-        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body("{\"message\":\"Person Anthropometrics processed and Workspace Metrics calculated.\"}");
+    public ResponseEntity<String> addAnthropometricsAfterAuth(@RequestBody final AnthropometricsRequestDtoAfterAuth anthropometrics, final Authentication authentication) throws InvalidDataException, IOException {
+        var renderJob = service.updateOrCreateAnthropometricsAndWorkspace(anthropometrics, authentication);
+        return processedResponse(renderJob);
+    }
+
+    /**
+     * Reports the state of a background PDF render job: QUEUED, RENDERING, DONE or FAILED.
+     *
+     * @param jobId id of the render job returned by the submit endpoints.
+     * @return ResponseEntity containing the render job state.
+     * @throws ResourceNotFoundException if the job is unknown or already expired.
+     */
+    @GetMapping("/render/{jobId}")
+    public ResponseEntity<RenderJobDto> getRenderJob(@PathVariable final UUID jobId) throws ResourceNotFoundException {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getRenderJob(jobId));
+    }
+
+    /**
+     * Reports render queue depth and worker utilisation of the background PDF rendering.
+     *
+     * @return ResponseEntity containing render queue statistics.
+     */
+    @GetMapping("/render/stats")
+    public ResponseEntity<RenderQueueStatsDto> getRenderQueueStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getRenderQueueStats());
+    }
+
+    /**
+     * Endpoint for retrieving the render memory budget, in flight renders and peak render memory.
+     *
+     * @return ResponseEntity containing render memory statistics.
+     */
+    @GetMapping("/render/memory")
+    public ResponseEntity<RenderMemoryStatsDto> getRenderMemoryStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getRenderMemoryStats());
+    }
+
+    /**
+     * Endpoint for retrieving the counters of the PDF storage sweeper.
+     *
+     * @return ResponseEntity containing orphaned and missing PDF counts.
+     */
+    @GetMapping("/render/sweep")
+    public ResponseEntity<PdfSweepStatsDto> getPdfSweepStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getPdfSweepStats());
+    }
+
+    /**
+     * Endpoint for retrieving size and hit rate of the email lookup caches.
+     *
+     * @return ResponseEntity containing statistics per cache.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getCacheStats());
+    }
+
+    /**
+     * Endpoint for retrieving the formulas workspace metrics are calculated with.
+     *
+     * @return ResponseEntity containing the formula version and expression per workspace metric.
+     */
+    @GetMapping("/formulas")
+    public ResponseEntity<FormulaSetDto> getFormulas() {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getFormulas());
+    }
+
+    /**
+     * Endpoint for replacing the workspace formulas at runtime. The formulas are compiled before they are used,
+     * invalid formulas are rejected and the current ones stay in use.
+     *
+     * @param formulaSetDto new formula version and expression per workspace metric.
+     * @return ResponseEntity containing the installed formula version and definitions.
+     * @throws InvalidDataException if the formulas are invalid or the version was used before with other definitions.
+     */
+    @PutMapping("/formulas")
+    public ResponseEntity<FormulaSetDto> updateFormulas(@RequestBody final FormulaSetDto formulaSetDto) throws InvalidDataException {
+        return ResponseEntity.status(HttpStatus.OK).body(service.updateFormulas(formulaSetDto));
+    }
+
+    /**
+     * Starts recalculating the stored workspaces that were calculated with other formulas than the current ones.
+     * The job runs in the background, a stopped or failed job continues where it ended.
+     *
+     * @return ResponseEntity containing the progress of the recompute job.
+     */
+    @PostMapping("/recompute")
+    public ResponseEntity<RecomputeProgressDto> startRecompute() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(workspaceRecomputeService.start());
+    }
+
+    /**
+     * Endpoint for retrieving the progress and throughput of the workspace recompute job.
+     *
+     * @return ResponseEntity containing the progress of the recompute job.
+     */
+    @GetMapping("/recompute")
+    public ResponseEntity<RecomputeProgressDto> getRecomputeProgress() {
+        return ResponseEntity.status(HttpStatus.OK).body(workspaceRecomputeService.getProgress());
+    }
+
+    /**
+     * Stops the workspace recompute job once its current chunk is saved.
+     *
+     * @return ResponseEntity containing the progress of the recompute job.
+     */
+    @DeleteMapping("/recompute")
+    public ResponseEntity<RecomputeProgressDto> stopRecompute() {
+        return ResponseEntity.status(HttpStatus.OK).body(workspaceRecomputeService.stop());
+    }
+
+    /**
+     * Endpoint for retrieving percentiles of workspace metrics and anthropometric measures, over all people or over
+     * the people of the given email domains. Answered from quantile sketches, the tables are not scanned.
+     *
+     * @param domains     email domains to combine, all people if omitted.
+     * @param percentiles percentiles between 0 and 100, 5th, 50th and 95th if omitted.
+     * @return ResponseEntity containing the percentiles per metric.
+     * @throws InvalidDataException if a percentile is out of range.
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<WorkspaceStatisticsDto> getStatistics(@RequestParam(name = "domain", required = false) final List<String> domains,
+                                                                @RequestParam(name = "percentile", required = false) final List<Double> percentiles) throws InvalidDataException {
+        return ResponseEntity.status(HttpStatus.OK).body(workspaceStatisticsService.getStatistics(domains, percentiles));
+    }
+
+    /**
+     * Rebuilds the workspace statistics from the stored anthropometrics and workspaces, dropping the values
+     * earlier submissions of the same people left in the sketches.
+     *
+     * @return ResponseEntity containing the rebuilt percentiles over all people.
+     * @throws InvalidDataException never, the default percentiles are used.
+     */
+    @PostMapping("/statistics/rebuild")
+    public ResponseEntity<WorkspaceStatisticsDto> rebuildStatistics() throws InvalidDataException {
+        workspaceStatisticsService.rebuild();
+        return ResponseEntity.status(HttpStatus.OK).body(workspaceStatisticsService.getStatistics(null, null));
+    }
+
+    /**
+     * Method reloads the furniture catalogue the recommendations are picked from.
+     * Stored PDFs whose recommendations change are rendered again on next access.
+     *
+     * @return ResponseEntity containing the number of indexed products.
+     * @throws IOException          if the catalogue file can not be read.
+     * @throws InvalidDataException if the catalogue header is invalid.
+     */
+    @PostMapping("/catalogue/reload")
+    public ResponseEntity<String> reloadFurnitureCatalogue() throws IOException, InvalidDataException {
+        final int products = furnitureCatalogue.reload();
+        return ResponseEntity.status(HttpStatus.OK).body("Furniture catalogue reloaded, " + products + " products indexed.");
+    }
+
+    /**
+     * Method plans bulk furniture purchases over all stored workspaces: the smallest set of desk and chair settings
+     * such that the requested share of workspaces is within the tolerance of one of them.
+     *
+     * @param coverage       share of workspaces to cover, between 0 and 1.
+     * @param tolerance      allowed deviation in cm per metric.
+     * @param configurations maximum number of settings, optional.
+     * @return ResponseEntity containing the settings and their coverage.
+     * @throws InvalidDataException if a parameter is out of range.
+     */
+    @GetMapping("/procurement/plan")
+    public ResponseEntity<ProcurementPlanDto> planProcurement(@RequestParam(name = "coverage", defaultValue = "0.9") final double coverage,
+                                                              @RequestParam(name = "tolerance", defaultValue = "2.0") final double tolerance,
+                                                              @RequestParam(name = "configurations", required = false) final Integer configurations) throws InvalidDataException {
+        return ResponseEntity.status(HttpStatus.OK).body(procurementService.plan(coverage, tolerance, configurations));
+    }
+
+    /**
+     * Method searches stored workspaces by metric ranges and returns one page of results.
+     * Pass the next keyset of a page as {@code afterValue} and {@code afterId} to get the following page.
+     *
+     * @param ranges     ranges as {@code metric:min:max}, e.g. {@code tableHeightSeated:70:74}, either bound may be empty.
+     * @param afterValue keyset value from the previous page.
+     * @param afterId    keyset id from the previous page.
+     * @param size       page size, optional.
+     * @return ResponseEntity containing matching workspaces with their person and the next keyset.
+     * @throws InvalidDataException if a range or the page size is invalid.
+     */
+    @GetMapping("/workspaces/search")
+    public ResponseEntity<WorkspaceSearchPageDto> searchWorkspaces(@RequestParam(name = "range") final List<String> ranges,
+                                                                   @RequestParam(name = "afterValue", required = false) final Double afterValue,
+                                                                   @RequestParam(name = "afterId", required = false) final Long afterId,
+                                                                   @RequestParam(name = "size", required = false) final Integer size) throws InvalidDataException {
+        return ResponseEntity.status(HttpStatus.OK).body(workspaceSearchService.search(ranges, afterValue, afterId, size));
+    }
+
+    /**
+     * Method streams all stored workspaces within the metric ranges as NDJSON, one workspace per line.
+     *
+     * @param ranges   ranges as {@code metric:min:max}.
+     * @param response HTTP response the results are written to.
+     * @throws InvalidDataException if a range is invalid.
+     * @throws IOException          if the response can not be written.
+     */
+    @GetMapping("/workspaces/search/stream")
+    public void streamWorkspaces(@RequestParam(name = "range") final List<String> ranges,
+                                 final HttpServletResponse response) throws InvalidDataException, IOException {
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        workspaceSearchService.stream(ranges, response.getOutputStream());
+    }
+
+    /**
+     * Builds the submit response: 202 with the render job id when the PDF is rendered in the background, 200 otherwise.
+     *
+     * @param renderJob queued render job, empty when no background render was queued.
+     * @return ResponseEntity containing status and message indicating the result of the operation.
+     */
+    private ResponseEntity<String> processedResponse(final Optional<PdfRenderJob> renderJob) {
+        return renderJob
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).contentType(MediaType.APPLICATION_JSON).body("{\"message\":\"Person Anthropometrics processed, Workspace PDF is being rendered.\",\"jobId\":\"" + job.getId() + "\"}"))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body("{\"message\":\"Person Anthropometrics processed and Workspace Metrics calculated.\"}"));
     }
 
     /**
      * Downloads the workspace PDF for the specified email.
-     * Retrieves the PDF file associated with the given email address and returns it as a downloadable
+     * Retrieves the PDF associated with the given email address and writes it as a downloadable
      * response. The response headers are set to indicate that the content is a PDF file and that it should be treated
-     * as an attachment for download.
+     * as an attachment for download. Supports conditional requests and byte ranges, see {@link PdfResponseWriter}.
      *
-     * @param email the email address associated with the workspace whose PDF file is to be downloaded.
-     * @return ResponseEntity containing the PDF file as an attachment.
-     * @throws FileNotFoundException if the PDF file corresponding to the specified email is not found.
+     * @param email    the email address associated with the workspace whose PDF file is to be downloaded.
+     * @param request  the HTTP request, checked for conditional and Range headers.
+     * @param response the HTTP response the PDF is written to.
+     * @throws IOException               if the PDF can not be rendered or accessed.
+     * @throws ResourceNotFoundException if the PDF file corresponding to the specified email is not found.
      */
     @GetMapping("/download/{email}")
-    public ResponseEntity<InputStreamResource> getPdf(@PathVariable final String email) throws FileNotFoundException {
-        var pdfFile = service.getWorkspacePDF(email);
-
-        var headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + pdfFile.getName());
-        headers.add(HttpHeaders.CONTENT_TYPE, "application/pdf");
-
-        return ResponseEntity.ok()
-                .headers(headers)
-                .contentLength(pdfFile.length())
-                .body(new InputStreamResource(new FileInputStream(pdfFile)));
+    public void getPdf(@PathVariable final String email, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ResourceNotFoundException {
+        pdfResponseWriter.write(service.getWorkspacePDF(email), true, request, response);
     }
 
     /**
      * Downloads the workspace PDF for the authenticated person.
-     * Retrieves the PDF file associated with the retrieved email from the authentication and returns it as a downloadable response.
+     * Retrieves the PDF associated with the retrieved email from the authentication and writes it as a downloadable response.
      * The response headers are set to indicate that the content is a PDF file and that it should be treated as an attachment for download.
      *
      * @param authentication the authentication information from the current person, used to recognize the user.
-     * @return ResponseEntity containing the PDF file as an attachment.
-     * @throws FileNotFoundException if the PDF file corresponding to the specified email is not found.
+     * @param request        the HTTP request, checked for conditional and Range headers.
+     * @param response       the HTTP response the PDF is written to.
+     * @throws IOException               if the PDF can not be rendered or accessed.
+     * @throws ResourceNotFoundException if the PDF file corresponding to the specified email is not found.
      */
     @GetMapping("/auth/download")
-    public ResponseEntity<InputStreamResource> downloadPdfAfterAuth(final Authentication authentication) throws FileNotFoundException {
-        var pdfFile = service.getWorkspacePDFAfterAuth(authentication);
-
-        var headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + pdfFile.getName());
-        headers.add(HttpHeaders.CONTENT_TYPE, "application/pdf");
-
-        return ResponseEntity.ok()
-                .headers(headers)
-                .contentLength(pdfFile.length())
-                .body(new InputStreamResource(new FileInputStream(pdfFile)));
+    public void downloadPdfAfterAuth(final Authentication authentication, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ResourceNotFoundException {
+        pdfResponseWriter.write(service.getWorkspacePDFAfterAuth(authentication), true, request, response);
     }
 
     /**
      * Streams the workspace PDF for the specified email for viewing in the browser.
-     * Retrieves a stream of the PDF file associated with the given email address and returns it in the
+     * Retrieves the PDF associated with the given email address and writes it to the
      * response with the appropriate headers set for viewing the PDF directly in the browser.
+     * PDF viewers may fetch the document incrementally with byte ranges.
      *
-     * @param email the email address associated with the workspace whose PDF file is to be streamed.
-     * @return ResponseEntity containing the PDF file stream.
+     * @param email    the email address associated with the workspace whose PDF file is to be streamed.
+     * @param request  the HTTP request, checked for conditional and Range headers.
+     * @param response the HTTP response the PDF is written to.
      * @throws IOException               if an input/output error occurs while retrieving the PDF file stream.
      * @throws ResourceNotFoundException if the PDF file corresponding to the specified email is not found.
      */
     @GetMapping("/openPdf/{email}")
-    public ResponseEntity<InputStreamResource> viewPDF(@PathVariable final String email) throws IOException, ResourceNotFoundException {
-        var data = service.getWorkspacePDFStream(email);
-        var headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        return ResponseEntity.ok().headers(headers).body(new InputStreamResource(data));
+    public void viewPDF(@PathVariable final String email, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ResourceNotFoundException {
+        pdfResponseWriter.write(service.getWorkspacePDF(email), false, request, response);
     }
 
     /**
      * Streams the workspace PDF for the authenticated person for viewing in the browser.
-     * Retrieves a stream of the PDF file associated with the retrieved email from the authentication and returns it in the
+     * Retrieves the PDF associated with the retrieved email from the authentication and writes it to the
      * response with the appropriate headers set for viewing the PDF directly in the browser.
      *
      * @param authentication the authentication information from the current person, used to recognize the user.
-     * @return ResponseEntity containing the PDF file stream.
+     * @param request        the HTTP request, checked for conditional and Range headers.
+     * @param response       the HTTP response the PDF is written to.
      * @throws IOException               if an input/output error occurs while retrieving the PDF file stream.
      * @throws ResourceNotFoundException if the PDF file corresponding to the specified email is not found.
      */
     @GetMapping("/auth/pdf")
-    public ResponseEntity<InputStreamResource> openPdfAfterAuth(final Authentication authentication) throws IOException, ResourceNotFoundException {
-        var data = service.getWorkspacePDFStreamAfterAuth(authentication);
-        var headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        return ResponseEntity.ok().headers(headers).body(new InputStreamResource(data));
+    public void openPdfAfterAuth(final Authentication authentication, final HttpServletRequest request, final HttpServletResponse response) throws IOException, ResourceNotFoundException {
+        pdfResponseWriter.write(service.getWorkspacePDFAfterAuth(authentication), false, request, response);
     }
 }
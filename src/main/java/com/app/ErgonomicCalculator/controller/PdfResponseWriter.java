@@ -0,0 +1,127 @@
+package com.app.ErgonomicCalculator.controller;
+
+import com.app.ErgonomicCalculator.service.WorkspacePdf;
+import com.app.ErgonomicCalculator.storage.StoredPdf;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes workspace PDFs to HTTP responses. Answers conditional requests with 304 Not Modified based on the
+ * content key ETag and the storage modification time, serves single byte ranges of stored PDFs, and hands PDFs
+ * stored on the local file system to Tomcat sendfile when the connector supports it. Other PDFs are copied
+ * through the range reader of their storage backend.
+ */
+@Component
+public class PdfResponseWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Writes the PDF, or only the status and headers when the client copy is still valid.
+     *
+     * @param pdf        the workspace PDF to send.
+     * @param attachment whether the PDF should be downloaded instead of displayed in the browser.
+     * @param request    current HTTP request, checked for conditional and Range headers.
+     * @param response   current HTTP response.
+     * @throws IOException if the PDF can not be read, rendered or written.
+     */
+    public void write(final WorkspacePdf pdf, final boolean attachment, final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        if (new ServletWebRequest(request, response).checkNotModified(pdf.getETag(), pdf.getLastModified())) {
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        if (attachment) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + pdf.getFileName());
+        }
+        if (!pdf.isStored()) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+            pdf.writeTo(response.getOutputStream());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        final long length = pdf.getContentLength();
+        long start = 0;
+        long end = length - 1;
+
+        final HttpRange range = requestedRange(pdf, request);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentLengthLong(end - start + 1);
+
+        final StoredPdf storedPdf = pdf.getStoredPdf();
+        if (storedPdf.getLocalFile() != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, storedPdf.getLocalFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        storedPdf.read(response.getOutputStream(), start, end - start + 1);
+    }
+
+    /**
+     * Resolves the byte range to serve. Only a single range is served, requests for several ranges and
+     * ranges conditional on an outdated If-Range validator get the whole document.
+     *
+     * @param pdf     the stored workspace PDF.
+     * @param request current HTTP request.
+     * @return requested range, null if the whole document should be sent.
+     */
+    private static HttpRange requestedRange(final WorkspacePdf pdf, final HttpServletRequest request) {
+        final String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(pdf, request)) {
+            return null;
+        }
+        final List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    /**
+     * Checks the If-Range validator, which may be either an entity tag or a date.
+     *
+     * @param pdf     the stored workspace PDF.
+     * @param request current HTTP request.
+     * @return true if there is no If-Range header or it still matches the PDF.
+     */
+    private static boolean ifRangeMatches(final WorkspacePdf pdf, final HttpServletRequest request) {
+        final String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(pdf.getETag());
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == pdf.getLastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.app.ErgonomicCalculator.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCalculationResultDto {
+    private long line;
+    private String personEmail;
+    private WorkspaceMetricsDto metrics;
+    private String error;
+}
@@ -0,0 +1,18 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormulaSetDto {
+
+    private String version;
+    private Map<String, String> definitions;
+}
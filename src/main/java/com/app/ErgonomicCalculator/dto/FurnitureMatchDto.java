@@ -0,0 +1,21 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FurnitureMatchDto {
+    private String sku;
+    private String name;
+    private String type;
+    /**
+     * Distance in cm between the workspace metrics and the adjustable ranges of the product, 0 if it fits.
+     */
+    private double distance;
+    private boolean fits;
+}
@@ -0,0 +1,27 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportDto {
+    private String importId;
+    private long resumedAfterRow;
+    private long lastCommittedRow;
+    private long rowsRead;
+    private long rowsSkipped;
+    private long rowsImported;
+    private long rowsRejected;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private boolean failed;
+    private String failure;
+    private List<String> errors;
+}
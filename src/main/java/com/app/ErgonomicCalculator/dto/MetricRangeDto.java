@@ -0,0 +1,22 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricRangeDto {
+    /**
+     * Workspace metric name, e.g. {@code tableHeightSeated}.
+     */
+    private String metric;
+    /**
+     * Inclusive bounds in cm, null for an open end.
+     */
+    private Double min;
+    private Double max;
+}
@@ -0,0 +1,25 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfSweepStatsDto {
+    private long completedStoragePasses;
+    private long completedWorkspacePasses;
+    private Instant lastStoragePassCompletedAt;
+    private Instant lastWorkspacePassCompletedAt;
+    private long scannedPdfs;
+    private long deletedOrphans;
+    private long scannedWorkspaces;
+    private long danglingWorkspaces;
+    private long queuedRenders;
+    private long failedBatches;
+}
@@ -0,0 +1,17 @@
+package com.app.ErgonomicCalculator.dto;
+
+/**
+ * Columns of a person needed to authenticate them. Read as a projection, so neither the anthropometrics
+ * nor the workspace of the person are loaded.
+ */
+public interface PersonCredentials {
+    Long getId();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getPassword();
+}
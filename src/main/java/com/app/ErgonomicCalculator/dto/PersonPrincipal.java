@@ -0,0 +1,20 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * Columns of a person an authenticated request is made on behalf of. Read as a projection and cached by email,
+ * so the password hash is deliberately left out.
+ */
+@Value
+public class PersonPrincipal implements Serializable {
+    Long id;
+
+    String email;
+
+    String firstName;
+
+    String lastName;
+}
@@ -0,0 +1,27 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcurementConfigurationDto {
+    /**
+     * Furniture setting per metric name, the mean of the workspaces of the cluster.
+     */
+    private Map<String, Double> setting;
+    /**
+     * Adjustable range per metric name needed to fit every covered workspace exactly.
+     */
+    private Map<String, Double> coveredMin;
+    private Map<String, Double> coveredMax;
+    private long workspaces;
+    private long coveredWorkspaces;
+    private double coverage;
+}
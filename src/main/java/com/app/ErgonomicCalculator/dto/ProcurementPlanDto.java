@@ -0,0 +1,28 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcurementPlanDto {
+    private double targetCoverage;
+    private double tolerance;
+    private List<String> metrics;
+    private long workspaces;
+    /**
+     * Workspaces left out because one of the metrics is missing.
+     */
+    private long skippedWorkspaces;
+    private double coverage;
+    private boolean targetReached;
+    private List<ProcurementConfigurationDto> configurations;
+    private long scanMillis;
+    private long clusteringMillis;
+}
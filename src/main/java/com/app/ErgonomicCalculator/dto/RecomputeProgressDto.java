@@ -0,0 +1,28 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecomputeProgressDto {
+    private String status;
+    private String formulaVersion;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long outdatedWorkspaces;
+    private long recomputedWorkspaces;
+    private long lastAnthropometricsId;
+    private long elapsedMillis;
+    private double workspacesPerSecond;
+    private int pendingRenders;
+    private long queuedRenders;
+    private long deferredRenders;
+    private String error;
+}
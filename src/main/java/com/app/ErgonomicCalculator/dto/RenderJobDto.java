@@ -0,0 +1,21 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderJobDto {
+    private UUID jobId;
+    private String status;
+    private Instant queuedAt;
+    private Instant finishedAt;
+    private String error;
+}
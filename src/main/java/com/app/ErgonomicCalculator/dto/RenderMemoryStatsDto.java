@@ -0,0 +1,24 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderMemoryStatsDto {
+    private long heapBudgetBytes;
+    private long estimatedBytesPerRender;
+    private long mainMemoryPerRenderBytes;
+    private int maxConcurrentRenders;
+    private int inFlightRenders;
+    private int peakInFlightRenders;
+    private long completedRenders;
+    private long waitedRenders;
+    private long rejectedRenders;
+    private long lastRenderAllocatedBytes;
+    private long peakRenderAllocatedBytes;
+}
@@ -0,0 +1,21 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderQueueStatsDto {
+    private int queueDepth;
+    private int queueCapacity;
+    private int workers;
+    private int activeWorkers;
+    private double workerUtilisation;
+    private long completedJobs;
+    private long failedJobs;
+    private long rejectedJobs;
+}
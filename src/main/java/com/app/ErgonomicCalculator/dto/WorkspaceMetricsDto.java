@@ -0,0 +1,33 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceMetricsDto {
+
+    private Double tableHeightSeated;
+    private Double tableHeightStanding;
+    private Double tableWidth;
+
+    private Double displayHeightSeated;
+    private Double displayHeightStanding;
+
+    private Double chairSeatHeight;
+    private Double chairSeatWidth;
+    private Double armRestHeight;
+    private Double chairBackSupportHeight;
+    private Double chairBackSupportWidth;
+    private Double chairHeadSupportHeight;
+
+    private String formulaVersion;
+
+    private List<FurnitureMatchDto> recommendedFurniture;
+}
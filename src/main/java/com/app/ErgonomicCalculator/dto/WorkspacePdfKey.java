@@ -0,0 +1,14 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.Value;
+
+/**
+ * Id and PDF content key of a workspace, read as a projection so walking the workspaces loads neither the workspace
+ * entities nor their person.
+ */
+@Value
+public class WorkspacePdfKey {
+    Long id;
+
+    String imagePath;
+}
@@ -0,0 +1,38 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Columns a workspace PDF is rendered and looked up from: the rendered metrics, the stored PDF key and the email
+ * printed on the document. Built straight from the query columns, the constructor parameter order is part of the query.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspacePdfSourceDto implements Serializable {
+    private Long id;
+
+    private Double tableHeightSeated;
+    private Double tableHeightStanding;
+    private Double tableWidth;
+
+    private Double displayHeightSeated;
+    private Double displayHeightStanding;
+
+    private Double chairSeatHeight;
+    private Double chairSeatWidth;
+    private Double armRestHeight;
+    private Double chairBackSupportHeight;
+    private Double chairBackSupportWidth;
+    private Double chairHeadSupportHeight;
+
+    private String imagePath;
+    private String formulaVersion;
+    private String email;
+}
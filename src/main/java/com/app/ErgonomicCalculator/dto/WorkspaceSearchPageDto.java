@@ -0,0 +1,25 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceSearchPageDto {
+    /**
+     * Metric the results are ordered by, the first searched metric that has an index.
+     */
+    private String orderedBy;
+    private List<WorkspaceSearchResultDto> results;
+    /**
+     * Keyset of the next page, both null on the last page.
+     */
+    private Double nextAfterValue;
+    private Long nextAfterId;
+}
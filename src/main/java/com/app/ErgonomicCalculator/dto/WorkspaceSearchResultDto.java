@@ -0,0 +1,37 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Workspace found by a metric range search, with the person it belongs to. Built straight from the query columns,
+ * the constructor parameter order is part of the search query.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceSearchResultDto {
+    private Long workspaceId;
+    private String email;
+    private String firstName;
+    private String lastName;
+
+    private Double tableHeightSeated;
+    private Double tableHeightStanding;
+    private Double tableWidth;
+
+    private Double displayHeightSeated;
+    private Double displayHeightStanding;
+
+    private Double chairSeatHeight;
+    private Double chairSeatWidth;
+    private Double armRestHeight;
+    private Double chairBackSupportHeight;
+    private Double chairBackSupportWidth;
+    private Double chairHeadSupportHeight;
+
+    private String formulaVersion;
+}
@@ -0,0 +1,22 @@
+package com.app.ErgonomicCalculator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceStatisticsDto {
+    private List<String> groups;
+    private long people;
+    /**
+     * Percentiles per metric name, keyed by percentile, e.g. {@code p5}, {@code p50}, {@code p95}.
+     */
+    private Map<String, Map<String, Double>> percentiles;
+}
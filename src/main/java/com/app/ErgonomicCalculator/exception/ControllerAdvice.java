@@ -32,6 +32,12 @@ public class ControllerAdvice {
                 .body(e.getMessage());
     }
 
+    @ExceptionHandler
+    public ResponseEntity<?> handleRenderBudgetExhaustedException(RenderBudgetExhaustedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(e.getMessage());
+    }
+
     @ExceptionHandler
     public ResponseEntity<?> handleIncorrectPasswordException(IncorrectPasswordException e) {
         return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE)
@@ -0,0 +1,13 @@
+package com.app.ErgonomicCalculator.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a PDF render can not get a share of the render heap budget in time. Extends IOException as it
+ * surfaces from the same render calls as other render failures.
+ */
+public class RenderBudgetExhaustedException extends IOException {
+    public RenderBudgetExhaustedException(String message) {
+        super(message);
+    }
+}
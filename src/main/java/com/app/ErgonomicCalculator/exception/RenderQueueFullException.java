@@ -0,0 +1,7 @@
+package com.app.ErgonomicCalculator.exception;
+
+public class RenderQueueFullException extends Exception {
+    public RenderQueueFullException(String message) {
+        super(message);
+    }
+}
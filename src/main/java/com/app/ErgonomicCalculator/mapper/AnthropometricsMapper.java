@@ -4,6 +4,8 @@ import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
 import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDtoAfterAuth;
 import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 
 @Mapper(componentModel = "spring")
 public interface AnthropometricsMapper {
@@ -11,4 +13,29 @@ public interface AnthropometricsMapper {
     PersonAnthropometrics toPersonAnthropometrics(AnthropometricsRequestDto anthropometricsRequestDto);
 
     AnthropometricsRequestDto toAnthropometricsRequestDto(AnthropometricsRequestDtoAfterAuth requestDtoAfterAuth);
+
+    @Mapping(target = "personEmail", ignore = true)
+    AnthropometricsRequestDto toAnthropometricsRequestDto(PersonAnthropometrics anthropometrics);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "person", ignore = true)
+    void updatePersonAnthropometrics(AnthropometricsRequestDto anthropometricsRequestDto, @MappingTarget PersonAnthropometrics anthropometrics);
+
+    /**
+     * Copies the measures of the request onto the saved anthropometrics if any of them differ.
+     * Id and person of the entity are kept.
+     *
+     * @param anthropometricsRequestDto new measures.
+     * @param anthropometrics           saved anthropometrics, updated in place.
+     * @return true if a measure changed, false if the entity was left untouched.
+     */
+    default boolean updateIfChanged(final AnthropometricsRequestDto anthropometricsRequestDto, final PersonAnthropometrics anthropometrics) {
+        final AnthropometricsRequestDto current = toAnthropometricsRequestDto(anthropometrics);
+        current.setPersonEmail(anthropometricsRequestDto.getPersonEmail());
+        if (current.equals(anthropometricsRequestDto)) {
+            return false;
+        }
+        updatePersonAnthropometrics(anthropometricsRequestDto, anthropometrics);
+        return true;
+    }
 }
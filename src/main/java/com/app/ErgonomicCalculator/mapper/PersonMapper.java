@@ -1,6 +1,8 @@
 package com.app.ErgonomicCalculator.mapper;
 
+import com.app.ErgonomicCalculator.dto.PersonCredentials;
 import com.app.ErgonomicCalculator.dto.PersonDto;
+import com.app.ErgonomicCalculator.dto.PersonPrincipal;
 import com.app.ErgonomicCalculator.dto.RegisterDto;
 import com.app.ErgonomicCalculator.model.Person;
 import org.mapstruct.Mapper;
@@ -11,6 +13,11 @@ public interface PersonMapper {
 
     PersonDto toPersonDto(Person person);
 
+    PersonDto toPersonDto(PersonCredentials credentials);
+
+    PersonDto toPersonDto(PersonPrincipal principal);
+
     @Mapping(target = "password", ignore = true)
+    @Mapping(target = "admin", ignore = true)
     Person toPerson(RegisterDto registerDto);
 }
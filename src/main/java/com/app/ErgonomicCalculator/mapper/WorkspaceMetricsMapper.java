@@ -0,0 +1,19 @@
+package com.app.ErgonomicCalculator.mapper;
+
+import com.app.ErgonomicCalculator.dto.WorkspacePdfSourceDto;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface WorkspaceMetricsMapper {
+
+    /**
+     * Builds a detached workspace to render a PDF from. The person only carries the email, the result must not be saved.
+     *
+     * @param pdfSource workspace columns read for a PDF download.
+     * @return detached workspace metrics.
+     */
+    @Mapping(target = "person.email", source = "email")
+    WorkspaceMetrics toWorkspaceMetrics(WorkspacePdfSourceDto pdfSource);
+}
@@ -0,0 +1,27 @@
+package com.app.ErgonomicCalculator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+/**
+ * Installed formula set, the definitions are stored as a JSON object of expression per workspace metric.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormulaVersion {
+
+    @Id
+    private String version;
+
+    private String definitions;
+    private Instant installedAt;
+}
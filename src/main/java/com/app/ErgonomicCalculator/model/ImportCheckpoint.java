@@ -0,0 +1,26 @@
+package com.app.ErgonomicCalculator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportCheckpoint {
+
+    @Id
+    private String importId;
+
+    private long lastCommittedRow;
+    private long importedRows;
+    private long rejectedRows;
+    private Instant updatedAt;
+}
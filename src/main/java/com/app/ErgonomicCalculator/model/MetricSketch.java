@@ -0,0 +1,37 @@
+package com.app.ErgonomicCalculator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+/**
+ * Serialized quantile sketch of one metric within one group of people.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSketch {
+
+    @Id
+    private String id;
+
+    private String groupName;
+    private String metric;
+    private byte[] digest;
+    private Instant updatedAt;
+
+    @Override
+    public String toString() {
+        return "MetricSketch{" +
+                "id='" + id + '\'' +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -16,7 +16,8 @@ import javax.persistence.*;
 public class Person {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
@@ -26,6 +27,7 @@ public class Person {
     private String firstName;
     private String lastName;
     private String password;
+    private boolean admin;
 
     @OneToOne(mappedBy = "person", cascade = CascadeType.ALL)
     private PersonAnthropometrics personAnthropometrics;
@@ -41,6 +43,7 @@ public class Person {
                 ", firstName='" + firstName + '\'' +
                 ", lastName='" + lastName + '\'' +
                 ", password='" + password + '\'' +
+                ", admin=" + admin +
                 '}';
     }
 }
@@ -4,10 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 
 @Entity
+@DynamicUpdate
 @Data
 @Builder
 @NoArgsConstructor
@@ -15,7 +17,8 @@ import javax.persistence.*;
 public class PersonAnthropometrics {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_anthropometrics_seq")
+    @SequenceGenerator(name = "person_anthropometrics_seq", sequenceName = "person_anthropometrics_seq", allocationSize = 50)
     private Long id;
 
     private Double height;
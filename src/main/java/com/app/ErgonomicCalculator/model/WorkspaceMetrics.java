@@ -1,13 +1,17 @@
 package com.app.ErgonomicCalculator.model;
 
+import com.app.ErgonomicCalculator.config.WorkspaceCacheEvictor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 
 @Entity
+@DynamicUpdate
+@EntityListeners(WorkspaceCacheEvictor.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -15,7 +19,8 @@ import javax.persistence.*;
 public class WorkspaceMetrics {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "workspace_metrics_seq")
+    @SequenceGenerator(name = "workspace_metrics_seq", sequenceName = "workspace_metrics_seq", allocationSize = 50)
     private Long id;
 
     private Double tableHeightSeated;
@@ -34,6 +39,8 @@ public class WorkspaceMetrics {
 
     private String imagePath;
 
+    private String formulaVersion;
+
     @OneToOne
     @JoinColumn(name = "person_id")
     private Person person;
@@ -54,6 +61,7 @@ public class WorkspaceMetrics {
                 ", chairBackSupportWidth=" + chairBackSupportWidth +
                 ", chairHeadSupportHeight=" + chairHeadSupportHeight +
                 ", imagePath='" + imagePath + '\'' +
+                ", formulaVersion='" + formulaVersion + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,34 @@
+package com.app.ErgonomicCalculator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspacePdfBlob {
+
+    @Id
+    private String storageKey;
+
+    private byte[] content;
+    private Long size;
+    private Instant createdAt;
+
+    @Override
+    public String toString() {
+        return "WorkspacePdfBlob{" +
+                "storageKey='" + storageKey + '\'' +
+                ", size=" + size +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,390 @@
+package com.app.ErgonomicCalculator.procurement;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel Lloyd k-means over a {@link MetricMatrix}. Every iteration is one fork-join pass over row ranges: each
+ * leaf assigns its rows to the nearest centroid and sums them per cluster, the partial sums are merged on join and
+ * the new centroids are the means. Seeds are chosen with k-means++ on a bounded sample of the rows.
+ * <p>
+ * Large matrices are clustered on an evenly strided sample first, and only the final assignment and mean pass
+ * runs over all rows, so the cost of a fit grows with the sample instead of the table. Results are deterministic
+ * for a given seed, independent of the parallelism.
+ */
+public final class KMeans {
+
+    /**
+     * Rows handled by one fork-join leaf.
+     */
+    private static final int LEAF_ROWS = 8192;
+
+    private static final int SEED_SAMPLE_ROWS = 20_000;
+
+    /**
+     * Share of rows that may still change their cluster in an iteration for the clustering to count as converged.
+     */
+    private static final double CONVERGED_CHANGES = 0.001;
+
+    /**
+     * Clustering of the rows of a matrix.
+     */
+    @Getter
+    public static final class Result {
+        private final int clusters;
+        private final double[] centroids;
+        private final int[] assignments;
+        private final long[] sizes;
+        private final int iterations;
+
+        private Result(final int clusters, final double[] centroids, final int[] assignments, final long[] sizes, final int iterations) {
+            this.clusters = clusters;
+            this.centroids = centroids;
+            this.assignments = assignments;
+            this.sizes = sizes;
+            this.iterations = iterations;
+        }
+
+        /**
+         * Reads a centroid coordinate.
+         *
+         * @param cluster   cluster index.
+         * @param dimension dimension index.
+         * @return mean of the cluster rows in the dimension.
+         */
+        public double centroid(final int cluster, final int dimension) {
+            return centroids[cluster * (centroids.length / clusters) + dimension];
+        }
+    }
+
+    /**
+     * Rows within the tolerance of a centroid in every dimension.
+     */
+    @Getter
+    public static final class Coverage {
+        private final long[] covered;
+        private final double[] min;
+        private final double[] max;
+        private final long coveredRows;
+
+        private Coverage(final long[] covered, final double[] min, final double[] max) {
+            this.covered = covered;
+            this.min = min;
+            this.max = max;
+            this.coveredRows = Arrays.stream(covered).sum();
+        }
+    }
+
+    private KMeans() {
+    }
+
+    /**
+     * Clusters the rows of the matrix.
+     *
+     * @param data          rows to cluster, at least one.
+     * @param k             number of clusters, capped at the number of rows.
+     * @param maxIterations maximum number of Lloyd iterations.
+     * @param seed          random seed of the k-means++ seeding.
+     * @param pool          pool the passes run on.
+     * @return centroids, assignments and cluster sizes.
+     */
+    public static Result fit(final MetricMatrix data, final int k, final int maxIterations, final long seed, final ForkJoinPool pool) {
+        return fit(data, k, maxIterations, seed, Integer.MAX_VALUE, pool);
+    }
+
+    /**
+     * Clusters the rows of the matrix, iterating on a sample of at most {@code sampleRows} rows.
+     *
+     * @param data          rows to cluster, at least one.
+     * @param k             number of clusters, capped at the number of rows.
+     * @param maxIterations maximum number of Lloyd iterations.
+     * @param seed          random seed of the k-means++ seeding.
+     * @param sampleRows    maximum number of rows the iterations run on.
+     * @param pool          pool the passes run on.
+     * @return centroids, assignments of all rows and cluster sizes.
+     */
+    public static Result fit(final MetricMatrix data, final int k, final int maxIterations, final long seed,
+                             final int sampleRows, final ForkJoinPool pool) {
+        final int clusters = Math.min(k, data.rows());
+        final double[] centroids = seed(data, clusters, new Random(seed));
+        final boolean sampled = data.rows() > sampleRows;
+        int iterations = sampled ? iterate(data.sample(sampleRows), centroids, clusters, maxIterations - 1, pool) : 0;
+        final int[] assignments = new int[data.rows()];
+        Arrays.fill(assignments, -1);
+        Partial partial;
+        do {
+            iterations++;
+            partial = pool.invoke(new AssignTask(data, centroids, clusters, assignments, 0, data.rows()));
+            update(centroids, partial, clusters, data.dimensions());
+        } while (!sampled && !converged(partial, data) && iterations < maxIterations);
+        return new Result(clusters, centroids, assignments, partial.counts, iterations);
+    }
+
+    /**
+     * Evaluates which rows one of the centroids fits within the tolerance in every dimension. A row counts for its own
+     * cluster if that centroid fits, otherwise for the first centroid that does, and the value ranges of the covered
+     * rows are collected per centroid.
+     *
+     * @param data      clustered rows.
+     * @param result    clustering of the rows.
+     * @param tolerance allowed deviation per dimension.
+     * @param pool      pool the pass runs on.
+     * @return covered rows and their value ranges per cluster.
+     */
+    public static Coverage coverage(final MetricMatrix data, final Result result, final double tolerance, final ForkJoinPool pool) {
+        final CoveragePartial partial = pool.invoke(new CoverageTask(data, result.centroids, result.assignments, result.clusters, tolerance, 0, data.rows()));
+        return new Coverage(partial.covered, partial.min, partial.max);
+    }
+
+    /**
+     * k-means++ seeding on a strided sample: the first seed is a random row, every further seed is drawn with a
+     * probability proportional to the squared distance to the nearest seed chosen so far.
+     */
+    private static double[] seed(final MetricMatrix data, final int clusters, final Random random) {
+        final int dimensions = data.dimensions();
+        final int stride = Math.max(1, data.rows() / SEED_SAMPLE_ROWS);
+        final int samples = (data.rows() + stride - 1) / stride;
+        final double[] centroids = new double[clusters * dimensions];
+        final double[] distances = new double[samples];
+        Arrays.fill(distances, Double.MAX_VALUE);
+
+        int chosen = random.nextInt(samples) * stride;
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            System.arraycopy(data.values(), chosen * dimensions, centroids, cluster * dimensions, dimensions);
+            double total = 0;
+            for (int s = 0; s < samples; s++) {
+                distances[s] = Math.min(distances[s], squaredDistance(data.values(), s * stride * dimensions, centroids, cluster * dimensions, dimensions));
+                total += distances[s];
+            }
+            if (total == 0) {
+                chosen = random.nextInt(samples) * stride;
+                continue;
+            }
+            double target = random.nextDouble() * total;
+            int s = 0;
+            while (s < samples - 1 && (target -= distances[s]) > 0) {
+                s++;
+            }
+            chosen = s * stride;
+        }
+        return centroids;
+    }
+
+    /**
+     * Runs Lloyd iterations until nearly no row changes its cluster anymore.
+     *
+     * @return number of iterations run.
+     */
+    private static int iterate(final MetricMatrix data, final double[] centroids, final int clusters, final int maxIterations, final ForkJoinPool pool) {
+        final int[] assignments = new int[data.rows()];
+        Arrays.fill(assignments, -1);
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            iteration++;
+            final Partial partial = pool.invoke(new AssignTask(data, centroids, clusters, assignments, 0, data.rows()));
+            update(centroids, partial, clusters, data.dimensions());
+            if (converged(partial, data)) {
+                break;
+            }
+        }
+        return iteration;
+    }
+
+    private static boolean converged(final Partial partial, final MetricMatrix data) {
+        return partial.changed <= CONVERGED_CHANGES * data.rows();
+    }
+
+    /**
+     * Moves every centroid to the mean of its rows, centroids of empty clusters stay where they are.
+     */
+    private static void update(final double[] centroids, final Partial partial, final int clusters, final int dimensions) {
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            if (partial.counts[cluster] == 0) {
+                continue;
+            }
+            for (int d = 0; d < dimensions; d++) {
+                centroids[cluster * dimensions + d] = partial.sums[cluster * dimensions + d] / partial.counts[cluster];
+            }
+        }
+    }
+
+    private static double squaredDistance(final double[] values, final int offset, final double[] centroids, final int centroidOffset, final int dimensions) {
+        double distance = 0;
+        for (int d = 0; d < dimensions; d++) {
+            final double delta = values[offset + d] - centroids[centroidOffset + d];
+            distance += delta * delta;
+        }
+        return distance;
+    }
+
+    private static final class Partial {
+        private final double[] sums;
+        private final long[] counts;
+        private long changed;
+
+        private Partial(final int clusters, final int dimensions) {
+            sums = new double[clusters * dimensions];
+            counts = new long[clusters];
+        }
+
+        private Partial merge(final Partial other) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other.sums[i];
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            changed += other.changed;
+            return this;
+        }
+    }
+
+    private static final class AssignTask extends RecursiveTask<Partial> {
+        private final MetricMatrix data;
+        private final double[] centroids;
+        private final int clusters;
+        private final int[] assignments;
+        private final int from;
+        private final int to;
+
+        private AssignTask(final MetricMatrix data, final double[] centroids, final int clusters, final int[] assignments, final int from, final int to) {
+            this.data = data;
+            this.centroids = centroids;
+            this.clusters = clusters;
+            this.assignments = assignments;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > LEAF_ROWS) {
+                final int middle = (from + to) >>> 1;
+                final AssignTask left = new AssignTask(data, centroids, clusters, assignments, from, middle);
+                left.fork();
+                final Partial right = new AssignTask(data, centroids, clusters, assignments, middle, to).compute();
+                return left.join().merge(right);
+            }
+            final int dimensions = data.dimensions();
+            final double[] values = data.values();
+            final Partial partial = new Partial(clusters, dimensions);
+            for (int row = from; row < to; row++) {
+                final int offset = row * dimensions;
+                int nearest = 0;
+                double nearestDistance = Double.MAX_VALUE;
+                for (int cluster = 0; cluster < clusters; cluster++) {
+                    final double distance = squaredDistance(values, offset, centroids, cluster * dimensions, dimensions);
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = cluster;
+                    }
+                }
+                if (assignments[row] != nearest) {
+                    assignments[row] = nearest;
+                    partial.changed++;
+                }
+                partial.counts[nearest]++;
+                for (int d = 0; d < dimensions; d++) {
+                    partial.sums[nearest * dimensions + d] += values[offset + d];
+                }
+            }
+            return partial;
+        }
+    }
+
+    private static final class CoveragePartial {
+        private final long[] covered;
+        private final double[] min;
+        private final double[] max;
+
+        private CoveragePartial(final int clusters, final int dimensions) {
+            covered = new long[clusters];
+            min = new double[clusters * dimensions];
+            max = new double[clusters * dimensions];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        private CoveragePartial merge(final CoveragePartial other) {
+            for (int i = 0; i < covered.length; i++) {
+                covered[i] += other.covered[i];
+            }
+            for (int i = 0; i < min.length; i++) {
+                min[i] = Math.min(min[i], other.min[i]);
+                max[i] = Math.max(max[i], other.max[i]);
+            }
+            return this;
+        }
+    }
+
+    private static final class CoverageTask extends RecursiveTask<CoveragePartial> {
+        private final MetricMatrix data;
+        private final double[] centroids;
+        private final int[] assignments;
+        private final int clusters;
+        private final double tolerance;
+        private final int from;
+        private final int to;
+
+        private CoverageTask(final MetricMatrix data, final double[] centroids, final int[] assignments, final int clusters,
+                             final double tolerance, final int from, final int to) {
+            this.data = data;
+            this.centroids = centroids;
+            this.assignments = assignments;
+            this.clusters = clusters;
+            this.tolerance = tolerance;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CoveragePartial compute() {
+            if (to - from > LEAF_ROWS) {
+                final int middle = (from + to) >>> 1;
+                final CoverageTask left = new CoverageTask(data, centroids, assignments, clusters, tolerance, from, middle);
+                left.fork();
+                final CoveragePartial right = new CoverageTask(data, centroids, assignments, clusters, tolerance, middle, to).compute();
+                return left.join().merge(right);
+            }
+            final int dimensions = data.dimensions();
+            final double[] values = data.values();
+            final CoveragePartial partial = new CoveragePartial(clusters, dimensions);
+            for (int row = from; row < to; row++) {
+                final int offset = row * dimensions;
+                int covering = fits(values, offset, assignments[row]) ? assignments[row] : -1;
+                for (int cluster = 0; cluster < clusters && covering < 0; cluster++) {
+                    if (fits(values, offset, cluster)) {
+                        covering = cluster;
+                    }
+                }
+                if (covering < 0) {
+                    continue;
+                }
+                partial.covered[covering]++;
+                for (int d = 0; d < dimensions; d++) {
+                    final int index = covering * dimensions + d;
+                    partial.min[index] = Math.min(partial.min[index], values[offset + d]);
+                    partial.max[index] = Math.max(partial.max[index], values[offset + d]);
+                }
+            }
+            return partial;
+        }
+
+        /**
+         * Checks whether a row is within the tolerance of a centroid in every dimension.
+         */
+        private boolean fits(final double[] values, final int offset, final int cluster) {
+            final int dimensions = data.dimensions();
+            for (int d = 0; d < dimensions; d++) {
+                if (Math.abs(values[offset + d] - centroids[cluster * dimensions + d]) > tolerance) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
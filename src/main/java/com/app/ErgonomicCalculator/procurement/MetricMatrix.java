@@ -0,0 +1,75 @@
+package com.app.ErgonomicCalculator.procurement;
+
+import java.util.Arrays;
+
+/**
+ * Growable row-major matrix of workspace metric vectors, one primitive array for all rows, so a million
+ * workspaces take a few dozen megabytes instead of a million entities.
+ */
+public final class MetricMatrix {
+
+    private final int dimensions;
+    private double[] values;
+    private int rows;
+
+    /**
+     * Creates an empty matrix.
+     *
+     * @param dimensions      values per row.
+     * @param initialCapacity expected number of rows.
+     */
+    public MetricMatrix(final int dimensions, final int initialCapacity) {
+        this.dimensions = dimensions;
+        this.values = new double[Math.max(1, initialCapacity) * dimensions];
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param row values of the row, at least {@link #dimensions()} long.
+     */
+    public void add(final double[] row) {
+        if ((rows + 1) * dimensions > values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        System.arraycopy(row, 0, values, rows * dimensions, dimensions);
+        rows++;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Gives direct access to the values, row {@code r} starts at {@code r * dimensions()}.
+     *
+     * @return backing array, longer than the used part.
+     */
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * Takes every n-th row, so the sample spreads evenly over the scan order.
+     *
+     * @param maxRows maximum number of rows of the sample.
+     * @return this matrix if it is not larger than the sample, a new matrix otherwise.
+     */
+    public MetricMatrix sample(final int maxRows) {
+        if (rows <= maxRows) {
+            return this;
+        }
+        final int stride = (rows + maxRows - 1) / maxRows;
+        final MetricMatrix sample = new MetricMatrix(dimensions, maxRows);
+        final double[] row = new double[dimensions];
+        for (int r = 0; r < rows; r += stride) {
+            System.arraycopy(values, r * dimensions, row, 0, dimensions);
+            sample.add(row);
+        }
+        return sample;
+    }
+}
@@ -1,9 +1,41 @@
 package com.app.ErgonomicCalculator.repository;
 
 import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface AnthropometricsRepository extends JpaRepository<PersonAnthropometrics, Long> {
+
+    /**
+     * Selects the next outdated workspaces and locks their person rows until the end of the transaction. Submits
+     * lock the same person row first, so a submit that starts later waits for the chunk, and persons locked by a
+     * running submit are skipped, the submit calculates their workspace with the current formulas itself.
+     *
+     * @return ids of the locked person anthropometrics, in id order.
+     */
+    @Query(value = "select a.id from person_anthropometrics a join person p on p.id = a.person_id " +
+            "left join workspace_metrics w on w.person_id = p.id " +
+            "where a.id > :afterId and (w.id is null or w.formula_version is null or w.formula_version <> :formulaVersion) " +
+            "order by a.id limit :limit for update of p skip locked", nativeQuery = true)
+    List<Long> lockOutdatedWorkspaces(@Param("afterId") long afterId,
+                                      @Param("formulaVersion") String formulaVersion,
+                                      @Param("limit") int limit);
+
+    @Query("select a from PersonAnthropometrics a join fetch a.person p left join fetch p.workspaceMetrics " +
+            "where a.id in :ids order by a.id")
+    List<PersonAnthropometrics> findWithWorkspacesByIdIn(@Param("ids") List<Long> ids);
+
+    @Query("select a from PersonAnthropometrics a join fetch a.person p left join fetch p.workspaceMetrics " +
+            "where a.id > :afterId order by a.id")
+    List<PersonAnthropometrics> findWithWorkspacesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select count(a) from PersonAnthropometrics a join a.person p left join p.workspaceMetrics w " +
+            "where w.id is null or w.formulaVersion is null or w.formulaVersion <> :formulaVersion")
+    long countOutdatedWorkspaces(@Param("formulaVersion") String formulaVersion);
 }
@@ -0,0 +1,32 @@
+package com.app.ErgonomicCalculator.repository;
+
+import com.app.ErgonomicCalculator.model.FormulaVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface FormulaVersionRepository extends JpaRepository<FormulaVersion, String> {
+
+    /**
+     * Stores the formula version, or marks it as installed again if it is stored with the same definitions, in one
+     * atomic statement. A version stored with other definitions is left as it is.
+     *
+     * @return 1 if the version was stored or installed again, 0 if it is taken by other definitions.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into formula_version (version, definitions, installed_at) values (:version, :definitions, :installedAt) " +
+            "on conflict (version) do update set installed_at = excluded.installed_at " +
+            "where formula_version.definitions = excluded.definitions", nativeQuery = true)
+    int install(@Param("version") String version, @Param("definitions") String definitions,
+                @Param("installedAt") Instant installedAt);
+
+    Optional<FormulaVersion> findFirstByOrderByInstalledAtDesc();
+}
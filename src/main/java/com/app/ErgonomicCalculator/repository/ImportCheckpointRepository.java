@@ -0,0 +1,9 @@
+package com.app.ErgonomicCalculator.repository;
+
+import com.app.ErgonomicCalculator.model.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+}
@@ -0,0 +1,19 @@
+package com.app.ErgonomicCalculator.repository;
+
+import com.app.ErgonomicCalculator.model.MetricSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MetricSketchRepository extends JpaRepository<MetricSketch, String> {
+
+    /**
+     * Takes the transaction scoped advisory lock of the sketches, so instances merge into them one at a time.
+     * Must be called inside a transaction, the lock is released when it ends.
+     *
+     * @return 1, the lock function itself returns nothing.
+     */
+    @Query(value = "select count(*) from pg_advisory_xact_lock(hashtext('metric_sketch'))", nativeQuery = true)
+    long lockSketches();
+}
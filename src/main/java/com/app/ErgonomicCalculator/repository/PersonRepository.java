@@ -1,12 +1,73 @@
 package com.app.ErgonomicCalculator.repository;
 
+import com.app.ErgonomicCalculator.config.CacheConfig;
+import com.app.ErgonomicCalculator.dto.PersonCredentials;
+import com.app.ErgonomicCalculator.dto.PersonPrincipal;
 import com.app.ErgonomicCalculator.model.Person;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Person lookups with a fetch plan per use case. The anthropometrics and workspace of a person are the inverse
+ * side of one-to-one associations and are always loaded with the person, so lookups that need the entity join them
+ * into the same query, and lookups that only need a few columns read a projection instead of the entity.
+ */
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
+
+    @EntityGraph(attributePaths = {"personAnthropometrics", "workspaceMetrics"})
     Optional<Person> findByEmail(String email);
+
+    @EntityGraph(attributePaths = {"personAnthropometrics", "workspaceMetrics"})
+    List<Person> findByEmailIn(Collection<String> emails);
+
+    Optional<PersonCredentials> findCredentialsByEmail(String email);
+
+    @Cacheable(cacheNames = CacheConfig.PERSON_PRINCIPALS, key = "#p0", unless = "#result == null")
+    Optional<PersonPrincipal> findPrincipalByEmail(String email);
+
+    /**
+     * Checks the admin role of a person in the database, not cached, so a revoked role takes effect immediately.
+     * Only registered people, the ones with a password, can be admins.
+     *
+     * @param email email of the authenticated person.
+     * @return whether the person is a registered admin.
+     */
+    boolean existsByEmailAndAdminTrueAndPasswordIsNotNull(String email);
+
+    /**
+     * Inserts a person with only the email unless the email exists, in one atomic statement. The conflict action
+     * updates nothing but locks the existing row, so concurrent callers for the same email wait for each other
+     * until the end of the transaction instead of failing on the unique constraint.
+     *
+     * @param email email of the person.
+     * @return 1 if the person was inserted, 0 if it existed.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into person (id, email) values (nextval('person_seq'), :email) " +
+            "on conflict (email) do update set email = excluded.email where false", nativeQuery = true)
+    int insertOrLockByEmail(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query("update Person p set p.firstName = :firstName, p.lastName = :lastName, p.password = :password, " +
+            "p.admin = false where p.id = :id")
+    int updateRegistration(@Param("id") Long id, @Param("firstName") String firstName,
+                           @Param("lastName") String lastName, @Param("password") String password);
+
+    @Transactional
+    @Modifying
+    @Query("update Person p set p.password = :password where p.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
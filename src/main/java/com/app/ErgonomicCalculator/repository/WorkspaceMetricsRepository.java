@@ -1,9 +1,34 @@
 package com.app.ErgonomicCalculator.repository;
 
+import com.app.ErgonomicCalculator.config.CacheConfig;
+import com.app.ErgonomicCalculator.dto.WorkspacePdfKey;
+import com.app.ErgonomicCalculator.dto.WorkspacePdfSourceDto;
 import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 @Repository
-public interface WorkspaceMetricsRepository extends JpaRepository<WorkspaceMetrics, Long> {
+public interface WorkspaceMetricsRepository extends JpaRepository<WorkspaceMetrics, Long>, WorkspaceMetricsSearchRepository {
+    long countByImagePath(String imagePath);
+
+    @Query("select distinct w.imagePath from WorkspaceMetrics w where w.imagePath in :imagePaths")
+    Set<String> findReferencedImagePaths(@Param("imagePaths") Collection<String> imagePaths);
+
+    List<WorkspacePdfKey> findPdfKeysByIdGreaterThanAndImagePathIsNotNullOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select new com.app.ErgonomicCalculator.dto.WorkspacePdfSourceDto(w.id, w.tableHeightSeated, w.tableHeightStanding, "
+            + "w.tableWidth, w.displayHeightSeated, w.displayHeightStanding, w.chairSeatHeight, w.chairSeatWidth, w.armRestHeight, "
+            + "w.chairBackSupportHeight, w.chairBackSupportWidth, w.chairHeadSupportHeight, w.imagePath, w.formulaVersion, p.email) "
+            + "from WorkspaceMetrics w join w.person p where p.email = :email")
+    @Cacheable(cacheNames = CacheConfig.WORKSPACE_PDF_SOURCES, key = "#p0", unless = "#result == null")
+    Optional<WorkspacePdfSourceDto> findPdfSourceByEmail(@Param("email") String email);
 }
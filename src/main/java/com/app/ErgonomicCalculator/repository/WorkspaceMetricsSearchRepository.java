@@ -0,0 +1,23 @@
+package com.app.ErgonomicCalculator.repository;
+
+import com.app.ErgonomicCalculator.dto.MetricRangeDto;
+import com.app.ErgonomicCalculator.dto.WorkspaceSearchResultDto;
+
+import java.util.List;
+
+/**
+ * Metric range search over workspace metrics, mixed into {@link WorkspaceMetricsRepository}.
+ */
+public interface WorkspaceMetricsSearchRepository {
+
+    /**
+     * Finds the workspaces within all ranges, ordered by the metric of the first range and id.
+     *
+     * @param ranges     ranges over workspace metric fields, the first one orders and pages the results.
+     * @param afterValue value of the first range metric of the last row of the previous page, null for the first page.
+     * @param afterId    id of the last row of the previous page, ignored for the first page.
+     * @param limit      maximum number of results.
+     * @return matching workspaces with their person.
+     */
+    List<WorkspaceSearchResultDto> search(List<MetricRangeDto> ranges, Double afterValue, Long afterId, int limit);
+}
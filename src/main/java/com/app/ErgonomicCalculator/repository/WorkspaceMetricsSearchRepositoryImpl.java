@@ -0,0 +1,59 @@
+package com.app.ErgonomicCalculator.repository;
+
+import com.app.ErgonomicCalculator.dto.MetricRangeDto;
+import com.app.ErgonomicCalculator.dto.WorkspaceSearchResultDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * Builds the range search query. Metric names are inserted into the query text, callers must only pass
+ * names of workspace metric fields.
+ */
+public class WorkspaceMetricsSearchRepositoryImpl implements WorkspaceMetricsSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<WorkspaceSearchResultDto> search(final List<MetricRangeDto> ranges, final Double afterValue, final Long afterId, final int limit) {
+        final String orderedBy = "w." + ranges.get(0).getMetric();
+        final StringBuilder jpql = new StringBuilder("select new com.app.ErgonomicCalculator.dto.WorkspaceSearchResultDto(")
+                .append("w.id, p.email, p.firstName, p.lastName, w.tableHeightSeated, w.tableHeightStanding, w.tableWidth, ")
+                .append("w.displayHeightSeated, w.displayHeightStanding, w.chairSeatHeight, w.chairSeatWidth, w.armRestHeight, ")
+                .append("w.chairBackSupportHeight, w.chairBackSupportWidth, w.chairHeadSupportHeight, w.formulaVersion) ")
+                .append("from WorkspaceMetrics w join w.person p where ").append(orderedBy).append(" is not null");
+        for (int i = 0; i < ranges.size(); i++) {
+            final String field = "w." + ranges.get(i).getMetric();
+            if (ranges.get(i).getMin() != null) {
+                jpql.append(" and ").append(field).append(" >= :min").append(i);
+            }
+            if (ranges.get(i).getMax() != null) {
+                jpql.append(" and ").append(field).append(" <= :max").append(i);
+            }
+        }
+        if (afterValue != null) {
+            // the redundant lower bound lets the planner start the index scan at the keyset
+            jpql.append(" and ").append(orderedBy).append(" >= :afterValue and (")
+                    .append(orderedBy).append(" > :afterValue or w.id > :afterId)");
+        }
+        jpql.append(" order by ").append(orderedBy).append(", w.id");
+
+        final TypedQuery<WorkspaceSearchResultDto> query = entityManager.createQuery(jpql.toString(), WorkspaceSearchResultDto.class);
+        for (int i = 0; i < ranges.size(); i++) {
+            if (ranges.get(i).getMin() != null) {
+                query.setParameter("min" + i, ranges.get(i).getMin());
+            }
+            if (ranges.get(i).getMax() != null) {
+                query.setParameter("max" + i, ranges.get(i).getMax());
+            }
+        }
+        if (afterValue != null) {
+            query.setParameter("afterValue", afterValue);
+            query.setParameter("afterId", afterId == null ? Long.MIN_VALUE : afterId);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
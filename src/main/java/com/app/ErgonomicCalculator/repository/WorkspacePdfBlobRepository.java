@@ -0,0 +1,48 @@
+package com.app.ErgonomicCalculator.repository;
+
+import com.app.ErgonomicCalculator.model.WorkspacePdfBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WorkspacePdfBlobRepository extends JpaRepository<WorkspacePdfBlob, String> {
+
+    interface BlobMetadata {
+        String getStorageKey();
+
+        Long getSize();
+
+        Instant getCreatedAt();
+    }
+
+    List<BlobMetadata> findByStorageKeyGreaterThanOrderByStorageKeyAsc(String storageKey, Pageable pageable);
+
+    @Query("select b.storageKey as storageKey, b.size as size, b.createdAt as createdAt from WorkspacePdfBlob b where b.storageKey = :storageKey")
+    Optional<BlobMetadata> findMetadata(@Param("storageKey") String storageKey);
+
+    /**
+     * Inserts the blob unless its key is stored, in one statement. Keys are content keys, so a row stored
+     * concurrently under the same key holds the same bytes and is left as it is.
+     *
+     * @return 1 if the blob was inserted, 0 if the key was stored.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into workspace_pdf_blob (storage_key, content, size, created_at) " +
+            "values (:storageKey, :content, :size, :createdAt) on conflict (storage_key) do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("storageKey") String storageKey, @Param("content") byte[] content,
+                       @Param("size") long size, @Param("createdAt") Instant createdAt);
+
+    @Query(value = "select substring(content from cast(:start as integer) for cast(:count as integer)) " +
+            "from workspace_pdf_blob where storage_key = :storageKey", nativeQuery = true)
+    byte[] readRange(@Param("storageKey") String storageKey, @Param("start") long start, @Param("count") long count);
+}
@@ -0,0 +1,326 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import com.app.ErgonomicCalculator.dto.ImportReportDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.mapper.AnthropometricsMapper;
+import com.app.ErgonomicCalculator.model.ImportCheckpoint;
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.repository.ImportCheckpointRepository;
+import com.app.ErgonomicCalculator.repository.PersonRepository;
+import com.app.ErgonomicCalculator.validator.AnthropometricsRequestValidator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Imports anthropometric measurements from CSV. The file is read as a stream and committed in chunks: each chunk
+ * looks up its people with one query, creates or updates people, anthropometrics and workspace metrics, and lets
+ * Hibernate write them with JDBC batch inserts and updates. The import checkpoint is saved in the same transaction
+ * as the chunk, so an import that fails can be sent again with the same import id and continues after the last
+ * committed row. Workspace PDFs are not rendered during the import, they are rendered on first access.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnthropometricsImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final String EMAIL_COLUMN = "personEmail";
+    private static final Map<String, BiConsumer<AnthropometricsRequestDto, String>> COLUMNS = columns();
+
+    private final PersonRepository personRepository;
+    private final ImportCheckpointRepository importCheckpointRepository;
+    private final AnthropometricsRequestValidator anthropometricsRequestValidator;
+    private final AnthropometricsMapper anthropometricsMapper;
+    private final WorkspaceMetricsService workspaceMetricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkspaceStatisticsService workspaceStatisticsService;
+
+    @Value("${bulk.import.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Imports the CSV. The first line is the header naming the columns, using the field names of
+     * {@link AnthropometricsRequestDto}; the {@code personEmail} column is required.
+     *
+     * @param importId    identifies the import, sending the same file again with the same id resumes it.
+     * @param inputStream CSV content.
+     * @return rows read, skipped, imported and rejected, throughput and the first row errors.
+     * @throws InvalidDataException if the header is missing or names an unknown column.
+     * @throws IOException          if the CSV can not be read.
+     */
+    public ImportReportDto importCsv(final String importId, final InputStream inputStream) throws InvalidDataException, IOException {
+        final long started = System.nanoTime();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        final List<BiConsumer<AnthropometricsRequestDto, String>> columns = parseHeader(reader.readLine());
+
+        final ImportCheckpoint checkpoint = importCheckpointRepository.findById(importId)
+                .orElseGet(() -> ImportCheckpoint.builder().importId(importId).build());
+        final long resumedAfterRow = checkpoint.getLastCommittedRow();
+        final ImportReportDto report = ImportReportDto.builder()
+                .importId(importId)
+                .resumedAfterRow(resumedAfterRow)
+                .lastCommittedRow(resumedAfterRow)
+                .errors(new ArrayList<>())
+                .build();
+
+        final Map<Long, AnthropometricsRequestDto> chunk = new LinkedHashMap<>();
+        long rowNumber = 0;
+        long chunkRejected = 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowNumber++;
+                report.setRowsRead(report.getRowsRead() + 1);
+                if (rowNumber <= resumedAfterRow) {
+                    report.setRowsSkipped(report.getRowsSkipped() + 1);
+                    continue;
+                }
+                final AnthropometricsRequestDto requestDto = parseRow(rowNumber, line, columns, report);
+                if (requestDto == null) {
+                    chunkRejected++;
+                } else {
+                    chunk.put(rowNumber, requestDto);
+                }
+                if (chunk.size() + chunkRejected >= chunkSize) {
+                    commitChunk(checkpoint, chunk, chunkRejected, rowNumber, report);
+                    chunkRejected = 0;
+                    logProgress(report, started);
+                }
+            }
+            if (!chunk.isEmpty() || chunkRejected > 0) {
+                commitChunk(checkpoint, chunk, chunkRejected, rowNumber, report);
+            }
+        } catch (RuntimeException e) {
+            log.error("Import " + importId + " failed after row " + report.getLastCommittedRow(), e);
+            report.setFailed(true);
+            report.setFailure(e.getMessage());
+        }
+
+        final long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        report.setElapsedMillis(elapsedMillis);
+        report.setRowsPerSecond(rowsPerSecond(report, elapsedMillis));
+        log.info("Import " + importId + " finished: " + report.getRowsImported() + " rows imported, "
+                + report.getRowsRejected() + " rejected, " + report.getRowsSkipped() + " skipped, "
+                + Math.round(report.getRowsPerSecond()) + " rows/s.");
+        return report;
+    }
+
+    /**
+     * Writes the chunk and advances the checkpoint in one transaction. People of the chunk are loaded with one
+     * query together with their anthropometrics and workspace metrics. Committed workspaces that were created or
+     * changed are added to the workspace statistics, like a single submit does.
+     *
+     * @param checkpoint    import checkpoint to advance.
+     * @param chunk         valid rows of the chunk by row number.
+     * @param chunkRejected number of rejected rows of the chunk.
+     * @param lastRow       number of the last row of the chunk.
+     * @param report        report to update once the chunk is committed.
+     */
+    private void commitChunk(final ImportCheckpoint checkpoint, final Map<Long, AnthropometricsRequestDto> chunk,
+                             final long chunkRejected, final long lastRow, final ImportReportDto report) {
+        final Collection<Person> imported = transactionTemplate.execute(status -> {
+            final Map<String, Person> people = personRepository.findByEmailIn(
+                            chunk.values().stream().map(AnthropometricsRequestDto::getPersonEmail).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Person::getEmail, Function.identity()));
+            final List<Person> newPeople = new ArrayList<>();
+            final Map<String, Person> changedPeople = new LinkedHashMap<>();
+
+            for (AnthropometricsRequestDto requestDto : chunk.values()) {
+                final Person person = people.computeIfAbsent(requestDto.getPersonEmail(), email -> {
+                    final Person newPerson = Person.builder().email(email).build();
+                    newPeople.add(newPerson);
+                    return newPerson;
+                });
+                if (importAnthropometrics(person, requestDto)) {
+                    changedPeople.put(person.getEmail(), person);
+                }
+            }
+            personRepository.saveAll(newPeople);
+
+            checkpoint.setLastCommittedRow(lastRow);
+            checkpoint.setImportedRows(checkpoint.getImportedRows() + chunk.size());
+            checkpoint.setRejectedRows(checkpoint.getRejectedRows() + chunkRejected);
+            checkpoint.setUpdatedAt(Instant.now());
+            importCheckpointRepository.save(checkpoint);
+            return changedPeople.values();
+        });
+        imported.forEach(person -> workspaceStatisticsService.record(person.getPersonAnthropometrics(), person.getWorkspaceMetrics()));
+        report.setRowsImported(report.getRowsImported() + chunk.size());
+        report.setRowsRejected(report.getRowsRejected() + chunkRejected);
+        report.setLastCommittedRow(lastRow);
+        chunk.clear();
+    }
+
+    /**
+     * Creates or updates the anthropometrics of the person and recalculates their workspace. New entities are
+     * linked to the person and written by cascade when the transaction flushes.
+     *
+     * @param person     managed or new person.
+     * @param requestDto anthropometric data of the row.
+     * @return true if the workspace was created or changed.
+     */
+    private boolean importAnthropometrics(final Person person, final AnthropometricsRequestDto requestDto) {
+        PersonAnthropometrics anthropometrics = person.getPersonAnthropometrics();
+        if (anthropometrics == null) {
+            anthropometrics = anthropometricsMapper.toPersonAnthropometrics(requestDto);
+            anthropometrics.setPerson(person);
+            person.setPersonAnthropometrics(anthropometrics);
+        } else {
+            anthropometricsMapper.updateIfChanged(requestDto, anthropometrics);
+        }
+        return workspaceMetricsService.calculateChangedWorkplace(anthropometrics).isPresent();
+    }
+
+    /**
+     * Parses and validates a data row.
+     *
+     * @param rowNumber number of the data row, starting from 1 after the header.
+     * @param line      CSV line of the row.
+     * @param columns   setters of the header columns.
+     * @param report    report collecting the row error.
+     * @return parsed row, null if the row is rejected.
+     */
+    private AnthropometricsRequestDto parseRow(final long rowNumber, final String line,
+                                               final List<BiConsumer<AnthropometricsRequestDto, String>> columns,
+                                               final ImportReportDto report) {
+        try {
+            final List<String> values = splitCsvLine(line);
+            if (values.size() != columns.size()) {
+                throw new InvalidDataException("Expected " + columns.size() + " values but found " + values.size() + ".");
+            }
+            final AnthropometricsRequestDto requestDto = new AnthropometricsRequestDto();
+            for (int i = 0; i < columns.size(); i++) {
+                final String value = values.get(i).trim();
+                if (!value.isEmpty()) {
+                    columns.get(i).accept(requestDto, value);
+                }
+            }
+            if (requestDto.getPersonEmail() == null) {
+                throw new InvalidDataException("Field '" + EMAIL_COLUMN + "' must not be null or empty.");
+            }
+            anthropometricsRequestValidator.validate(requestDto);
+            return requestDto;
+        } catch (InvalidDataException | NumberFormatException e) {
+            if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+                report.getErrors().add("Row " + rowNumber + ": " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the header columns to the fields they fill.
+     *
+     * @param header first line of the CSV.
+     * @return setters in column order.
+     * @throws InvalidDataException if the header is missing, names an unknown column or has no email column.
+     */
+    private static List<BiConsumer<AnthropometricsRequestDto, String>> parseHeader(final String header) throws InvalidDataException {
+        if (header == null || header.isBlank()) {
+            throw new InvalidDataException("CSV header is missing.");
+        }
+        final List<String> names = splitCsvLine(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        if (!names.contains(EMAIL_COLUMN)) {
+            throw new InvalidDataException("CSV column '" + EMAIL_COLUMN + "' is missing.");
+        }
+        final List<BiConsumer<AnthropometricsRequestDto, String>> columns = new ArrayList<>(names.size());
+        for (String name : names) {
+            final BiConsumer<AnthropometricsRequestDto, String> column = COLUMNS.get(name.trim());
+            if (column == null) {
+                throw new InvalidDataException("Unknown CSV column '" + name + "'.");
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    /**
+     * Splits a CSV line into values. Values may be enclosed in double quotes, a quote inside a quoted value is
+     * written twice. Values spanning several lines are not supported.
+     *
+     * @param line CSV line.
+     * @return values of the line.
+     */
+    static List<String> splitCsvLine(final String line) {
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private void logProgress(final ImportReportDto report, final long started) {
+        final long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Import " + report.getImportId() + " committed row " + report.getLastCommittedRow() + ", "
+                + Math.round(rowsPerSecond(report, elapsedMillis)) + " rows/s.");
+    }
+
+    private static double rowsPerSecond(final ImportReportDto report, final long elapsedMillis) {
+        final long processed = report.getRowsImported() + report.getRowsRejected();
+        return elapsedMillis == 0 ? processed : processed * 1000.0 / elapsedMillis;
+    }
+
+    private static Map<String, BiConsumer<AnthropometricsRequestDto, String>> columns() {
+        final Map<String, BiConsumer<AnthropometricsRequestDto, String>> columns = new HashMap<>();
+        columns.put("height", (dto, value) -> dto.setHeight(Double.valueOf(value)));
+        columns.put("sittingHeight", (dto, value) -> dto.setSittingHeight(Double.valueOf(value)));
+        columns.put("shoulderHeight", (dto, value) -> dto.setShoulderHeight(Double.valueOf(value)));
+        columns.put("lowerLegLength", (dto, value) -> dto.setLowerLegLength(Double.valueOf(value)));
+        columns.put("hipBreadth", (dto, value) -> dto.setHipBreadth(Double.valueOf(value)));
+        columns.put("elbowHeight", (dto, value) -> dto.setElbowHeight(Double.valueOf(value)));
+        columns.put("eyeHeightStanding", (dto, value) -> dto.setEyeHeightStanding(Double.valueOf(value)));
+        columns.put("elbowHeightStanding", (dto, value) -> dto.setElbowHeightStanding(Double.valueOf(value)));
+        columns.put("thighClearance", (dto, value) -> dto.setThighClearance(Double.valueOf(value)));
+        columns.put("eyeHeight", (dto, value) -> dto.setEyeHeight(Double.valueOf(value)));
+        columns.put("shoulderBreadth", (dto, value) -> dto.setShoulderBreadth(Double.valueOf(value)));
+        columns.put("kneeHeight", (dto, value) -> dto.setKneeHeight(Double.valueOf(value)));
+        columns.put(EMAIL_COLUMN, AnthropometricsRequestDto::setPersonEmail);
+        return columns;
+    }
+}
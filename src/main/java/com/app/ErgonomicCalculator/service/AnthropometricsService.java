@@ -10,7 +10,6 @@ import com.app.ErgonomicCalculator.repository.AnthropometricsRepository;
 import com.app.ErgonomicCalculator.validator.AnthropometricsRequestValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
 
@@ -34,41 +33,57 @@ public class AnthropometricsService {
      *
      * @param requestDto the Data Transfer Object containing the anthropometrics data to be validated and saved.
      * @return the saved or updated PersonAnthropometrics entity.
-     * @throws InvalidDataException   if the provided anthropometrics data is invalid.
-     * @throws IllegalAccessException if there is an access violation during validation or saving.
+     * @throws InvalidDataException if the provided anthropometrics data is invalid.
      */
-    public PersonAnthropometrics validateAndSaveAnthropometrics(final AnthropometricsRequestDto requestDto) throws InvalidDataException, IllegalAccessException {
+    public PersonAnthropometrics validateAndSaveAnthropometrics(final AnthropometricsRequestDto requestDto) throws InvalidDataException {
+        anthropometricsRequestValidator.validate(requestDto);
+        return saveAnthropometrics(requestDto);
+    }
+
+    /**
+     * Saves already validated anthropometric data, see {@link #validateAndSaveAnthropometrics(AnthropometricsRequestDto)}.
+     * Within a transaction the person, the anthropometrics and their changes stay managed and are written on flush.
+     *
+     * @param requestDto the Data Transfer Object containing validated anthropometrics data.
+     * @return the saved or updated PersonAnthropometrics entity.
+     */
+    public PersonAnthropometrics saveAnthropometrics(final AnthropometricsRequestDto requestDto) {
         Person person = personService.findPersonByEmail(requestDto.getPersonEmail());
         log.info("Person with where email = " + requestDto.getPersonEmail() + " founded or created.");
 
-        anthropometricsRequestValidator.validate(requestDto);
         if (person.getPersonAnthropometrics() != null) {
-            PersonAnthropometrics anthropometrics = updateAnthropometrics(requestDto, person.getPersonAnthropometrics(), person);
-            anthropometricsRepository.save(anthropometrics);
+            final PersonAnthropometrics anthropometrics = person.getPersonAnthropometrics();
+            if (updateAnthropometrics(requestDto, anthropometrics, person)) {
+                anthropometricsRepository.save(anthropometrics);
+            }
             return anthropometrics;
         }
         final PersonAnthropometrics personAnthropometrics = anthropometricsMapper.toPersonAnthropometrics(requestDto);
         personAnthropometrics.setPerson(person);
+        person.setPersonAnthropometrics(personAnthropometrics);
 
         anthropometricsRepository.save(personAnthropometrics);
         log.info("Anthropometric data saved.");
         return personAnthropometrics;
     }
 
-
     /**
-     * Method to update existing anthropometric data.
+     * Method to update existing anthropometric data in place. Only measures that differ are written,
+     * an unchanged submission leaves the entity untouched so it does not need to be saved.
      *
      * @param requestDto      the Data Transfer Object containing the anthropometrics data.
      * @param anthropometrics existing anthropometric data to be updated.
      * @param person          Person entity representing whose anthropometric data is being updated.
-     * @return updated anthropometrics entity.
+     * @return true if a measure changed and the entity has to be saved.
      */
-    public PersonAnthropometrics updateAnthropometrics(final AnthropometricsRequestDto requestDto, final PersonAnthropometrics anthropometrics, Person person) {
-        BeanUtils.copyProperties(requestDto, anthropometrics);
+    public boolean updateAnthropometrics(final AnthropometricsRequestDto requestDto, final PersonAnthropometrics anthropometrics, Person person) {
         anthropometrics.setPerson(person);
+        if (!anthropometricsMapper.updateIfChanged(requestDto, anthropometrics)) {
+            log.info("Person Anthropometrics unchanged.");
+            return false;
+        }
         log.info("Person Anthropometrics updated.");
-        return anthropometrics;
+        return true;
     }
 
     /**
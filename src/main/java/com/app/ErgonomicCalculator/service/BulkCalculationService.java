@@ -0,0 +1,165 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import com.app.ErgonomicCalculator.dto.BulkCalculationResultDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.validator.AnthropometricsRequestValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Calculates workspace metrics for a stream of newline delimited JSON anthropometric records. Records are read
+ * in chunks, every chunk is parsed, validated and calculated in parallel and its results are written in input
+ * order before the next chunk is read, so memory use depends on the chunk size and not on the request size.
+ * A record that can not be parsed or does not pass validation produces an error result, the rest of the stream
+ * is still processed. Nothing is saved and no PDF is rendered.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkCalculationService {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final WorkspaceMetricsService workspaceMetricsService;
+    private final AnthropometricsRequestValidator anthropometricsRequestValidator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${bulk.calculation.chunk-size:256}")
+    private int chunkSize;
+
+    @Value("${bulk.calculation.parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService executor;
+    private ObjectReader requestReader;
+    private ObjectWriter resultWriter;
+
+    /**
+     * Starts the calculation workers, one per available processor unless configured otherwise.
+     */
+    @PostConstruct
+    protected void init() {
+        final int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            final Thread thread = new Thread(runnable, "bulk-calculation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        requestReader = objectMapper.readerFor(AnthropometricsRequestDto.class);
+        resultWriter = objectMapper.writerFor(BulkCalculationResultDto.class);
+    }
+
+    /**
+     * Stops the calculation workers.
+     */
+    @PreDestroy
+    protected void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Reads NDJSON anthropometric records and writes one NDJSON result per non blank input line.
+     *
+     * @param inputStream  NDJSON records, read until the end of the stream.
+     * @param outputStream results are written and flushed chunk by chunk, the stream is not closed.
+     * @return number of processed records.
+     * @throws IOException if the input can not be read or the output written.
+     */
+    public long calculate(final InputStream inputStream, final OutputStream outputStream) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        final List<CompletableFuture<BulkCalculationResultDto>> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        long records = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            final long recordLine = lineNumber;
+            final String record = line;
+            chunk.add(CompletableFuture.supplyAsync(() -> calculateRecord(recordLine, record), executor));
+            records++;
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, outputStream);
+            }
+        }
+        writeChunk(chunk, outputStream);
+        log.info("Bulk calculation of " + records + " records finished.");
+        return records;
+    }
+
+    /**
+     * Writes the results of the chunk in input order and clears it.
+     *
+     * @param chunk        pending results.
+     * @param outputStream stream to write to.
+     * @throws IOException if the output can not be written.
+     */
+    private void writeChunk(final List<CompletableFuture<BulkCalculationResultDto>> chunk, final OutputStream outputStream) throws IOException {
+        for (CompletableFuture<BulkCalculationResultDto> result : chunk) {
+            outputStream.write(resultWriter.writeValueAsBytes(result.join()));
+            outputStream.write(NEW_LINE);
+        }
+        outputStream.flush();
+        chunk.clear();
+    }
+
+    /**
+     * Parses, validates and calculates a single record. Any failure is reported for the record, so one bad
+     * record never aborts the stream.
+     *
+     * @param lineNumber line of the record in the request, starting from 1.
+     * @param record     JSON of the record.
+     * @return the calculated metrics or the reason the record was rejected.
+     */
+    private BulkCalculationResultDto calculateRecord(final long lineNumber, final String record) {
+        final AnthropometricsRequestDto requestDto;
+        try {
+            requestDto = requestReader.readValue(record);
+        } catch (JsonProcessingException e) {
+            return BulkCalculationResultDto.builder().line(lineNumber).error("Malformed record: " + e.getOriginalMessage()).build();
+        }
+        if (requestDto == null) {
+            return BulkCalculationResultDto.builder().line(lineNumber).error("Malformed record: expected a JSON object.").build();
+        }
+        try {
+            anthropometricsRequestValidator.validate(requestDto);
+            return BulkCalculationResultDto.builder()
+                    .line(lineNumber)
+                    .personEmail(requestDto.getPersonEmail())
+                    .metrics(workspaceMetricsService.calculateWorkspaceMetrics(requestDto))
+                    .build();
+        } catch (InvalidDataException e) {
+            return BulkCalculationResultDto.builder().line(lineNumber).personEmail(requestDto.getPersonEmail()).error(e.getMessage()).build();
+        } catch (RuntimeException e) {
+            log.warn("Bulk calculation of line " + lineNumber + " failed.", e);
+            return BulkCalculationResultDto.builder().line(lineNumber).personEmail(requestDto.getPersonEmail())
+                    .error("Record could not be calculated.").build();
+        }
+    }
+}
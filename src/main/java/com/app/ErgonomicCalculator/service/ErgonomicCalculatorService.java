@@ -1,24 +1,39 @@
 package com.app.ErgonomicCalculator.service;
 
+import com.app.ErgonomicCalculator.config.CacheConfig;
 import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
 import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDtoAfterAuth;
+import com.app.ErgonomicCalculator.dto.CacheStatsDto;
+import com.app.ErgonomicCalculator.dto.FormulaSetDto;
+import com.app.ErgonomicCalculator.dto.PdfSweepStatsDto;
 import com.app.ErgonomicCalculator.dto.PersonDto;
+import com.app.ErgonomicCalculator.dto.RenderJobDto;
+import com.app.ErgonomicCalculator.dto.RenderMemoryStatsDto;
+import com.app.ErgonomicCalculator.dto.RenderQueueStatsDto;
+import com.app.ErgonomicCalculator.dto.WorkspaceMetricsDto;
 import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.exception.RenderQueueFullException;
 import com.app.ErgonomicCalculator.exception.ResourceNotFoundException;
 import com.app.ErgonomicCalculator.model.Person;
 import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
 import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.PersonRepository;
+import com.app.ErgonomicCalculator.validator.AnthropometricsRequestValidator;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing operations related new PersonAnthropometric processing, new PersonWorkspace creation, retrieving PDFs.
@@ -31,93 +46,244 @@ public class ErgonomicCalculatorService {
     private final WorkspaceMetricsService workspaceMetricsService;
     private final PDFService PDFService;
     private final AnthropometricsService anthropometricsService;
-    private final PersonService personService;
+    private final PersonRepository personRepository;
+    private final PdfRenderQueue pdfRenderQueue;
+    private final PdfStorageSweeper pdfStorageSweeper;
+    private final PdfRenderBudget pdfRenderBudget;
+    private final AnthropometricsRequestValidator anthropometricsRequestValidator;
+    private final FormulaRegistry formulaRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    @Value("${pdf.rendering.mode:eager}")
+    private PdfRenderingMode renderingMode;
+
+    /**
+     * Validates anthropometric data and calculates the workspace metrics without saving anything: no person,
+     * anthropometrics or workspace rows are created and no PDF is rendered.
+     *
+     * @param anthropometricsRequestDto the Data Transfer Object containing the anthropometric data, the email is not required.
+     * @return calculated workspace metrics.
+     * @throws InvalidDataException if the provided anthropometrics data is invalid and does not pass validation.
+     */
+    public WorkspaceMetricsDto calculateWorkspaceMetrics(final AnthropometricsRequestDto anthropometricsRequestDto) throws InvalidDataException {
+        anthropometricsRequestValidator.validate(anthropometricsRequestDto);
+        return workspaceMetricsService.calculateWorkspaceMetrics(anthropometricsRequestDto);
+    }
 
     /**
      * Validates, saves or updates new person anthropometric data, creates a workspace based on the saved data,
-     * and generates a PDF of the workspace metrics.
+     * and generates a PDF of the workspace metrics according to the configured rendering mode.
      *
      * @param anthropometricsRequestDto the Data Transfer Object containing person email and the anthropometric data to be validated and saved.
-     * @throws InvalidDataException   if the provided anthropometrics data is invalid and does not pass validation.
-     * @throws IllegalAccessException if there is an access violation during the creation of the workspace.
-     * @throws IOException            if an I/O error occurs during the PDF creation process.
+     * @return the queued render job in async mode, empty otherwise.
+     * @throws InvalidDataException if the provided anthropometrics data is invalid and does not pass validation.
+     * @throws IOException          if an I/O error occurs during the PDF creation process.
      */
-    public void getNewPersonAnthropometricsAndCreateWorkspace(final AnthropometricsRequestDto anthropometricsRequestDto) throws InvalidDataException, IllegalAccessException, IOException {
-        final PersonAnthropometrics anthropometrics = anthropometricsService.validateAndSaveAnthropometrics(anthropometricsRequestDto);
-        final WorkspaceMetrics workspaceMetrics = workspaceMetricsService.createNewWorkplace(anthropometrics);
-        PDFService.createWorkspacePDF(workspaceMetrics);
+    public Optional<PdfRenderJob> getNewPersonAnthropometricsAndCreateWorkspace(final AnthropometricsRequestDto anthropometricsRequestDto) throws InvalidDataException, IOException {
+        anthropometricsRequestValidator.validate(anthropometricsRequestDto);
+        return renderOnSubmit(saveSubmission(anthropometricsRequestDto));
     }
 
     /**
      * Validates, saves or updates new person anthropometric data, creates a workspace based on the saved data,
-     * and generates a PDF of the workspace metrics. This method is called when a person authenticates themselves and provides new anthropometrics data.
+     * and generates a PDF of the workspace metrics according to the configured rendering mode. This method is called when a person authenticates themselves and provides new anthropometrics data.
      *
      * @param dtoAfterAuth   the Data Transfer Object containing anthropometric data to be validated and saved.
      * @param authentication param to retrieve user email.
-     * @throws InvalidDataException   if the provided anthropometrics data is invalid.
-     * @throws IllegalAccessException if there is an access violation during the creation of the workspace.
-     * @throws IOException            if an I/O error occurs during the PDF creation process.
+     * @return the queued render job in async mode, empty otherwise.
+     * @throws InvalidDataException if the provided anthropometrics data is invalid.
+     * @throws IOException          if an I/O error occurs during the PDF creation process.
      */
-    public void updateOrCreateAnthropometricsAndWorkspace(final AnthropometricsRequestDtoAfterAuth dtoAfterAuth, final Authentication authentication) throws InvalidDataException, IllegalAccessException, IOException {
+    public Optional<PdfRenderJob> updateOrCreateAnthropometricsAndWorkspace(final AnthropometricsRequestDtoAfterAuth dtoAfterAuth, final Authentication authentication) throws InvalidDataException, IOException {
         final PersonDto personDto = (PersonDto) authentication.getPrincipal();
         AnthropometricsRequestDto dto = anthropometricsService.mapRequests(dtoAfterAuth, personDto.getEmail());
-        final PersonAnthropometrics anthropometrics = anthropometricsService.validateAndSaveAnthropometrics(dto);
-        final WorkspaceMetrics workspaceMetrics = workspaceMetricsService.createNewWorkplace(anthropometrics);
-        PDFService.createWorkspacePDF(workspaceMetrics);
+        anthropometricsRequestValidator.validate(dto);
+        return renderOnSubmit(saveSubmission(dto));
     }
 
     /**
-     * Retrieves the PDF file for the workspace metrics associated with a person identified by their email.
+     * Saves validated anthropometrics and their workspace as one unit of work: the person is looked up once,
+     * anthropometrics and workspace stay managed and are written by a single flush at commit. In eager mode the
+     * workspace is pointed to the content key of its values within the transaction, so the key is part of the
+     * workspace insert or update; the PDF itself is rendered after commit, see {@link #renderOnSubmit(WorkspaceMetrics)}.
      *
-     * @param email the email address of the person whose workspace PDF is to be retrieved.
-     * @return the File object representing the PDF file of the workspace metrics.
+     * @param dto validated anthropometrics with the person email.
+     * @return committed workspace metrics.
+     * @throws IOException if the previous PDF can not be released.
      */
-    public File getWorkspacePDF(final String email) {
-        final Person person = personService.findPersonByEmail(email);
-        final String path = person.getWorkspaceMetrics().getImagePath();
-        return new File(path);
+    private WorkspaceMetrics saveSubmission(final AnthropometricsRequestDto dto) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                final PersonAnthropometrics anthropometrics = anthropometricsService.saveAnthropometrics(dto);
+                final Optional<WorkspaceMetrics> changed = workspaceMetricsService.calculateChangedWorkplace(anthropometrics);
+                final WorkspaceMetrics workspaceMetrics = changed.orElseGet(() -> anthropometrics.getPerson().getWorkspaceMetrics());
+                if (renderingMode == PdfRenderingMode.EAGER) {
+                    try {
+                        PDFService.assignContentKey(workspaceMetrics);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                changed.ifPresent(metrics -> workspaceMetricsService.saveWorkplace(anthropometrics, metrics));
+                return workspaceMetrics;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
-     * Retrieves the PDF of the workspace after Person is authenticated.
+     * Renders the PDF of the committed workspace in eager mode and queues the render in async mode, so neither holds
+     * a database connection or the person row lock of the submission. In lazy and stream mode nothing is done: the
+     * workspace image path holds the content key of the rendered values, so recomputed metrics no longer match it
+     * and the document is treated as stale until it is rendered on first access. A workspace whose PDF is not stored
+     * yet is rendered on first access as well. The submission is already committed when the render is queued, so a
+     * full render queue does not fail the request: no job is returned and the PDF is rendered on first access.
      *
-     * @param authentication object containing user credentials to retrieve user email.
-     * @return the File object representing the PDF file of the workspace metrics.
+     * @param workspaceMetrics committed workspace metrics.
+     * @return the queued render job in async mode, empty otherwise.
+     * @throws IOException if the PDF can not be rendered or stored in eager mode.
      */
-    public File getWorkspacePDFAfterAuth(Authentication authentication) {
-        final PersonDto personDto = (PersonDto) authentication.getPrincipal();
-        return getWorkspacePDF(personDto.getEmail());
+    private Optional<PdfRenderJob> renderOnSubmit(final WorkspaceMetrics workspaceMetrics) throws IOException {
+        switch (renderingMode) {
+            case EAGER:
+                PDFService.storeWorkspacePDF(workspaceMetrics);
+                return Optional.empty();
+            case ASYNC:
+                try {
+                    return Optional.of(pdfRenderQueue.submit(workspaceMetrics.getId()));
+                } catch (RenderQueueFullException e) {
+                    log.warn("Workspace " + workspaceMetrics.getId() + " PDF is not queued, render queue is full, it is rendered on next access.");
+                    return Optional.empty();
+                }
+            default:
+                return Optional.empty();
+        }
     }
 
     /**
-     * Retrieves an InputStream for the PDF file of the workspace metrics associated with a person identified by their email.
+     * Retrieves the state of a background PDF render job.
      *
-     * @param email the email address of the person whose workspace PDF is to be retrieved.
-     * @return an InputStream for the PDF file of the workspace metrics.
-     * @throws ResourceNotFoundException if the PDF file for the workspace metrics cannot be found.
-     * @throws IOException               if an I/O error occurs while accessing the PDF file.
+     * @param jobId id of the render job returned on submit.
+     * @return the Data Transfer Object describing the job state.
+     * @throws ResourceNotFoundException if the job is unknown or already expired.
+     */
+    public RenderJobDto getRenderJob(final UUID jobId) throws ResourceNotFoundException {
+        final PdfRenderJob job = pdfRenderQueue.findJob(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Render job cannot be found."));
+        return RenderJobDto.builder()
+                .jobId(job.getId())
+                .status(job.getStatus().name())
+                .queuedAt(job.getQueuedAt())
+                .finishedAt(job.getFinishedAt())
+                .error(job.getError())
+                .build();
+    }
+
+    /**
+     * Retrieves queue depth and worker utilisation of the background PDF rendering.
+     *
+     * @return render queue statistics.
+     */
+    public RenderQueueStatsDto getRenderQueueStats() {
+        return pdfRenderQueue.getStats();
+    }
+
+    /**
+     * Retrieves the render memory budget and peak render memory.
+     *
+     * @return render memory statistics.
+     */
+    public RenderMemoryStatsDto getRenderMemoryStats() {
+        return pdfRenderBudget.getStats();
+    }
+
+    /**
+     * Retrieves size and hit rate of the email lookup caches. Statistics are only available for caffeine caches,
+     * other cache types are listed by name.
+     *
+     * @return statistics per cache, ordered by cache name.
+     */
+    public List<CacheStatsDto> getCacheStats() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(name -> CacheConfig.toCacheStats(name, cacheManager.getCache(name)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves the formulas workspace metrics are currently calculated with.
+     *
+     * @return formula version and expression per workspace metric.
      */
-    public InputStream getWorkspacePDFStream(final String email) throws ResourceNotFoundException, IOException {
-        final Person person = personService.findPersonByEmail(email);
-        final String path = person.getWorkspaceMetrics().getImagePath();
+    public FormulaSetDto getFormulas() {
+        return FormulaRegistry.toDto(formulaRegistry.current());
+    }
+
+    /**
+     * Compiles new workspace formulas and uses them for all following calculations. Stored workspaces keep their
+     * metrics and the formula version they were calculated with until they are recalculated.
+     *
+     * @param formulaSetDto new formula version and expression per workspace metric.
+     * @return installed formula version and definitions.
+     * @throws InvalidDataException if the formulas are invalid or the version was used before with other definitions.
+     */
+    public FormulaSetDto updateFormulas(final FormulaSetDto formulaSetDto) throws InvalidDataException {
+        final FormulaSetDto installed = FormulaRegistry.toDto(formulaRegistry.replace(formulaSetDto));
+        log.info("Workspace formulas updated to version " + installed.getVersion());
+        return installed;
+    }
 
-        final Resource resource = new FileSystemResource(path);
-        if (!resource.exists()) {
-            throw new ResourceNotFoundException("Resource cannot be found.");
+    /**
+     * Retrieves orphan and missing PDF counts of the PDF storage sweeper.
+     *
+     * @return sweeper statistics.
+     */
+    public PdfSweepStatsDto getPdfSweepStats() {
+        return pdfStorageSweeper.getStats();
+    }
+
+    /**
+     * Retrieves the workspace PDF of the person identified by their email. In stream mode the PDF is rendered
+     * while it is written to the response, otherwise the stored PDF is rendered first if it is missing or stale.
+     * The workspace columns are read with one query; the person and their workspace entities are only loaded
+     * when a stale PDF has to be rendered and its new key saved, an unknown email creates no person.
+     *
+     * @param email the email address of the person whose workspace PDF is to be retrieved.
+     * @return the WorkspacePdf to be written to the response.
+     * @throws ResourceNotFoundException if the person has no workspace metrics or the stored PDF cannot be found.
+     * @throws IOException               if the PDF can not be rendered or accessed.
+     */
+    public WorkspacePdf getWorkspacePDF(final String email) throws ResourceNotFoundException, IOException {
+        final WorkspaceMetrics pdfSource = PDFService.findWorkspacePdfSource(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Workspace cannot be found."));
+        if (renderingMode == PdfRenderingMode.STREAM) {
+            return PDFService.streamWorkspacePDF(pdfSource);
+        }
+        final Optional<WorkspacePdf> currentPdf = PDFService.findCurrentWorkspacePDF(pdfSource);
+        if (currentPdf.isPresent()) {
+            return currentPdf.get();
         }
-        return resource.getInputStream();
+
+        final WorkspaceMetrics workspaceMetrics = personRepository.findByEmail(email)
+                .map(Person::getWorkspaceMetrics)
+                .orElseThrow(() -> new ResourceNotFoundException("Workspace cannot be found."));
+        PDFService.createWorkspacePDF(workspaceMetrics);
+        return PDFService.findStoredWorkspacePDF(workspaceMetrics)
+                .orElseThrow(() -> new ResourceNotFoundException("Resource cannot be found."));
     }
 
     /**
-     * Retrieves an InputStream of the PDF file after person is authenticated.
+     * Retrieves the workspace PDF after Person is authenticated.
      *
      * @param authentication object containing user credentials to retrieve user email.
-     * @return an InputStream for the PDF file of the workspace metrics.
-     * @throws IOException               if the PDF file for the workspace metrics cannot be found.
-     * @throws ResourceNotFoundException if an I/O error occurs while accessing the PDF file.
+     * @return the WorkspacePdf to be written to the response.
+     * @throws ResourceNotFoundException if the person has no workspace metrics or the stored PDF cannot be found.
+     * @throws IOException               if the PDF can not be rendered or accessed.
      */
-    public InputStream getWorkspacePDFStreamAfterAuth(final Authentication authentication) throws IOException, ResourceNotFoundException {
+    public WorkspacePdf getWorkspacePDFAfterAuth(final Authentication authentication) throws ResourceNotFoundException, IOException {
         final PersonDto personDto = (PersonDto) authentication.getPrincipal();
-        return getWorkspacePDFStream(personDto.getEmail());
+        return getWorkspacePDF(personDto.getEmail());
     }
 }
@@ -0,0 +1,261 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.calculator.FormulaSet;
+import com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout;
+import com.app.ErgonomicCalculator.dto.FormulaSetDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.model.FormulaVersion;
+import com.app.ErgonomicCalculator.repository.FormulaVersionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Holds the formula set workspace metrics are calculated with. Formulas are compiled once when they are loaded
+ * and the current set is swapped atomically, so a calculation always uses one complete set and never blocks on
+ * a reload.
+ * <p>
+ * Without a configured location the built-in formulas of {@link WorkspaceRowLayout} are used. A location points
+ * to a properties file with a {@code version} entry and one expression per workspace metric; the file is checked
+ * for changes on a fixed delay and reloaded when it changed. The file only seeds formulas: a version that is already
+ * stored, or a file older than the latest stored formulas, is skipped. Formulas can also be replaced through the API.
+ * A version always stands for the same definitions, a changed set has to come with a new version.
+ * <p>
+ * Installed formula sets are stored by version. An instance starts with the latest installed set and picks up sets
+ * installed on other instances on the same delay as the file, so restarts and other nodes calculate alike.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FormulaRegistry {
+
+    private static final String VERSION_KEY = "version";
+
+    private static final TypeReference<Map<String, String>> DEFINITIONS_TYPE = new TypeReference<>() {
+    };
+
+    private final ResourceLoader resourceLoader;
+    private final FormulaVersionRepository formulaVersionRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${workspace.formulas.location:}")
+    private String location;
+
+    private final AtomicReference<FormulaSet> current = new AtomicReference<>();
+    private final Map<String, Map<String, String>> knownVersions = new ConcurrentHashMap<>();
+    private long locationLastModified;
+
+    /**
+     * Installs the built-in formulas, then the latest stored formulas and then the configured formula file, if any and
+     * if it is newer than the stored formulas. Invalid stored formulas or an invalid file fail the start.
+     *
+     * @throws InvalidDataException if the stored or configured formulas are invalid.
+     * @throws IOException          if the configured formula file can not be read.
+     */
+    @PostConstruct
+    protected void init() throws InvalidDataException, IOException {
+        install(FormulaSet.compile(WorkspaceRowLayout.DEFAULT_FORMULA_VERSION, WorkspaceRowLayout.DEFAULT_FORMULAS));
+        loadLatestStored();
+        if (!location.isBlank()) {
+            reloadIfModified();
+        }
+    }
+
+    /**
+     * Returns the formula set to calculate with.
+     *
+     * @return current formula set.
+     */
+    public FormulaSet current() {
+        return current.get();
+    }
+
+    /**
+     * Compiles, stores and installs new formulas. Installing the current version again with the same definitions
+     * does nothing.
+     *
+     * @param formulaSetDto version and formula expression per workspace metric.
+     * @return installed formula set.
+     * @throws InvalidDataException if the formulas are invalid or the version was used before with other definitions.
+     */
+    public synchronized FormulaSet replace(final FormulaSetDto formulaSetDto) throws InvalidDataException {
+        if (formulaSetDto.getDefinitions() == null) {
+            throw new InvalidDataException("Formula definitions are missing.");
+        }
+        final FormulaSet formulaSet = FormulaSet.compile(formulaSetDto.getVersion(), formulaSetDto.getDefinitions());
+        if (formulaSet.getVersion().equals(current().getVersion()) && formulaSet.getDefinitions().equals(current().getDefinitions())) {
+            return current();
+        }
+        checkVersion(formulaSet);
+        if (formulaVersionRepository.install(formulaSet.getVersion(), toJson(formulaSet.getDefinitions()), Instant.now()) == 0) {
+            throw new InvalidDataException("Formula version " + formulaSet.getVersion() + " is already used by other definitions.");
+        }
+        install(formulaSet);
+        return formulaSet;
+    }
+
+    /**
+     * Installs formulas installed on another instance and reloads the formula file when it changed since it was
+     * last loaded. Formulas that do not compile are logged and the current formulas stay in use.
+     */
+    @Scheduled(fixedDelayString = "${workspace.formulas.reload-interval:10000}")
+    public void watch() {
+        try {
+            loadLatestStored();
+        } catch (InvalidDataException e) {
+            log.error("Stored workspace formulas not loaded, keeping version " + current().getVersion(), e);
+        }
+        if (location.isBlank()) {
+            return;
+        }
+        try {
+            reloadIfModified();
+        } catch (InvalidDataException | IOException e) {
+            log.error("Workspace formulas in " + location + " not reloaded, keeping version " + current().getVersion(), e);
+        }
+    }
+
+    /**
+     * Maps the formula set to its transfer object.
+     *
+     * @param formulaSet compiled formula set.
+     * @return version and definitions of the set.
+     */
+    public static FormulaSetDto toDto(final FormulaSet formulaSet) {
+        return FormulaSetDto.builder()
+                .version(formulaSet.getVersion())
+                .definitions(formulaSet.getDefinitions())
+                .build();
+    }
+
+    private synchronized void reloadIfModified() throws InvalidDataException, IOException {
+        final Resource resource = resourceLoader.getResource(location);
+        final long lastModified = lastModified(resource);
+        if (lastModified != 0 && lastModified == locationLastModified) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream inputStream = resource.getInputStream()) {
+            properties.load(inputStream);
+        }
+        final Map<String, String> definitions = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (!name.equals(VERSION_KEY)) {
+                definitions.put(name, properties.getProperty(name));
+            }
+        }
+        final String version = properties.getProperty(VERSION_KEY);
+        if (isSeeded(version, lastModified)) {
+            log.info("Workspace formulas version " + version + " in " + location + " skipped, newer formulas are stored.");
+        } else {
+            replace(FormulaSetDto.builder().version(version).definitions(definitions).build());
+        }
+        locationLastModified = lastModified;
+    }
+
+    /**
+     * Checks whether the formula file only seeds formulas that were already stored or were replaced since, so
+     * starting an instance does not undo formulas installed through the API.
+     *
+     * @param version      version in the formula file.
+     * @param lastModified modification time of the formula file, 0 if unknown.
+     * @return whether the formula file has to be skipped.
+     */
+    private boolean isSeeded(final String version, final long lastModified) {
+        if (version != null && formulaVersionRepository.existsById(version)) {
+            return true;
+        }
+        final Optional<FormulaVersion> latest = formulaVersionRepository.findFirstByOrderByInstalledAtDesc();
+        return lastModified != 0 && latest.isPresent() && lastModified <= latest.get().getInstalledAt().toEpochMilli();
+    }
+
+    /**
+     * Installs the most recently stored formula set unless it is already current.
+     *
+     * @throws InvalidDataException if the stored formulas are invalid.
+     */
+    private synchronized void loadLatestStored() throws InvalidDataException {
+        final Optional<FormulaVersion> latest = formulaVersionRepository.findFirstByOrderByInstalledAtDesc();
+        if (latest.isEmpty() || latest.get().getVersion().equals(current().getVersion())) {
+            return;
+        }
+        final FormulaSet formulaSet = FormulaSet.compile(latest.get().getVersion(), fromJson(latest.get().getDefinitions()));
+        checkVersion(formulaSet);
+        install(formulaSet);
+    }
+
+    /**
+     * Checks that the version of the formula set was not used before on this instance with other definitions, the
+     * built-in version is reserved for the built-in formulas.
+     *
+     * @param formulaSet compiled formula set.
+     * @throws InvalidDataException if the version is already taken by other definitions.
+     */
+    private void checkVersion(final FormulaSet formulaSet) throws InvalidDataException {
+        final Map<String, String> known = knownVersions.get(formulaSet.getVersion());
+        if (known != null && !known.equals(formulaSet.getDefinitions())) {
+            throw new InvalidDataException("Formula version " + formulaSet.getVersion() + " is already used by other definitions.");
+        }
+    }
+
+    /**
+     * Makes the formula set current.
+     *
+     * @param formulaSet compiled formula set with a checked version.
+     */
+    private void install(final FormulaSet formulaSet) {
+        knownVersions.putIfAbsent(formulaSet.getVersion(), formulaSet.getDefinitions());
+        current.set(formulaSet);
+        log.info("Workspace formulas version " + formulaSet.getVersion() + " installed.");
+    }
+
+    /**
+     * Serializes the definitions with sorted metric names, so the same definitions are always stored alike.
+     */
+    private String toJson(final Map<String, String> definitions) throws InvalidDataException {
+        try {
+            return objectMapper.writeValueAsString(new TreeMap<>(definitions));
+        } catch (JsonProcessingException e) {
+            throw new InvalidDataException("Formula definitions can not be stored: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, String> fromJson(final String definitions) throws InvalidDataException {
+        try {
+            return objectMapper.readValue(definitions, DEFINITIONS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new InvalidDataException("Stored formula definitions are invalid: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Reads the modification time of the formula file, 0 if the resource does not have one, e.g. inside a jar.
+     */
+    private static long lastModified(final Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
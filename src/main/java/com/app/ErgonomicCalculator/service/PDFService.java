@@ -1,19 +1,36 @@
 package com.app.ErgonomicCalculator.service;
 
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogue;
+import com.app.ErgonomicCalculator.catalogue.FurnitureType;
+import com.app.ErgonomicCalculator.dto.FurnitureMatchDto;
+import com.app.ErgonomicCalculator.mapper.WorkspaceMetricsMapper;
 import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
 import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.app.ErgonomicCalculator.storage.PdfStorage;
+import com.app.ErgonomicCalculator.utils.ContentHash;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.RandomAccess;
+import org.apache.pdfbox.io.RandomAccessInputStream;
+import org.apache.pdfbox.io.RandomAccessOutputStream;
+import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.UUID;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 
 /**
@@ -21,60 +38,245 @@ import java.util.UUID;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PDFService {
 
+    /**
+     * Part of every content key, bump when placeholder texts or positions change so existing PDFs are re-rendered.
+     */
+    private static final String LAYOUT_VERSION = "2";
+
+    private static final Pattern CONTENT_KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
     private final WorkspaceMetricsRepository workspaceMetricsRepository;
-    private String baseDir;
+    private final WorkspaceTemplate workspaceTemplate;
+    private final PdfStorage pdfStorage;
+    private final PdfRenderBudget pdfRenderBudget;
+    private final FurnitureCatalogue furnitureCatalogue;
+    private final WorkspaceMetricsMapper workspaceMetricsMapper;
 
     /**
-     * Method creates a PDF document for the provided workspace metrics.
-     * Updates workspace entity with generated value of unique name, saves to resources and repository.
+     * Method creates a PDF document for the provided workspace metrics on top of the preloaded workspace template.
+     * The storage key is derived from the rendered content, so when the workspace still points to a stored PDF with
+     * the same content nothing is rendered or written. Updates workspace entity with the content key, saves the PDF
+     * to the PDF storage and the entity to the repository, and removes the previous PDF once no workspace references it.
+     * Inside a transaction the new key is written with the rest of the unit of work and the previous PDF is only
+     * released after commit, so a rollback never leaves the row pointing to a deleted file.
      *
      * @param workspaceMetrics object containing the metrics for the workspace.
+     * @throws IOException if the PDF can not be rendered or stored.
+     */
+    public void createWorkspacePDF(final WorkspaceMetrics workspaceMetrics) throws IOException {
+        final String previousKey = workspaceMetrics.getImagePath();
+        final String contentKey = contentKey(workspaceMetrics);
+        final boolean stored = pdfStorage.exists(contentKey);
+
+        if (contentKey.equals(previousKey) && stored) {
+            log.info("Workspace PDF content unchanged, reusing " + contentKey);
+            return;
+        }
+        if (!stored) {
+            pdfStorage.store(contentKey, outputStream -> writeWorkspacePDF(workspaceMetrics, outputStream));
+        }
+
+        workspaceMetrics.setImagePath(contentKey);
+        workspaceMetricsRepository.save(workspaceMetrics);
+        releaseAfterCommit(previousKey);
+    }
+
+    /**
+     * Points the workspace to the content key of its current values without rendering anything, the caller saves
+     * the workspace. Used within a transaction, so no lock or connection is held while the PDF is rendered: the PDF is
+     * stored after commit by {@link #storeWorkspacePDF(WorkspaceMetrics)}, until then downloads render it on demand.
+     * The previous PDF is released after commit.
+     *
+     * @param workspaceMetrics workspace metrics whose content key is assigned.
+     * @throws IOException if no transaction is active and the previous PDF can not be deleted.
+     */
+    public void assignContentKey(final WorkspaceMetrics workspaceMetrics) throws IOException {
+        final String previousKey = workspaceMetrics.getImagePath();
+        final String contentKey = contentKey(workspaceMetrics);
+        if (contentKey.equals(previousKey)) {
+            return;
+        }
+        workspaceMetrics.setImagePath(contentKey);
+        releaseAfterCommit(previousKey);
+    }
+
+    /**
+     * Renders and stores the PDF of the content key the workspace points to, unless it is stored already.
+     * The workspace is not saved, see {@link #assignContentKey(WorkspaceMetrics)}.
+     *
+     * @param workspaceMetrics workspace metrics with an assigned content key.
+     * @throws IOException if the PDF can not be rendered or stored.
+     */
+    public void storeWorkspacePDF(final WorkspaceMetrics workspaceMetrics) throws IOException {
+        final String contentKey = workspaceMetrics.getImagePath();
+        if (contentKey == null || pdfStorage.exists(contentKey)) {
+            return;
+        }
+        pdfStorage.store(contentKey, outputStream -> writeWorkspacePDF(workspaceMetrics, outputStream));
+    }
+
+    /**
+     * Releases the previous PDF of a workspace once the new key is committed. Without an active transaction the
+     * key is already saved and the PDF is released right away. A PDF that can not be released after commit is
+     * left to the {@link PdfStorageSweeper}.
+     *
+     * @param previousKey content key the workspace pointed to before, ignored when null.
+     * @throws IOException if the PDF is released right away and can not be deleted.
      */
-    public void createWorkspacePDF(final WorkspaceMetrics workspaceMetrics) {
-        try {
-            findFileDirection();
-            final File file = new File(baseDir + "/workspace-template.png");
-            final PDDocument document = new PDDocument();
-            final PDImageXObject image = PDImageXObject.createFromFileByContent(file, document);
-            final PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-
-            final PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            contentStream.drawImage(image, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
-            addPlaceholders(contentStream, workspaceMetrics);
-            contentStream.close();
-
-            final String generatedPdfPath = generatePdfPath();
-            document.save(generatedPdfPath);
-            document.close();
-
-            workspaceMetrics.setImagePath(generatedPdfPath);
-            workspaceMetricsRepository.save(workspaceMetrics);
-        } catch (IOException e) {
-            System.err.println("Error while adding background image to PDF: " + e.getMessage());
+    private void releaseAfterCommit(final String previousKey) throws IOException {
+        if (previousKey == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseIfUnreferenced(previousKey);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    releaseIfUnreferenced(previousKey);
+                } catch (IOException e) {
+                    log.warn("Previous workspace PDF " + previousKey + " could not be released, left to the sweeper: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Deletes a stored PDF if no workspace metrics entity references it anymore.
+     * The number of workspace rows pointing to the key acts as the reference count of the PDF.
+     * Values written before the PDF storage was introduced are local file paths, those files are deleted directly.
+     *
+     * @param imagePath content key of the stored PDF, ignored when null.
+     * @throws IOException if the PDF exists but can not be deleted.
+     */
+    public void releaseIfUnreferenced(final String imagePath) throws IOException {
+        if (imagePath == null || workspaceMetricsRepository.countByImagePath(imagePath) > 0) {
+            return;
+        }
+        if (CONTENT_KEY_PATTERN.matcher(imagePath).matches()) {
+            pdfStorage.delete(imagePath);
+        } else {
+            Files.deleteIfExists(Path.of(imagePath));
+        }
+        log.info("Unreferenced workspace PDF deleted: " + imagePath);
+    }
+
+    /**
+     * Checks whether the PDF a workspace points to is present in the PDF storage.
+     *
+     * @param contentKey image path of the workspace.
+     * @return true if the image path is a content key and the storage has the PDF.
+     * @throws IOException if the PDF storage can not be reached.
+     */
+    public boolean hasStoredWorkspacePDF(final String contentKey) throws IOException {
+        return contentKey != null && CONTENT_KEY_PATTERN.matcher(contentKey).matches() && pdfStorage.exists(contentKey);
     }
 
     /**
-     * Determines the base directory for file operations depending on whether the application is running
-     * in a Docker container or a local environment. Sets the `baseDir` field accordingly.
+     * Reads the workspace a person's PDF is rendered from with a single query over the workspace columns and the
+     * person email. The person entity and its anthropometrics are not loaded, the returned workspace is detached
+     * and must not be saved.
+     *
+     * @param email email of the person.
+     * @return detached workspace metrics, empty if the person has no workspace.
      */
-    private void findFileDirection() {
-        String dockerDir = "/app/resources";
-        String localDir = "src/main/resources";
-        baseDir = isRunningOnDocker() ? dockerDir : localDir;
+    public Optional<WorkspaceMetrics> findWorkspacePdfSource(final String email) {
+        return workspaceMetricsRepository.findPdfSourceByEmail(email).map(workspaceMetricsMapper::toWorkspaceMetrics);
     }
 
     /**
-     * Checks if the application is running inside a Docker container.
-     * This method uses the presence of the /.dockerenv file to determine if the application is in Docker.
+     * Looks up the stored PDF of the given workspace metrics if it is up to date, that is the workspace points to the
+     * document its current values render to. Nothing is rendered or saved, so a detached workspace can be passed.
      *
-     * @return true if the application is running inside a Docker container, false otherwise.
+     * @param workspaceMetrics the WorkspaceMetrics whose PDF was stored.
+     * @return the stored PDF, empty if it is missing or stale.
+     * @throws IOException if the PDF storage can not be reached.
      */
-    private boolean isRunningOnDocker() {
-        return new File("/.dockerenv").exists();
+    public Optional<WorkspacePdf> findCurrentWorkspacePDF(final WorkspaceMetrics workspaceMetrics) throws IOException {
+        if (!contentKey(workspaceMetrics).equals(workspaceMetrics.getImagePath())) {
+            return Optional.empty();
+        }
+        return findStoredWorkspacePDF(workspaceMetrics);
+    }
+
+    /**
+     * Looks up the stored PDF of the given workspace metrics.
+     *
+     * @param workspaceMetrics the WorkspaceMetrics whose PDF was stored.
+     * @return the stored PDF, empty if the workspace has no stored PDF.
+     * @throws IOException if the PDF storage can not be reached.
+     */
+    public Optional<WorkspacePdf> findStoredWorkspacePDF(final WorkspaceMetrics workspaceMetrics) throws IOException {
+        final String contentKey = workspaceMetrics.getImagePath();
+        if (contentKey == null || !CONTENT_KEY_PATTERN.matcher(contentKey).matches()) {
+            return Optional.empty();
+        }
+        return pdfStorage.find(contentKey).map(storedPdf -> WorkspacePdf.stored(pdfFileName(contentKey), storedPdf));
+    }
+
+    /**
+     * Computes the content key of the PDF for the given workspace metrics: a SHA-256 of the template
+     * and every text rendered on top of it, including the recommended furniture. Equal keys mean byte for byte
+     * equal documents, so a catalogue change re-renders the PDFs whose recommendations changed.
+     *
+     * @param metrics the WorkspaceMetrics to be rendered.
+     * @return hex encoded content key.
+     */
+    public String contentKey(final WorkspaceMetrics metrics) {
+        final ContentHash hash = ContentHash.sha256()
+                .add(LAYOUT_VERSION)
+                .add(workspaceTemplate.getDigest())
+                .add(emailLabel(metrics));
+        for (Double value : renderedValues(metrics)) {
+            hash.add(String.valueOf(value));
+        }
+        for (String label : furnitureLabels(metrics)) {
+            hash.add(label);
+        }
+        return hash.toHex();
+    }
+
+    /**
+     * Creates a workspace PDF that is rendered when it is written, without storing it or updating the workspace
+     * entity. The document is rendered into a buffer and copied to the output stream after the render permit is
+     * released, so a slow client does not hold a share of the render budget for the length of its download.
+     *
+     * @param workspaceMetrics object containing the metrics for the workspace.
+     * @return WorkspacePdf rendering the document on write.
+     */
+    public WorkspacePdf streamWorkspacePDF(final WorkspaceMetrics workspaceMetrics) {
+        final String contentKey = contentKey(workspaceMetrics);
+        return WorkspacePdf.streamed(pdfFileName(contentKey), contentKey, outputStream -> {
+            try (ScratchFile scratchFile = pdfRenderBudget.newBuffer()) {
+                final RandomAccess buffer = scratchFile.createBuffer();
+                writeWorkspacePDF(workspaceMetrics, new RandomAccessOutputStream(buffer));
+                buffer.seek(0);
+                new RandomAccessInputStream(buffer).transferTo(outputStream);
+            }
+        });
+    }
+
+    /**
+     * Renders the workspace PDF on top of the preloaded template and writes it to the given stream,
+     * within the render memory budget.
+     *
+     * @param workspaceMetrics the WorkspaceMetrics to be rendered.
+     * @param outputStream     stream the document is saved to, left open.
+     * @throws IOException if the document can not be rendered or written.
+     */
+    private void writeWorkspacePDF(final WorkspaceMetrics workspaceMetrics, final OutputStream outputStream) throws IOException {
+        pdfRenderBudget.render(memoryUsageSetting -> {
+            try (PDDocument document = workspaceTemplate.newDocument(memoryUsageSetting)) {
+                final PDPage page = document.getPage(0);
+                try (PDPageContentStream contentStream = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true)) {
+                    addPlaceholders(contentStream, workspaceMetrics);
+                    addFurniturePlaceholders(contentStream, furnitureLabels(workspaceMetrics));
+                }
+                document.save(outputStream);
+            }
+        });
     }
 
     /**
@@ -85,7 +287,7 @@ public class PDFService {
      * @throws IOException if an I/O error occurs while adding placeholder texts to the content stream.
      */
     private void addPlaceholders(final PDPageContentStream contentStream, final WorkspaceMetrics metrics) throws IOException {
-        addEmailPlaceholder(contentStream, metrics.getPerson().getEmail() + " workspace!");
+        addEmailPlaceholder(contentStream, emailLabel(metrics));
         addPlaceholder(contentStream, String.valueOf(metrics.getTableHeightSeated()), 427, 412);
         addPlaceholder(contentStream, "Desk Height when Standing: " + metrics.getTableHeightStanding(), 351, 670);
         addPlaceholder(contentStream, String.valueOf(metrics.getTableWidth()), 495, 483);
@@ -99,6 +301,69 @@ public class PDFService {
         addPlaceholder(contentStream, String.valueOf(metrics.getChairHeadSupportHeight()), 17, 590);
     }
 
+    /**
+     * Adds the recommended furniture labels below the standing heights.
+     *
+     * @param contentStream the PDPageContentStream where the placeholders will be added.
+     * @param labels        furniture labels, see {@link #furnitureLabels(WorkspaceMetrics)}.
+     * @throws IOException if an I/O error occurs while adding placeholder texts to the content stream.
+     */
+    private void addFurniturePlaceholders(final PDPageContentStream contentStream, final List<String> labels) throws IOException {
+        float y = 610;
+        for (String label : labels) {
+            addPlaceholder(contentStream, label, 351, y);
+            y -= 30;
+        }
+    }
+
+    /**
+     * Builds the labels of the closest catalogue product of every furniture type, types without products are left out.
+     *
+     * @param metrics the WorkspaceMetrics the furniture is matched against.
+     * @return furniture labels.
+     */
+    private List<String> furnitureLabels(final WorkspaceMetrics metrics) {
+        final double[] metricsRow = WorkspaceMetricsService.metricsRow(metrics);
+        final List<String> labels = new ArrayList<>();
+        for (FurnitureType type : FurnitureType.values()) {
+            for (FurnitureMatchDto match : furnitureCatalogue.nearest(type, metricsRow, 1)) {
+                labels.add("Recommended " + type.name().toLowerCase() + ": " + match.getName() + " (" + match.getSku() + ")");
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Builds the title label of the workspace PDF.
+     *
+     * @param metrics the WorkspaceMetrics whose person email is displayed.
+     * @return the email label text.
+     */
+    private static String emailLabel(final WorkspaceMetrics metrics) {
+        return metrics.getPerson().getEmail() + " workspace!";
+    }
+
+    /**
+     * Lists the metric values rendered into the PDF, in the order they are placed on the page.
+     *
+     * @param metrics the WorkspaceMetrics containing the data to be displayed.
+     * @return rendered values.
+     */
+    private static List<Double> renderedValues(final WorkspaceMetrics metrics) {
+        return Arrays.asList(
+                metrics.getTableHeightSeated(),
+                metrics.getTableHeightStanding(),
+                metrics.getTableWidth(),
+                metrics.getDisplayHeightSeated(),
+                metrics.getDisplayHeightStanding(),
+                metrics.getChairSeatHeight(),
+                metrics.getChairSeatWidth(),
+                metrics.getArmRestHeight(),
+                metrics.getChairBackSupportHeight(),
+                metrics.getChairBackSupportWidth(),
+                metrics.getChairHeadSupportHeight());
+    }
+
     /**
      * Method adds a placeholder text label on a PDF page.
      *
@@ -132,13 +397,12 @@ public class PDFService {
     }
 
     /**
-     * Saves the document to a unique file path and returns the generated PDF file path.
+     * Builds the content addressed file name of the generated PDF.
      *
-     * @return the file path of the generated PDF.
-     * @throws IOException if an I/O error occurs while saving the document.
+     * @param contentKey content key of the document, see {@link #contentKey(WorkspaceMetrics)}.
+     * @return the file name of the generated PDF.
      */
-    private String generatePdfPath() throws IOException {
-        final String uniqueFileName = "output_" + UUID.randomUUID() + ".pdf";
-        return baseDir + "/generatedPDFs/" + uniqueFileName;
+    private static String pdfFileName(final String contentKey) {
+        return "workspace_" + contentKey + ".pdf";
     }
 }
@@ -0,0 +1,196 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.RenderMemoryStatsDto;
+import com.app.ErgonomicCalculator.exception.RenderBudgetExhaustedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.ScratchFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Memory budget of PDF rendering. Every document keeps at most {@code main-memory-per-render} of its streams
+ * on the heap and spills the rest to a scratch file, and the number of renders in flight is limited by a
+ * semaphore sized as heap budget divided by the estimated heap use of one render. A render that can not get
+ * a permit within the acquire timeout fails instead of queuing up more heap.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PdfRenderBudget {
+
+    /**
+     * Renders a document within the budget.
+     */
+    @FunctionalInterface
+    public interface RenderTask {
+        void render(MemoryUsageSetting memoryUsageSetting) throws IOException;
+    }
+
+    private final WorkspaceTemplate workspaceTemplate;
+
+    @Value("${pdf.rendering.memory.heap-budget:64MB}")
+    private DataSize heapBudget;
+
+    @Value("${pdf.rendering.memory.main-memory-per-render:1MB}")
+    private DataSize mainMemoryPerRender;
+
+    @Value("${pdf.rendering.memory.per-render-estimate:0B}")
+    private DataSize perRenderEstimate;
+
+    @Value("${pdf.rendering.memory.scratch-directory:}")
+    private String scratchDirectory;
+
+    @Value("${pdf.rendering.memory.acquire-timeout:30s}")
+    private Duration acquireTimeout;
+
+    private Semaphore permits;
+    private int maxConcurrentRenders;
+    private long estimatedBytesPerRender;
+
+    private final AtomicInteger inFlightRenders = new AtomicInteger();
+    private final AtomicInteger peakInFlightRenders = new AtomicInteger();
+    private final AtomicLong completedRenders = new AtomicLong();
+    private final AtomicLong waitedRenders = new AtomicLong();
+    private final AtomicLong rejectedRenders = new AtomicLong();
+    private final AtomicLong lastRenderAllocatedBytes = new AtomicLong(-1);
+    private final AtomicLong peakRenderAllocatedBytes = new AtomicLong(-1);
+
+    /**
+     * Sizes the render semaphore. Without a configured estimate one render is assumed to hold the skeleton
+     * bytes three times (input copy, parsed streams, saved output) plus its main memory buffer.
+     */
+    @PostConstruct
+    protected void init() {
+        estimatedBytesPerRender = perRenderEstimate.toBytes() > 0
+                ? perRenderEstimate.toBytes()
+                : 3L * workspaceTemplate.getSkeletonSize() + mainMemoryPerRender.toBytes();
+        maxConcurrentRenders = (int) Math.max(1, heapBudget.toBytes() / estimatedBytesPerRender);
+        permits = new Semaphore(maxConcurrentRenders, true);
+        log.info("PDF render budget " + heapBudget + " allows " + maxConcurrentRenders + " concurrent renders of ~"
+                + estimatedBytesPerRender + " bytes.");
+    }
+
+    /**
+     * Runs the render once a permit of the heap budget is available.
+     *
+     * @param task render to run, receives the memory usage setting for its document.
+     * @throws RenderBudgetExhaustedException if no permit became available within the acquire timeout.
+     * @throws IOException                    if the render fails.
+     */
+    public void render(final RenderTask task) throws IOException {
+        acquire();
+        final int inFlight = inFlightRenders.incrementAndGet();
+        peakInFlightRenders.accumulateAndGet(inFlight, Math::max);
+        final long allocatedBefore = allocatedBytes();
+        try {
+            task.render(memoryUsageSetting());
+            completedRenders.incrementAndGet();
+        } finally {
+            recordAllocation(allocatedBefore);
+            inFlightRenders.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * Creates a buffer for a rendered document that is written out after its permit was released. The buffer keeps
+     * at most {@code main-memory-per-render} on the heap and spills the rest to the scratch directory.
+     *
+     * @return scratch file to create the buffer in, closing it deletes the buffer.
+     * @throws IOException if the scratch file can not be created.
+     */
+    public ScratchFile newBuffer() throws IOException {
+        return new ScratchFile(memoryUsageSetting());
+    }
+
+    /**
+     * Reports the budget configuration and render memory counters.
+     *
+     * @return render memory statistics.
+     */
+    public RenderMemoryStatsDto getStats() {
+        return RenderMemoryStatsDto.builder()
+                .heapBudgetBytes(heapBudget.toBytes())
+                .estimatedBytesPerRender(estimatedBytesPerRender)
+                .mainMemoryPerRenderBytes(mainMemoryPerRender.toBytes())
+                .maxConcurrentRenders(maxConcurrentRenders)
+                .inFlightRenders(inFlightRenders.get())
+                .peakInFlightRenders(peakInFlightRenders.get())
+                .completedRenders(completedRenders.get())
+                .waitedRenders(waitedRenders.get())
+                .rejectedRenders(rejectedRenders.get())
+                .lastRenderAllocatedBytes(lastRenderAllocatedBytes.get())
+                .peakRenderAllocatedBytes(peakRenderAllocatedBytes.get())
+                .build();
+    }
+
+    private void acquire() throws RenderBudgetExhaustedException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        waitedRenders.incrementAndGet();
+        try {
+            if (permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedRenders.incrementAndGet();
+        throw new RenderBudgetExhaustedException("PDF rendering is at capacity, try again later.");
+    }
+
+    private MemoryUsageSetting memoryUsageSetting() {
+        final MemoryUsageSetting memoryUsageSetting = MemoryUsageSetting.setupMixed(mainMemoryPerRender.toBytes());
+        if (!scratchDirectory.isBlank()) {
+            memoryUsageSetting.setTempDir(new File(scratchDirectory));
+        }
+        return memoryUsageSetting;
+    }
+
+    /**
+     * Records the heap allocated by the current thread during the render, an upper bound of the
+     * memory the render held at its peak.
+     *
+     * @param allocatedBefore allocated bytes of the thread before the render, -1 if not measurable.
+     */
+    private void recordAllocation(final long allocatedBefore) {
+        if (allocatedBefore < 0) {
+            return;
+        }
+        final long allocated = allocatedBytes() - allocatedBefore;
+        lastRenderAllocatedBytes.set(allocated);
+        peakRenderAllocatedBytes.accumulateAndGet(allocated, Math::max);
+    }
+
+    /**
+     * Reads the bytes allocated by the current thread so far.
+     *
+     * @return allocated bytes, -1 if the JVM does not support per thread allocation counters.
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
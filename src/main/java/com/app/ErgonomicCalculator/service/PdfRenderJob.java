@@ -0,0 +1,50 @@
+package com.app.ErgonomicCalculator.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Background render job of one workspace PDF, tracked by {@link PdfRenderQueue}.
+ */
+@Getter
+public class PdfRenderJob {
+
+    /**
+     * Lifecycle of a render job.
+     */
+    public enum Status {
+        QUEUED, RENDERING, DONE, FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+    private final Long workspaceMetricsId;
+    private final Instant queuedAt = Instant.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    PdfRenderJob(final Long workspaceMetricsId) {
+        this.workspaceMetricsId = workspaceMetricsId;
+    }
+
+    void started() {
+        status = Status.RENDERING;
+    }
+
+    void done() {
+        finishedAt = Instant.now();
+        status = Status.DONE;
+    }
+
+    void failed(final String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+}
@@ -0,0 +1,164 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.RenderQueueStatsDto;
+import com.app.ErgonomicCalculator.exception.RenderQueueFullException;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Background rendering of workspace PDFs. Jobs are queued in a bounded queue drained by a fixed pool of
+ * render workers, so render capacity does not depend on the number of HTTP threads and a full queue
+ * is reported to the caller instead of piling up.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PdfRenderQueue {
+
+    private final PDFService pdfService;
+    private final WorkspaceMetricsRepository workspaceMetricsRepository;
+
+    @Value("${pdf.rendering.async.workers:2}")
+    private int workers;
+
+    @Value("${pdf.rendering.async.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${pdf.rendering.async.job-retention:1h}")
+    private Duration jobRetention;
+
+    private final Map<UUID, PdfRenderJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Starts the render workers.
+     */
+    @PostConstruct
+    protected void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "pdf-render-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Lets running renders finish before the application context closes.
+     *
+     * @throws InterruptedException if interrupted while waiting for running renders.
+     */
+    @PreDestroy
+    protected void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues rendering of the workspace PDF. The worker reloads the workspace metrics, so the job renders
+     * the latest saved values even if the person re-submits while the job is waiting.
+     *
+     * @param workspaceMetricsId id of the saved workspace metrics to render.
+     * @return queued render job.
+     * @throws RenderQueueFullException if the queue has no free capacity.
+     */
+    public PdfRenderJob submit(final Long workspaceMetricsId) throws RenderQueueFullException {
+        final PdfRenderJob job = new PdfRenderJob(workspaceMetricsId);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> render(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            rejectedJobs.incrementAndGet();
+            log.warn("PDF render queue is full, rejecting render of workspace " + workspaceMetricsId);
+            throw new RenderQueueFullException("PDF render queue is full, try again later.");
+        }
+        log.info("PDF render job " + job.getId() + " queued.");
+        return job;
+    }
+
+    /**
+     * Finds a render job by its id. Finished jobs are kept for the configured retention period.
+     *
+     * @param jobId id of the render job.
+     * @return the job if it is known.
+     */
+    public Optional<PdfRenderJob> findJob(final UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Reports queue depth, worker utilisation and job counters.
+     *
+     * @return current render queue statistics.
+     */
+    public RenderQueueStatsDto getStats() {
+        final int activeWorkers = executor.getActiveCount();
+        return RenderQueueStatsDto.builder()
+                .queueDepth(executor.getQueue().size())
+                .queueCapacity(queueCapacity)
+                .workers(workers)
+                .activeWorkers(activeWorkers)
+                .workerUtilisation((double) activeWorkers / workers)
+                .completedJobs(completedJobs.get())
+                .failedJobs(failedJobs.get())
+                .rejectedJobs(rejectedJobs.get())
+                .build();
+    }
+
+    /**
+     * Removes finished jobs older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${pdf.rendering.async.cleanup-interval:60000}")
+    public void removeExpiredJobs() {
+        final Instant expiredBefore = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(expiredBefore));
+    }
+
+    /**
+     * Renders the PDF of the job's workspace metrics and records the outcome on the job.
+     *
+     * @param job render job to execute.
+     */
+    private void render(final PdfRenderJob job) {
+        job.started();
+        try {
+            final WorkspaceMetrics workspaceMetrics = workspaceMetricsRepository.findById(job.getWorkspaceMetricsId())
+                    .orElseThrow(() -> new IllegalStateException("Workspace metrics " + job.getWorkspaceMetricsId() + " no longer exist."));
+            pdfService.createWorkspacePDF(workspaceMetrics);
+            job.done();
+            completedJobs.incrementAndGet();
+        } catch (Exception e) {
+            log.error("PDF render job " + job.getId() + " failed.", e);
+            job.failed(e.getMessage());
+            failedJobs.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.app.ErgonomicCalculator.service;
+
+/**
+ * Defines when the workspace PDF is rendered, configured with {@code pdf.rendering.mode}.
+ */
+public enum PdfRenderingMode {
+
+    /**
+     * The PDF is rendered while the submitted anthropometric data is processed.
+     */
+    EAGER,
+
+    /**
+     * Submit only persists anthropometrics and workspace metrics, the PDF is rendered on first download or open.
+     */
+    LAZY,
+
+    /**
+     * Submit persists the data and queues the PDF render on the background render workers.
+     */
+    ASYNC,
+
+    /**
+     * PDFs are never stored, every download or open renders the document into a buffer that is copied to the response.
+     */
+    STREAM
+}
@@ -0,0 +1,192 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.PdfSweepStatsDto;
+import com.app.ErgonomicCalculator.dto.WorkspacePdfKey;
+import com.app.ErgonomicCalculator.exception.RenderQueueFullException;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.app.ErgonomicCalculator.storage.PdfStorage;
+import com.app.ErgonomicCalculator.storage.StoredPdf;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+
+/**
+ * Reconciles the PDF storage with the workspace metrics table. Every run handles one bounded batch of stored
+ * PDFs and one bounded batch of workspace rows and remembers where it stopped, so a full pass is spread over
+ * many short runs instead of one scan that stalls the service.
+ * <ul>
+ *     <li>Stored PDFs no row references are deleted once they are older than the grace period, which covers
+ *     the window between storing a PDF and saving the row that points to it.</li>
+ *     <li>Rows pointing to a missing PDF are queued for re-render in eager and async mode. In lazy mode they
+ *     are only counted, the PDF is rendered again on first access.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PdfStorageSweeper {
+
+    private final PdfStorage pdfStorage;
+    private final PDFService pdfService;
+    private final WorkspaceMetricsRepository workspaceMetricsRepository;
+    private final PdfRenderQueue pdfRenderQueue;
+
+    @Value("${pdf.storage.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pdf.storage.sweeper.batch-size:200}")
+    private int batchSize;
+
+    @Value("${pdf.storage.sweeper.grace-period:10m}")
+    private Duration gracePeriod;
+
+    @Value("${pdf.rendering.mode:eager}")
+    private PdfRenderingMode renderingMode;
+
+    private String storageCursor;
+    private long workspaceCursor;
+
+    private final AtomicLong completedStoragePasses = new AtomicLong();
+    private final AtomicLong completedWorkspacePasses = new AtomicLong();
+    private volatile Instant lastStoragePassCompletedAt;
+    private volatile Instant lastWorkspacePassCompletedAt;
+    private final AtomicLong scannedPdfs = new AtomicLong();
+    private final AtomicLong deletedOrphans = new AtomicLong();
+    private final AtomicLong scannedWorkspaces = new AtomicLong();
+    private final AtomicLong danglingWorkspaces = new AtomicLong();
+    private final AtomicLong queuedRenders = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    /**
+     * Runs one sweep step: a batch of stored PDFs followed by a batch of workspace rows.
+     * Failures are logged and the step is retried from the same position on the next run.
+     */
+    @Scheduled(fixedDelayString = "${pdf.storage.sweeper.interval:30000}",
+            initialDelayString = "${pdf.storage.sweeper.initial-delay:60000}")
+    public void sweep() {
+        if (!enabled || renderingMode == PdfRenderingMode.STREAM) {
+            return;
+        }
+        try {
+            sweepStorageBatch();
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.error("PDF storage sweep failed after key " + storageCursor, e);
+        }
+        try {
+            sweepWorkspaceBatch();
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.error("Workspace PDF sweep failed after workspace " + workspaceCursor, e);
+        }
+    }
+
+    /**
+     * Reports the counters of the sweeper since the application started.
+     *
+     * @return sweeper statistics.
+     */
+    public PdfSweepStatsDto getStats() {
+        return PdfSweepStatsDto.builder()
+                .completedStoragePasses(completedStoragePasses.get())
+                .completedWorkspacePasses(completedWorkspacePasses.get())
+                .lastStoragePassCompletedAt(lastStoragePassCompletedAt)
+                .lastWorkspacePassCompletedAt(lastWorkspacePassCompletedAt)
+                .scannedPdfs(scannedPdfs.get())
+                .deletedOrphans(deletedOrphans.get())
+                .scannedWorkspaces(scannedWorkspaces.get())
+                .danglingWorkspaces(danglingWorkspaces.get())
+                .queuedRenders(queuedRenders.get())
+                .failedBatches(failedBatches.get())
+                .build();
+    }
+
+    /**
+     * Deletes the unreferenced PDFs of the next storage batch. References of the whole batch are resolved with a single query.
+     *
+     * @throws IOException if the storage can not be listed or a PDF can not be deleted.
+     */
+    void sweepStorageBatch() throws IOException {
+        final List<StoredPdf> batch = pdfStorage.list(storageCursor, batchSize);
+        if (!batch.isEmpty()) {
+            final Set<String> referencedKeys = workspaceMetricsRepository.findReferencedImagePaths(
+                    batch.stream().map(StoredPdf::getKey).collect(Collectors.toList()));
+            final long orphanedBefore = Instant.now().minus(gracePeriod).toEpochMilli();
+            for (StoredPdf storedPdf : batch) {
+                if (!referencedKeys.contains(storedPdf.getKey()) && storedPdf.getLastModified() < orphanedBefore) {
+                    pdfStorage.delete(storedPdf.getKey());
+                    deletedOrphans.incrementAndGet();
+                    log.info("Orphaned workspace PDF deleted: " + storedPdf.getKey());
+                }
+            }
+            scannedPdfs.addAndGet(batch.size());
+            storageCursor = batch.get(batch.size() - 1).getKey();
+        }
+        if (batch.size() < batchSize) {
+            storageCursor = null;
+            completedStoragePasses.incrementAndGet();
+            lastStoragePassCompletedAt = Instant.now();
+            log.info("PDF storage sweep pass completed, " + scannedPdfs.get() + " PDFs scanned and "
+                    + deletedOrphans.get() + " orphans deleted so far.");
+        }
+    }
+
+    /**
+     * Checks the next batch of workspace rows, walked by id, for PDFs missing from the storage. Only the id and the
+     * content key of each row are read.
+     *
+     * @throws IOException if the storage can not be reached.
+     */
+    void sweepWorkspaceBatch() throws IOException {
+        final List<WorkspacePdfKey> batch = workspaceMetricsRepository
+                .findPdfKeysByIdGreaterThanAndImagePathIsNotNullOrderByIdAsc(workspaceCursor, PageRequest.of(0, batchSize));
+        for (WorkspacePdfKey workspacePdfKey : batch) {
+            if (!pdfService.hasStoredWorkspacePDF(workspacePdfKey.getImagePath())) {
+                danglingWorkspaces.incrementAndGet();
+                queueRender(workspacePdfKey.getId());
+            }
+        }
+        scannedWorkspaces.addAndGet(batch.size());
+        if (!batch.isEmpty()) {
+            workspaceCursor = batch.get(batch.size() - 1).getId();
+        }
+        if (batch.size() < batchSize) {
+            workspaceCursor = 0;
+            completedWorkspacePasses.incrementAndGet();
+            lastWorkspacePassCompletedAt = Instant.now();
+            log.info("Workspace PDF sweep pass completed, " + scannedWorkspaces.get() + " workspaces scanned and "
+                    + danglingWorkspaces.get() + " missing PDFs found so far.");
+        }
+    }
+
+    /**
+     * Queues the re-render of a workspace whose PDF is missing. A full queue is not an error,
+     * the row is found again on the next pass.
+     *
+     * @param workspaceMetricsId id of the workspace with a missing PDF.
+     */
+    private void queueRender(final Long workspaceMetricsId) {
+        if (renderingMode == PdfRenderingMode.LAZY) {
+            log.info("Workspace " + workspaceMetricsId + " PDF is missing, it is rendered on next access.");
+            return;
+        }
+        try {
+            pdfRenderQueue.submit(workspaceMetricsId);
+            queuedRenders.incrementAndGet();
+        } catch (RenderQueueFullException e) {
+            log.warn("Workspace " + workspaceMetricsId + " PDF is missing, render queue is full, retrying on next pass.");
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.app.ErgonomicCalculator.service;
 
+import com.app.ErgonomicCalculator.config.CacheConfig;
 import com.app.ErgonomicCalculator.config.PersonAuthProvider;
 import com.app.ErgonomicCalculator.dto.CredentialsDto;
+import com.app.ErgonomicCalculator.dto.PersonCredentials;
 import com.app.ErgonomicCalculator.dto.PasswordUpdateRequestDto;
 import com.app.ErgonomicCalculator.dto.PersonDto;
 import com.app.ErgonomicCalculator.dto.RegisterDto;
@@ -10,18 +12,18 @@ import com.app.ErgonomicCalculator.exception.InvalidDataException;
 import com.app.ErgonomicCalculator.exception.PersonNotFoundException;
 import com.app.ErgonomicCalculator.mapper.PersonMapper;
 import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
 import com.app.ErgonomicCalculator.repository.PersonRepository;
 import com.app.ErgonomicCalculator.validator.PasswordValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.CharBuffer;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Optional;
 
 /**
@@ -37,23 +39,25 @@ public class PersonService {
     private final PasswordEncoder passwordEncoder;
     private final PasswordValidator passwordUpdateRequestValidator;
     private final PersonAuthProvider personAuthProvider;
+    private final PDFService pdfService;
 
 
     /**
      * Method finds a person by their email address. If no person is found with the given email address,
      * a new person is created with the provided email and saved to the database.
+     * The person row is inserted or locked by one atomic upsert before it is read, so concurrent calls for the same
+     * email neither violate the unique email constraint nor, within a transaction, create the anthropometrics or
+     * workspace of the person twice: the second caller waits for the first to commit and reads its rows.
      *
      * @param personEmail the email address of the person to be found or created.
      * @return the Person object corresponding to the given email address, either found or newly created.
      */
     public Person findPersonByEmail(final String personEmail) {
+        if (personRepository.insertOrLockByEmail(personEmail) > 0) {
+            log.info("Person with email " + personEmail + " created.");
+        }
         return personRepository.findByEmail(personEmail)
-                .orElseGet(() -> {
-                    final var newPerson = Person.builder()
-                            .email(personEmail)
-                            .build();
-                    return personRepository.save(newPerson);
-                });
+                .orElseThrow(() -> new IllegalStateException("Person with email " + personEmail + " was not saved."));
     }
 
     /**
@@ -64,12 +68,12 @@ public class PersonService {
      * @throws PersonNotFoundException if person with given email can not be found.
      */
     public PersonDto login(final CredentialsDto credentialsDto) throws PersonNotFoundException, IncorrectPasswordException {
-        Person person = personRepository.findByEmail(credentialsDto.getEmail())
+        final PersonCredentials credentials = personRepository.findCredentialsByEmail(credentialsDto.getEmail())
                 .orElseThrow(() -> new PersonNotFoundException("Unknown user"));
 
-        checkIfPasswordValid(credentialsDto.getPassword(), person.getPassword());
+        checkIfPasswordValid(credentialsDto.getPassword(), credentials.getPassword());
 
-        return mapPersonDtoAndSetToken(person);
+        return setToken(personMapper.toPersonDto(credentials));
     }
 
 
@@ -78,13 +82,15 @@ public class PersonService {
      * If person by unique email is found in the database and password is null,
      * existing entity is updated.
      * When person is not found - new entity is created and saved to database.
+     * The cached principal of the email is evicted, as the names of an existing person change.
      *
      * @param registerDto the Data Transfer Object containing information for registration.
      * @return PersonDto holding name, lastName, generated token, unique identifiers id and email.
      */
+    @CacheEvict(cacheNames = CacheConfig.PERSON_PRINCIPALS, key = "#registerDto.email")
     public PersonDto registerPerson(final RegisterDto registerDto) {
         log.info("Looking for a person with email " + registerDto.getEmail());
-        Optional<Person> oPerson = personRepository.findByEmail(registerDto.getEmail());
+        Optional<PersonCredentials> oPerson = personRepository.findCredentialsByEmail(registerDto.getEmail());
 
         if (oPerson.isPresent() && oPerson.get().getPassword() == null) {
             return updateAndRegisterExistingPerson(registerDto, oPerson.get());
@@ -95,45 +101,51 @@ public class PersonService {
         log.info("Person created.");
         personRepository.save(person);
 
-        return mapPersonDtoAndSetToken(person);
+        return setToken(personMapper.toPersonDto(person));
     }
 
 
     /**
-     * Private method to update existing Person after registration.
+     * Private method to update existing Person after registration. The columns are updated by id,
+     * the person entity and its associations are not loaded.
      *
      * @param registerDto    contains necessary information of person to register.
-     * @param existingPerson is already existing object in DB and needs to be updated.
+     * @param existingPerson credentials of the already existing person in DB that needs to be updated.
      */
-    private PersonDto updateAndRegisterExistingPerson(RegisterDto registerDto, Person existingPerson) {
-        existingPerson.setFirstName(registerDto.getFirstName());
-        existingPerson.setLastName(registerDto.getLastName());
-        existingPerson.setPassword(passwordEncoder.encode(CharBuffer.wrap(registerDto.getPassword())));
-        personRepository.save(existingPerson);
+    private PersonDto updateAndRegisterExistingPerson(RegisterDto registerDto, PersonCredentials existingPerson) {
+        personRepository.updateRegistration(existingPerson.getId(), registerDto.getFirstName(), registerDto.getLastName(),
+                passwordEncoder.encode(CharBuffer.wrap(registerDto.getPassword())));
 
         log.info("Existing person updated.");
 
-        return mapPersonDtoAndSetToken(existingPerson);
+        return setToken(PersonDto.builder()
+                .id(existingPerson.getId())
+                .email(existingPerson.getEmail())
+                .firstName(registerDto.getFirstName())
+                .lastName(registerDto.getLastName())
+                .build());
     }
 
     /**
-     * Maps a {@link Person} to a {@link PersonDto} and sets an authentication token.
+     * Sets an authentication token on a {@link PersonDto}.
      *
-     * @param person the {@link Person} entity to be mapped to a {@link PersonDto}.
+     * @param personDto the {@link PersonDto} to create the token for.
      * @return the {@link PersonDto} with the authentication token set.
      */
-    private PersonDto mapPersonDtoAndSetToken(Person person) {
-        final var personDto = personMapper.toPersonDto(person);
+    private PersonDto setToken(final PersonDto personDto) {
         personDto.setToken(personAuthProvider.createToken(personDto));
         return personDto;
     }
 
     /**
      * If unregistered person click on specific buttons, their data is deleted from database.
+     * The workspace PDF file is deleted only when no other workspace still references it.
+     * The cached principal of the email is evicted, the cached PDF source is evicted with the removed workspace.
      *
      * @param email unique identifier to find a person to delete.
      * @throws PersonNotFoundException if the person by given unique identifier can not be found.
      */
+    @CacheEvict(cacheNames = CacheConfig.PERSON_PRINCIPALS, key = "#email")
     public void delete(final String email) throws PersonNotFoundException, IOException {
         log.info("Looking for a person with email " + email);
         final Person person = personRepository.findByEmail(email)
@@ -143,8 +155,11 @@ public class PersonService {
             return;
         }
 
-        Files.deleteIfExists(Path.of(person.getWorkspaceMetrics().getImagePath()));
+        final WorkspaceMetrics workspaceMetrics = person.getWorkspaceMetrics();
         personRepository.delete(person);
+        if (workspaceMetrics != null) {
+            pdfService.releaseIfUnreferenced(workspaceMetrics.getImagePath());
+        }
         log.info("Person deleted successfully");
     }
 
@@ -163,17 +178,16 @@ public class PersonService {
         String email = personDto.getEmail();
 
         log.info("Looking for a person with email " + email);
-        final Person person = personRepository.findByEmail(email)
+        final PersonCredentials credentials = personRepository.findCredentialsByEmail(email)
                 .orElseThrow(() -> new PersonNotFoundException("Person can not be found."));
 
-        checkIfPasswordValid(requestDto.getOldPassword(), person.getPassword());
+        checkIfPasswordValid(requestDto.getOldPassword(), credentials.getPassword());
 
         final String newPassword = requestDto.getNewPassword();
         passwordUpdateRequestValidator.validate(newPassword);
-        person.setPassword(passwordEncoder.encode(newPassword));
+        personRepository.updatePassword(credentials.getId(), passwordEncoder.encode(newPassword));
         log.info("Password updated successfully");
 
-        personRepository.save(person);
         return personDto;
     }
 
@@ -0,0 +1,293 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.catalogue.FurnitureType;
+import com.app.ErgonomicCalculator.dto.ProcurementConfigurationDto;
+import com.app.ErgonomicCalculator.dto.ProcurementPlanDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.procurement.KMeans;
+import com.app.ErgonomicCalculator.procurement.MetricMatrix;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+
+/**
+ * Plans bulk furniture purchases: finds the smallest number of desk and chair settings such that the target share
+ * of stored workspaces is within the tolerance of one setting in every matched metric.
+ * <p>
+ * The metrics of all stored workspaces are streamed from the table with a forward-only cursor into a primitive
+ * matrix, no entities are loaded. The matrix is clustered with parallel k-means for a growing number of settings,
+ * doubling until the coverage target is reached and then bisecting down to the smallest number that reaches it.
+ * The search runs on an evenly strided sample of the rows. Only the chosen number of settings is fitted on
+ * all rows, and the reported coverage is measured on all of them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProcurementService {
+
+    /**
+     * Metrics furniture settings are planned for: the dimensions of every catalogue furniture type.
+     */
+    static final List<String> METRICS = metrics();
+
+    private static final int MAX_REFINEMENTS = 3;
+
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${procurement.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${procurement.parallelism:0}")
+    private int parallelism;
+
+    @Value("${procurement.max-iterations:30}")
+    private int maxIterations;
+
+    @Value("${procurement.sample-rows:20000}")
+    private int sampleRows;
+
+    @Value("${procurement.max-configurations:64}")
+    private int maxConfigurations;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private ForkJoinPool pool;
+
+    /**
+     * Creates the streaming query template and starts the clustering workers.
+     */
+    @PostConstruct
+    protected void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Stops the clustering workers.
+     */
+    @PreDestroy
+    protected void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Plans furniture settings for all stored workspaces.
+     *
+     * @param targetCoverage share of workspaces to cover, between 0 and 1.
+     * @param tolerance      allowed deviation in cm of a workspace metric from the setting.
+     * @param configurations maximum number of settings, null for the configured maximum.
+     * @return settings with their coverage, the smallest set reaching the target or the best plan within the maximum.
+     * @throws InvalidDataException if a parameter is out of range.
+     */
+    public ProcurementPlanDto plan(final double targetCoverage, final double tolerance, final Integer configurations) throws InvalidDataException {
+        if (!(targetCoverage > 0 && targetCoverage <= 1)) {
+            throw new InvalidDataException("Coverage must be greater than 0 and at most 1.");
+        }
+        if (!(tolerance >= 0)) {
+            throw new InvalidDataException("Tolerance must not be negative.");
+        }
+        final int limit = configurations == null ? maxConfigurations : configurations;
+        if (limit < 1 || limit > maxConfigurations) {
+            throw new InvalidDataException("Number of configurations must be between 1 and " + maxConfigurations + ".");
+        }
+
+        final long scanStart = System.nanoTime();
+        final long[] skipped = new long[1];
+        final MetricMatrix data = scan(skipped);
+        final long scanMillis = (System.nanoTime() - scanStart) / 1_000_000;
+
+        final long clusteringStart = System.nanoTime();
+        final ProcurementPlanDto plan = plan(data, targetCoverage, tolerance, limit);
+        plan.setSkippedWorkspaces(skipped[0]);
+        plan.setScanMillis(scanMillis);
+        plan.setClusteringMillis((System.nanoTime() - clusteringStart) / 1_000_000);
+        log.info("Procurement plan for " + data.rows() + " workspaces: " + plan.getConfigurations().size()
+                + " configurations cover " + plan.getCoverage() + ", scan " + scanMillis + " ms, clustering "
+                + plan.getClusteringMillis() + " ms.");
+        return plan;
+    }
+
+    /**
+     * Finds the smallest number of clusters whose settings reach the coverage target.
+     *
+     * @param data           metric rows, see {@link #METRICS}.
+     * @param targetCoverage share of rows to cover.
+     * @param tolerance      allowed deviation per metric.
+     * @param limit          maximum number of clusters.
+     * @return plan without scan statistics.
+     */
+    ProcurementPlanDto plan(final MetricMatrix data, final double targetCoverage, final double tolerance, final int limit) {
+        if (data.rows() == 0) {
+            return planOf(data, null, null, targetCoverage, tolerance);
+        }
+        final int maxClusters = Math.min(limit, data.rows());
+        int clusters = clustersFor(data.sample(sampleRows), targetCoverage, tolerance, maxClusters);
+        KMeans.Result result = KMeans.fit(data, clusters, maxIterations, clusters, sampleRows, pool);
+        KMeans.Coverage coverage = KMeans.coverage(data, result, tolerance, pool);
+        // the sample estimate may miss the target narrowly on all rows, a few more settings close the gap
+        for (int refinement = 0; refinement < MAX_REFINEMENTS && clusters < maxClusters && !reaches(coverage, data, targetCoverage); refinement++) {
+            clusters++;
+            final KMeans.Result refined = KMeans.fit(data, clusters, maxIterations, clusters, sampleRows, pool);
+            final KMeans.Coverage refinedCoverage = KMeans.coverage(data, refined, tolerance, pool);
+            if (refinedCoverage.getCoveredRows() >= coverage.getCoveredRows()) {
+                result = refined;
+                coverage = refinedCoverage;
+            }
+        }
+        return planOf(data, result, coverage, targetCoverage, tolerance);
+    }
+
+    /**
+     * Searches the smallest number of clusters reaching the coverage target on the sample.
+     *
+     * @return number of clusters reaching the target, or the number that covers most rows within the limit.
+     */
+    private int clustersFor(final MetricMatrix sample, final double targetCoverage, final double tolerance, final int maxClusters) {
+        int best = 1;
+        long bestCovered = -1;
+        int failed = 0;
+        int k = 1;
+        while (true) {
+            final long covered = covered(sample, k, tolerance);
+            if (covered >= Math.ceil(targetCoverage * sample.rows())) {
+                break;
+            }
+            if (covered >= bestCovered) {
+                best = k;
+                bestCovered = covered;
+            }
+            if (k == maxClusters) {
+                return best;
+            }
+            failed = k;
+            k = Math.min(k * 2, maxClusters);
+        }
+        int low = failed + 1;
+        int high = k;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (covered(sample, middle, tolerance) >= Math.ceil(targetCoverage * sample.rows())) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return high;
+    }
+
+    private long covered(final MetricMatrix sample, final int k, final double tolerance) {
+        final KMeans.Result result = KMeans.fit(sample, k, maxIterations, k, pool);
+        return KMeans.coverage(sample, result, tolerance, pool).getCoveredRows();
+    }
+
+    private static boolean reaches(final KMeans.Coverage coverage, final MetricMatrix data, final double targetCoverage) {
+        return coverage.getCoveredRows() >= Math.ceil(targetCoverage * data.rows());
+    }
+
+    /**
+     * Streams the planned metrics of all workspaces into a matrix. The cursor only fetches {@code fetch-size} rows
+     * at a time, which needs a transaction on PostgreSQL.
+     *
+     * @param skipped receives the number of workspaces with a missing metric.
+     * @return metric rows.
+     */
+    private MetricMatrix scan(final long[] skipped) {
+        final String sql = "select " + METRICS.stream().map(ProcurementService::columnName).collect(Collectors.joining(", "))
+                + " from workspace_metrics";
+        return readOnlyTransaction.execute(status -> {
+            final MetricMatrix data = new MetricMatrix(METRICS.size(), fetchSize);
+            final double[] row = new double[METRICS.size()];
+            jdbcTemplate.query(sql, (RowCallbackHandler) resultSet -> {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = resultSet.getDouble(i + 1);
+                    if (resultSet.wasNull()) {
+                        skipped[0]++;
+                        return;
+                    }
+                }
+                data.add(row);
+            });
+            return data;
+        });
+    }
+
+    private static ProcurementPlanDto planOf(final MetricMatrix data, final KMeans.Result result, final KMeans.Coverage coverage,
+                                             final double targetCoverage, final double tolerance) {
+        final List<ProcurementConfigurationDto> configurations = new ArrayList<>();
+        if (result != null) {
+            final int dimensions = data.dimensions();
+            for (int cluster = 0; cluster < result.getClusters(); cluster++) {
+                final Map<String, Double> setting = new LinkedHashMap<>();
+                final Map<String, Double> coveredMin = new LinkedHashMap<>();
+                final Map<String, Double> coveredMax = new LinkedHashMap<>();
+                final boolean covers = coverage.getCovered()[cluster] > 0;
+                for (int d = 0; d < dimensions; d++) {
+                    setting.put(METRICS.get(d), round(result.centroid(cluster, d)));
+                    if (covers) {
+                        coveredMin.put(METRICS.get(d), coverage.getMin()[cluster * dimensions + d]);
+                        coveredMax.put(METRICS.get(d), coverage.getMax()[cluster * dimensions + d]);
+                    }
+                }
+                configurations.add(ProcurementConfigurationDto.builder()
+                        .setting(setting)
+                        .coveredMin(coveredMin)
+                        .coveredMax(coveredMax)
+                        .workspaces(result.getSizes()[cluster])
+                        .coveredWorkspaces(coverage.getCovered()[cluster])
+                        .coverage((double) coverage.getCovered()[cluster] / data.rows())
+                        .build());
+            }
+        }
+        final double achieved = coverage == null ? 0 : (double) coverage.getCoveredRows() / data.rows();
+        return ProcurementPlanDto.builder()
+                .targetCoverage(targetCoverage)
+                .tolerance(tolerance)
+                .metrics(METRICS)
+                .workspaces(data.rows())
+                .coverage(achieved)
+                .targetReached(coverage != null && reaches(coverage, data, targetCoverage))
+                .configurations(configurations)
+                .build();
+    }
+
+    private static double round(final double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static List<String> metrics() {
+        final List<String> metrics = new ArrayList<>();
+        for (FurnitureType type : FurnitureType.values()) {
+            for (int i = 0; i < type.dimensions(); i++) {
+                metrics.add(type.metricName(i));
+            }
+        }
+        return List.copyOf(metrics);
+    }
+
+    /**
+     * Maps a metric name to its column, following the default snake case naming of the entity columns.
+     */
+    private static String columnName(final String metric) {
+        return metric.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+    }
+}
@@ -1,20 +1,23 @@
 package com.app.ErgonomicCalculator.service;
 
+import com.app.ErgonomicCalculator.calculator.FormulaSet;
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogue;
+import com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout;
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import com.app.ErgonomicCalculator.dto.WorkspaceMetricsDto;
 import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
 import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
 import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
 
 
 /**
- * Service for workspace related operations: creating, updating.
+ * Service for workspace related operations: calculating, creating, updating.
  */
 @Service
 @RequiredArgsConstructor
@@ -22,66 +25,252 @@ import java.nio.file.Path;
 public class WorkspaceMetricsService {
 
     private final WorkspaceMetricsRepository workspaceMetricsRepository;
+    private final FormulaRegistry formulaRegistry;
+    private final WorkspaceStatisticsService workspaceStatisticsService;
+    private final FurnitureCatalogue furnitureCatalogue;
 
 
     /**
      * Method creates workspace metrics from given person anthropometric data.
-     * Updates existing workspace, saves if new.
+     * Updates existing workspace, saves if new or changed, and adds the values to the workspace statistics.
+     * An existing workspace whose metrics and formula version come out the same is neither saved nor recorded again.
      *
      * @param personAnthropometrics anthropometric data of person.
-     * @return updated or created workspace metrics entity.
+     * @return updated, created or unchanged workspace metrics entity.
      */
-    public WorkspaceMetrics createNewWorkplace(final PersonAnthropometrics personAnthropometrics) throws IOException {
-        final WorkspaceMetrics newWorkspaceMetrics = createNewWorkspaceMetrics(personAnthropometrics);
+    public WorkspaceMetrics createNewWorkplace(final PersonAnthropometrics personAnthropometrics) {
+        return calculateChangedWorkplace(personAnthropometrics)
+                .map(workspaceMetrics -> saveWorkplace(personAnthropometrics, workspaceMetrics))
+                .orElseGet(() -> personAnthropometrics.getPerson().getWorkspaceMetrics());
+    }
+
+    /**
+     * Calculates workspace metrics from given person anthropometric data without saving them, like
+     * {@link #calculateWorkplace(PersonAnthropometrics)}, but reports an existing workspace that comes out the same.
+     *
+     * @param personAnthropometrics anthropometric data of person.
+     * @return updated or created, unsaved workspace metrics entity; empty if the existing workspace is unchanged.
+     */
+    public Optional<WorkspaceMetrics> calculateChangedWorkplace(final PersonAnthropometrics personAnthropometrics) {
+        final WorkspaceMetrics metricsToUpdate = personAnthropometrics.getPerson().getWorkspaceMetrics();
+        final FormulaSet formulaSet = formulaRegistry.current();
+        final double[] metrics = formulaSet.calculate(anthropometricsRow(personAnthropometrics));
+        if (metricsToUpdate == null) {
+            log.info("New Workspace data created.");
+            return Optional.of(createWorkplace(personAnthropometrics, metrics, formulaSet.getVersion()));
+        }
+        if (!updateWorkplaceIfExists(metricsToUpdate, metrics, formulaSet.getVersion())) {
+            log.info("Existing Workspace data unchanged, nothing saved.");
+            return Optional.empty();
+        }
+        log.info("Existing Workspace data updated.");
+        return Optional.of(metricsToUpdate);
+    }
+
+    /**
+     * Saves calculated workspace metrics and adds the values to the workspace statistics once they are committed.
+     *
+     * @param personAnthropometrics anthropometric data the workspace was calculated from.
+     * @param workspaceMetrics      updated or created workspace metrics entity.
+     * @return saved workspace metrics entity.
+     */
+    public WorkspaceMetrics saveWorkplace(final PersonAnthropometrics personAnthropometrics, final WorkspaceMetrics workspaceMetrics) {
+        workspaceMetricsRepository.save(workspaceMetrics);
+        workspaceStatisticsService.record(personAnthropometrics, workspaceMetrics);
+        log.info("Workspace data saved.");
+        return workspaceMetrics;
+    }
+
+    /**
+     * Calculates workspace metrics from given person anthropometric data without saving them.
+     * The existing workspace of the person is updated in place, otherwise a new workspace entity is created
+     * and linked to the person. The workspace records the version of the formulas it was calculated with.
+     *
+     * @param personAnthropometrics anthropometric data of person.
+     * @return updated or created, unsaved workspace metrics entity.
+     */
+    public WorkspaceMetrics calculateWorkplace(final PersonAnthropometrics personAnthropometrics) {
+        return calculateWorkplace(personAnthropometrics, formulaRegistry.current());
+    }
+
+    /**
+     * Calculates workspace metrics with the given formula set without saving them, see {@link #calculateWorkplace(PersonAnthropometrics)}.
+     * Touches no shared state, so workspaces of different people can be calculated concurrently.
+     *
+     * @param personAnthropometrics anthropometric data of person.
+     * @param formulaSet            formulas to calculate with.
+     * @return updated or created, unsaved workspace metrics entity.
+     */
+    public WorkspaceMetrics calculateWorkplace(final PersonAnthropometrics personAnthropometrics, final FormulaSet formulaSet) {
+        final double[] metrics = formulaSet.calculate(anthropometricsRow(personAnthropometrics));
         final WorkspaceMetrics metricsToUpdate = personAnthropometrics.getPerson().getWorkspaceMetrics();
 
         if (metricsToUpdate != null) {
-            updateWorkplaceIfExists(metricsToUpdate, newWorkspaceMetrics);
-            workspaceMetricsRepository.save(metricsToUpdate);
-            log.info("Existing Workspace data updated and saved");
+            updateWorkplaceIfExists(metricsToUpdate, metrics, formulaSet.getVersion());
             return metricsToUpdate;
         }
-
-        workspaceMetricsRepository.save(newWorkspaceMetrics);
-        log.info("New Workspace data created and saved.");
-        return newWorkspaceMetrics;
+        return createWorkplace(personAnthropometrics, metrics, formulaSet.getVersion());
     }
 
     /**
-     * Workspace creation from person anthropometric data.
+     * Calculates workspace metrics from the request data only, nothing is read from or written to the database.
+     * The response lists the catalogue desks and chairs closest to the calculated metrics.
      *
-     * @param personAnthropometrics anthropometric measures of person.
-     * @return calculated WorkspaceMetrics object.
+     * @param requestDto validated anthropometric data.
+     * @return calculated workspace metrics.
      */
-    private WorkspaceMetrics createNewWorkspaceMetrics(final PersonAnthropometrics personAnthropometrics) {
-        return WorkspaceMetrics.builder()
-                .tableHeightSeated(personAnthropometrics.getElbowHeight() + personAnthropometrics.getLowerLegLength())
-                .tableHeightStanding(personAnthropometrics.getElbowHeightStanding())
-                .tableWidth(personAnthropometrics.getThighClearance())
-                .displayHeightSeated(personAnthropometrics.getEyeHeight() + personAnthropometrics.getLowerLegLength())
-                .displayHeightStanding(personAnthropometrics.getEyeHeightStanding())
-                .chairSeatHeight(personAnthropometrics.getLowerLegLength())
-                .chairSeatWidth(personAnthropometrics.getHipBreadth())
-                .armRestHeight(personAnthropometrics.getElbowHeight() + personAnthropometrics.getLowerLegLength())
-                .chairBackSupportHeight(personAnthropometrics.getLowerLegLength() + personAnthropometrics.getShoulderHeight())
-                .chairBackSupportWidth(personAnthropometrics.getShoulderBreadth())
-                .chairHeadSupportHeight(personAnthropometrics.getLowerLegLength() + personAnthropometrics.getSittingHeight())
-                .person(personAnthropometrics.getPerson())
+    public WorkspaceMetricsDto calculateWorkspaceMetrics(final AnthropometricsRequestDto requestDto) {
+        final FormulaSet formulaSet = formulaRegistry.current();
+        final double[] metrics = formulaSet.calculate(anthropometricsRow(requestDto));
+        return WorkspaceMetricsDto.builder()
+                .tableHeightSeated(metricOf(metrics[WorkspaceRowLayout.TABLE_HEIGHT_SEATED]))
+                .tableHeightStanding(metricOf(metrics[WorkspaceRowLayout.TABLE_HEIGHT_STANDING]))
+                .tableWidth(metricOf(metrics[WorkspaceRowLayout.TABLE_WIDTH]))
+                .displayHeightSeated(metricOf(metrics[WorkspaceRowLayout.DISPLAY_HEIGHT_SEATED]))
+                .displayHeightStanding(metricOf(metrics[WorkspaceRowLayout.DISPLAY_HEIGHT_STANDING]))
+                .chairSeatHeight(metricOf(metrics[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT]))
+                .chairSeatWidth(metricOf(metrics[WorkspaceRowLayout.CHAIR_SEAT_WIDTH]))
+                .armRestHeight(metricOf(metrics[WorkspaceRowLayout.ARM_REST_HEIGHT]))
+                .chairBackSupportHeight(metricOf(metrics[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_HEIGHT]))
+                .chairBackSupportWidth(metricOf(metrics[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_WIDTH]))
+                .chairHeadSupportHeight(metricOf(metrics[WorkspaceRowLayout.CHAIR_HEAD_SUPPORT_HEIGHT]))
+                .formulaVersion(formulaSet.getVersion())
+                .recommendedFurniture(furnitureCatalogue.recommend(metrics))
                 .build();
     }
 
     /**
-     * Method to update existing workspace metrics with new data.
+     * Reads saved workspace metrics back into a metrics row. Missing metrics are read as NaN.
+     *
+     * @param workspaceMetrics workspace metrics entity.
+     * @return output row, see {@link WorkspaceRowLayout#OUTPUT_LENGTH}.
+     */
+    public static double[] metricsRow(final WorkspaceMetrics workspaceMetrics) {
+        final double[] row = new double[WorkspaceRowLayout.OUTPUT_LENGTH];
+        row[WorkspaceRowLayout.TABLE_HEIGHT_SEATED] = valueOf(workspaceMetrics.getTableHeightSeated());
+        row[WorkspaceRowLayout.TABLE_HEIGHT_STANDING] = valueOf(workspaceMetrics.getTableHeightStanding());
+        row[WorkspaceRowLayout.TABLE_WIDTH] = valueOf(workspaceMetrics.getTableWidth());
+        row[WorkspaceRowLayout.DISPLAY_HEIGHT_SEATED] = valueOf(workspaceMetrics.getDisplayHeightSeated());
+        row[WorkspaceRowLayout.DISPLAY_HEIGHT_STANDING] = valueOf(workspaceMetrics.getDisplayHeightStanding());
+        row[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT] = valueOf(workspaceMetrics.getChairSeatHeight());
+        row[WorkspaceRowLayout.CHAIR_SEAT_WIDTH] = valueOf(workspaceMetrics.getChairSeatWidth());
+        row[WorkspaceRowLayout.ARM_REST_HEIGHT] = valueOf(workspaceMetrics.getArmRestHeight());
+        row[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_HEIGHT] = valueOf(workspaceMetrics.getChairBackSupportHeight());
+        row[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_WIDTH] = valueOf(workspaceMetrics.getChairBackSupportWidth());
+        row[WorkspaceRowLayout.CHAIR_HEAD_SUPPORT_HEIGHT] = valueOf(workspaceMetrics.getChairHeadSupportHeight());
+        return row;
+    }
+
+    /**
+     * Method to update existing workspace metrics with new data. The entity is only touched if a metric or the
+     * formula version differs, so an unchanged workspace is not written back.
+     * Id and PDF path are kept, the PDF service decides whether the earlier generated file can be reused.
      *
      * @param metricsToUpdate earlier saved workspace metrics data.
-     * @param newMetrics      newly create workspace metrics.
-     * @throws IOException if earlier created PDF file is missing.
+     * @param metrics         newly calculated workspace metrics row.
+     * @param formulaVersion  version of the formulas the row was calculated with.
+     * @return true if the workspace changed.
      */
-    private void updateWorkplaceIfExists(final WorkspaceMetrics metricsToUpdate, final WorkspaceMetrics newMetrics) throws IOException {
+    private boolean updateWorkplaceIfExists(final WorkspaceMetrics metricsToUpdate, final double[] metrics, final String formulaVersion) {
+        if (Arrays.equals(metricsRow(metricsToUpdate), metrics) && formulaVersion.equals(metricsToUpdate.getFormulaVersion())) {
+            return false;
+        }
         log.info("Updating existing WorkspaceMetrics");
-        Long id = metricsToUpdate.getId();
-        Files.deleteIfExists(Path.of(metricsToUpdate.getImagePath()));
-        BeanUtils.copyProperties(newMetrics, metricsToUpdate);
-        metricsToUpdate.setId(id);
+        applyMetrics(metrics, metricsToUpdate);
+        metricsToUpdate.setFormulaVersion(formulaVersion);
+        return true;
+    }
+
+    /**
+     * Creates a workspace metrics entity from a calculated row and links it to the person.
+     *
+     * @param personAnthropometrics anthropometric data of person.
+     * @param metrics               calculated workspace metrics row.
+     * @param formulaVersion        version of the formulas the row was calculated with.
+     * @return new, unsaved workspace metrics entity.
+     */
+    private static WorkspaceMetrics createWorkplace(final PersonAnthropometrics personAnthropometrics, final double[] metrics, final String formulaVersion) {
+        final WorkspaceMetrics newWorkspaceMetrics = WorkspaceMetrics.builder()
+                .person(personAnthropometrics.getPerson())
+                .formulaVersion(formulaVersion)
+                .build();
+        applyMetrics(metrics, newWorkspaceMetrics);
+        personAnthropometrics.getPerson().setWorkspaceMetrics(newWorkspaceMetrics);
+        return newWorkspaceMetrics;
+    }
+
+    /**
+     * Reads the person anthropometric measures into a calculator input row. Missing measures are read as NaN,
+     * so the metrics derived from them come out missing as well.
+     *
+     * @param personAnthropometrics anthropometric measures of person.
+     * @return input row, see {@link WorkspaceRowLayout#INPUT_LENGTH}.
+     */
+    private static double[] anthropometricsRow(final PersonAnthropometrics personAnthropometrics) {
+        final double[] row = new double[WorkspaceRowLayout.INPUT_LENGTH];
+        row[WorkspaceRowLayout.HEIGHT] = valueOf(personAnthropometrics.getHeight());
+        row[WorkspaceRowLayout.SITTING_HEIGHT] = valueOf(personAnthropometrics.getSittingHeight());
+        row[WorkspaceRowLayout.SHOULDER_HEIGHT] = valueOf(personAnthropometrics.getShoulderHeight());
+        row[WorkspaceRowLayout.LOWER_LEG_LENGTH] = valueOf(personAnthropometrics.getLowerLegLength());
+        row[WorkspaceRowLayout.HIP_BREADTH] = valueOf(personAnthropometrics.getHipBreadth());
+        row[WorkspaceRowLayout.ELBOW_HEIGHT] = valueOf(personAnthropometrics.getElbowHeight());
+        row[WorkspaceRowLayout.EYE_HEIGHT_STANDING] = valueOf(personAnthropometrics.getEyeHeightStanding());
+        row[WorkspaceRowLayout.ELBOW_HEIGHT_STANDING] = valueOf(personAnthropometrics.getElbowHeightStanding());
+        row[WorkspaceRowLayout.THIGH_CLEARANCE] = valueOf(personAnthropometrics.getThighClearance());
+        row[WorkspaceRowLayout.EYE_HEIGHT] = valueOf(personAnthropometrics.getEyeHeight());
+        row[WorkspaceRowLayout.SHOULDER_BREADTH] = valueOf(personAnthropometrics.getShoulderBreadth());
+        row[WorkspaceRowLayout.KNEE_HEIGHT] = valueOf(personAnthropometrics.getKneeHeight());
+        return row;
+    }
+
+    /**
+     * Reads the requested anthropometric measures into a calculator input row.
+     *
+     * @param requestDto anthropometric data of the request.
+     * @return input row, see {@link WorkspaceRowLayout#INPUT_LENGTH}.
+     */
+    private static double[] anthropometricsRow(final AnthropometricsRequestDto requestDto) {
+        final double[] row = new double[WorkspaceRowLayout.INPUT_LENGTH];
+        row[WorkspaceRowLayout.HEIGHT] = valueOf(requestDto.getHeight());
+        row[WorkspaceRowLayout.SITTING_HEIGHT] = valueOf(requestDto.getSittingHeight());
+        row[WorkspaceRowLayout.SHOULDER_HEIGHT] = valueOf(requestDto.getShoulderHeight());
+        row[WorkspaceRowLayout.LOWER_LEG_LENGTH] = valueOf(requestDto.getLowerLegLength());
+        row[WorkspaceRowLayout.HIP_BREADTH] = valueOf(requestDto.getHipBreadth());
+        row[WorkspaceRowLayout.ELBOW_HEIGHT] = valueOf(requestDto.getElbowHeight());
+        row[WorkspaceRowLayout.EYE_HEIGHT_STANDING] = valueOf(requestDto.getEyeHeightStanding());
+        row[WorkspaceRowLayout.ELBOW_HEIGHT_STANDING] = valueOf(requestDto.getElbowHeightStanding());
+        row[WorkspaceRowLayout.THIGH_CLEARANCE] = valueOf(requestDto.getThighClearance());
+        row[WorkspaceRowLayout.EYE_HEIGHT] = valueOf(requestDto.getEyeHeight());
+        row[WorkspaceRowLayout.SHOULDER_BREADTH] = valueOf(requestDto.getShoulderBreadth());
+        row[WorkspaceRowLayout.KNEE_HEIGHT] = valueOf(requestDto.getKneeHeight());
+        return row;
+    }
+
+    /**
+     * Copies a calculated metrics row into the workspace metrics entity.
+     *
+     * @param metrics          output row, see {@link WorkspaceRowLayout#OUTPUT_LENGTH}.
+     * @param workspaceMetrics entity to update.
+     */
+    private static void applyMetrics(final double[] metrics, final WorkspaceMetrics workspaceMetrics) {
+        workspaceMetrics.setTableHeightSeated(metricOf(metrics[WorkspaceRowLayout.TABLE_HEIGHT_SEATED]));
+        workspaceMetrics.setTableHeightStanding(metricOf(metrics[WorkspaceRowLayout.TABLE_HEIGHT_STANDING]));
+        workspaceMetrics.setTableWidth(metricOf(metrics[WorkspaceRowLayout.TABLE_WIDTH]));
+        workspaceMetrics.setDisplayHeightSeated(metricOf(metrics[WorkspaceRowLayout.DISPLAY_HEIGHT_SEATED]));
+        workspaceMetrics.setDisplayHeightStanding(metricOf(metrics[WorkspaceRowLayout.DISPLAY_HEIGHT_STANDING]));
+        workspaceMetrics.setChairSeatHeight(metricOf(metrics[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT]));
+        workspaceMetrics.setChairSeatWidth(metricOf(metrics[WorkspaceRowLayout.CHAIR_SEAT_WIDTH]));
+        workspaceMetrics.setArmRestHeight(metricOf(metrics[WorkspaceRowLayout.ARM_REST_HEIGHT]));
+        workspaceMetrics.setChairBackSupportHeight(metricOf(metrics[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_HEIGHT]));
+        workspaceMetrics.setChairBackSupportWidth(metricOf(metrics[WorkspaceRowLayout.CHAIR_BACK_SUPPORT_WIDTH]));
+        workspaceMetrics.setChairHeadSupportHeight(metricOf(metrics[WorkspaceRowLayout.CHAIR_HEAD_SUPPORT_HEIGHT]));
+    }
+
+    private static double valueOf(final Double measure) {
+        return measure == null ? Double.NaN : measure;
+    }
+
+    private static Double metricOf(final double metric) {
+        return Double.isNaN(metric) ? null : metric;
     }
 }
@@ -0,0 +1,73 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.storage.PdfContentWriter;
+import com.app.ErgonomicCalculator.storage.StoredPdf;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Workspace PDF ready to be written to a response: either a PDF kept in the PDF storage or a document
+ * that is rendered directly into the output stream.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class WorkspacePdf {
+
+    private final String fileName;
+    private final String eTag;
+    private final Long contentLength;
+    private final long lastModified;
+    private final StoredPdf storedPdf;
+    private final PdfContentWriter contentWriter;
+
+    /**
+     * Creates a PDF backed by the PDF storage.
+     *
+     * @param fileName  file name offered to the client.
+     * @param storedPdf the stored PDF, its key is used as strong entity tag.
+     * @return WorkspacePdf with known content length and modification time.
+     */
+    public static WorkspacePdf stored(final String fileName, final StoredPdf storedPdf) {
+        return new WorkspacePdf(fileName, eTag(storedPdf.getKey()), storedPdf.getSize(), storedPdf.getLastModified(),
+                storedPdf, outputStream -> storedPdf.read(outputStream, 0, storedPdf.getSize()));
+    }
+
+    /**
+     * Creates a PDF that is rendered while it is written, its length is not known upfront.
+     *
+     * @param fileName      file name offered to the client.
+     * @param contentKey    content key of the PDF, used as strong entity tag.
+     * @param contentWriter renders the document into the given stream.
+     * @return WorkspacePdf without content length and modification time.
+     */
+    public static WorkspacePdf streamed(final String fileName, final String contentKey, final PdfContentWriter contentWriter) {
+        return new WorkspacePdf(fileName, eTag(contentKey), null, -1, null, contentWriter);
+    }
+
+    /**
+     * Checks whether the PDF is kept in the PDF storage, only stored PDFs support byte ranges.
+     *
+     * @return true if the PDF is backed by the storage.
+     */
+    public boolean isStored() {
+        return storedPdf != null;
+    }
+
+    /**
+     * Writes the PDF content to the given stream.
+     *
+     * @param outputStream stream to write to, not closed by this method.
+     * @throws IOException if the content can not be read or rendered.
+     */
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        contentWriter.writeTo(outputStream);
+    }
+
+    private static String eTag(final String contentKey) {
+        return "\"" + contentKey + "\"";
+    }
+}
@@ -0,0 +1,322 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.calculator.FormulaSet;
+import com.app.ErgonomicCalculator.dto.RecomputeProgressDto;
+import com.app.ErgonomicCalculator.dto.RenderQueueStatsDto;
+import com.app.ErgonomicCalculator.exception.RenderQueueFullException;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.AnthropometricsRepository;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Recalculates stored workspaces whose formula version differs from the current formula set, e.g. after the
+ * formulas were changed. The job walks person anthropometrics by id in chunks: every chunk is loaded with its
+ * person and workspace in one query, calculated in parallel, written in batches and committed on its own.
+ * A stopped or failed job is resumed by starting it again, workspaces already on the current version are not
+ * selected anymore. If the formulas change while the job runs, it starts over with the new version.
+ * <p>
+ * PDFs of recalculated workspaces are re-rendered in the background at a limited rate, and only while the render
+ * queue has room for live traffic. Renders beyond {@code max-pending-renders} are not queued, those PDFs are
+ * rendered again on first access like in lazy mode, which also applies when the rendering mode is lazy or stream.
+ * Once all workspaces are recalculated, the workspace statistics are rebuilt from the new values.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkspaceRecomputeService {
+
+    /**
+     * Lifecycle of the recompute job.
+     */
+    public enum Status {
+        IDLE, RUNNING, STOPPING, STOPPED, COMPLETED, FAILED
+    }
+
+    private final AnthropometricsRepository anthropometricsRepository;
+    private final WorkspaceMetricsRepository workspaceMetricsRepository;
+    private final WorkspaceMetricsService workspaceMetricsService;
+    private final FormulaRegistry formulaRegistry;
+    private final PdfRenderQueue pdfRenderQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkspaceStatisticsService workspaceStatisticsService;
+
+    @Value("${workspace.recompute.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${workspace.recompute.parallelism:0}")
+    private int parallelism;
+
+    @Value("${workspace.recompute.pdf-renders-per-second:5}")
+    private int pdfRendersPerSecond;
+
+    @Value("${workspace.recompute.max-pending-renders:10000}")
+    private int maxPendingRenders;
+
+    @Value("${pdf.rendering.mode:eager}")
+    private PdfRenderingMode renderingMode;
+
+    private ExecutorService jobExecutor;
+    private ExecutorService calculationExecutor;
+
+    private volatile Status status = Status.IDLE;
+    private volatile FormulaSet formulaSet;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile long outdatedWorkspaces;
+    private volatile long lastAnthropometricsId;
+    private final AtomicLong recomputedWorkspaces = new AtomicLong();
+    private final Queue<Long> pendingRenders = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingRenderCount = new AtomicInteger();
+    private final AtomicLong queuedRenders = new AtomicLong();
+    private final AtomicLong deferredRenders = new AtomicLong();
+
+    /**
+     * Starts the job thread and the calculation workers.
+     */
+    @PostConstruct
+    protected void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "workspace-recompute");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final AtomicInteger threadNumber = new AtomicInteger();
+        calculationExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "workspace-recompute-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops the job after its current chunk and the calculation workers.
+     */
+    @PreDestroy
+    protected void shutdown() {
+        stop();
+        jobExecutor.shutdown();
+        calculationExecutor.shutdown();
+    }
+
+    /**
+     * Starts recalculating outdated workspaces in the background. Does nothing if the job is already running.
+     *
+     * @return progress of the job.
+     */
+    public synchronized RecomputeProgressDto start() {
+        if (status == Status.RUNNING || status == Status.STOPPING) {
+            return getProgress();
+        }
+        restart(formulaRegistry.current());
+        status = Status.RUNNING;
+        error = null;
+        finishedAt = null;
+        jobExecutor.execute(this::run);
+        return getProgress();
+    }
+
+    /**
+     * Asks the running job to stop once its current chunk is committed.
+     *
+     * @return progress of the job.
+     */
+    public synchronized RecomputeProgressDto stop() {
+        if (status == Status.RUNNING) {
+            status = Status.STOPPING;
+        }
+        return getProgress();
+    }
+
+    /**
+     * Reports the progress and throughput of the current or last job.
+     *
+     * @return progress of the job.
+     */
+    public RecomputeProgressDto getProgress() {
+        final Instant start = startedAt;
+        final long elapsedMillis = start == null ? 0
+                : Duration.between(start, finishedAt == null ? Instant.now() : finishedAt).toMillis();
+        final long recomputed = recomputedWorkspaces.get();
+        final FormulaSet jobFormulaSet = formulaSet;
+        return RecomputeProgressDto.builder()
+                .status(status.name())
+                .formulaVersion(jobFormulaSet == null ? null : jobFormulaSet.getVersion())
+                .startedAt(start)
+                .finishedAt(finishedAt)
+                .outdatedWorkspaces(outdatedWorkspaces)
+                .recomputedWorkspaces(recomputed)
+                .lastAnthropometricsId(lastAnthropometricsId)
+                .elapsedMillis(elapsedMillis)
+                .workspacesPerSecond(elapsedMillis == 0 ? 0 : recomputed * 1000.0 / elapsedMillis)
+                .pendingRenders(pendingRenderCount.get())
+                .queuedRenders(queuedRenders.get())
+                .deferredRenders(deferredRenders.get())
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Queues up to one second worth of pending PDF renders, keeping at least half of the render queue free
+     * for renders of live requests. A full queue is not an error, the render is retried on the next run.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void queuePendingRenders() {
+        final RenderQueueStatsDto renderQueueStats = pdfRenderQueue.getStats();
+        int budget = Math.min(pdfRendersPerSecond, renderQueueStats.getQueueCapacity() / 2 - renderQueueStats.getQueueDepth());
+        while (budget-- > 0) {
+            final Long workspaceMetricsId = pendingRenders.peek();
+            if (workspaceMetricsId == null) {
+                return;
+            }
+            try {
+                pdfRenderQueue.submit(workspaceMetricsId);
+            } catch (RenderQueueFullException e) {
+                return;
+            }
+            pendingRenders.poll();
+            pendingRenderCount.decrementAndGet();
+            queuedRenders.incrementAndGet();
+        }
+    }
+
+    /**
+     * Runs the job until no outdated workspace is left, it is stopped or a chunk fails.
+     */
+    void run() {
+        log.info("Workspace recompute started for formula version " + formulaSet.getVersion() + ", "
+                + outdatedWorkspaces + " workspaces outdated.");
+        try {
+            while (status == Status.RUNNING) {
+                final FormulaSet current = formulaRegistry.current();
+                if (current != formulaSet) {
+                    log.info("Workspace formulas changed to version " + current.getVersion() + ", recompute starts over.");
+                    restart(current);
+                }
+                if (recomputeChunk() < chunkSize) {
+                    if (recomputedWorkspaces.get() > 0) {
+                        workspaceStatisticsService.rebuild();
+                    }
+                    finish(Status.COMPLETED);
+                    return;
+                }
+            }
+            finish(Status.STOPPED);
+        } catch (Exception e) {
+            log.error("Workspace recompute failed after person anthropometrics " + lastAnthropometricsId, e);
+            error = e.getMessage();
+            finish(Status.FAILED);
+        }
+    }
+
+    /**
+     * Recalculates and saves the next chunk of outdated workspaces in one transaction, holding the person row locks
+     * of the chunk so a concurrent submit cannot be overwritten with workspaces of stale anthropometrics.
+     *
+     * @return number of workspaces in the chunk.
+     */
+    int recomputeChunk() {
+        final FormulaSet chunkFormulaSet = formulaSet;
+        final List<WorkspaceMetrics> recomputed = transactionTemplate.execute(transactionStatus -> {
+            final List<Long> ids = anthropometricsRepository.lockOutdatedWorkspaces(
+                    lastAnthropometricsId, chunkFormulaSet.getVersion(), chunkSize);
+            if (ids.isEmpty()) {
+                return List.<WorkspaceMetrics>of();
+            }
+            final List<PersonAnthropometrics> chunk = anthropometricsRepository.findWithWorkspacesByIdIn(ids);
+            final List<WorkspaceMetrics> workspaces = calculate(chunk, chunkFormulaSet);
+            workspaceMetricsRepository.saveAll(workspaces);
+            lastAnthropometricsId = chunk.get(chunk.size() - 1).getId();
+            return workspaces;
+        });
+        recomputedWorkspaces.addAndGet(recomputed.size());
+        recomputed.forEach(this::scheduleRender);
+        return recomputed.size();
+    }
+
+    /**
+     * Calculates the workspaces of a chunk on the calculation workers, one slice of the chunk per worker.
+     *
+     * @param chunk      anthropometrics with their person and workspace loaded.
+     * @param formulaSet formulas to calculate with.
+     * @return calculated workspaces, in chunk order.
+     */
+    private List<WorkspaceMetrics> calculate(final List<PersonAnthropometrics> chunk, final FormulaSet formulaSet) {
+        final int sliceSize = (chunk.size() + parallelism - 1) / parallelism;
+        final List<CompletableFuture<List<WorkspaceMetrics>>> slices = new ArrayList<>();
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            final List<PersonAnthropometrics> slice = chunk.subList(from, Math.min(from + sliceSize, chunk.size()));
+            slices.add(CompletableFuture.supplyAsync(() -> {
+                final List<WorkspaceMetrics> workspaces = new ArrayList<>(slice.size());
+                for (PersonAnthropometrics anthropometrics : slice) {
+                    workspaces.add(workspaceMetricsService.calculateWorkplace(anthropometrics, formulaSet));
+                }
+                return workspaces;
+            }, calculationExecutor));
+        }
+        final List<WorkspaceMetrics> workspaces = new ArrayList<>(chunk.size());
+        for (CompletableFuture<List<WorkspaceMetrics>> slice : slices) {
+            workspaces.addAll(slice.join());
+        }
+        return workspaces;
+    }
+
+    /**
+     * Adds the workspace to the pending renders, unless PDFs are only rendered on access or too many renders are pending.
+     *
+     * @param workspaceMetrics saved, recalculated workspace.
+     */
+    private void scheduleRender(final WorkspaceMetrics workspaceMetrics) {
+        if (renderingMode == PdfRenderingMode.LAZY || renderingMode == PdfRenderingMode.STREAM
+                || workspaceMetrics.getImagePath() == null) {
+            return;
+        }
+        if (pendingRenderCount.get() >= maxPendingRenders) {
+            deferredRenders.incrementAndGet();
+            return;
+        }
+        pendingRenders.add(workspaceMetrics.getId());
+        pendingRenderCount.incrementAndGet();
+    }
+
+    private void restart(final FormulaSet current) {
+        formulaSet = current;
+        lastAnthropometricsId = 0;
+        recomputedWorkspaces.set(0);
+        startedAt = Instant.now();
+        outdatedWorkspaces = anthropometricsRepository.countOutdatedWorkspaces(current.getVersion());
+    }
+
+    private void finish(final Status finalStatus) {
+        finishedAt = Instant.now();
+        status = finalStatus;
+        final RecomputeProgressDto progress = getProgress();
+        log.info("Workspace recompute " + finalStatus + ": " + progress.getRecomputedWorkspaces() + " workspaces in "
+                + progress.getElapsedMillis() + " ms (" + Math.round(progress.getWorkspacesPerSecond()) + "/s).");
+    }
+}
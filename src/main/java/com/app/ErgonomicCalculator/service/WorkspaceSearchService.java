@@ -0,0 +1,199 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout;
+import com.app.ErgonomicCalculator.dto.MetricRangeDto;
+import com.app.ErgonomicCalculator.dto.WorkspaceSearchPageDto;
+import com.app.ErgonomicCalculator.dto.WorkspaceSearchResultDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Searches stored workspaces by metric ranges, e.g. everyone who needs a seated desk height between 70 and 74 cm.
+ * Results are read as DTO projections and paged by keyset: the first searched metric that has an index orders the
+ * results together with the workspace id, and the next page continues after the last (value, id) pair, so deep
+ * pages cost the same as the first one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkspaceSearchService {
+
+    /**
+     * Metrics with a (metric, id) index, see the V2 schema migration. Only these can order a search.
+     */
+    static final List<String> INDEXED_METRICS = List.of("tableHeightSeated", "tableHeightStanding", "displayHeightSeated",
+            "displayHeightStanding", "chairSeatHeight", "chairSeatWidth", "armRestHeight", "chairBackSupportHeight");
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final WorkspaceMetricsRepository workspaceMetricsRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${workspace.search.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${workspace.search.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${workspace.search.stream-page-size:1000}")
+    private int streamPageSize;
+
+    private ObjectWriter resultWriter;
+
+    @PostConstruct
+    protected void init() {
+        resultWriter = objectMapper.writerFor(WorkspaceSearchResultDto.class);
+    }
+
+    /**
+     * Finds one page of workspaces within all ranges.
+     *
+     * @param ranges     ranges as {@code metric:min:max}, either bound may be left empty.
+     * @param afterValue keyset value from the previous page, null for the first page.
+     * @param afterId    keyset id from the previous page, null for the first page.
+     * @param pageSize   maximum number of results, null for the default.
+     * @return matching workspaces and the keyset of the next page.
+     * @throws InvalidDataException if a range or the page size is invalid.
+     */
+    public WorkspaceSearchPageDto search(final List<String> ranges, final Double afterValue, final Long afterId,
+                                         final Integer pageSize) throws InvalidDataException {
+        final int limit = pageSize == null ? defaultPageSize : pageSize;
+        if (limit < 1 || limit > maxPageSize) {
+            throw new InvalidDataException("Page size must be between 1 and " + maxPageSize + ".");
+        }
+        final List<MetricRangeDto> metricRanges = parseRanges(ranges);
+        final List<WorkspaceSearchResultDto> results = workspaceMetricsRepository.search(metricRanges, afterValue, afterId, limit);
+        return pageOf(metricRanges.get(0).getMetric(), results, limit);
+    }
+
+    /**
+     * Writes all workspaces within the ranges as NDJSON, fetching them page by page, so memory use does not
+     * depend on the number of results and no transaction or cursor is held while the client reads.
+     *
+     * @param ranges       ranges as {@code metric:min:max}.
+     * @param outputStream results are written and flushed page by page, the stream is not closed.
+     * @return number of written results.
+     * @throws InvalidDataException if a range is invalid.
+     * @throws IOException          if the output can not be written.
+     */
+    public long stream(final List<String> ranges, final OutputStream outputStream) throws InvalidDataException, IOException {
+        final List<MetricRangeDto> metricRanges = parseRanges(ranges);
+        final String orderedBy = metricRanges.get(0).getMetric();
+        Double afterValue = null;
+        Long afterId = null;
+        long written = 0;
+        List<WorkspaceSearchResultDto> page;
+        do {
+            page = workspaceMetricsRepository.search(metricRanges, afterValue, afterId, streamPageSize);
+            for (WorkspaceSearchResultDto result : page) {
+                outputStream.write(resultWriter.writeValueAsBytes(result));
+                outputStream.write(NEW_LINE);
+            }
+            outputStream.flush();
+            written += page.size();
+            if (!page.isEmpty()) {
+                final WorkspaceSearchResultDto last = page.get(page.size() - 1);
+                afterValue = metricOf(last, orderedBy);
+                afterId = last.getWorkspaceId();
+            }
+        } while (page.size() == streamPageSize);
+        log.info("Workspace search streamed " + written + " results.");
+        return written;
+    }
+
+    /**
+     * Parses and validates the ranges and moves the first range over an indexed metric to the front.
+     *
+     * @param ranges ranges as {@code metric:min:max}.
+     * @return parsed ranges, the first one orders the results.
+     * @throws InvalidDataException if a range is malformed, names an unknown metric or no indexed metric is searched.
+     */
+    static List<MetricRangeDto> parseRanges(final List<String> ranges) throws InvalidDataException {
+        if (ranges == null || ranges.isEmpty()) {
+            throw new InvalidDataException("At least one metric range is required.");
+        }
+        final List<MetricRangeDto> metricRanges = new ArrayList<>();
+        int ordering = -1;
+        for (String range : ranges) {
+            final String[] parts = range.split(":", -1);
+            if (parts.length != 3 || !WorkspaceRowLayout.OUTPUT_NAMES.contains(parts[0])) {
+                throw new InvalidDataException("Invalid metric range " + range + ", expected metric:min:max with a workspace metric name.");
+            }
+            final MetricRangeDto metricRange = MetricRangeDto.builder()
+                    .metric(parts[0])
+                    .min(boundOf(parts[1], range))
+                    .max(boundOf(parts[2], range))
+                    .build();
+            if (metricRange.getMin() != null && metricRange.getMax() != null && metricRange.getMin() > metricRange.getMax()) {
+                throw new InvalidDataException("Invalid metric range " + range + ", min is greater than max.");
+            }
+            if (ordering < 0 && INDEXED_METRICS.contains(metricRange.getMetric())) {
+                ordering = metricRanges.size();
+            }
+            metricRanges.add(metricRange);
+        }
+        if (ordering < 0) {
+            throw new InvalidDataException("At least one range must be over an indexed metric: " + INDEXED_METRICS);
+        }
+        metricRanges.add(0, metricRanges.remove(ordering));
+        return metricRanges;
+    }
+
+    private static Double boundOf(final String bound, final String range) throws InvalidDataException {
+        if (bound.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(bound);
+        } catch (NumberFormatException e) {
+            throw new InvalidDataException("Invalid metric range " + range + ", bounds must be numbers.");
+        }
+    }
+
+    private static WorkspaceSearchPageDto pageOf(final String orderedBy, final List<WorkspaceSearchResultDto> results, final int limit) {
+        final WorkspaceSearchPageDto.WorkspaceSearchPageDtoBuilder page = WorkspaceSearchPageDto.builder()
+                .orderedBy(orderedBy)
+                .results(results);
+        if (results.size() == limit) {
+            final WorkspaceSearchResultDto last = results.get(results.size() - 1);
+            page.nextAfterValue(metricOf(last, orderedBy)).nextAfterId(last.getWorkspaceId());
+        }
+        return page.build();
+    }
+
+    private static Double metricOf(final WorkspaceSearchResultDto result, final String metric) {
+        switch (metric) {
+            case "tableHeightSeated":
+                return result.getTableHeightSeated();
+            case "tableHeightStanding":
+                return result.getTableHeightStanding();
+            case "displayHeightSeated":
+                return result.getDisplayHeightSeated();
+            case "displayHeightStanding":
+                return result.getDisplayHeightStanding();
+            case "chairSeatHeight":
+                return result.getChairSeatHeight();
+            case "chairSeatWidth":
+                return result.getChairSeatWidth();
+            case "armRestHeight":
+                return result.getArmRestHeight();
+            case "chairBackSupportHeight":
+                return result.getChairBackSupportHeight();
+            default:
+                throw new IllegalArgumentException("Metric " + metric + " does not order searches.");
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.WorkspaceStatisticsDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.model.MetricSketch;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.AnthropometricsRepository;
+import com.app.ErgonomicCalculator.repository.MetricSketchRepository;
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+
+/**
+ * Percentiles of workspace metrics and anthropometric measures over all people and per email domain, answered
+ * from t-digest quantile sketches instead of scanning the tables. Every committed workspace adds its values to the
+ * sketches of its groups in memory. The values added since the last flush are merged into the stored sketches on a
+ * fixed delay, under a database lock shared by all instances, so instances never overwrite each other's values;
+ * the merged sketches then replace the ones in memory, which brings in the values of the other instances.
+ * <p>
+ * Sketches can not remove values, so a person who submits new measurements is counted with both the old and
+ * the new values until the sketches are rebuilt from the tables, which happens on a schedule, on request and
+ * after a workspace recompute.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkspaceStatisticsService {
+
+    /**
+     * Group of all people.
+     */
+    public static final String ALL = "all";
+    private static final String DOMAIN_PREFIX = "domain:";
+    private static final List<Double> DEFAULT_PERCENTILES = List.of(5.0, 50.0, 95.0);
+
+    private static final Map<String, Function<WorkspaceMetrics, Double>> WORKSPACE_METRICS = workspaceMetrics();
+    private static final Map<String, Function<PersonAnthropometrics, Double>> ANTHROPOMETRICS = anthropometrics();
+
+    private final MetricSketchRepository metricSketchRepository;
+    private final AnthropometricsRepository anthropometricsRepository;
+
+    @Value("${workspace.statistics.compression:100}")
+    private double compression;
+
+    @Value("${workspace.statistics.max-groups:1000}")
+    private int maxGroups;
+
+    @Value("${workspace.statistics.rebuild-chunk-size:1000}")
+    private int rebuildChunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Map<String, Map<String, TDigest>> groups = new ConcurrentHashMap<>();
+
+    /**
+     * Values added since the last flush per group and metric, guarded by itself.
+     */
+    private Map<String, Map<String, TDigest>> pending = new HashMap<>();
+    private final Object pendingLock = new Object();
+
+    /**
+     * Loads the persisted sketches.
+     */
+    @PostConstruct
+    protected void init() {
+        final Map<String, Map<String, TDigest>> loaded = new ConcurrentHashMap<>();
+        for (MetricSketch sketch : metricSketchRepository.findAll()) {
+            loaded.computeIfAbsent(sketch.getGroupName(), group -> new ConcurrentHashMap<>())
+                    .put(sketch.getMetric(), fromBytes(sketch.getDigest()));
+        }
+        groups = loaded;
+        log.info("Loaded workspace statistics of " + loaded.size() + " groups.");
+    }
+
+    /**
+     * Merges the values added since the last flush before the application context closes.
+     */
+    @PreDestroy
+    protected void shutdown() {
+        flush();
+    }
+
+    /**
+     * Adds the values of a saved workspace and the anthropometrics it was calculated from to the sketches of all
+     * people and of the person's email domain once the surrounding transaction commits, right away without one.
+     * Missing values are skipped.
+     *
+     * @param personAnthropometrics anthropometrics of the person, with the person set.
+     * @param workspaceMetrics      saved workspace metrics of the person.
+     */
+    public void record(final PersonAnthropometrics personAnthropometrics, final WorkspaceMetrics workspaceMetrics) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(groups, personAnthropometrics, workspaceMetrics, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(groups, personAnthropometrics, workspaceMetrics, true);
+            }
+        });
+    }
+
+    /**
+     * Estimates percentiles of every metric for the given email domains together, or for all people.
+     *
+     * @param domains     email domains to combine, all people if empty.
+     * @param percentiles percentiles between 0 and 100, 5th, 50th and 95th if empty.
+     * @return percentiles per metric, null where no value was recorded.
+     * @throws InvalidDataException if a percentile is out of range.
+     */
+    public WorkspaceStatisticsDto getStatistics(final List<String> domains, final List<Double> percentiles) throws InvalidDataException {
+        final List<Double> requestedPercentiles = percentiles == null || percentiles.isEmpty() ? DEFAULT_PERCENTILES : percentiles;
+        for (Double percentile : requestedPercentiles) {
+            if (percentile == null || percentile < 0 || percentile > 100) {
+                throw new InvalidDataException("Percentiles must be between 0 and 100.");
+            }
+        }
+        final List<String> groupNames = new ArrayList<>();
+        if (domains == null || domains.isEmpty()) {
+            groupNames.add(ALL);
+        } else {
+            domains.forEach(domain -> groupNames.add(DOMAIN_PREFIX + domain.trim().toLowerCase(Locale.ROOT)));
+        }
+
+        final Map<String, Map<String, TDigest>> current = groups;
+        final Map<String, Map<String, Double>> result = new LinkedHashMap<>();
+        long people = 0;
+        for (String metric : metricNames()) {
+            final TDigest digest = merged(current, groupNames, metric);
+            final Map<String, Double> metricPercentiles = new LinkedHashMap<>();
+            for (Double percentile : requestedPercentiles) {
+                metricPercentiles.put(percentileKey(percentile), digest.size() == 0 ? null : digest.quantile(percentile / 100));
+            }
+            result.put(metric, metricPercentiles);
+            people = Math.max(people, digest.size());
+        }
+        return WorkspaceStatisticsDto.builder()
+                .groups(groupNames)
+                .people(people)
+                .percentiles(result)
+                .build();
+    }
+
+    /**
+     * Merges the values added since the last run into the stored sketches and replaces the sketches of those groups
+     * in memory with the merged ones. Values of a failed flush are kept for the next run.
+     */
+    @Scheduled(fixedDelayString = "${workspace.statistics.flush-interval:30000}")
+    public void flush() {
+        final Map<String, Map<String, TDigest>> flushing;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            flushing = pending;
+            pending = new HashMap<>();
+        }
+        final List<MetricSketch> sketches;
+        try {
+            sketches = transactionTemplate.execute(transactionStatus -> {
+                metricSketchRepository.lockSketches();
+                final Map<String, MetricSketch> stored = new HashMap<>();
+                metricSketchRepository.findAllById(sketchIds(flushing)).forEach(sketch -> stored.put(sketch.getId(), sketch));
+                final List<MetricSketch> merged = new ArrayList<>();
+                final Instant now = Instant.now();
+                flushing.forEach((group, digests) -> digests.forEach((metric, delta) -> {
+                    final MetricSketch sketch = stored.get(sketchId(group, metric));
+                    final TDigest digest = TDigest.createMergingDigest(compression);
+                    if (sketch != null) {
+                        digest.add(fromBytes(sketch.getDigest()));
+                    }
+                    digest.add(delta);
+                    merged.add(sketch(group, metric, digest, now));
+                }));
+                return metricSketchRepository.saveAll(merged);
+            });
+        } catch (RuntimeException e) {
+            synchronized (pendingLock) {
+                flushing.forEach((group, digests) -> digests.forEach((metric, delta) ->
+                        pending.computeIfAbsent(group, name -> new HashMap<>())
+                                .computeIfAbsent(metric, name -> TDigest.createMergingDigest(compression)).add(delta)));
+            }
+            throw e;
+        }
+        replaceFlushed(sketches);
+        log.info("Workspace statistics saved, " + sketches.size() + " sketches.");
+    }
+
+    /**
+     * Rebuilds all sketches from the stored anthropometrics and workspaces, walking them by id in chunks, and
+     * replaces the stored sketches in one transaction. Values recorded before the rebuild are committed and read
+     * from the tables, values recorded while it runs are merged by the next flush.
+     */
+    @Scheduled(cron = "${workspace.statistics.rebuild-cron:0 0 3 * * *}")
+    public synchronized void rebuild() {
+        final long started = System.currentTimeMillis();
+        synchronized (pendingLock) {
+            pending = new HashMap<>();
+        }
+        final Map<String, Map<String, TDigest>> rebuilt = new ConcurrentHashMap<>();
+        long afterId = 0;
+        long people = 0;
+        List<PersonAnthropometrics> chunk;
+        do {
+            chunk = anthropometricsRepository.findWithWorkspacesAfter(afterId, PageRequest.of(0, rebuildChunkSize));
+            for (PersonAnthropometrics anthropometrics : chunk) {
+                record(rebuilt, anthropometrics, anthropometrics.getPerson().getWorkspaceMetrics(), false);
+            }
+            people += chunk.size();
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == rebuildChunkSize);
+
+        final List<MetricSketch> sketches = new ArrayList<>();
+        final Instant now = Instant.now();
+        rebuilt.forEach((group, digests) -> digests.forEach((metric, digest) -> sketches.add(sketch(group, metric, digest, now))));
+        transactionTemplate.executeWithoutResult(transactionStatus -> {
+            metricSketchRepository.lockSketches();
+            metricSketchRepository.deleteAllInBatch();
+            metricSketchRepository.saveAll(sketches);
+        });
+        groups = rebuilt;
+        log.info("Workspace statistics rebuilt from " + people + " people in " + (System.currentTimeMillis() - started) + " ms.");
+    }
+
+    /**
+     * Replaces the sketches in memory with the merged stored ones plus the values added since the flush started.
+     */
+    private void replaceFlushed(final List<MetricSketch> sketches) {
+        final Map<String, Map<String, TDigest>> current = groups;
+        for (MetricSketch sketch : sketches) {
+            final Map<String, TDigest> digests = current.computeIfAbsent(sketch.getGroupName(), group -> new ConcurrentHashMap<>());
+            synchronized (digests) {
+                final TDigest digest = fromBytes(sketch.getDigest());
+                synchronized (pendingLock) {
+                    final TDigest added = pending.getOrDefault(sketch.getGroupName(), Map.of()).get(sketch.getMetric());
+                    if (added != null) {
+                        digest.add(added);
+                    }
+                }
+                digests.put(sketch.getMetric(), digest);
+            }
+        }
+    }
+
+    /**
+     * Adds the values to the sketches of the groups of the person in the target, and to the values pending for the
+     * next flush when requested.
+     */
+    private void record(final Map<String, Map<String, TDigest>> target, final PersonAnthropometrics personAnthropometrics,
+                        final WorkspaceMetrics workspaceMetrics, final boolean flushPending) {
+        final List<String> groupNames = new ArrayList<>(2);
+        groupNames.add(ALL);
+        final String email = personAnthropometrics.getPerson() == null ? null : personAnthropometrics.getPerson().getEmail();
+        if (email != null && email.indexOf('@') > 0) {
+            groupNames.add(DOMAIN_PREFIX + email.substring(email.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT));
+        }
+        for (String groupName : groupNames) {
+            final Map<String, TDigest> digests = groupName.equals(ALL) || target.containsKey(groupName) || target.size() < maxGroups
+                    ? target.computeIfAbsent(groupName, group -> new ConcurrentHashMap<>())
+                    : null;
+            if (digests == null) {
+                continue;
+            }
+            synchronized (digests) {
+                add(digests, personAnthropometrics, workspaceMetrics);
+                if (flushPending) {
+                    synchronized (pendingLock) {
+                        add(pending.computeIfAbsent(groupName, group -> new HashMap<>()), personAnthropometrics, workspaceMetrics);
+                    }
+                }
+            }
+        }
+    }
+
+    private void add(final Map<String, TDigest> digests, final PersonAnthropometrics personAnthropometrics,
+                     final WorkspaceMetrics workspaceMetrics) {
+        if (workspaceMetrics != null) {
+            WORKSPACE_METRICS.forEach((metric, getter) -> add(digests, metric, getter.apply(workspaceMetrics)));
+        }
+        ANTHROPOMETRICS.forEach((metric, getter) -> add(digests, metric, getter.apply(personAnthropometrics)));
+    }
+
+    private void add(final Map<String, TDigest> digests, final String metric, final Double value) {
+        if (value != null && !value.isNaN()) {
+            digests.computeIfAbsent(metric, name -> TDigest.createMergingDigest(compression)).add(value);
+        }
+    }
+
+    /**
+     * Merges the sketches of one metric over the given groups. A single group is copied under its lock,
+     * so the caller can query the result without holding it.
+     */
+    private TDigest merged(final Map<String, Map<String, TDigest>> current, final List<String> groupNames, final String metric) {
+        final TDigest merged = TDigest.createMergingDigest(compression);
+        for (String groupName : groupNames) {
+            final Map<String, TDigest> digests = current.get(groupName);
+            if (digests == null) {
+                continue;
+            }
+            synchronized (digests) {
+                final TDigest digest = digests.get(metric);
+                if (digest != null) {
+                    merged.add(digest);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private MetricSketch sketch(final String group, final String metric, final TDigest digest, final Instant updatedAt) {
+        final ByteBuffer buffer = ByteBuffer.allocate(digest.smallByteSize());
+        digest.asSmallBytes(buffer);
+        return MetricSketch.builder()
+                .id(sketchId(group, metric))
+                .groupName(group)
+                .metric(metric)
+                .digest(buffer.array())
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    private static TDigest fromBytes(final byte[] digest) {
+        return MergingDigest.fromBytes(ByteBuffer.wrap(digest));
+    }
+
+    private static List<String> sketchIds(final Map<String, Map<String, TDigest>> digestsByGroup) {
+        final List<String> ids = new ArrayList<>();
+        digestsByGroup.forEach((group, digests) -> digests.keySet().forEach(metric -> ids.add(sketchId(group, metric))));
+        return ids;
+    }
+
+    private static String sketchId(final String group, final String metric) {
+        return group + "/" + metric;
+    }
+
+    private static List<String> metricNames() {
+        final List<String> names = new ArrayList<>(WORKSPACE_METRICS.keySet());
+        names.addAll(ANTHROPOMETRICS.keySet());
+        return names;
+    }
+
+    private static String percentileKey(final double percentile) {
+        return percentile == Math.rint(percentile) ? "p" + (long) percentile : "p" + percentile;
+    }
+
+    private static Map<String, Function<WorkspaceMetrics, Double>> workspaceMetrics() {
+        final Map<String, Function<WorkspaceMetrics, Double>> metrics = new LinkedHashMap<>();
+        metrics.put("tableHeightSeated", WorkspaceMetrics::getTableHeightSeated);
+        metrics.put("tableHeightStanding", WorkspaceMetrics::getTableHeightStanding);
+        metrics.put("tableWidth", WorkspaceMetrics::getTableWidth);
+        metrics.put("displayHeightSeated", WorkspaceMetrics::getDisplayHeightSeated);
+        metrics.put("displayHeightStanding", WorkspaceMetrics::getDisplayHeightStanding);
+        metrics.put("chairSeatHeight", WorkspaceMetrics::getChairSeatHeight);
+        metrics.put("chairSeatWidth", WorkspaceMetrics::getChairSeatWidth);
+        metrics.put("armRestHeight", WorkspaceMetrics::getArmRestHeight);
+        metrics.put("chairBackSupportHeight", WorkspaceMetrics::getChairBackSupportHeight);
+        metrics.put("chairBackSupportWidth", WorkspaceMetrics::getChairBackSupportWidth);
+        metrics.put("chairHeadSupportHeight", WorkspaceMetrics::getChairHeadSupportHeight);
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    private static Map<String, Function<PersonAnthropometrics, Double>> anthropometrics() {
+        final Map<String, Function<PersonAnthropometrics, Double>> measures = new LinkedHashMap<>();
+        measures.put("height", PersonAnthropometrics::getHeight);
+        measures.put("sittingHeight", PersonAnthropometrics::getSittingHeight);
+        measures.put("shoulderHeight", PersonAnthropometrics::getShoulderHeight);
+        measures.put("lowerLegLength", PersonAnthropometrics::getLowerLegLength);
+        measures.put("hipBreadth", PersonAnthropometrics::getHipBreadth);
+        measures.put("elbowHeight", PersonAnthropometrics::getElbowHeight);
+        measures.put("eyeHeightStanding", PersonAnthropometrics::getEyeHeightStanding);
+        measures.put("elbowHeightStanding", PersonAnthropometrics::getElbowHeightStanding);
+        measures.put("thighClearance", PersonAnthropometrics::getThighClearance);
+        measures.put("eyeHeight", PersonAnthropometrics::getEyeHeight);
+        measures.put("shoulderBreadth", PersonAnthropometrics::getShoulderBreadth);
+        measures.put("kneeHeight", PersonAnthropometrics::getKneeHeight);
+        return Collections.unmodifiableMap(measures);
+    }
+}
@@ -0,0 +1,124 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.utils.ContentHash;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Holds the workspace PDF page skeleton: a single A4 page with the workspace template image drawn over it.
+ * The PNG is decoded and Flate encoded only once at startup, every new document is loaded from the
+ * already encoded skeleton bytes, so the image stream is copied as is instead of being encoded again.
+ */
+@Component
+@Slf4j
+public class WorkspaceTemplate {
+
+    @Value("${pdf.template.location:classpath:workspace-template.png}")
+    private Resource templateImage;
+
+    private byte[] skeleton;
+    private String digest;
+
+    /**
+     * Decodes the template image and builds the page skeleton from it.
+     *
+     * @throws IOException if the template image can not be read or encoded.
+     */
+    @PostConstruct
+    protected void init() throws IOException {
+        final byte[] image = readTemplateImage();
+        skeleton = buildSkeleton(image);
+        digest = ContentHash.sha256Hex(image);
+        log.info("Workspace PDF template loaded from " + templateImage.getDescription() + ", skeleton size " + skeleton.length + " bytes.");
+    }
+
+    /**
+     * Creates a new document containing the workspace template page. Content added to the returned
+     * document must be appended to the existing page, see {@link PDPageContentStream.AppendMode#APPEND}.
+     *
+     * @return new PDDocument with one A4 page holding the template image.
+     * @throws IOException if the skeleton can not be parsed.
+     */
+    public PDDocument newDocument() throws IOException {
+        return newDocument(MemoryUsageSetting.setupMainMemoryOnly());
+    }
+
+    /**
+     * Creates a new document containing the workspace template page, buffering its streams as configured
+     * by the memory usage setting.
+     *
+     * @param memoryUsageSetting main memory limit and scratch file location of the document.
+     * @return new PDDocument with one A4 page holding the template image.
+     * @throws IOException if the skeleton can not be parsed.
+     */
+    public PDDocument newDocument(final MemoryUsageSetting memoryUsageSetting) throws IOException {
+        return PDDocument.load(skeleton, "", null, null, memoryUsageSetting);
+    }
+
+    /**
+     * Size of the encoded page skeleton every document is loaded from.
+     *
+     * @return skeleton size in bytes.
+     */
+    public int getSkeletonSize() {
+        return skeleton.length;
+    }
+
+    /**
+     * Identifies the loaded template, changes whenever the template image changes.
+     *
+     * @return hex encoded SHA-256 of the template image.
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Reads all bytes of the configured template image.
+     *
+     * @return template image content.
+     * @throws IOException if the template image can not be read.
+     */
+    private byte[] readTemplateImage() throws IOException {
+        try (InputStream inputStream = templateImage.getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Draws the template image over a whole A4 page and saves the result.
+     *
+     * @param image template image content.
+     * @return saved PDF document bytes.
+     * @throws IOException if the image can not be decoded or the document can not be saved.
+     */
+    private static byte[] buildSkeleton(final byte[] image) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            final PDImageXObject imageXObject = PDImageXObject.createFromByteArray(document, image, "workspace-template.png");
+            final PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                contentStream.drawImage(imageXObject, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
+            }
+
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            document.save(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.app.ErgonomicCalculator.storage;
+
+import com.app.ErgonomicCalculator.repository.WorkspacePdfBlobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Stores PDFs as bytea rows in the application database, so every instance connected to it can serve them
+ * without a shared file system. Byte ranges are read with substring in the database instead of loading the row.
+ */
+@Component
+@ConditionalOnProperty(name = "pdf.storage.type", havingValue = "database")
+@RequiredArgsConstructor
+public class DatabasePdfStorage implements PdfStorage {
+
+    private final WorkspacePdfBlobRepository workspacePdfBlobRepository;
+
+    @Override
+    public boolean exists(final String key) {
+        return workspacePdfBlobRepository.existsById(key);
+    }
+
+    @Override
+    public void store(final String key, final PdfContentWriter contentWriter) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        contentWriter.writeTo(outputStream);
+        final byte[] content = outputStream.toByteArray();
+        workspacePdfBlobRepository.insertIfAbsent(key, content, content.length, Instant.now());
+    }
+
+    @Override
+    public Optional<StoredPdf> find(final String key) {
+        return workspacePdfBlobRepository.findMetadata(key).map(this::toStoredPdf);
+    }
+
+    @Override
+    public List<StoredPdf> list(final String afterKey, final int limit) {
+        return workspacePdfBlobRepository
+                .findByStorageKeyGreaterThanOrderByStorageKeyAsc(afterKey == null ? "" : afterKey, PageRequest.of(0, limit))
+                .stream()
+                .map(this::toStoredPdf)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(final String key) {
+        if (workspacePdfBlobRepository.existsById(key)) {
+            workspacePdfBlobRepository.deleteById(key);
+        }
+    }
+
+    private StoredPdf toStoredPdf(final WorkspacePdfBlobRepository.BlobMetadata metadata) {
+        final String key = metadata.getStorageKey();
+        return StoredPdf.builder()
+                .key(key)
+                .size(metadata.getSize())
+                .lastModified(metadata.getCreatedAt().toEpochMilli())
+                .rangeReader((outputStream, position, count) ->
+                        outputStream.write(workspacePdfBlobRepository.readRange(key, position + 1, count)))
+                .build();
+    }
+}
@@ -0,0 +1,189 @@
+package com.app.ErgonomicCalculator.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores PDFs in a local or shared directory, sharded by the first two byte pairs of the content key
+ * ({@code ab/cd/abcd....pdf}) so no directory grows beyond a few thousand entries.
+ */
+@Component
+@ConditionalOnProperty(name = "pdf.storage.type", havingValue = "filesystem", matchIfMissing = true)
+@Slf4j
+public class FileSystemPdfStorage implements PdfStorage {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{8,}");
+
+    @Value("${pdf.storage.filesystem.directory:src/main/resources/generatedPDFs}")
+    private Path directory;
+
+    /**
+     * Makes sure the storage directory exists.
+     *
+     * @throws IOException if the directory can not be created.
+     */
+    @PostConstruct
+    protected void init() throws IOException {
+        Files.createDirectories(directory);
+        log.info("Storing workspace PDFs in " + directory.toAbsolutePath());
+    }
+
+    @Override
+    public boolean exists(final String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public void store(final String key, final PdfContentWriter contentWriter) throws IOException {
+        final Path pdfFile = resolve(key);
+        Files.createDirectories(pdfFile.getParent());
+        final Path tempFile = Files.createTempFile(pdfFile.getParent(), "render_", ".tmp");
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                contentWriter.writeTo(outputStream);
+            }
+            Files.move(tempFile, pdfFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public Optional<StoredPdf> find(final String key) throws IOException {
+        final Path pdfFile = resolve(key);
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(pdfFile, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        return Optional.of(StoredPdf.builder()
+                .key(key)
+                .size(attributes.size())
+                .lastModified(attributes.lastModifiedTime().toMillis())
+                .localFile(pdfFile)
+                .rangeReader((outputStream, position, count) -> transfer(pdfFile, outputStream, position, count))
+                .build());
+    }
+
+    @Override
+    public void delete(final String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public List<StoredPdf> list(final String afterKey, final int limit) throws IOException {
+        final List<StoredPdf> pdfs = new ArrayList<>();
+        for (Path firstShard : sortedChildren(directory, afterKey, 2)) {
+            for (Path secondShard : sortedChildren(firstShard, afterKey, 4)) {
+                for (Path pdfFile : sortedChildren(secondShard, afterKey, -1)) {
+                    final String key = keyOf(pdfFile);
+                    if (key == null || (afterKey != null && key.compareTo(afterKey) <= 0)) {
+                        continue;
+                    }
+                    find(key).ifPresent(pdfs::add);
+                    if (pdfs.size() >= limit) {
+                        return pdfs;
+                    }
+                }
+            }
+        }
+        return pdfs;
+    }
+
+    /**
+     * Resolves the sharded path of a key.
+     *
+     * @param key content key of the PDF.
+     * @return path of the PDF file.
+     */
+    Path resolve(final String key) {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid PDF storage key: " + key);
+        }
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key + ".pdf");
+    }
+
+    /**
+     * Lists the entries of a shard directory in name order, skipping shards that sort before the key to continue after.
+     *
+     * @param parent      directory to list.
+     * @param afterKey    key to continue after, null to list everything.
+     * @param shardLength length of the key prefix covered by the listed shards, -1 for PDF files.
+     * @return sorted entries, empty if the directory does not exist.
+     * @throws IOException if the directory can not be listed.
+     */
+    private static List<Path> sortedChildren(final Path parent, final String afterKey, final int shardLength) throws IOException {
+        if (!Files.isDirectory(parent)) {
+            return Collections.emptyList();
+        }
+        final String afterShard = afterKey == null || shardLength < 0 ? null : afterKey.substring(0, shardLength);
+        try (Stream<Path> children = Files.list(parent)) {
+            return children
+                    .filter(child -> afterShard == null || shardOf(child, shardLength).compareTo(afterShard) >= 0)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static String shardOf(final Path shard, final int shardLength) {
+        return shardLength == 2
+                ? shard.getFileName().toString()
+                : shard.getParent().getFileName().toString() + shard.getFileName();
+    }
+
+    private static String keyOf(final Path pdfFile) {
+        final String fileName = pdfFile.getFileName().toString();
+        if (!fileName.endsWith(".pdf")) {
+            return null;
+        }
+        final String key = fileName.substring(0, fileName.length() - ".pdf".length());
+        return KEY_PATTERN.matcher(key).matches() ? key : null;
+    }
+
+    /**
+     * Copies a byte range of the file through its channel.
+     *
+     * @param pdfFile      file to read.
+     * @param outputStream stream to write to.
+     * @param position     first byte to copy.
+     * @param count        number of bytes to copy.
+     * @throws IOException if the file can not be read or the stream written.
+     */
+    private static void transfer(final Path pdfFile, final OutputStream outputStream, long position, long count) throws IOException {
+        try (FileChannel channel = FileChannel.open(pdfFile, StandardOpenOption.READ)) {
+            final WritableByteChannel target = Channels.newChannel(outputStream);
+            while (count > 0) {
+                final long transferred = channel.transferTo(position, count, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                count -= transferred;
+            }
+        }
+    }
+}
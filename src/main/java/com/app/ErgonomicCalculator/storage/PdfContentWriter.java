@@ -0,0 +1,19 @@
+package com.app.ErgonomicCalculator.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes PDF content into a stream, typically by rendering the document.
+ */
+@FunctionalInterface
+public interface PdfContentWriter {
+
+    /**
+     * Writes the PDF content.
+     *
+     * @param outputStream stream to write to, not closed by the writer.
+     * @throws IOException if the content can not be produced or written.
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,60 @@
+package com.app.ErgonomicCalculator.storage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage backend of generated workspace PDFs. PDFs are addressed by their content key, which is what
+ * {@code WorkspaceMetrics.imagePath} holds, so every application instance sharing the backend can serve
+ * any stored PDF. The backend is selected with {@code pdf.storage.type}.
+ */
+public interface PdfStorage {
+
+    /**
+     * Checks whether a PDF is stored under the key.
+     *
+     * @param key content key of the PDF.
+     * @return true if the PDF exists.
+     * @throws IOException if the backend can not be reached.
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Stores the PDF produced by the writer under the key. Readers never see a partially written PDF,
+     * storing the same key concurrently is allowed as equal keys mean equal content.
+     *
+     * @param key           content key of the PDF.
+     * @param contentWriter produces the PDF content.
+     * @throws IOException if the content can not be produced or stored.
+     */
+    void store(String key, PdfContentWriter contentWriter) throws IOException;
+
+    /**
+     * Looks up a stored PDF.
+     *
+     * @param key content key of the PDF.
+     * @return the stored PDF, empty if nothing is stored under the key.
+     * @throws IOException if the backend can not be reached.
+     */
+    Optional<StoredPdf> find(String key) throws IOException;
+
+    /**
+     * Deletes the PDF stored under the key, does nothing if there is none.
+     *
+     * @param key content key of the PDF.
+     * @throws IOException if the backend can not be reached or the PDF can not be deleted.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Lists stored PDFs in ascending key order, one batch at a time, so the whole storage can be walked
+     * incrementally by passing the last key of the previous batch.
+     *
+     * @param afterKey key to continue after, null to start from the beginning.
+     * @param limit    maximum number of PDFs to return.
+     * @return up to limit stored PDFs with keys greater than afterKey.
+     * @throws IOException if the backend can not be reached.
+     */
+    List<StoredPdf> list(String afterKey, int limit) throws IOException;
+}
@@ -0,0 +1,240 @@
+package com.app.ErgonomicCalculator.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Stores PDFs in an S3 compatible object store. Setting {@code pdf.storage.s3.endpoint} points the client at a
+ * non AWS store, e.g. the MinIO service of the {@code s3} docker compose profile used for local testing.
+ */
+@Component
+@ConditionalOnProperty(name = "pdf.storage.type", havingValue = "s3")
+@Slf4j
+public class S3PdfStorage implements PdfStorage {
+
+    private static final String CONTENT_TYPE = "application/pdf";
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{8,}");
+
+    @Value("${pdf.storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${pdf.storage.s3.prefix:workspaces/}")
+    private String prefix;
+
+    @Value("${pdf.storage.s3.region:eu-central-1}")
+    private String region;
+
+    @Value("${pdf.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${pdf.storage.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    @Value("${pdf.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${pdf.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${pdf.storage.s3.create-bucket:false}")
+    private boolean createBucket;
+
+    private S3Client s3Client;
+
+    /**
+     * Builds the S3 client and creates the bucket if it is missing and bucket creation is enabled.
+     */
+    @PostConstruct
+    protected void init() {
+        final S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider())
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        s3Client = builder.build();
+
+        if (createBucket) {
+            try {
+                s3Client.headBucket(request -> request.bucket(bucket));
+            } catch (NoSuchBucketException e) {
+                s3Client.createBucket(request -> request.bucket(bucket));
+                log.info("Created PDF storage bucket " + bucket);
+            }
+        }
+        log.info("Storing workspace PDFs in bucket " + bucket);
+    }
+
+    /**
+     * Closes the S3 client and its connection pool.
+     */
+    @PreDestroy
+    protected void close() {
+        s3Client.close();
+    }
+
+    @Override
+    public boolean exists(final String key) throws IOException {
+        return head(key).isPresent();
+    }
+
+    @Override
+    public void store(final String key, final PdfContentWriter contentWriter) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        contentWriter.writeTo(outputStream);
+        try {
+            s3Client.putObject(request -> request.bucket(bucket).key(objectKey(key)).contentType(CONTENT_TYPE),
+                    RequestBody.fromBytes(outputStream.toByteArray()));
+        } catch (SdkException e) {
+            throw new IOException("PDF " + key + " can not be stored.", e);
+        }
+    }
+
+    @Override
+    public Optional<StoredPdf> find(final String key) throws IOException {
+        return head(key).map(response -> StoredPdf.builder()
+                .key(key)
+                .size(response.contentLength())
+                .lastModified(response.lastModified().toEpochMilli())
+                .rangeReader((outputStream, position, count) -> read(key, outputStream, position, count))
+                .build());
+    }
+
+    @Override
+    public void delete(final String key) throws IOException {
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucket).key(objectKey(key)));
+        } catch (SdkException e) {
+            throw new IOException("PDF " + key + " can not be deleted.", e);
+        }
+    }
+
+    @Override
+    public List<StoredPdf> list(final String afterKey, final int limit) throws IOException {
+        final List<StoredPdf> pdfs = new ArrayList<>();
+        String startAfter = afterKey == null ? null : objectKey(afterKey);
+        ListObjectsV2Response response;
+        do {
+            final String from = startAfter;
+            final int maxKeys = limit - pdfs.size();
+            try {
+                response = s3Client.listObjectsV2(request -> request.bucket(bucket).prefix(prefix).maxKeys(maxKeys)
+                        .startAfter(from));
+            } catch (SdkException e) {
+                throw new IOException("PDFs after " + afterKey + " can not be listed.", e);
+            }
+            for (S3Object object : response.contents()) {
+                startAfter = object.key();
+                final String key = keyOf(object.key());
+                if (key == null) {
+                    continue;
+                }
+                pdfs.add(StoredPdf.builder()
+                        .key(key)
+                        .size(object.size())
+                        .lastModified(object.lastModified().toEpochMilli())
+                        .rangeReader((outputStream, position, count) -> read(key, outputStream, position, count))
+                        .build());
+            }
+        } while (pdfs.size() < limit && Boolean.TRUE.equals(response.isTruncated()));
+        return pdfs;
+    }
+
+    /**
+     * Reads the object metadata.
+     *
+     * @param key content key of the PDF.
+     * @return object metadata, empty if the object does not exist.
+     * @throws IOException if the object store can not be reached.
+     */
+    private Optional<HeadObjectResponse> head(final String key) throws IOException {
+        try {
+            return Optional.of(s3Client.headObject(request -> request.bucket(bucket).key(objectKey(key))));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("PDF " + key + " can not be looked up.", e);
+        } catch (SdkException e) {
+            throw new IOException("PDF " + key + " can not be looked up.", e);
+        }
+    }
+
+    /**
+     * Streams a byte range of the object with a ranged GET, so only the requested bytes leave the store.
+     *
+     * @param key          content key of the PDF.
+     * @param outputStream stream to write to.
+     * @param position     first byte to write.
+     * @param count        number of bytes to write.
+     * @throws IOException if the object can not be read or the stream written.
+     */
+    private void read(final String key, final OutputStream outputStream, final long position, final long count) throws IOException {
+        if (count <= 0) {
+            return;
+        }
+        final String range = "bytes=" + position + "-" + (position + count - 1);
+        try (ResponseInputStream<GetObjectResponse> inputStream =
+                     s3Client.getObject(request -> request.bucket(bucket).key(objectKey(key)).range(range))) {
+            inputStream.transferTo(outputStream);
+        } catch (SdkException e) {
+            throw new IOException("PDF " + key + " can not be read.", e);
+        }
+    }
+
+    private String objectKey(final String key) {
+        return prefix + key + ".pdf";
+    }
+
+    /**
+     * Extracts the content key from an object key, null for objects that are not stored PDFs, e.g. folder markers.
+     */
+    private String keyOf(final String objectKey) {
+        if (!objectKey.startsWith(prefix) || !objectKey.endsWith(".pdf")) {
+            return null;
+        }
+        final String key = objectKey.substring(prefix.length(), objectKey.length() - ".pdf".length());
+        return KEY_PATTERN.matcher(key).matches() ? key : null;
+    }
+
+    private AwsCredentialsProvider credentialsProvider() {
+        if (accessKey.isBlank()) {
+            return DefaultCredentialsProvider.create();
+        }
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+}
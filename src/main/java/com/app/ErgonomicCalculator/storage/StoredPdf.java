@@ -0,0 +1,45 @@
+package com.app.ErgonomicCalculator.storage;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * PDF kept in a {@link PdfStorage}, with the metadata needed to serve it.
+ */
+@Getter
+@Builder
+public class StoredPdf {
+
+    /**
+     * Reads a byte range of the stored content.
+     */
+    @FunctionalInterface
+    public interface RangeReader {
+        void read(OutputStream outputStream, long position, long count) throws IOException;
+    }
+
+    private final String key;
+    private final long size;
+    private final long lastModified;
+    /**
+     * Local file holding the content, null when the backend is not the local file system.
+     */
+    private final Path localFile;
+    private final RangeReader rangeReader;
+
+    /**
+     * Writes a byte range of the stored content.
+     *
+     * @param outputStream stream to write to, not closed by this method.
+     * @param position     first byte to write.
+     * @param count        number of bytes to write.
+     * @throws IOException if the content can not be read or written.
+     */
+    public void read(final OutputStream outputStream, final long position, final long count) throws IOException {
+        rangeReader.read(outputStream, position, count);
+    }
+}
@@ -0,0 +1,80 @@
+package com.app.ErgonomicCalculator.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 helpers used to build content addressed names for generated files.
+ */
+public final class ContentHash {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    private ContentHash() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Starts a new hash.
+     *
+     * @return empty ContentHash.
+     */
+    public static ContentHash sha256() {
+        return new ContentHash();
+    }
+
+    /**
+     * Hashes the given bytes.
+     *
+     * @param content bytes to hash.
+     * @return lower case hex encoded SHA-256 of the content.
+     */
+    public static String sha256Hex(final byte[] content) {
+        return sha256().add(content).toHex();
+    }
+
+    /**
+     * Adds bytes to the hash.
+     *
+     * @param content bytes to add.
+     * @return this ContentHash.
+     */
+    public ContentHash add(final byte[] content) {
+        digest.update(content);
+        return this;
+    }
+
+    /**
+     * Adds a text part to the hash. Parts are separated, so ("ab", "c") and ("a", "bc") give different hashes.
+     *
+     * @param part text to add, null is hashed as "null".
+     * @return this ContentHash.
+     */
+    public ContentHash add(final String part) {
+        digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return this;
+    }
+
+    /**
+     * Completes the hash.
+     *
+     * @return lower case hex encoded hash value.
+     */
+    public String toHex() {
+        final byte[] hash = digest.digest();
+        final char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
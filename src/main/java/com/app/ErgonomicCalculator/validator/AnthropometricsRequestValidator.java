@@ -3,41 +3,109 @@ package com.app.ErgonomicCalculator.validator;
 import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
 import com.app.ErgonomicCalculator.exception.InvalidDataException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.lang.reflect.Field;
+import javax.annotation.PostConstruct;
+import java.util.List;
 
+/**
+ * Validates anthropometric measurements before they are stored or calculated. Every measure must be present,
+ * non-zero and within its plausible range, measures that contain each other must keep their order
+ * (e.g. the sitting height is less than the height), and an email, when given, must not be blank.
+ * Ranges and cross-field rules are configurable, the rules are compiled once at startup.
+ */
 @Service
 @Slf4j
 public class AnthropometricsRequestValidator {
-    public void validate(AnthropometricsRequestDto anthropometrics) throws InvalidDataException, IllegalAccessException {
-        Field[] fieldsToValidate = anthropometrics.getClass().getDeclaredFields();
-        for (Field field : fieldsToValidate) {
-            field.setAccessible(true);
-            validateField(anthropometrics, field);
-        }
+
+    /**
+     * Plausible range per measure in centimeters, as {@code measure:min:max}.
+     */
+    static final String DEFAULT_RANGES = "height:50:250,sittingHeight:30:130,shoulderHeight:20:100,"
+            + "lowerLegLength:20:80,hipBreadth:15:80,elbowHeight:5:50,eyeHeightStanding:40:240,"
+            + "elbowHeightStanding:30:160,thighClearance:5:40,eyeHeight:30:110,shoulderBreadth:20:80,kneeHeight:20:80";
+
+    /**
+     * Measures that must be smaller than another measure, as {@code smaller<larger}.
+     */
+    static final String DEFAULT_CROSS_FIELD_RULES = "sittingHeight<height,eyeHeightStanding<height,"
+            + "elbowHeightStanding<eyeHeightStanding,eyeHeight<sittingHeight,shoulderHeight<sittingHeight,"
+            + "elbowHeight<shoulderHeight,thighClearance<kneeHeight,kneeHeight<height";
+
+    @Value("${validation.anthropometrics.ranges:" + DEFAULT_RANGES + "}")
+    private String ranges = DEFAULT_RANGES;
+
+    @Value("${validation.anthropometrics.cross-field-rules:" + DEFAULT_CROSS_FIELD_RULES + "}")
+    private String crossFieldRules = DEFAULT_CROSS_FIELD_RULES;
+
+    private CompiledValidator<AnthropometricsRequestDto> validator = compile(ranges, crossFieldRules);
+
+    /**
+     * Compiles the configured rules.
+     *
+     * @throws IllegalArgumentException if a rule is malformed or names an unknown measure.
+     */
+    @PostConstruct
+    protected void init() {
+        validator = compile(ranges, crossFieldRules);
+        log.info("Anthropometrics validation rules compiled, ranges: " + ranges + ", cross-field rules: " + crossFieldRules);
     }
 
-    private static void validateField(AnthropometricsRequestDto anthropometrics, Field field) throws IllegalAccessException, InvalidDataException {
-        Object value = field.get(anthropometrics);
-        if (value instanceof String) {
-            validateStringField(field, (String) value);
-        } else if (field.getType() == Double.class) {
-            validateDoubleField(field, value);
+    /**
+     * Validates the measurements and reports every violation at once.
+     *
+     * @param anthropometrics measurements to validate.
+     * @throws InvalidDataException if any rule is violated, the message lists all violations.
+     */
+    public void validate(final AnthropometricsRequestDto anthropometrics) throws InvalidDataException {
+        final List<String> violations = validator.violations(anthropometrics);
+        if (!violations.isEmpty()) {
+            final String message = String.join(" ", violations);
+            log.error("Validation failed. " + message);
+            throw new InvalidDataException(message);
         }
     }
 
-    private static void validateDoubleField(Field field, Object value) throws InvalidDataException {
-        if (value == null || (Double) value == 0.0) {
-            log.error("Validation failed. Field '" + field.getName() + "' is null or zero.");
-            throw new InvalidDataException("Field '" + field.getName() + "' must not be null or zero.");
+    /**
+     * Builds the validator of the request DTO from its getters and the rule settings.
+     *
+     * @param ranges          comma separated {@code measure:min:max} entries, may be blank.
+     * @param crossFieldRules comma separated {@code smaller<larger} entries, may be blank.
+     * @return compiled validator.
+     * @throws IllegalArgumentException if a rule is malformed or names an unknown measure.
+     */
+    static CompiledValidator<AnthropometricsRequestDto> compile(final String ranges, final String crossFieldRules) {
+        final CompiledValidator.Builder<AnthropometricsRequestDto> builder = CompiledValidator
+                .measures((AnthropometricsRequestDto dto) -> new Double[]{
+                                dto.getHeight(), dto.getSittingHeight(), dto.getShoulderHeight(), dto.getLowerLegLength(),
+                                dto.getHipBreadth(), dto.getElbowHeight(), dto.getEyeHeightStanding(), dto.getElbowHeightStanding(),
+                                dto.getThighClearance(), dto.getEyeHeight(), dto.getShoulderBreadth(), dto.getKneeHeight()},
+                        "height", "sittingHeight", "shoulderHeight", "lowerLegLength",
+                        "hipBreadth", "elbowHeight", "eyeHeightStanding", "elbowHeightStanding",
+                        "thighClearance", "eyeHeight", "shoulderBreadth", "kneeHeight")
+                .optionalText("personEmail", AnthropometricsRequestDto::getPersonEmail);
+        for (String range : entries(ranges)) {
+            final String[] parts = range.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Range '" + range + "' is not in the form measure:min:max.");
+            }
+            builder.range(parts[0].trim(), Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()));
+        }
+        for (String rule : entries(crossFieldRules)) {
+            final String[] parts = rule.split("<");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cross-field rule '" + rule + "' is not in the form smaller<larger.");
+            }
+            builder.lessThan(parts[0].trim(), parts[1].trim());
         }
+        return builder.build();
     }
 
-    private static void validateStringField(Field field, String value) throws InvalidDataException {
-        if (value.trim().isEmpty()) {
-            log.error("Validation failed. Field '" + field.getName() + "' is null or empty.");
-            throw new InvalidDataException("Field '" + field.getName() + "' must not be null or empty.");
+    private static List<String> entries(final String setting) {
+        if (setting == null || setting.isBlank()) {
+            return List.of();
         }
+        return List.of(setting.trim().split("\\s*,\\s*"));
     }
 }
@@ -0,0 +1,190 @@
+package com.app.ErgonomicCalculator.validator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Validator of one DTO type, built once instead of reading fields reflectively on every request. The measures
+ * of an object are read by a single extractor written against the DTO getters, the rules are plain index
+ * comparisons over the extracted values and every error message is prepared at build time, so a validation run
+ * reads each field once and compares numbers. All violations of an object are collected in a single pass.
+ *
+ * @param <T> validated DTO type.
+ */
+public final class CompiledValidator<T> {
+
+    private final Function<T, Double[]> extractor;
+    private final double[] min;
+    private final double[] max;
+    private final String[] missingMessages;
+    private final String[] rangeMessages;
+    private final int[] smaller;
+    private final int[] larger;
+    private final String[] lessThanMessages;
+    private final List<Function<T, String>> texts;
+    private final String[] blankMessages;
+
+    private CompiledValidator(final Builder<T> builder) {
+        final int measureCount = builder.names.size();
+        extractor = builder.extractor;
+        min = new double[measureCount];
+        max = new double[measureCount];
+        missingMessages = new String[measureCount];
+        rangeMessages = new String[measureCount];
+        for (int i = 0; i < measureCount; i++) {
+            final String name = builder.names.get(i);
+            final double[] range = builder.ranges.getOrDefault(name,
+                    new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY});
+            min[i] = range[0];
+            max[i] = range[1];
+            missingMessages[i] = "Field '" + name + "' must not be null or zero.";
+            rangeMessages[i] = "Field '" + name + "' must be between " + range[0] + " and " + range[1] + ".";
+        }
+        final int lessThanCount = builder.lessThanRules.size();
+        smaller = new int[lessThanCount];
+        larger = new int[lessThanCount];
+        lessThanMessages = new String[lessThanCount];
+        for (int i = 0; i < lessThanCount; i++) {
+            final String[] rule = builder.lessThanRules.get(i);
+            smaller[i] = builder.names.indexOf(rule[0]);
+            larger[i] = builder.names.indexOf(rule[1]);
+            lessThanMessages[i] = "Field '" + rule[0] + "' must be less than '" + rule[1] + "'.";
+        }
+        texts = new ArrayList<>(builder.texts.values());
+        blankMessages = builder.texts.keySet().stream()
+                .map(name -> "Field '" + name + "' must not be null or empty.")
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Checks every rule against the object. A missing or zero measure is reported once, its range and
+     * cross-field rules are skipped. NaN fails every range.
+     *
+     * @param target object to validate.
+     * @return messages of the violated rules, measures first, then texts, then cross-field rules; empty if the object is valid.
+     */
+    public List<String> violations(final T target) {
+        final Double[] values = extractor.apply(target);
+        List<String> violations = null;
+        for (int i = 0; i < values.length; i++) {
+            final Double value = values[i];
+            final String violation;
+            if (value == null || value == 0.0) {
+                violation = missingMessages[i];
+            } else if (!(value >= min[i] && value <= max[i])) {
+                violation = rangeMessages[i];
+            } else {
+                continue;
+            }
+            violations = add(violations, violation);
+        }
+        for (int i = 0; i < blankMessages.length; i++) {
+            final String value = texts.get(i).apply(target);
+            if (value != null && value.isBlank()) {
+                violations = add(violations, blankMessages[i]);
+            }
+        }
+        for (int i = 0; i < lessThanMessages.length; i++) {
+            final Double smallerValue = values[smaller[i]];
+            final Double largerValue = values[larger[i]];
+            if (smallerValue != null && largerValue != null && smallerValue != 0.0 && largerValue != 0.0
+                    && !(smallerValue < largerValue)) {
+                violations = add(violations, lessThanMessages[i]);
+            }
+        }
+        return violations == null ? Collections.emptyList() : violations;
+    }
+
+    private static List<String> add(final List<String> violations, final String violation) {
+        final List<String> result = violations == null ? new ArrayList<>() : violations;
+        result.add(violation);
+        return result;
+    }
+
+    /**
+     * Starts a validator of the measures read by the extractor. The extractor returns the values in the order
+     * of the names and is best written as one lambda calling the getters, so the reads compile to direct calls.
+     *
+     * @param extractor reads the measures of an object, a {@code null} entry is a missing measure.
+     * @param names     measure names used in the messages and in range and cross-field rules.
+     * @return builder of the validator.
+     */
+    public static <T> Builder<T> measures(final Function<T, Double[]> extractor, final String... names) {
+        return new Builder<>(extractor, Arrays.asList(names));
+    }
+
+    public static final class Builder<T> {
+
+        private final Function<T, Double[]> extractor;
+        private final List<String> names;
+        private final Map<String, double[]> ranges = new LinkedHashMap<>();
+        private final Map<String, Function<T, String>> texts = new LinkedHashMap<>();
+        private final List<String[]> lessThanRules = new ArrayList<>();
+
+        private Builder(final Function<T, Double[]> extractor, final List<String> names) {
+            this.extractor = extractor;
+            this.names = names;
+        }
+
+        /**
+         * Registers an optional text field that must not be blank when present.
+         *
+         * @param name   field name used in the messages.
+         * @param getter getter of the field.
+         * @return this builder.
+         */
+        public Builder<T> optionalText(final String name, final Function<T, String> getter) {
+            texts.put(name, getter);
+            return this;
+        }
+
+        /**
+         * Limits a measure to a plausible range, bounds included. A later range of the same measure replaces
+         * the earlier one.
+         *
+         * @param name measure name.
+         * @param min  smallest accepted value.
+         * @param max  largest accepted value.
+         * @return this builder.
+         * @throws IllegalArgumentException if the measure is unknown or the range is empty.
+         */
+        public Builder<T> range(final String name, final double min, final double max) {
+            requireMeasure(name);
+            if (!(min <= max)) {
+                throw new IllegalArgumentException("Range of '" + name + "' is empty: " + min + " > " + max + ".");
+            }
+            ranges.put(name, new double[]{min, max});
+            return this;
+        }
+
+        /**
+         * Requires one measure to be smaller than another.
+         *
+         * @param smaller name of the measure that must be smaller.
+         * @param larger  name of the measure that must be larger.
+         * @return this builder.
+         * @throws IllegalArgumentException if a measure is unknown.
+         */
+        public Builder<T> lessThan(final String smaller, final String larger) {
+            requireMeasure(smaller);
+            requireMeasure(larger);
+            lessThanRules.add(new String[]{smaller, larger});
+            return this;
+        }
+
+        public CompiledValidator<T> build() {
+            return new CompiledValidator<>(this);
+        }
+
+        private void requireMeasure(final String name) {
+            if (!names.contains(name)) {
+                throw new IllegalArgumentException("Unknown measure '" + name + "', known measures: " + names + ".");
+            }
+        }
+    }
+}
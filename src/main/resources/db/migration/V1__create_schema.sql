@@ -0,0 +1,93 @@
+-- Tables and sequences of the entities, as previously generated by hibernate.
+-- Sequences increment by the allocation size of the entity id generators.
+
+create sequence person_seq start with 1 increment by 50;
+create sequence person_anthropometrics_seq start with 1 increment by 50;
+create sequence workspace_metrics_seq start with 1 increment by 50;
+
+create table person
+(
+    id         int8         not null,
+    email      varchar(255) not null,
+    first_name varchar(255),
+    last_name  varchar(255),
+    password   varchar(255),
+    primary key (id),
+    constraint uk_person_email unique (email)
+);
+
+create table person_anthropometrics
+(
+    id                    int8 not null,
+    height                float8,
+    sitting_height        float8,
+    shoulder_height       float8,
+    lower_leg_length      float8,
+    hip_breadth           float8,
+    elbow_height          float8,
+    eye_height_standing   float8,
+    elbow_height_standing float8,
+    thigh_clearance       float8,
+    eye_height            float8,
+    shoulder_breadth      float8,
+    knee_height           float8,
+    person_id             int8,
+    primary key (id),
+    constraint fk_person_anthropometrics_person foreign key (person_id) references person
+);
+
+create table workspace_metrics
+(
+    id                        int8 not null,
+    table_height_seated       float8,
+    table_height_standing     float8,
+    table_width               float8,
+    display_height_seated     float8,
+    display_height_standing   float8,
+    chair_seat_height         float8,
+    chair_seat_width          float8,
+    arm_rest_height           float8,
+    chair_back_support_height float8,
+    chair_back_support_width  float8,
+    chair_head_support_height float8,
+    image_path                varchar(255),
+    formula_version           varchar(255),
+    person_id                 int8,
+    primary key (id),
+    constraint fk_workspace_metrics_person foreign key (person_id) references person
+);
+
+create table import_checkpoint
+(
+    import_id          varchar(255) not null,
+    last_committed_row int8         not null,
+    imported_rows      int8         not null,
+    rejected_rows      int8         not null,
+    updated_at         timestamp,
+    primary key (import_id)
+);
+
+create table metric_sketch
+(
+    id         varchar(255) not null,
+    group_name varchar(255),
+    metric     varchar(255),
+    digest     bytea,
+    updated_at timestamp,
+    primary key (id)
+);
+
+create table workspace_pdf_blob
+(
+    storage_key varchar(255) not null,
+    content     bytea,
+    size        int8,
+    created_at  timestamp,
+    primary key (storage_key)
+);
+
+-- Lookups of the existing queries: joins by person, PDF reference counts and the recompute job.
+create index ix_person_anthropometrics_person on person_anthropometrics (person_id);
+create index ix_workspace_metrics_person on workspace_metrics (person_id);
+create index ix_workspace_metrics_image_path on workspace_metrics (image_path);
+create index ix_workspace_metrics_formula_version on workspace_metrics (formula_version);
@@ -0,0 +1,11 @@
+-- Range search over workspace metrics: the first range of a search is scanned in (metric, id) order,
+-- which is also the keyset the results are paged by, so every page is a bounded index range scan.
+
+create index ix_workspace_metrics_table_height_seated on workspace_metrics (table_height_seated, id);
+create index ix_workspace_metrics_table_height_standing on workspace_metrics (table_height_standing, id);
+create index ix_workspace_metrics_display_height_seated on workspace_metrics (display_height_seated, id);
+create index ix_workspace_metrics_display_height_standing on workspace_metrics (display_height_standing, id);
+create index ix_workspace_metrics_chair_seat_height on workspace_metrics (chair_seat_height, id);
+create index ix_workspace_metrics_chair_seat_width on workspace_metrics (chair_seat_width, id);
+create index ix_workspace_metrics_arm_rest_height on workspace_metrics (arm_rest_height, id);
+create index ix_workspace_metrics_chair_back_support_height on workspace_metrics (chair_back_support_height, id);
@@ -0,0 +1,21 @@
+-- A person has at most one anthropometrics and one workspace row. Submits create them while holding the lock
+-- of the person row, the unique constraints keep any other writer from adding a second row.
+-- Duplicates left by earlier concurrent submits are removed first, the latest row of a person is kept.
+
+delete from person_anthropometrics a
+    using person_anthropometrics newer
+where a.person_id = newer.person_id
+  and a.id < newer.id;
+
+delete from workspace_metrics w
+    using workspace_metrics newer
+where w.person_id = newer.person_id
+  and w.id < newer.id;
+
+drop index ix_person_anthropometrics_person;
+drop index ix_workspace_metrics_person;
+
+alter table person_anthropometrics
+    add constraint uk_person_anthropometrics_person unique (person_id);
+alter table workspace_metrics
+    add constraint uk_workspace_metrics_person unique (person_id);
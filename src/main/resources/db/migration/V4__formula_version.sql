@@ -0,0 +1,10 @@
+-- Formula sets installed at runtime, keyed by version. Every instance starts with the latest installed set and
+-- picks up sets installed on other instances, a version keeps its definitions once it is stored.
+
+create table formula_version
+(
+    version      varchar(255) not null,
+    definitions  text         not null,
+    installed_at timestamp    not null,
+    primary key (version)
+);
@@ -0,0 +1,6 @@
+-- Admin role of a person. It is never granted through the API, an operator grants it to a registered person:
+-- update person set admin = true where email = '...' and password is not null;
+-- Registering a person that so far only submitted anthropometrics clears the role.
+
+alter table person
+    add column admin boolean not null default false;
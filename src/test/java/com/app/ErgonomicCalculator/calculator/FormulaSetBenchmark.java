@@ -0,0 +1,160 @@
+package com.app.ErgonomicCalculator.calculator;
+
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares calculating workspace metrics through boxed entity getters and the Lombok builder against hard-coded
+ * formulas on primitive rows, for a single person and for a batch of rows, and the hard-coded formulas against the
+ * same formulas compiled from expressions by {@link FormulaSet}.
+ * Run with the test classpath: {@code java -cp <test classpath> com.app.ErgonomicCalculator.calculator.FormulaSetBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormulaSetBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private PersonAnthropometrics personAnthropometrics;
+    private double[] row;
+    private double[] out;
+    private PersonAnthropometrics[] entities;
+    private double[] rows;
+    private double[] outRows;
+    private FormulaSet formulaSet;
+
+    @Setup
+    public void setup() throws InvalidDataException {
+        formulaSet = FormulaSet.compile(WorkspaceRowLayout.DEFAULT_FORMULA_VERSION, WorkspaceRowLayout.DEFAULT_FORMULAS);
+        personAnthropometrics = personAnthropometrics(45.0);
+        row = new double[]{170.0, 90.0, 60.0, 45.0, 38.0, 25.0, 160.0, 105.0, 15.0, 80.0, 42.0, 50.0};
+        out = new double[WorkspaceRowLayout.OUTPUT_LENGTH];
+
+        entities = new PersonAnthropometrics[ROWS];
+        rows = new double[ROWS * WorkspaceRowLayout.INPUT_LENGTH];
+        outRows = new double[ROWS * WorkspaceRowLayout.OUTPUT_LENGTH];
+        for (int i = 0; i < ROWS; i++) {
+            entities[i] = personAnthropometrics(40.0 + i % 10);
+            System.arraycopy(row, 0, rows, i * WorkspaceRowLayout.INPUT_LENGTH, WorkspaceRowLayout.INPUT_LENGTH);
+            rows[i * WorkspaceRowLayout.INPUT_LENGTH + WorkspaceRowLayout.LOWER_LEG_LENGTH] = 40.0 + i % 10;
+        }
+    }
+
+    @Benchmark
+    public WorkspaceMetrics entityBuilder() {
+        return fromEntity(personAnthropometrics);
+    }
+
+    @Benchmark
+    public double[] calculatorNewRow() {
+        final double[] metrics = new double[WorkspaceRowLayout.OUTPUT_LENGTH];
+        hardCoded(row, 0, metrics, 0);
+        return metrics;
+    }
+
+    @Benchmark
+    public double[] calculatorReusedRow() {
+        hardCoded(row, 0, out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public double[] formulaSetReusedRow() {
+        formulaSet.calculate(row, 0, out, 0);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double entityBuilderBatch() {
+        double sum = 0;
+        for (PersonAnthropometrics entity : entities) {
+            sum += fromEntity(entity).getChairHeadSupportHeight();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double[] calculatorBatch() {
+        for (int i = 0; i < ROWS; i++) {
+            hardCoded(rows, i * WorkspaceRowLayout.INPUT_LENGTH, outRows, i * WorkspaceRowLayout.OUTPUT_LENGTH);
+        }
+        return outRows;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double[] formulaSetBatch() {
+        for (int i = 0; i < ROWS; i++) {
+            formulaSet.calculate(rows, i * WorkspaceRowLayout.INPUT_LENGTH, outRows, i * WorkspaceRowLayout.OUTPUT_LENGTH);
+        }
+        return outRows;
+    }
+
+    private static PersonAnthropometrics personAnthropometrics(final double lowerLegLength) {
+        return PersonAnthropometrics.builder()
+                .height(170.0).sittingHeight(90.0).shoulderHeight(60.0).lowerLegLength(lowerLegLength).hipBreadth(38.0)
+                .elbowHeight(25.0).eyeHeightStanding(160.0).elbowHeightStanding(105.0).thighClearance(15.0)
+                .eyeHeight(80.0).shoulderBreadth(42.0).kneeHeight(50.0)
+                .build();
+    }
+
+    /**
+     * Calculation as it was done in WorkspaceMetricsService before the calculator was extracted.
+     */
+    private static WorkspaceMetrics fromEntity(final PersonAnthropometrics personAnthropometrics) {
+        return WorkspaceMetrics.builder()
+                .tableHeightSeated(personAnthropometrics.getElbowHeight() + personAnthropometrics.getLowerLegLength())
+                .tableHeightStanding(personAnthropometrics.getElbowHeightStanding())
+                .tableWidth(personAnthropometrics.getThighClearance())
+                .displayHeightSeated(personAnthropometrics.getEyeHeight() + personAnthropometrics.getLowerLegLength())
+                .displayHeightStanding(personAnthropometrics.getEyeHeightStanding())
+                .chairSeatHeight(personAnthropometrics.getLowerLegLength())
+                .chairSeatWidth(personAnthropometrics.getHipBreadth())
+                .armRestHeight(personAnthropometrics.getElbowHeight() + personAnthropometrics.getLowerLegLength())
+                .chairBackSupportHeight(personAnthropometrics.getLowerLegLength() + personAnthropometrics.getShoulderHeight())
+                .chairBackSupportWidth(personAnthropometrics.getShoulderBreadth())
+                .chairHeadSupportHeight(personAnthropometrics.getLowerLegLength() + personAnthropometrics.getSittingHeight())
+                .person(personAnthropometrics.getPerson())
+                .build();
+    }
+
+    /**
+     * The built-in formulas written out as code, the baseline for the compiled {@link FormulaSet}.
+     */
+    private static void hardCoded(final double[] in, final int inOffset, final double[] out, final int outOffset) {
+        final double lowerLegLength = in[inOffset + WorkspaceRowLayout.LOWER_LEG_LENGTH];
+        final double elbowHeightSeated = in[inOffset + WorkspaceRowLayout.ELBOW_HEIGHT] + lowerLegLength;
+
+        out[outOffset + WorkspaceRowLayout.TABLE_HEIGHT_SEATED] = elbowHeightSeated;
+        out[outOffset + WorkspaceRowLayout.TABLE_HEIGHT_STANDING] = in[inOffset + WorkspaceRowLayout.ELBOW_HEIGHT_STANDING];
+        out[outOffset + WorkspaceRowLayout.TABLE_WIDTH] = in[inOffset + WorkspaceRowLayout.THIGH_CLEARANCE];
+        out[outOffset + WorkspaceRowLayout.DISPLAY_HEIGHT_SEATED] = in[inOffset + WorkspaceRowLayout.EYE_HEIGHT] + lowerLegLength;
+        out[outOffset + WorkspaceRowLayout.DISPLAY_HEIGHT_STANDING] = in[inOffset + WorkspaceRowLayout.EYE_HEIGHT_STANDING];
+        out[outOffset + WorkspaceRowLayout.CHAIR_SEAT_HEIGHT] = lowerLegLength;
+        out[outOffset + WorkspaceRowLayout.CHAIR_SEAT_WIDTH] = in[inOffset + WorkspaceRowLayout.HIP_BREADTH];
+        out[outOffset + WorkspaceRowLayout.ARM_REST_HEIGHT] = elbowHeightSeated;
+        out[outOffset + WorkspaceRowLayout.CHAIR_BACK_SUPPORT_HEIGHT] = lowerLegLength + in[inOffset + WorkspaceRowLayout.SHOULDER_HEIGHT];
+        out[outOffset + WorkspaceRowLayout.CHAIR_BACK_SUPPORT_WIDTH] = in[inOffset + WorkspaceRowLayout.SHOULDER_BREADTH];
+        out[outOffset + WorkspaceRowLayout.CHAIR_HEAD_SUPPORT_HEIGHT] = lowerLegLength + in[inOffset + WorkspaceRowLayout.SITTING_HEIGHT];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FormulaSetBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
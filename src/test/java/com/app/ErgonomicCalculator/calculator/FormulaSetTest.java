@@ -0,0 +1,102 @@
+package com.app.ErgonomicCalculator.calculator;
+
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormulaSetTest {
+
+    @Test
+    void calculate_DefaultFormulas() throws InvalidDataException {
+        var metrics = FormulaSet.compile(DEFAULT_FORMULA_VERSION, DEFAULT_FORMULAS).calculate(anthropometrics());
+
+        assertEquals(OUTPUT_LENGTH, metrics.length);
+        assertEquals(25.0 + 45.0, metrics[TABLE_HEIGHT_SEATED]);
+        assertEquals(105.0, metrics[TABLE_HEIGHT_STANDING]);
+        assertEquals(15.0, metrics[TABLE_WIDTH]);
+        assertEquals(80.0 + 45.0, metrics[DISPLAY_HEIGHT_SEATED]);
+        assertEquals(160.0, metrics[DISPLAY_HEIGHT_STANDING]);
+        assertEquals(45.0, metrics[CHAIR_SEAT_HEIGHT]);
+        assertEquals(38.0, metrics[CHAIR_SEAT_WIDTH]);
+        assertEquals(25.0 + 45.0, metrics[ARM_REST_HEIGHT]);
+        assertEquals(45.0 + 60.0, metrics[CHAIR_BACK_SUPPORT_HEIGHT]);
+        assertEquals(42.0, metrics[CHAIR_BACK_SUPPORT_WIDTH]);
+        assertEquals(45.0 + 90.0, metrics[CHAIR_HEAD_SUPPORT_HEIGHT]);
+    }
+
+    @Test
+    void calculate_WhenRowsAtOffsets() throws InvalidDataException {
+        var formulaSet = FormulaSet.compile(DEFAULT_FORMULA_VERSION, DEFAULT_FORMULAS);
+        var in = new double[2 * INPUT_LENGTH];
+        System.arraycopy(anthropometrics(), 0, in, 0, INPUT_LENGTH);
+        System.arraycopy(anthropometrics(), 0, in, INPUT_LENGTH, INPUT_LENGTH);
+        in[INPUT_LENGTH + LOWER_LEG_LENGTH] = 50.0;
+        var out = new double[2 * OUTPUT_LENGTH];
+
+        formulaSet.calculate(in, 0, out, 0);
+        formulaSet.calculate(in, INPUT_LENGTH, out, OUTPUT_LENGTH);
+
+        assertEquals(45.0, out[CHAIR_SEAT_HEIGHT]);
+        assertEquals(50.0, out[OUTPUT_LENGTH + CHAIR_SEAT_HEIGHT]);
+        assertEquals(50.0 + 90.0, out[OUTPUT_LENGTH + CHAIR_HEAD_SUPPORT_HEIGHT]);
+    }
+
+    @Test
+    void compile_DefaultFormulasPropagateNaN() throws InvalidDataException {
+        var formulaSet = FormulaSet.compile(DEFAULT_FORMULA_VERSION, DEFAULT_FORMULAS);
+        var in = anthropometrics();
+        in[EYE_HEIGHT] = Double.NaN;
+
+        var metrics = formulaSet.calculate(in);
+
+        assertTrue(Double.isNaN(metrics[DISPLAY_HEIGHT_SEATED]));
+        assertEquals(25.0 + 45.0, metrics[TABLE_HEIGHT_SEATED]);
+    }
+
+    @Test
+    void compile_Expressions() throws InvalidDataException {
+        var in = anthropometrics();
+
+        assertEquals(45.0 * 1.1 + 2, FormulaCompiler.compile("lowerLegLength * 1.1 + 2").evaluate(in, 0));
+        assertEquals(45.0 - (25.0 - 60.0), FormulaCompiler.compile("lowerLegLength - (elbowHeight - shoulderHeight)").evaluate(in, 0));
+        assertEquals(-45.0 / 2, FormulaCompiler.compile("-lowerLegLength / (1 + 1)").evaluate(in, 0));
+        assertEquals(50.0, FormulaCompiler.compile("max(kneeHeight, min(lowerLegLength, 90))").evaluate(in, 0));
+        assertEquals(20.0, FormulaCompiler.compile("abs(elbowHeight - lowerLegLength)").evaluate(in, 0));
+        assertEquals(6.0, FormulaCompiler.compile("2 * (1 + 2)").evaluate(in, 0));
+    }
+
+    @Test
+    void compile_WhenInvalid() {
+        assertThrows(InvalidDataException.class, () -> FormulaCompiler.compile("weight + 1"));
+        assertThrows(InvalidDataException.class, () -> FormulaCompiler.compile("lowerLegLength +"));
+        assertThrows(InvalidDataException.class, () -> FormulaCompiler.compile("sqrt(height)"));
+        assertThrows(InvalidDataException.class, () -> FormulaCompiler.compile("(height"));
+        var missing = new HashMap<>(DEFAULT_FORMULAS);
+        missing.remove("tableWidth");
+        assertThrows(InvalidDataException.class, () -> FormulaSet.compile("v2", missing));
+        var unknown = new HashMap<>(DEFAULT_FORMULAS);
+        unknown.put("deskDepth", "height");
+        assertThrows(InvalidDataException.class, () -> FormulaSet.compile("v2", unknown));
+    }
+
+    private static double[] anthropometrics() {
+        var row = new double[INPUT_LENGTH];
+        row[HEIGHT] = 170.0;
+        row[SITTING_HEIGHT] = 90.0;
+        row[SHOULDER_HEIGHT] = 60.0;
+        row[LOWER_LEG_LENGTH] = 45.0;
+        row[HIP_BREADTH] = 38.0;
+        row[ELBOW_HEIGHT] = 25.0;
+        row[EYE_HEIGHT_STANDING] = 160.0;
+        row[ELBOW_HEIGHT_STANDING] = 105.0;
+        row[THIGH_CLEARANCE] = 15.0;
+        row[EYE_HEIGHT] = 80.0;
+        row[SHOULDER_BREADTH] = 42.0;
+        row[KNEE_HEIGHT] = 50.0;
+        return row;
+    }
+}
@@ -0,0 +1,75 @@
+package com.app.ErgonomicCalculator.catalogue;
+
+import com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout;
+import com.app.ErgonomicCalculator.dto.FurnitureMatchDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FurnitureCatalogueTest {
+
+    @Test
+    void reload_IndexesValidProductsOnly() throws Exception {
+        var csv = "sku,type,name,tableHeightSeatedMin,tableHeightSeatedMax,tableHeightStandingMin,tableHeightStandingMax\n"
+                + "D-1,DESK,Desk,60,80,60,80\n"
+                + "D-2,DESK,Broken desk,80,60,60,80\n"
+                + "D-3,DESK,Incomplete desk,60,80,,\n"
+                + "X-1,LAMP,Lamp,1,2,1,2\n";
+
+        var products = FurnitureCatalogue.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, products.size());
+        assertEquals("D-1", products.get(0).getSku());
+        assertThrows(InvalidDataException.class,
+                () -> FurnitureCatalogue.read(new ByteArrayInputStream("sku,name\n".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void recommend_ReturnsClosestProductsPerType() throws Exception {
+        var catalogue = sampleCatalogue();
+        var metricsRow = new double[WorkspaceRowLayout.OUTPUT_LENGTH];
+        Arrays.fill(metricsRow, Double.NaN);
+        metricsRow[WorkspaceRowLayout.TABLE_HEIGHT_SEATED] = 74;
+        metricsRow[WorkspaceRowLayout.TABLE_HEIGHT_STANDING] = 74;
+        metricsRow[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT] = 44;
+
+        var recommendations = catalogue.recommend(metricsRow);
+        var desks = recommendations.stream().filter(match -> match.getType().equals("DESK")).collect(Collectors.toList());
+        var chairs = recommendations.stream().filter(match -> match.getType().equals("CHAIR")).collect(Collectors.toList());
+
+        assertEquals(3, desks.size());
+        assertTrue(desks.stream().allMatch(FurnitureMatchDto::isFits));
+        assertEquals(3, chairs.size());
+        assertTrue(chairs.get(0).isFits());
+        assertEquals(3, catalogue.fitting(FurnitureType.CHAIR, metricsRow).size());
+
+        metricsRow[WorkspaceRowLayout.TABLE_HEIGHT_STANDING] = 130;
+        var nearestDesk = catalogue.nearest(FurnitureType.DESK, metricsRow, 1).get(0);
+        assertEquals("D-310", nearestDesk.getSku());
+        assertEquals(2.0, nearestDesk.getDistance(), 1e-9);
+        assertFalse(nearestDesk.isFits());
+    }
+
+    /**
+     * Creates a catalogue loaded with the bundled sample products.
+     *
+     * @return loaded furniture catalogue.
+     */
+    public static FurnitureCatalogue sampleCatalogue() throws IOException, InvalidDataException {
+        var catalogue = new FurnitureCatalogue(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(catalogue, "location", "classpath:furniture-catalogue.csv");
+        ReflectionTestUtils.setField(catalogue, "nodeCapacity", 4);
+        ReflectionTestUtils.setField(catalogue, "recommendations", 3);
+        catalogue.init();
+        return catalogue;
+    }
+}
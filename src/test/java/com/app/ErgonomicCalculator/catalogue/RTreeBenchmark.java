@@ -0,0 +1,81 @@
+package com.app.ErgonomicCalculator.catalogue;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares nearest and containment queries of the {@link RTree} against a scan of a 50 000 product catalogue.
+ * Run with the test classpath: {@code java -cp <test classpath> com.app.ErgonomicCalculator.catalogue.RTreeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RTreeBenchmark {
+
+    private static final int PRODUCTS = 50_000;
+    private static final int QUERIES = 64;
+
+    private List<FurnitureProduct> products;
+    private RTree tree;
+    private double[][] points;
+    private int query;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(17);
+        products = RTreeTest.randomProducts(random, PRODUCTS);
+        tree = new RTree(products, 4, 16);
+        points = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            points[i] = new double[]{30 + 40 * random.nextDouble(), 30 + 40 * random.nextDouble(),
+                    30 + 40 * random.nextDouble(), 30 + 40 * random.nextDouble()};
+        }
+    }
+
+    @Benchmark
+    public List<RTree.Match> treeNearest() {
+        return tree.nearest(nextPoint(), 3);
+    }
+
+    @Benchmark
+    public List<FurnitureProduct> treeContaining() {
+        return tree.containing(nextPoint());
+    }
+
+    @Benchmark
+    public FurnitureProduct scanNearest() {
+        final double[] point = nextPoint();
+        FurnitureProduct nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (FurnitureProduct product : products) {
+            double distance = 0;
+            for (int i = 0; i < point.length; i++) {
+                final double delta = Math.max(0, Math.max(product.getMin()[i] - point[i], point[i] - product.getMax()[i]));
+                distance += delta * delta;
+            }
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = product;
+            }
+        }
+        return nearest;
+    }
+
+    private double[] nextPoint() {
+        query = (query + 1) % QUERIES;
+        return points[query];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RTreeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.app.ErgonomicCalculator.catalogue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RTreeTest {
+
+    @Test
+    void queries_MatchBruteForce() {
+        var random = new Random(17);
+        var products = randomProducts(random, 5000);
+        var tree = new RTree(products, 4, 8);
+
+        assertEquals(5000, tree.size());
+        for (int query = 0; query < 200; query++) {
+            var point = new double[]{30 + 40 * random.nextDouble(), 30 + 40 * random.nextDouble(),
+                    30 + 40 * random.nextDouble(), query % 10 == 0 ? Double.NaN : 30 + 40 * random.nextDouble()};
+
+            var expectedFitting = products.stream().filter(product -> distance(product, point) == 0)
+                    .map(FurnitureProduct::getSku).collect(Collectors.toSet());
+            Set<String> fitting = tree.containing(point).stream().map(FurnitureProduct::getSku).collect(Collectors.toSet());
+            assertEquals(expectedFitting, fitting);
+
+            var expectedNearest = products.stream().map(product -> distance(product, point))
+                    .sorted(Comparator.naturalOrder()).limit(5).collect(Collectors.toList());
+            var nearest = tree.nearest(point, 5);
+            assertEquals(5, nearest.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(expectedNearest.get(i), nearest.get(i).getDistance(), 1e-9);
+                assertEquals(distance(nearest.get(i).getProduct(), point), nearest.get(i).getDistance(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void emptyTree() {
+        var tree = new RTree(List.of(), 2, 8);
+
+        assertTrue(tree.containing(new double[]{1, 1}).isEmpty());
+        assertTrue(tree.nearest(new double[]{1, 1}, 3).isEmpty());
+    }
+
+    static List<FurnitureProduct> randomProducts(final Random random, final int count) {
+        var products = new ArrayList<FurnitureProduct>(count);
+        for (int i = 0; i < count; i++) {
+            var min = new double[4];
+            var max = new double[4];
+            for (int dimension = 0; dimension < 4; dimension++) {
+                min[dimension] = 20 + 60 * random.nextDouble();
+                max[dimension] = min[dimension] + 15 * random.nextDouble();
+            }
+            products.add(FurnitureProduct.builder().sku("P-" + i).name("Product " + i).type(FurnitureType.CHAIR)
+                    .min(min).max(max).build());
+        }
+        return products;
+    }
+
+    private static double distance(final FurnitureProduct product, final double[] point) {
+        double distance = 0;
+        for (int i = 0; i < point.length; i++) {
+            if (Double.isNaN(point[i])) {
+                continue;
+            }
+            var delta = Math.max(0, Math.max(product.getMin()[i] - point[i], point[i] - product.getMax()[i]));
+            distance += delta * delta;
+        }
+        return Math.sqrt(distance);
+    }
+}
@@ -0,0 +1,50 @@
+package com.app.ErgonomicCalculator.config;
+
+import com.app.ErgonomicCalculator.dto.PersonDto;
+import com.app.ErgonomicCalculator.repository.PersonRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminAuthorizationManagerTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @InjectMocks
+    private AdminAuthorizationManager adminAuthorizationManager;
+
+    @Test
+    void check_GrantsStoredAdminRoleOnly() {
+        when(personRepository.existsByEmailAndAdminTrueAndPasswordIsNotNull("admin@mail.com")).thenReturn(true);
+        when(personRepository.existsByEmailAndAdminTrueAndPasswordIsNotNull("goda@mail.com")).thenReturn(false);
+
+        assertTrue(adminAuthorizationManager.check(() -> authentication("admin@mail.com"), null).isGranted());
+        assertFalse(adminAuthorizationManager.check(() -> authentication("goda@mail.com"), null).isGranted());
+    }
+
+    @Test
+    void check_WhenAnonymous_DeniesWithoutLookup() {
+        var anonymous = new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        assertFalse(adminAuthorizationManager.check(() -> anonymous, null).isGranted());
+
+        verify(personRepository, never()).existsByEmailAndAdminTrueAndPasswordIsNotNull(anyString());
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication(final String email) {
+        return new UsernamePasswordAuthenticationToken(PersonDto.builder().email(email).build(), null, Collections.emptyList());
+    }
+}
@@ -0,0 +1,36 @@
+package com.app.ErgonomicCalculator.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheConfigTest {
+
+    @Test
+    void toCacheStats_ReadsCaffeineCounters() {
+        var cache = new CaffeineCache(CacheConfig.PERSON_PRINCIPALS, Caffeine.newBuilder().recordStats().build());
+        cache.put("a@mail.com", "a");
+        cache.get("a@mail.com");
+        cache.get("b@mail.com");
+
+        var stats = CacheConfig.toCacheStats(CacheConfig.PERSON_PRINCIPALS, cache);
+
+        assertTrue(stats.isStatsAvailable());
+        assertEquals(1, stats.getSize());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void toCacheStats_WhenNotCaffeine_ReportsNameOnly() {
+        var stats = CacheConfig.toCacheStats("other", new ConcurrentMapCache("other"));
+
+        assertEquals("other", stats.getName());
+        assertFalse(stats.isStatsAvailable());
+        assertFalse(CacheConfig.toCacheStats("missing", null).isStatsAvailable());
+    }
+}
@@ -0,0 +1,55 @@
+package com.app.ErgonomicCalculator.config;
+
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceCacheEvictorTest {
+
+    private static final String EMAIL = "goda@mail.com";
+
+    private CacheManager cacheManager;
+    private WorkspaceCacheEvictor evictor;
+    private WorkspaceMetrics workspaceMetrics;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.WORKSPACE_PDF_SOURCES);
+        cacheManager.getCache(CacheConfig.WORKSPACE_PDF_SOURCES).put(EMAIL, "cached");
+        evictor = new WorkspaceCacheEvictor(new StaticListableBeanFactory(Map.of("cacheManager", cacheManager))
+                .getBeanProvider(CacheManager.class));
+        workspaceMetrics = WorkspaceMetrics.builder().person(Person.builder().email(EMAIL).build()).build();
+    }
+
+    @Test
+    void evictAfterCommit_WithoutTransaction_EvictsRightAway() {
+        evictor.evictAfterCommit(workspaceMetrics);
+
+        assertNull(cacheManager.getCache(CacheConfig.WORKSPACE_PDF_SOURCES).get(EMAIL));
+    }
+
+    @Test
+    void evictAfterCommit_InTransaction_EvictsAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            evictor.evictAfterCommit(workspaceMetrics);
+            assertNotNull(cacheManager.getCache(CacheConfig.WORKSPACE_PDF_SOURCES).get(EMAIL));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cacheManager.getCache(CacheConfig.WORKSPACE_PDF_SOURCES).get(EMAIL));
+    }
+}
@@ -0,0 +1,104 @@
+package com.app.ErgonomicCalculator.controller;
+
+import com.app.ErgonomicCalculator.service.WorkspacePdf;
+import com.app.ErgonomicCalculator.storage.StoredPdf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfResponseWriterTest {
+
+    private final PdfResponseWriter writer = new PdfResponseWriter();
+
+    @TempDir
+    Path tempDir;
+
+    private WorkspacePdf pdf;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        var file = Files.writeString(tempDir.resolve("workspace_abc.pdf"), "%PDF-0123456789");
+        var storedPdf = StoredPdf.builder()
+                .key("abc")
+                .size(Files.size(file))
+                .lastModified(Files.getLastModifiedTime(file).toMillis())
+                .localFile(file)
+                .rangeReader((outputStream, position, count) ->
+                        outputStream.write(Files.readAllBytes(file), (int) position, (int) count))
+                .build();
+        pdf = WorkspacePdf.stored("workspace_abc.pdf", storedPdf);
+    }
+
+    @Test
+    void write_WholeDocument() throws IOException {
+        var request = new MockHttpServletRequest("GET", "/api/ergonomic/openPdf/goda@mail.com");
+        var response = new MockHttpServletResponse();
+
+        writer.write(pdf, false, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"abc\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("%PDF-0123456789", response.getContentAsString(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void write_WhenETagMatches() throws IOException {
+        var request = new MockHttpServletRequest("GET", "/api/ergonomic/openPdf/goda@mail.com");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc\"");
+        var response = new MockHttpServletResponse();
+
+        writer.write(pdf, false, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void write_WhenRangeRequested() throws IOException {
+        var request = new MockHttpServletRequest("GET", "/api/ergonomic/openPdf/goda@mail.com");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-8");
+        var response = new MockHttpServletResponse();
+
+        writer.write(pdf, false, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 5-8/15", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("0123", response.getContentAsString(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void write_WhenRangeNotSatisfiable() throws IOException {
+        var request = new MockHttpServletRequest("GET", "/api/ergonomic/openPdf/goda@mail.com");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-");
+        var response = new MockHttpServletResponse();
+
+        writer.write(pdf, false, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */15", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void write_WhenIfRangeOutdated() throws IOException {
+        var request = new MockHttpServletRequest("GET", "/api/ergonomic/openPdf/goda@mail.com");
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-8");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+        var response = new MockHttpServletResponse();
+
+        writer.write(pdf, false, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(15, response.getContentAsByteArray().length);
+    }
+}
@@ -0,0 +1,56 @@
+package com.app.ErgonomicCalculator.procurement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KMeansTest {
+
+    @Test
+    void fit_FindsSeparatedGroups() {
+        var data = groups(new Random(3), 30_000, new double[][]{{60, 40}, {75, 45}, {90, 50}}, 0.5);
+        var pool = new ForkJoinPool(4);
+
+        var result = KMeans.fit(data, 3, 50, 1, pool);
+        var coverage = KMeans.coverage(data, result, 2.0, pool);
+
+        var seated = new double[]{result.centroid(0, 0), result.centroid(1, 0), result.centroid(2, 0)};
+        Arrays.sort(seated);
+        assertArrayEquals(new double[]{60, 75, 90}, seated, 0.1);
+        assertEquals(30_000, Arrays.stream(result.getSizes()).sum());
+        assertEquals(30_000, coverage.getCoveredRows());
+        pool.shutdown();
+    }
+
+    @Test
+    void fit_IsIndependentOfParallelism() {
+        var data = groups(new Random(5), 50_000, new double[][]{{60, 40}, {70, 48}, {80, 44}, {95, 52}}, 4);
+        var single = new ForkJoinPool(1);
+        var parallel = new ForkJoinPool(4);
+
+        var first = KMeans.fit(data, 4, 20, 7, single);
+        var second = KMeans.fit(data, 4, 20, 7, parallel);
+
+        assertArrayEquals(first.getCentroids(), second.getCentroids());
+        assertArrayEquals(first.getAssignments(), second.getAssignments());
+        single.shutdown();
+        parallel.shutdown();
+    }
+
+    static MetricMatrix groups(final Random random, final int rows, final double[][] centres, final double spread) {
+        var data = new MetricMatrix(centres[0].length, rows);
+        var row = new double[centres[0].length];
+        for (int i = 0; i < rows; i++) {
+            var centre = centres[i % centres.length];
+            for (int d = 0; d < row.length; d++) {
+                row[d] = centre[d] + spread * (random.nextDouble() * 2 - 1);
+            }
+            data.add(row);
+        }
+        return data;
+    }
+}
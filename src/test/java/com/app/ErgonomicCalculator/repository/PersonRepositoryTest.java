@@ -0,0 +1,136 @@
+package com.app.ErgonomicCalculator.repository;
+
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements of the person lookups, so a lookup that starts loading the one-to-one associations
+ * of a person again fails here.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class PersonRepositoryTest {
+
+    private static final String EMAIL = "goda@mail.com";
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        var person = Person.builder().email(EMAIL).firstName("Goda").lastName("A").password("hash").build();
+        person.setPersonAnthropometrics(PersonAnthropometrics.builder().height(170.0).person(person).build());
+        person.setWorkspaceMetrics(WorkspaceMetrics.builder().tableHeightSeated(70.0).chairSeatHeight(45.0)
+                .imagePath("key").formulaVersion("builtin-1").person(person).build());
+        entityManager.persist(person);
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void queryWithoutFetchPlan_LoadsAssociationsWithExtraSelects() {
+        entityManager.getEntityManager().createQuery("select p from Person p where p.email = :email", Person.class)
+                .setParameter("email", EMAIL)
+                .getSingleResult();
+
+        assertTrue(statistics.getPrepareStatementCount() > 1);
+    }
+
+    @Test
+    void findByEmail_JoinsAssociationsIntoOneQuery() {
+        var person = personRepository.findByEmail(EMAIL).orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(Hibernate.isInitialized(person.getPersonAnthropometrics()));
+        assertEquals(170.0, person.getPersonAnthropometrics().getHeight());
+        assertEquals(45.0, person.getWorkspaceMetrics().getChairSeatHeight());
+    }
+
+    @Test
+    void findCredentialsByEmail_LoadsNoEntity() {
+        var credentials = personRepository.findCredentialsByEmail(EMAIL).orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("hash", credentials.getPassword());
+        assertEquals("Goda", credentials.getFirstName());
+    }
+
+    @Test
+    void updatePassword_WritesByIdWithoutLoading() {
+        var id = personRepository.findCredentialsByEmail(EMAIL).orElseThrow().getId();
+        statistics.clear();
+
+        assertEquals(1, personRepository.updatePassword(id, "new-hash"));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("new-hash", personRepository.findCredentialsByEmail(EMAIL).orElseThrow().getPassword());
+    }
+
+    @Test
+    void findPdfSourceByEmail_LoadsNoEntity() {
+        var pdfSource = workspaceMetricsRepository.findPdfSourceByEmail(EMAIL).orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("key", pdfSource.getImagePath());
+        assertEquals(70.0, pdfSource.getTableHeightSeated());
+        assertEquals(EMAIL, pdfSource.getEmail());
+        assertTrue(workspaceMetricsRepository.findPdfSourceByEmail("nobody@mail.com").isEmpty());
+    }
+
+    @Test
+    void findPdfKeys_LoadsNoEntity() {
+        var pdfKeys = workspaceMetricsRepository.findPdfKeysByIdGreaterThanAndImagePathIsNotNullOrderByIdAsc(0L, PageRequest.of(0, 10));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, pdfKeys.size());
+        assertEquals("key", pdfKeys.get(0).getImagePath());
+    }
+
+    @Test
+    void existsByEmailAndAdminTrueAndPasswordIsNotNull_OnlyForRegisteredAdmins() {
+        entityManager.persist(Person.builder().email("admin@mail.com").password("hash").admin(true).build());
+        entityManager.persist(Person.builder().email("unregistered@mail.com").admin(true).build());
+        entityManager.flush();
+
+        assertTrue(personRepository.existsByEmailAndAdminTrueAndPasswordIsNotNull("admin@mail.com"));
+        assertFalse(personRepository.existsByEmailAndAdminTrueAndPasswordIsNotNull("unregistered@mail.com"));
+        assertFalse(personRepository.existsByEmailAndAdminTrueAndPasswordIsNotNull(EMAIL));
+    }
+
+    @Test
+    void updateRegistration_ClearsAdminRole() {
+        var id = entityManager.persistAndGetId(Person.builder().email("unregistered@mail.com").admin(true).build(), Long.class);
+        entityManager.flush();
+
+        personRepository.updateRegistration(id, "Goda", "A", "hash");
+
+        assertFalse(personRepository.existsByEmailAndAdminTrueAndPasswordIsNotNull("unregistered@mail.com"));
+    }
+}
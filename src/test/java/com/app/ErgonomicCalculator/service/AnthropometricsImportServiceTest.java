@@ -0,0 +1,148 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogueTest;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.mapper.AnthropometricsMapperImpl;
+import com.app.ErgonomicCalculator.model.ImportCheckpoint;
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.repository.ImportCheckpointRepository;
+import com.app.ErgonomicCalculator.repository.PersonRepository;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.app.ErgonomicCalculator.validator.AnthropometricsRequestValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnthropometricsImportServiceTest {
+
+    private static final String HEADER = "personEmail,height,sittingHeight,shoulderHeight,lowerLegLength,hipBreadth,elbowHeight," +
+            "eyeHeightStanding,elbowHeightStanding,thighClearance,eyeHeight,shoulderBreadth,kneeHeight\n";
+
+    @Mock
+    private PersonRepository personRepository;
+    @Mock
+    private ImportCheckpointRepository importCheckpointRepository;
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private WorkspaceStatisticsService workspaceStatisticsService;
+    @Captor
+    private ArgumentCaptor<Iterable<Person>> savedPeople;
+
+    private AnthropometricsImportService importService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        importService = new AnthropometricsImportService(personRepository, importCheckpointRepository,
+                new AnthropometricsRequestValidator(), new AnthropometricsMapperImpl(),
+                new WorkspaceMetricsService(workspaceMetricsRepository, FormulaRegistryTest.builtInFormulas(), workspaceStatisticsService,
+                FurnitureCatalogueTest.sampleCatalogue()),
+                new TransactionTemplate(transactionManager), workspaceStatisticsService);
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    }
+
+    @Test
+    void importCsv_CreatesAndUpdatesPeopleInChunks() throws IOException, InvalidDataException {
+        var existing = Person.builder().email("old@mail.com").build();
+        existing.setPersonAnthropometrics(PersonAnthropometrics.builder().lowerLegLength(40.0).person(existing).build());
+        when(importCheckpointRepository.findById("site-a")).thenReturn(Optional.empty());
+        when(personRepository.findByEmailIn(any())).thenReturn(List.of(existing), List.of());
+        var csv = HEADER +
+                row("old@mail.com", "45.0") +
+                row("new@mail.com", "46.0") +
+                row("bad@mail.com", "") +
+                "\"quoted@mail.com\",170,90,60,47,38,25,160,105,15,80,42,50\n";
+
+        var report = importService.importCsv("site-a", csv(csv));
+
+        assertFalse(report.isFailed());
+        assertEquals(4, report.getRowsRead());
+        assertEquals(3, report.getRowsImported());
+        assertEquals(1, report.getRowsRejected());
+        assertEquals(4, report.getLastCommittedRow());
+        assertTrue(report.getErrors().get(0).startsWith("Row 3:"));
+        assertEquals(45.0, existing.getPersonAnthropometrics().getLowerLegLength());
+        assertEquals(45.0, existing.getWorkspaceMetrics().getChairSeatHeight());
+
+        verify(personRepository, times(2)).saveAll(savedPeople.capture());
+        var newPerson = savedPeople.getAllValues().get(0).iterator().next();
+        assertEquals("new@mail.com", newPerson.getEmail());
+        assertEquals(46.0, newPerson.getWorkspaceMetrics().getChairSeatHeight());
+        verify(importCheckpointRepository, times(2)).save(any(ImportCheckpoint.class));
+        verifyNoInteractions(workspaceMetricsRepository);
+        verify(workspaceStatisticsService).record(existing.getPersonAnthropometrics(), existing.getWorkspaceMetrics());
+        verify(workspaceStatisticsService, times(3)).record(any(), any());
+    }
+
+    @Test
+    void importCsv_ResumesAfterCheckpoint() throws IOException, InvalidDataException {
+        var checkpoint = ImportCheckpoint.builder().importId("site-a").lastCommittedRow(2).importedRows(2).build();
+        when(importCheckpointRepository.findById("site-a")).thenReturn(Optional.of(checkpoint));
+        when(personRepository.findByEmailIn(any())).thenReturn(List.of());
+        var csv = HEADER + row("a@mail.com", "45.0") + row("b@mail.com", "45.0") + row("c@mail.com", "45.0");
+
+        var report = importService.importCsv("site-a", csv(csv));
+
+        assertEquals(2, report.getRowsSkipped());
+        assertEquals(1, report.getRowsImported());
+        assertEquals(3, checkpoint.getLastCommittedRow());
+        assertEquals(3, checkpoint.getImportedRows());
+    }
+
+    @Test
+    void importCsv_WhenWorkspaceUnchanged_RecordsNoStatistics() throws IOException, InvalidDataException {
+        var existing = Person.builder().email("old@mail.com").build();
+        existing.setPersonAnthropometrics(PersonAnthropometrics.builder().lowerLegLength(40.0).person(existing).build());
+        when(importCheckpointRepository.findById(any())).thenReturn(Optional.empty());
+        when(personRepository.findByEmailIn(any())).thenReturn(List.of(existing));
+
+        importService.importCsv("site-a", csv(HEADER + row("old@mail.com", "45.0")));
+        var workspaceMetrics = existing.getWorkspaceMetrics();
+        var report = importService.importCsv("site-b", csv(HEADER + row("old@mail.com", "45.0")));
+
+        assertEquals(1, report.getRowsImported());
+        assertSame(workspaceMetrics, existing.getWorkspaceMetrics());
+        verify(workspaceStatisticsService, times(1)).record(any(), any());
+    }
+
+    @Test
+    void importCsv_WhenColumnUnknown() {
+        assertThrows(InvalidDataException.class, () -> importService.importCsv("site-a", csv("personEmail,weight\n")));
+    }
+
+    @Test
+    void splitCsvLine() {
+        assertEquals(List.of("a", "b,c", "d\"e", ""), AnthropometricsImportService.splitCsvLine("a,\"b,c\",\"d\"\"e\","));
+    }
+
+    private static String row(final String email, final String lowerLegLength) {
+        return email + ",170,90,60," + lowerLegLength + ",38,25,160,105,15,80,42,50\n";
+    }
+
+    private static ByteArrayInputStream csv(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
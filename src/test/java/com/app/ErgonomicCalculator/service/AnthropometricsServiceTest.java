@@ -3,6 +3,7 @@ package com.app.ErgonomicCalculator.service;
 import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
 import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDtoAfterAuth;
 import com.app.ErgonomicCalculator.mapper.AnthropometricsMapper;
+import com.app.ErgonomicCalculator.mapper.AnthropometricsMapperImpl;
 import com.app.ErgonomicCalculator.model.Person;
 import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
 import com.app.ErgonomicCalculator.repository.AnthropometricsRepository;
@@ -11,9 +12,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,8 +26,8 @@ class AnthropometricsServiceTest {
     private AnthropometricsRequestValidator anthropometricsRequestValidator;
     @Mock
     private AnthropometricsRepository anthropometricsRepository;
-    @Mock
-    private AnthropometricsMapper anthropometricsMapper;
+    @Spy
+    private AnthropometricsMapper anthropometricsMapper = new AnthropometricsMapperImpl();
     @Mock
     private PersonService personService;
 
@@ -40,10 +43,29 @@ class AnthropometricsServiceTest {
 
         assertNotEquals(requestDto.getHeight(), anthropometrics.getHeight());
 
-        var result = anthropometricsService.updateAnthropometrics(requestDto, anthropometrics, person);
+        var changed = anthropometricsService.updateAnthropometrics(requestDto, anthropometrics, person);
+
+        assertTrue(changed);
+        assertEquals(requestDto.getHeight(), anthropometrics.getHeight());
+        assertEquals(requestDto.getKneeHeight(), anthropometrics.getKneeHeight());
+        assertEquals(person, anthropometrics.getPerson());
+    }
+
+    @Test
+    void validateAndSaveAnthropometrics_WhenUnchanged_SkipsSave() throws Exception {
+        var requestDto = createAnthropometricRequestDto();
+        var person = createPerson();
+        var anthropometrics = anthropometricsMapper.toPersonAnthropometrics(requestDto);
+        anthropometrics.setId(7L);
+        person.setPersonAnthropometrics(anthropometrics);
+        when(personService.findPersonByEmail(requestDto.getPersonEmail())).thenReturn(person);
+
+        var result = anthropometricsService.validateAndSaveAnthropometrics(requestDto);
 
-        assertEquals(result.getHeight(), anthropometrics.getHeight());
-        assertEquals(result.getHeight(), requestDto.getHeight());
+        assertSame(anthropometrics, result);
+        assertEquals(7L, result.getId());
+        verify(anthropometricsMapper, never()).updatePersonAnthropometrics(any(), any());
+        verifyNoInteractions(anthropometricsRepository);
     }
 
     @Test
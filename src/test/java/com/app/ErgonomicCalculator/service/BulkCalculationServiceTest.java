@@ -0,0 +1,108 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogueTest;
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.app.ErgonomicCalculator.validator.AnthropometricsRequestValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class BulkCalculationServiceTest {
+
+    private static final String RECORD = "{\"height\":170.0,\"sittingHeight\":90.0,\"shoulderHeight\":60.0," +
+            "\"lowerLegLength\":%s,\"hipBreadth\":38.0,\"elbowHeight\":25.0,\"eyeHeightStanding\":160.0," +
+            "\"elbowHeightStanding\":105.0,\"thighClearance\":15.0,\"eyeHeight\":80.0,\"shoulderBreadth\":42.0," +
+            "\"kneeHeight\":50.0,\"personEmail\":\"goda@mail.com\"}";
+
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+    @Mock
+    private WorkspaceStatisticsService workspaceStatisticsService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BulkCalculationService bulkCalculationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bulkCalculationService = new BulkCalculationService(new WorkspaceMetricsService(workspaceMetricsRepository, FormulaRegistryTest.builtInFormulas(), workspaceStatisticsService,
+                FurnitureCatalogueTest.sampleCatalogue()),
+                new AnthropometricsRequestValidator(), objectMapper);
+        ReflectionTestUtils.setField(bulkCalculationService, "chunkSize", 2);
+        ReflectionTestUtils.setField(bulkCalculationService, "parallelism", 2);
+        bulkCalculationService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkCalculationService.shutdown();
+    }
+
+    @Test
+    void calculate_KeepsOrderAndReportsErrorsPerRecord() throws IOException {
+        var input = String.join("\n",
+                String.format(RECORD, "45.0"),
+                "",
+                String.format(RECORD, "0.0"),
+                "{not json",
+                String.format(RECORD, "50.0"));
+        var outputStream = new ByteArrayOutputStream();
+
+        var records = bulkCalculationService.calculate(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), outputStream);
+
+        var lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, records);
+        assertEquals(4, lines.length);
+        assertEquals(1, objectMapper.readTree(lines[0]).get("line").asInt());
+        assertEquals(45.0, objectMapper.readTree(lines[0]).get("metrics").get("chairSeatHeight").asDouble());
+        assertEquals(3, objectMapper.readTree(lines[1]).get("line").asInt());
+        assertTrue(objectMapper.readTree(lines[1]).get("error").asText().contains("lowerLegLength"));
+        assertTrue(objectMapper.readTree(lines[2]).get("error").asText().startsWith("Malformed record"));
+        assertEquals(50.0, objectMapper.readTree(lines[3]).get("metrics").get("chairSeatHeight").asDouble());
+        verifyNoInteractions(workspaceMetricsRepository);
+    }
+
+    @Test
+    void calculate_WhenRecordIsNullOrFails_ContinuesWithNextRecord() throws Exception {
+        bulkCalculationService.shutdown();
+        bulkCalculationService = new BulkCalculationService(new WorkspaceMetricsService(workspaceMetricsRepository, FormulaRegistryTest.builtInFormulas(), workspaceStatisticsService,
+                FurnitureCatalogueTest.sampleCatalogue()),
+                new AnthropometricsRequestValidator() {
+                    @Override
+                    public void validate(final AnthropometricsRequestDto anthropometrics) throws InvalidDataException {
+                        if (anthropometrics.getLowerLegLength() == 66.0) {
+                            throw new IllegalStateException("boom");
+                        }
+                        super.validate(anthropometrics);
+                    }
+                }, objectMapper);
+        ReflectionTestUtils.setField(bulkCalculationService, "chunkSize", 2);
+        ReflectionTestUtils.setField(bulkCalculationService, "parallelism", 2);
+        bulkCalculationService.init();
+        var input = String.join("\n", "null", String.format(RECORD, "66.0"), String.format(RECORD, "45.0"));
+        var outputStream = new ByteArrayOutputStream();
+
+        var records = bulkCalculationService.calculate(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), outputStream);
+
+        var lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, records);
+        assertTrue(objectMapper.readTree(lines[0]).get("error").asText().startsWith("Malformed record"));
+        assertEquals("Record could not be calculated.", objectMapper.readTree(lines[1]).get("error").asText());
+        assertEquals(45.0, objectMapper.readTree(lines[2]).get("metrics").get("chairSeatHeight").asDouble());
+    }
+}
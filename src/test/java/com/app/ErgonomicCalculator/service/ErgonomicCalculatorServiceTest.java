@@ -0,0 +1,161 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import com.app.ErgonomicCalculator.exception.RenderQueueFullException;
+import com.app.ErgonomicCalculator.exception.ResourceNotFoundException;
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.PersonRepository;
+import com.app.ErgonomicCalculator.storage.StoredPdf;
+import com.app.ErgonomicCalculator.validator.AnthropometricsRequestValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ErgonomicCalculatorServiceTest {
+
+    @Mock
+    private WorkspaceMetricsService workspaceMetricsService;
+    @Mock
+    private PDFService pdfService;
+    @Mock
+    private AnthropometricsService anthropometricsService;
+    @Mock
+    private PersonRepository personRepository;
+    @Mock
+    private PdfRenderQueue pdfRenderQueue;
+    @Mock
+    private PdfStorageSweeper pdfStorageSweeper;
+    @Mock
+    private PdfRenderBudget pdfRenderBudget;
+    @Mock
+    private AnthropometricsRequestValidator anthropometricsRequestValidator;
+    @Mock
+    private FormulaRegistry formulaRegistry;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private CacheManager cacheManager;
+
+    private ErgonomicCalculatorService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new ErgonomicCalculatorService(workspaceMetricsService, pdfService, anthropometricsService, personRepository,
+                pdfRenderQueue, pdfStorageSweeper, pdfRenderBudget, anthropometricsRequestValidator, formulaRegistry,
+                new TransactionTemplate(transactionManager), cacheManager);
+    }
+
+    @Test
+    void getNewPersonAnthropometricsAndCreateWorkspace_WhenRenderQueueIsFull_StillSucceeds() throws Exception {
+        ReflectionTestUtils.setField(service, "renderingMode", PdfRenderingMode.ASYNC);
+        var dto = AnthropometricsRequestDto.builder().personEmail("person@mail.com").build();
+        var workspaceMetrics = WorkspaceMetrics.builder().id(7L).build();
+        var anthropometrics = submittedAnthropometrics(dto, workspaceMetrics);
+        when(anthropometricsService.saveAnthropometrics(dto)).thenReturn(anthropometrics);
+        when(workspaceMetricsService.calculateChangedWorkplace(anthropometrics)).thenReturn(Optional.of(workspaceMetrics));
+        when(pdfRenderQueue.submit(7L)).thenThrow(new RenderQueueFullException("PDF render queue is full, try again later."));
+
+        var renderJob = service.getNewPersonAnthropometricsAndCreateWorkspace(dto);
+
+        assertTrue(renderJob.isEmpty());
+        verify(workspaceMetricsService).saveWorkplace(anthropometrics, workspaceMetrics);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void getNewPersonAnthropometricsAndCreateWorkspace_WhenLazy_StoresNoPdf() throws Exception {
+        ReflectionTestUtils.setField(service, "renderingMode", PdfRenderingMode.LAZY);
+        var dto = AnthropometricsRequestDto.builder().personEmail("person@mail.com").build();
+        var workspaceMetrics = WorkspaceMetrics.builder().id(7L).build();
+        var anthropometrics = submittedAnthropometrics(dto, workspaceMetrics);
+        when(anthropometricsService.saveAnthropometrics(dto)).thenReturn(anthropometrics);
+        when(workspaceMetricsService.calculateChangedWorkplace(anthropometrics)).thenReturn(Optional.of(workspaceMetrics));
+
+        var renderJob = service.getNewPersonAnthropometricsAndCreateWorkspace(dto);
+
+        assertTrue(renderJob.isEmpty());
+        verify(workspaceMetricsService).saveWorkplace(anthropometrics, workspaceMetrics);
+        verifyNoInteractions(pdfService, pdfRenderQueue);
+    }
+
+    @Test
+    void getWorkspacePDF_WhenLazyAndStoredPdfIsCurrent_ServesItWithoutRendering() throws Exception {
+        ReflectionTestUtils.setField(service, "renderingMode", PdfRenderingMode.LAZY);
+        var pdfSource = WorkspaceMetrics.builder().id(7L).imagePath("aa").build();
+        var currentPdf = WorkspacePdf.stored("workspace.pdf", mock(StoredPdf.class));
+        when(pdfService.findWorkspacePdfSource("person@mail.com")).thenReturn(Optional.of(pdfSource));
+        when(pdfService.findCurrentWorkspacePDF(pdfSource)).thenReturn(Optional.of(currentPdf));
+
+        assertSame(currentPdf, service.getWorkspacePDF("person@mail.com"));
+
+        verify(pdfService, never()).createWorkspacePDF(any());
+        verifyNoInteractions(personRepository);
+    }
+
+    @Test
+    void getWorkspacePDF_WhenLazyAndStoredPdfIsStaleOrMissing_RendersIt() throws Exception {
+        ReflectionTestUtils.setField(service, "renderingMode", PdfRenderingMode.LAZY);
+        var pdfSource = WorkspaceMetrics.builder().id(7L).imagePath("aa").build();
+        var workspaceMetrics = WorkspaceMetrics.builder().id(7L).imagePath("aa").build();
+        var person = Person.builder().email("person@mail.com").workspaceMetrics(workspaceMetrics).build();
+        var renderedPdf = WorkspacePdf.stored("workspace.pdf", mock(StoredPdf.class));
+        when(pdfService.findWorkspacePdfSource("person@mail.com")).thenReturn(Optional.of(pdfSource));
+        when(pdfService.findCurrentWorkspacePDF(pdfSource)).thenReturn(Optional.empty());
+        when(personRepository.findByEmail("person@mail.com")).thenReturn(Optional.of(person));
+        when(pdfService.findStoredWorkspacePDF(workspaceMetrics)).thenReturn(Optional.of(renderedPdf));
+
+        assertSame(renderedPdf, service.getWorkspacePDF("person@mail.com"));
+
+        verify(pdfService).createWorkspacePDF(workspaceMetrics);
+    }
+
+    @Test
+    void getWorkspacePDF_WhenEmailIsUnknown_CreatesNoPerson() throws Exception {
+        ReflectionTestUtils.setField(service, "renderingMode", PdfRenderingMode.LAZY);
+        when(pdfService.findWorkspacePdfSource("unknown@mail.com")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> service.getWorkspacePDF("unknown@mail.com"));
+
+        verify(pdfService, never()).createWorkspacePDF(any());
+        verifyNoInteractions(personRepository, anthropometricsService);
+    }
+
+    @Test
+    void getWorkspacePDF_WhenPersonIsGoneBeforeRender_CreatesNoPerson() throws Exception {
+        ReflectionTestUtils.setField(service, "renderingMode", PdfRenderingMode.LAZY);
+        var pdfSource = WorkspaceMetrics.builder().id(7L).imagePath("aa").build();
+        when(pdfService.findWorkspacePdfSource("person@mail.com")).thenReturn(Optional.of(pdfSource));
+        when(pdfService.findCurrentWorkspacePDF(pdfSource)).thenReturn(Optional.empty());
+        when(personRepository.findByEmail("person@mail.com")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> service.getWorkspacePDF("person@mail.com"));
+
+        verify(pdfService, never()).createWorkspacePDF(any());
+        verifyNoMoreInteractions(personRepository);
+        verifyNoInteractions(anthropometricsService);
+    }
+
+    private static PersonAnthropometrics submittedAnthropometrics(final AnthropometricsRequestDto dto, final WorkspaceMetrics workspaceMetrics) {
+        var person = Person.builder().email(dto.getPersonEmail()).workspaceMetrics(workspaceMetrics).build();
+        var anthropometrics = PersonAnthropometrics.builder().person(person).build();
+        person.setPersonAnthropometrics(anthropometrics);
+        return anthropometrics;
+    }
+}
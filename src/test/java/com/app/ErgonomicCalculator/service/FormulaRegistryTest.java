@@ -0,0 +1,156 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.calculator.WorkspaceRowLayout;
+import com.app.ErgonomicCalculator.dto.FormulaSetDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.model.FormulaVersion;
+import com.app.ErgonomicCalculator.repository.FormulaVersionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FormulaRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replace_SwapsFormulasAndKeepsVersionsUnique() throws Exception {
+        var formulaRegistry = builtInFormulas();
+        var definitions = new HashMap<>(WorkspaceRowLayout.DEFAULT_FORMULAS);
+        definitions.put("chairSeatHeight", "lowerLegLength + 2.5");
+
+        formulaRegistry.replace(FormulaSetDto.builder().version("shoes-1").definitions(definitions).build());
+
+        assertEquals("shoes-1", formulaRegistry.current().getVersion());
+        assertEquals(47.5, formulaRegistry.current().calculate(anthropometrics())[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT]);
+        definitions.put("chairSeatHeight", "lowerLegLength + 3");
+        assertThrows(InvalidDataException.class,
+                () -> formulaRegistry.replace(FormulaSetDto.builder().version("builtin-1").definitions(definitions).build()));
+        definitions.put("chairSeatHeight", "lowerLegLength +");
+        assertThrows(InvalidDataException.class,
+                () -> formulaRegistry.replace(FormulaSetDto.builder().version("shoes-2").definitions(definitions).build()));
+        assertEquals("shoes-1", formulaRegistry.current().getVersion());
+    }
+
+    @Test
+    void replace_WhenVersionStoredWithOtherDefinitions_KeepsCurrentFormulas() throws Exception {
+        var formulaVersionRepository = mock(FormulaVersionRepository.class);
+        when(formulaVersionRepository.install(eq("shoes-1"), anyString(), any())).thenReturn(0);
+        var formulaRegistry = formulaRegistry(formulaVersionRepository, "");
+        var definitions = new HashMap<>(WorkspaceRowLayout.DEFAULT_FORMULAS);
+        definitions.put("chairSeatHeight", "lowerLegLength + 2.5");
+
+        assertThrows(InvalidDataException.class,
+                () -> formulaRegistry.replace(FormulaSetDto.builder().version("shoes-1").definitions(definitions).build()));
+
+        verify(formulaVersionRepository).install(eq("shoes-1"), eq(new ObjectMapper().writeValueAsString(new TreeMap<>(definitions))), any(Instant.class));
+        assertEquals(WorkspaceRowLayout.DEFAULT_FORMULA_VERSION, formulaRegistry.current().getVersion());
+    }
+
+    @Test
+    void watch_InstallsFormulasStoredByOtherInstances() throws Exception {
+        var formulaVersionRepository = mock(FormulaVersionRepository.class);
+        var formulaRegistry = formulaRegistry(formulaVersionRepository, "");
+        var definitions = new HashMap<>(WorkspaceRowLayout.DEFAULT_FORMULAS);
+        definitions.put("chairSeatHeight", "lowerLegLength + 2");
+        when(formulaVersionRepository.findFirstByOrderByInstalledAtDesc()).thenReturn(Optional.of(FormulaVersion.builder()
+                .version("shared-1")
+                .definitions(new ObjectMapper().writeValueAsString(definitions))
+                .installedAt(Instant.now())
+                .build()));
+
+        formulaRegistry.watch();
+
+        assertEquals("shared-1", formulaRegistry.current().getVersion());
+        assertEquals(47.0, formulaRegistry.current().calculate(anthropometrics())[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT]);
+    }
+
+    @Test
+    void watch_ReloadsChangedFile() throws Exception {
+        var file = directory.resolve("workspace-formulas.properties");
+        writeFormulas(file, "file-1", "lowerLegLength");
+        var formulaRegistry = formulaRegistry(storingRepository(), file.toUri().toString());
+        assertEquals("file-1", formulaRegistry.current().getVersion());
+
+        writeFormulas(file, "file-2", "lowerLegLength + 2");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        formulaRegistry.watch();
+
+        assertEquals("file-2", formulaRegistry.current().getVersion());
+        assertEquals(47.0, formulaRegistry.current().calculate(anthropometrics())[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT]);
+    }
+
+    @Test
+    void init_WhenRestartedAfterApiInstall_KeepsApiVersion() throws Exception {
+        var file = directory.resolve("workspace-formulas.properties");
+        writeFormulas(file, "file-1", "lowerLegLength");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(3600)));
+        var formulaVersionRepository = storingRepository();
+        var definitions = new HashMap<>(WorkspaceRowLayout.DEFAULT_FORMULAS);
+        definitions.put("chairSeatHeight", "lowerLegLength + 2");
+        when(formulaVersionRepository.existsById("file-1")).thenReturn(true);
+        when(formulaVersionRepository.findFirstByOrderByInstalledAtDesc()).thenReturn(Optional.of(FormulaVersion.builder()
+                .version("api-1")
+                .definitions(new ObjectMapper().writeValueAsString(definitions))
+                .installedAt(Instant.now())
+                .build()));
+
+        var formulaRegistry = formulaRegistry(formulaVersionRepository, file.toUri().toString());
+        formulaRegistry.watch();
+
+        assertEquals("api-1", formulaRegistry.current().getVersion());
+        assertEquals(47.0, formulaRegistry.current().calculate(anthropometrics())[WorkspaceRowLayout.CHAIR_SEAT_HEIGHT]);
+        verify(formulaVersionRepository, never()).install(anyString(), anyString(), any());
+    }
+
+    static FormulaRegistry builtInFormulas() throws InvalidDataException, IOException {
+        return formulaRegistry(storingRepository(), "");
+    }
+
+    private static FormulaRegistry formulaRegistry(final FormulaVersionRepository formulaVersionRepository,
+                                                   final String location) throws InvalidDataException, IOException {
+        var formulaRegistry = new FormulaRegistry(new DefaultResourceLoader(), formulaVersionRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(formulaRegistry, "location", location);
+        formulaRegistry.init();
+        return formulaRegistry;
+    }
+
+    /**
+     * Repository that accepts every formula version and has none stored.
+     */
+    private static FormulaVersionRepository storingRepository() {
+        var formulaVersionRepository = mock(FormulaVersionRepository.class);
+        lenient().when(formulaVersionRepository.install(anyString(), anyString(), any())).thenReturn(1);
+        return formulaVersionRepository;
+    }
+
+    private static void writeFormulas(final Path file, final String version, final String chairSeatHeight) throws IOException {
+        var content = new StringBuilder("version=" + version + "\n");
+        for (Map.Entry<String, String> formula : WorkspaceRowLayout.DEFAULT_FORMULAS.entrySet()) {
+            var expression = formula.getKey().equals("chairSeatHeight") ? chairSeatHeight : formula.getValue();
+            content.append(formula.getKey()).append('=').append(expression).append('\n');
+        }
+        Files.writeString(file, content);
+    }
+
+    private static double[] anthropometrics() {
+        return new double[]{170.0, 90.0, 60.0, 45.0, 38.0, 25.0, 160.0, 105.0, 15.0, 80.0, 42.0, 50.0};
+    }
+}
@@ -0,0 +1,230 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogueTest;
+import com.app.ErgonomicCalculator.mapper.WorkspaceMetricsMapperImpl;
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.app.ErgonomicCalculator.storage.FileSystemPdfStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PDFServiceTest {
+
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+
+    @TempDir
+    Path storageDir;
+
+    private FileSystemPdfStorage pdfStorage;
+    private PdfRenderBudget pdfRenderBudget;
+    private PDFService pdfService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var workspaceTemplate = new WorkspaceTemplate();
+        ReflectionTestUtils.setField(workspaceTemplate, "templateImage", new ClassPathResource("workspace-template.png"));
+        workspaceTemplate.init();
+
+        pdfStorage = new FileSystemPdfStorage();
+        ReflectionTestUtils.setField(pdfStorage, "directory", storageDir);
+        pdfRenderBudget = new PdfRenderBudget(workspaceTemplate);
+        ReflectionTestUtils.setField(pdfRenderBudget, "heapBudget", DataSize.ofMegabytes(64));
+        ReflectionTestUtils.setField(pdfRenderBudget, "mainMemoryPerRender", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(pdfRenderBudget, "perRenderEstimate", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(pdfRenderBudget, "scratchDirectory", storageDir.toString());
+        ReflectionTestUtils.setField(pdfRenderBudget, "acquireTimeout", Duration.ofSeconds(1));
+        pdfRenderBudget.init();
+        pdfService = new PDFService(workspaceMetricsRepository, workspaceTemplate, pdfStorage, pdfRenderBudget,
+                FurnitureCatalogueTest.sampleCatalogue(), new WorkspaceMetricsMapperImpl());
+    }
+
+    @Test
+    void createWorkspacePDF_WhenContentUnchanged() throws IOException {
+        var metrics = createWorkspaceMetrics();
+
+        pdfService.createWorkspacePDF(metrics);
+        var firstKey = metrics.getImagePath();
+        pdfService.createWorkspacePDF(metrics);
+
+        assertTrue(pdfStorage.exists(firstKey));
+        assertEquals(firstKey, metrics.getImagePath());
+        verify(workspaceMetricsRepository, times(1)).save(metrics);
+    }
+
+    @Test
+    void createWorkspacePDF_WhenContentChanged() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        pdfService.createWorkspacePDF(metrics);
+        var firstKey = metrics.getImagePath();
+
+        metrics.setTableWidth(80.0);
+        when(workspaceMetricsRepository.countByImagePath(firstKey)).thenReturn(0L);
+        pdfService.createWorkspacePDF(metrics);
+
+        assertNotEquals(firstKey, metrics.getImagePath());
+        assertFalse(pdfStorage.exists(firstKey));
+        assertTrue(pdfStorage.exists(metrics.getImagePath()));
+    }
+
+    @Test
+    void createWorkspacePDF_WhenInTransaction_ReleasesPreviousAfterCommit() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        pdfService.createWorkspacePDF(metrics);
+        var firstKey = metrics.getImagePath();
+
+        metrics.setTableWidth(80.0);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            pdfService.createWorkspacePDF(metrics);
+            assertTrue(pdfStorage.exists(firstKey));
+            verify(workspaceMetricsRepository, never()).countByImagePath(firstKey);
+
+            when(workspaceMetricsRepository.countByImagePath(firstKey)).thenReturn(0L);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(pdfStorage.exists(firstKey));
+        assertTrue(pdfStorage.exists(metrics.getImagePath()));
+    }
+
+    @Test
+    void assignContentKey_StoresNothingUntilStoreWorkspacePDF() throws IOException {
+        var metrics = createWorkspaceMetrics();
+
+        pdfService.assignContentKey(metrics);
+        var key = metrics.getImagePath();
+        assertEquals(pdfService.contentKey(metrics), key);
+        assertFalse(pdfStorage.exists(key));
+
+        pdfService.storeWorkspacePDF(metrics);
+
+        assertTrue(pdfStorage.exists(key));
+        verifyNoInteractions(workspaceMetricsRepository);
+    }
+
+    @Test
+    void releaseIfUnreferenced_WhenStillReferenced() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        pdfService.createWorkspacePDF(metrics);
+
+        when(workspaceMetricsRepository.countByImagePath(metrics.getImagePath())).thenReturn(1L);
+        pdfService.releaseIfUnreferenced(metrics.getImagePath());
+
+        assertTrue(pdfStorage.exists(metrics.getImagePath()));
+    }
+
+    @Test
+    void findStoredWorkspacePDF() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        pdfService.createWorkspacePDF(metrics);
+        var key = metrics.getImagePath();
+
+        var pdf = pdfService.findStoredWorkspacePDF(metrics).orElseThrow();
+
+        assertEquals("\"" + key + "\"", pdf.getETag());
+        assertEquals(storageDir.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key + ".pdf"),
+                pdf.getStoredPdf().getLocalFile());
+        assertEquals(Files.size(pdf.getStoredPdf().getLocalFile()), pdf.getContentLength());
+    }
+
+    @Test
+    void findCurrentWorkspacePDF_WhenStoredKeyIsCurrent() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        pdfService.createWorkspacePDF(metrics);
+
+        var pdf = pdfService.findCurrentWorkspacePDF(metrics).orElseThrow();
+
+        assertEquals("\"" + metrics.getImagePath() + "\"", pdf.getETag());
+    }
+
+    @Test
+    void findCurrentWorkspacePDF_WhenStoredKeyIsStale() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        pdfService.createWorkspacePDF(metrics);
+
+        metrics.setTableWidth(21.5);
+
+        assertTrue(pdfService.findCurrentWorkspacePDF(metrics).isEmpty());
+    }
+
+    @Test
+    void findCurrentWorkspacePDF_WhenStoredPdfIsMissing() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        pdfService.assignContentKey(metrics);
+
+        assertTrue(pdfService.findCurrentWorkspacePDF(metrics).isEmpty());
+        metrics.setImagePath(null);
+        assertTrue(pdfService.findCurrentWorkspacePDF(metrics).isEmpty());
+    }
+
+    @Test
+    void streamWorkspacePDF() throws IOException {
+        var metrics = createWorkspaceMetrics();
+        var outputStream = new ByteArrayOutputStream();
+
+        var pdf = pdfService.streamWorkspacePDF(metrics);
+        pdf.writeTo(outputStream);
+
+        assertNull(pdf.getContentLength());
+        assertTrue(outputStream.toString(StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+        assertNull(metrics.getImagePath());
+        verifyNoInteractions(workspaceMetricsRepository);
+    }
+
+    @Test
+    void streamWorkspacePDF_ReleasesRenderPermitBeforeWriting() throws IOException {
+        var outputStream = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(final byte[] bytes, final int offset, final int length) {
+                assertEquals(0, pdfRenderBudget.getStats().getInFlightRenders());
+                super.write(bytes, offset, length);
+            }
+        };
+
+        pdfService.streamWorkspacePDF(createWorkspaceMetrics()).writeTo(outputStream);
+
+        assertTrue(outputStream.toString(StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+        assertEquals(1, pdfRenderBudget.getStats().getCompletedRenders());
+    }
+
+    private WorkspaceMetrics createWorkspaceMetrics() {
+        return WorkspaceMetrics.builder()
+                .tableHeightSeated(90.9)
+                .tableHeightStanding(130.0)
+                .tableWidth(20.5)
+                .displayHeightSeated(145.7)
+                .displayHeightStanding(160.0)
+                .chairSeatHeight(60.7)
+                .chairSeatWidth(59.5)
+                .armRestHeight(90.9)
+                .chairBackSupportHeight(136.0)
+                .chairBackSupportWidth(45.8)
+                .chairHeadSupportHeight(155.9)
+                .person(Person.builder().email("goda@mail.com").build())
+                .build();
+    }
+}
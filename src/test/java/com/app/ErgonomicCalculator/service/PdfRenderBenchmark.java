@@ -0,0 +1,87 @@
+package com.app.ErgonomicCalculator.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the workspace PDF render step when the template PNG is decoded for every document
+ * against rendering on top of the preloaded {@link WorkspaceTemplate} skeleton.
+ * Run with the test classpath: {@code java -cp <test classpath> com.app.ErgonomicCalculator.service.PdfRenderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfRenderBenchmark {
+
+    private File templateFile;
+    private WorkspaceTemplate workspaceTemplate;
+
+    @Setup
+    public void setup() throws IOException {
+        final ClassPathResource resource = new ClassPathResource("workspace-template.png");
+        templateFile = resource.getFile();
+        workspaceTemplate = new WorkspaceTemplate();
+        ReflectionTestUtils.setField(workspaceTemplate, "templateImage", resource);
+        workspaceTemplate.init();
+    }
+
+    @Benchmark
+    public byte[] decodeTemplatePerDocument() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            final PDImageXObject image = PDImageXObject.createFromFileByContent(templateFile, document);
+            final PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                contentStream.drawImage(image, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
+                addLabel(contentStream);
+            }
+            return save(document);
+        }
+    }
+
+    @Benchmark
+    public byte[] preloadedTemplate() throws IOException {
+        try (PDDocument document = workspaceTemplate.newDocument()) {
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, document.getPage(0), PDPageContentStream.AppendMode.APPEND, true)) {
+                addLabel(contentStream);
+            }
+            return save(document);
+        }
+    }
+
+    private static void addLabel(final PDPageContentStream contentStream) throws IOException {
+        contentStream.beginText();
+        contentStream.setFont(PDType1Font.HELVETICA, 20);
+        contentStream.newLineAtOffset(200, 770);
+        contentStream.showText("benchmark@mail.com workspace!");
+        contentStream.endText();
+    }
+
+    private static byte[] save(final PDDocument document) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        document.save(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PdfRenderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.exception.RenderBudgetExhaustedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PdfRenderBudgetTest {
+
+    @Mock
+    private WorkspaceTemplate workspaceTemplate;
+
+    @InjectMocks
+    private PdfRenderBudget pdfRenderBudget;
+
+    @BeforeEach
+    void setUp() {
+        when(workspaceTemplate.getSkeletonSize()).thenReturn(1_000_000);
+        ReflectionTestUtils.setField(pdfRenderBudget, "heapBudget", DataSize.ofMegabytes(8));
+        ReflectionTestUtils.setField(pdfRenderBudget, "mainMemoryPerRender", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(pdfRenderBudget, "perRenderEstimate", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(pdfRenderBudget, "scratchDirectory", "");
+        ReflectionTestUtils.setField(pdfRenderBudget, "acquireTimeout", Duration.ofMillis(50));
+        pdfRenderBudget.init();
+    }
+
+    @Test
+    void init_SizesPermitsFromHeapBudget() {
+        var stats = pdfRenderBudget.getStats();
+
+        assertEquals(3_000_000 + DataSize.ofMegabytes(1).toBytes(), stats.getEstimatedBytesPerRender());
+        assertEquals(2, stats.getMaxConcurrentRenders());
+    }
+
+    @Test
+    void render_WhenBudgetExhausted() throws Exception {
+        var rendering = new CountDownLatch(2);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> {
+                    pdfRenderBudget.render(memoryUsageSetting -> {
+                        rendering.countDown();
+                        awaitQuietly(release);
+                    });
+                    return null;
+                });
+            }
+            assertTrue(rendering.await(5, TimeUnit.SECONDS));
+
+            assertThrows(RenderBudgetExhaustedException.class, () -> pdfRenderBudget.render(memoryUsageSetting -> fail()));
+            assertEquals(2, pdfRenderBudget.getStats().getPeakInFlightRenders());
+            assertEquals(1, pdfRenderBudget.getStats().getRejectedRenders());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void render_UsesMixedMemorySetting() throws IOException {
+        pdfRenderBudget.render(memoryUsageSetting -> {
+            assertTrue(memoryUsageSetting.useMainMemory());
+            assertTrue(memoryUsageSetting.useTempFile());
+            assertEquals(DataSize.ofMegabytes(1).toBytes(), memoryUsageSetting.getMaxMainMemoryBytes());
+        });
+
+        assertEquals(1, pdfRenderBudget.getStats().getCompletedRenders());
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
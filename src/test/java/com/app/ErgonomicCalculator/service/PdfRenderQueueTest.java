@@ -0,0 +1,143 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.exception.RenderQueueFullException;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfRenderQueueTest {
+
+    @Mock
+    private PDFService pdfService;
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+
+    @InjectMocks
+    private PdfRenderQueue pdfRenderQueue;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pdfRenderQueue, "workers", 1);
+        ReflectionTestUtils.setField(pdfRenderQueue, "queueCapacity", 1);
+        ReflectionTestUtils.setField(pdfRenderQueue, "jobRetention", Duration.ofHours(1));
+        pdfRenderQueue.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pdfRenderQueue.shutdown();
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_RejectsJob() throws Exception {
+        var rendering = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(workspaceMetricsRepository.findById(any())).thenReturn(Optional.of(new WorkspaceMetrics()));
+        doAnswer(invocation -> {
+            rendering.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(pdfService).createWorkspacePDF(any());
+
+        var running = pdfRenderQueue.submit(1L);
+        assertTrue(rendering.await(10, TimeUnit.SECONDS));
+        var queued = pdfRenderQueue.submit(2L);
+
+        assertThrows(RenderQueueFullException.class, () -> pdfRenderQueue.submit(3L));
+        assertEquals(PdfRenderJob.Status.RENDERING, running.getStatus());
+        assertEquals(PdfRenderJob.Status.QUEUED, queued.getStatus());
+        var stats = pdfRenderQueue.getStats();
+        assertEquals(1, stats.getQueueDepth());
+        assertEquals(1, stats.getRejectedJobs());
+        release.countDown();
+        awaitFinished(queued);
+        assertEquals(PdfRenderJob.Status.DONE, running.getStatus());
+        assertEquals(PdfRenderJob.Status.DONE, queued.getStatus());
+        assertEquals(2, pdfRenderQueue.getStats().getCompletedJobs());
+    }
+
+    @Test
+    void submit_WhenRenderFails_MarksJobFailed() throws Exception {
+        when(workspaceMetricsRepository.findById(1L)).thenReturn(Optional.of(new WorkspaceMetrics()));
+        doThrow(new IOException("disk full")).when(pdfService).createWorkspacePDF(any());
+
+        var job = pdfRenderQueue.submit(1L);
+        awaitFinished(job);
+
+        assertEquals(PdfRenderJob.Status.FAILED, job.getStatus());
+        assertEquals("disk full", job.getError());
+        assertNotNull(job.getFinishedAt());
+        assertEquals(1, pdfRenderQueue.getStats().getFailedJobs());
+    }
+
+    @Test
+    void submit_WhenWorkspaceWasRemoved_MarksJobFailed() throws Exception {
+        when(workspaceMetricsRepository.findById(1L)).thenReturn(Optional.empty());
+
+        var job = pdfRenderQueue.submit(1L);
+        awaitFinished(job);
+
+        assertEquals(PdfRenderJob.Status.FAILED, job.getStatus());
+        verify(pdfService, never()).createWorkspacePDF(any());
+    }
+
+    @Test
+    void removeExpiredJobs_RemovesOnlyFinishedJobsPastRetention() throws Exception {
+        when(workspaceMetricsRepository.findById(1L)).thenReturn(Optional.of(new WorkspaceMetrics()));
+        var job = pdfRenderQueue.submit(1L);
+        awaitFinished(job);
+
+        pdfRenderQueue.removeExpiredJobs();
+        assertTrue(pdfRenderQueue.findJob(job.getId()).isPresent());
+
+        ReflectionTestUtils.setField(pdfRenderQueue, "jobRetention", Duration.ofMillis(-1));
+        pdfRenderQueue.removeExpiredJobs();
+        assertTrue(pdfRenderQueue.findJob(job.getId()).isEmpty());
+    }
+
+    @Test
+    void removeExpiredJobs_KeepsUnfinishedJobs() throws Exception {
+        var rendering = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(workspaceMetricsRepository.findById(1L)).thenReturn(Optional.of(new WorkspaceMetrics()));
+        doAnswer(invocation -> {
+            rendering.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(pdfService).createWorkspacePDF(any());
+        var job = pdfRenderQueue.submit(1L);
+        assertTrue(rendering.await(10, TimeUnit.SECONDS));
+
+        ReflectionTestUtils.setField(pdfRenderQueue, "jobRetention", Duration.ofMillis(-1));
+        pdfRenderQueue.removeExpiredJobs();
+
+        assertTrue(pdfRenderQueue.findJob(job.getId()).isPresent());
+        release.countDown();
+    }
+
+    private static void awaitFinished(final PdfRenderJob job) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "render job did not finish");
+    }
+}
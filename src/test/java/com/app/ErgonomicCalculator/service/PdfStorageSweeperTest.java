@@ -0,0 +1,89 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.WorkspacePdfKey;
+import com.app.ErgonomicCalculator.exception.RenderQueueFullException;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.app.ErgonomicCalculator.storage.PdfStorage;
+import com.app.ErgonomicCalculator.storage.StoredPdf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfStorageSweeperTest {
+
+    @Mock
+    private PdfStorage pdfStorage;
+    @Mock
+    private PDFService pdfService;
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+    @Mock
+    private PdfRenderQueue pdfRenderQueue;
+
+    @InjectMocks
+    private PdfStorageSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sweeper, "batchSize", 3);
+        ReflectionTestUtils.setField(sweeper, "gracePeriod", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(sweeper, "renderingMode", PdfRenderingMode.EAGER);
+    }
+
+    @Test
+    void sweepStorageBatch_DeletesOnlyOldUnreferencedPdfs() throws IOException {
+        var old = Instant.now().minus(Duration.ofHours(1)).toEpochMilli();
+        var fresh = Instant.now().toEpochMilli();
+        when(pdfStorage.list(null, 3)).thenReturn(List.of(storedPdf("aa", old), storedPdf("bb", old), storedPdf("cc", fresh)));
+        when(pdfStorage.list("cc", 3)).thenReturn(List.of());
+        when(workspaceMetricsRepository.findReferencedImagePaths(List.of("aa", "bb", "cc"))).thenReturn(Set.of("aa"));
+
+        sweeper.sweepStorageBatch();
+        sweeper.sweepStorageBatch();
+
+        verify(pdfStorage).delete("bb");
+        verify(pdfStorage, never()).delete("aa");
+        verify(pdfStorage, never()).delete("cc");
+        var stats = sweeper.getStats();
+        assertEquals(3, stats.getScannedPdfs());
+        assertEquals(1, stats.getDeletedOrphans());
+        assertEquals(1, stats.getCompletedStoragePasses());
+    }
+
+    @Test
+    void sweepWorkspaceBatch_QueuesMissingPdfs() throws IOException, RenderQueueFullException {
+        when(workspaceMetricsRepository.findPdfKeysByIdGreaterThanAndImagePathIsNotNullOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(new WorkspacePdfKey(1L, "aa"), new WorkspacePdfKey(2L, "bb")));
+        when(pdfService.hasStoredWorkspacePDF("aa")).thenReturn(true);
+        when(pdfService.hasStoredWorkspacePDF("bb")).thenReturn(false);
+
+        sweeper.sweepWorkspaceBatch();
+
+        verify(pdfRenderQueue).submit(2L);
+        verify(pdfRenderQueue, never()).submit(1L);
+        var stats = sweeper.getStats();
+        assertEquals(1, stats.getDanglingWorkspaces());
+        assertEquals(1, stats.getQueuedRenders());
+        assertEquals(1, stats.getCompletedWorkspacePasses());
+    }
+
+    private static StoredPdf storedPdf(final String key, final long lastModified) {
+        return StoredPdf.builder().key(key).size(10).lastModified(lastModified).build();
+    }
+}
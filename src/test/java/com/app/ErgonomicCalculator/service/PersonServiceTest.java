@@ -1,6 +1,7 @@
 package com.app.ErgonomicCalculator.service;
 
 import com.app.ErgonomicCalculator.dto.CredentialsDto;
+import com.app.ErgonomicCalculator.dto.PersonCredentials;
 import com.app.ErgonomicCalculator.dto.RegisterDto;
 import com.app.ErgonomicCalculator.exception.IncorrectPasswordException;
 import com.app.ErgonomicCalculator.exception.PersonNotFoundException;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
@@ -52,7 +54,9 @@ class PersonServiceTest {
                 .password(password)
                 .build();
 
-        when(personRepository.findByEmail(email)).thenReturn(Optional.of(person));
+        var credentials = new SpelAwareProxyProjectionFactory().createProjection(PersonCredentials.class, person);
+
+        when(personRepository.findCredentialsByEmail(email)).thenReturn(Optional.of(credentials));
 
         assertThrows(IncorrectPasswordException.class, () -> personService.login(credentialsDto));
     }
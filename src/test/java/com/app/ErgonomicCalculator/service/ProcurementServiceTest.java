@@ -0,0 +1,86 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.procurement.MetricMatrix;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcurementServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProcurementService procurementService;
+
+    @BeforeEach
+    void setUp() {
+        procurementService = new ProcurementService(dataSource, transactionManager);
+        ReflectionTestUtils.setField(procurementService, "fetchSize", 100);
+        ReflectionTestUtils.setField(procurementService, "parallelism", 2);
+        ReflectionTestUtils.setField(procurementService, "maxIterations", 30);
+        ReflectionTestUtils.setField(procurementService, "maxConfigurations", 16);
+        ReflectionTestUtils.setField(procurementService, "sampleRows", 4_000);
+        procurementService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        procurementService.shutdown();
+    }
+
+    @Test
+    void plan_FindsSmallestNumberOfConfigurations() {
+        var data = workforce(new Random(11), 5, 10_000);
+
+        var plan = procurementService.plan(data, 0.95, 2.0, 16);
+
+        assertTrue(plan.isTargetReached());
+        assertEquals(5, plan.getConfigurations().size());
+        assertTrue(plan.getCoverage() >= 0.95);
+        assertEquals(10_000, plan.getConfigurations().stream().mapToLong(configuration -> configuration.getWorkspaces()).sum());
+        assertEquals(ProcurementService.METRICS, plan.getMetrics());
+    }
+
+    @Test
+    void plan_ReportsBestPlanWhenTargetUnreachable() throws InvalidDataException {
+        var data = workforce(new Random(13), 8, 4_000);
+
+        var plan = procurementService.plan(data, 0.99, 0.5, 2);
+
+        assertFalse(plan.isTargetReached());
+        assertEquals(2, plan.getConfigurations().size());
+        assertThrows(InvalidDataException.class, () -> procurementService.plan(1.5, 2.0, null));
+        assertThrows(InvalidDataException.class, () -> procurementService.plan(0.9, 2.0, 17));
+    }
+
+    /**
+     * Creates workspaces around a number of well separated body sizes.
+     */
+    private static MetricMatrix workforce(final Random random, final int sizes, final int rows) {
+        var dimensions = ProcurementService.METRICS.size();
+        var data = new MetricMatrix(dimensions, rows);
+        var row = new double[dimensions];
+        for (int i = 0; i < rows; i++) {
+            var size = i % sizes;
+            for (int d = 0; d < dimensions; d++) {
+                row[d] = 40 + d * 10 + size * 8 + random.nextDouble() * 2 - 1;
+            }
+            data.add(row);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,132 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Submits anthropometrics for one email from many threads at once against an embedded PostgreSQL, the upserts
+ * and unique constraints under test are PostgreSQL specific.
+ */
+@SpringBootTest(properties = {
+        "pdf.rendering.mode=eager",
+        "pdf.storage.type=database",
+        "pdf.storage.sweeper.enabled=false",
+        "spring.jpa.show-sql=false"})
+class SubmitConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private ErgonomicCalculatorService ergonomicCalculatorService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The database is a bean of the test context, so it is stopped only after the beans using it.
+     */
+    @TestConfiguration
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(final EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+
+    @Test
+    void submit_WhenSameEmailFromManyThreads_CreatesOnePersonWithOneWorkspace() throws Exception {
+        final String email = "hammer@mail.com";
+
+        for (int round = 0; round < ROUNDS; round++) {
+            submitConcurrently(email, round);
+
+            assertEquals(1, count("select count(*) from person where email = ?", email));
+            assertEquals(1, count("select count(*) from person_anthropometrics a join person p on p.id = a.person_id where p.email = ?", email));
+            assertEquals(1, count("select count(*) from workspace_metrics w join person p on p.id = w.person_id where p.email = ?", email));
+            assertEquals(1, count("select count(*) from workspace_metrics w join person p on p.id = w.person_id " +
+                    "join workspace_pdf_blob b on b.storage_key = w.image_path where p.email = ?", email));
+        }
+    }
+
+    @Test
+    void submit_WhenRegisteredPersonSubmitsFromManyThreads_CreatesOneWorkspace() throws Exception {
+        final String email = "registered@mail.com";
+        jdbcTemplate.update("insert into person (id, email, first_name) values (nextval('person_seq'), ?, 'Goda')", email);
+
+        submitConcurrently(email, 0);
+
+        assertEquals(1, count("select count(*) from person where email = ?", email));
+        assertEquals(1, count("select count(*) from person_anthropometrics a join person p on p.id = a.person_id where p.email = ?", email));
+        assertEquals(1, count("select count(*) from workspace_metrics w join person p on p.id = w.person_id where p.email = ?", email));
+    }
+
+    /**
+     * Releases all submits at once and fails with the first exception a submit threw.
+     */
+    private void submitConcurrently(final String email, final int round) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> submits = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                final AnthropometricsRequestDto requestDto = createAnthropometricRequestDto(email, 25.0 + round + i * 0.1);
+                submits.add(executor.submit(() -> {
+                    start.await();
+                    return ergonomicCalculatorService.getNewPersonAnthropometricsAndCreateWorkspace(requestDto);
+                }));
+            }
+            start.countDown();
+            for (Future<?> submit : submits) {
+                submit.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long count(final String sql, final String email) {
+        return jdbcTemplate.queryForObject(sql, Long.class, email);
+    }
+
+    private static AnthropometricsRequestDto createAnthropometricRequestDto(final String email, final double elbowHeight) {
+        return AnthropometricsRequestDto.builder()
+                .height(170.0)
+                .sittingHeight(90.0)
+                .shoulderHeight(60.0)
+                .lowerLegLength(45.0)
+                .hipBreadth(38.0)
+                .elbowHeight(elbowHeight)
+                .eyeHeightStanding(160.0)
+                .elbowHeightStanding(105.0)
+                .thighClearance(15.0)
+                .eyeHeight(80.0)
+                .shoulderBreadth(42.0)
+                .kneeHeight(50.0)
+                .personEmail(email)
+                .build();
+    }
+}
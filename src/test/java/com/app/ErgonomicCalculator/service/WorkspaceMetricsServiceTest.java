@@ -0,0 +1,84 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogueTest;
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceMetricsServiceTest {
+
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+    @Mock
+    private WorkspaceStatisticsService workspaceStatisticsService;
+
+    private WorkspaceMetricsService workspaceMetricsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        workspaceMetricsService = new WorkspaceMetricsService(workspaceMetricsRepository, FormulaRegistryTest.builtInFormulas(), workspaceStatisticsService,
+                FurnitureCatalogueTest.sampleCatalogue());
+    }
+
+    @Test
+    void calculateWorkspaceMetrics() {
+        var requestDto = AnthropometricsRequestDto.builder()
+                .height(170.0)
+                .sittingHeight(90.0)
+                .shoulderHeight(60.0)
+                .lowerLegLength(45.0)
+                .hipBreadth(38.0)
+                .elbowHeight(25.0)
+                .eyeHeightStanding(160.0)
+                .elbowHeightStanding(105.0)
+                .thighClearance(15.0)
+                .eyeHeight(80.0)
+                .shoulderBreadth(42.0)
+                .kneeHeight(50.0)
+                .build();
+
+        var metrics = workspaceMetricsService.calculateWorkspaceMetrics(requestDto);
+
+        assertEquals(70.0, metrics.getTableHeightSeated());
+        assertEquals(105.0, metrics.getTableHeightStanding());
+        assertEquals(125.0, metrics.getDisplayHeightSeated());
+        assertEquals(45.0, metrics.getChairSeatHeight());
+        assertEquals(135.0, metrics.getChairHeadSupportHeight());
+        assertEquals("builtin-1", metrics.getFormulaVersion());
+        assertEquals("DESK", metrics.getRecommendedFurniture().get(0).getType());
+        assertTrue(metrics.getRecommendedFurniture().get(0).isFits());
+        verifyNoInteractions(workspaceMetricsRepository, workspaceStatisticsService);
+    }
+
+    @Test
+    void createNewWorkplace_WhenUnchanged_SkipsSave() {
+        var person = Person.builder().email("goda@mail.com").build();
+        var anthropometrics = PersonAnthropometrics.builder()
+                .height(170.0).sittingHeight(90.0).shoulderHeight(60.0).lowerLegLength(45.0).hipBreadth(38.0)
+                .elbowHeight(25.0).eyeHeightStanding(160.0).elbowHeightStanding(105.0).thighClearance(15.0)
+                .eyeHeight(80.0).shoulderBreadth(42.0).kneeHeight(50.0)
+                .person(person)
+                .build();
+
+        var created = workspaceMetricsService.createNewWorkplace(anthropometrics);
+        var unchanged = workspaceMetricsService.createNewWorkplace(anthropometrics);
+        anthropometrics.setLowerLegLength(47.0);
+        var updated = workspaceMetricsService.createNewWorkplace(anthropometrics);
+
+        assertSame(created, unchanged);
+        assertSame(created, updated);
+        assertEquals(47.0, updated.getChairSeatHeight());
+        verify(workspaceMetricsRepository, times(2)).save(created);
+        verify(workspaceStatisticsService, times(2)).record(anthropometrics, created);
+    }
+}
@@ -0,0 +1,133 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.catalogue.FurnitureCatalogueTest;
+import com.app.ErgonomicCalculator.dto.RecomputeProgressDto;
+import com.app.ErgonomicCalculator.dto.RenderQueueStatsDto;
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.AnthropometricsRepository;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceRecomputeServiceTest {
+
+    @Mock
+    private AnthropometricsRepository anthropometricsRepository;
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+    @Mock
+    private PdfRenderQueue pdfRenderQueue;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private WorkspaceStatisticsService workspaceStatisticsService;
+
+    private WorkspaceRecomputeService recomputeService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        var formulaRegistry = FormulaRegistryTest.builtInFormulas();
+        recomputeService = new WorkspaceRecomputeService(anthropometricsRepository, workspaceMetricsRepository,
+                new WorkspaceMetricsService(workspaceMetricsRepository, formulaRegistry, workspaceStatisticsService,
+                        FurnitureCatalogueTest.sampleCatalogue()), formulaRegistry,
+                pdfRenderQueue, new TransactionTemplate(transactionManager), workspaceStatisticsService);
+        ReflectionTestUtils.setField(recomputeService, "chunkSize", 2);
+        ReflectionTestUtils.setField(recomputeService, "parallelism", 2);
+        ReflectionTestUtils.setField(recomputeService, "pdfRendersPerSecond", 1);
+        ReflectionTestUtils.setField(recomputeService, "maxPendingRenders", 10);
+        ReflectionTestUtils.setField(recomputeService, "renderingMode", PdfRenderingMode.ASYNC);
+        recomputeService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recomputeService.shutdown();
+    }
+
+    @Test
+    void recompute_WalksChunksAndThrottlesRenders() throws Exception {
+        var first = anthropometrics(1L, 45.0, "old");
+        var second = anthropometrics(2L, 46.0, null);
+        var third = anthropometrics(3L, 47.0, "old");
+        when(anthropometricsRepository.countOutdatedWorkspaces("builtin-1")).thenReturn(3L);
+        when(anthropometricsRepository.lockOutdatedWorkspaces(0L, "builtin-1", 2)).thenReturn(List.of(1L, 2L));
+        when(anthropometricsRepository.lockOutdatedWorkspaces(2L, "builtin-1", 2)).thenReturn(List.of(3L));
+        when(anthropometricsRepository.findWithWorkspacesByIdIn(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(anthropometricsRepository.findWithWorkspacesByIdIn(List.of(3L))).thenReturn(List.of(third));
+        when(pdfRenderQueue.getStats()).thenReturn(RenderQueueStatsDto.builder().queueCapacity(10).queueDepth(0).build());
+
+        recomputeService.start();
+        var progress = awaitFinished();
+
+        assertEquals("COMPLETED", progress.getStatus());
+        assertEquals(3, progress.getRecomputedWorkspaces());
+        assertEquals(3, progress.getLastAnthropometricsId());
+        assertEquals(45.0, first.getPerson().getWorkspaceMetrics().getChairSeatHeight());
+        assertEquals("builtin-1", second.getPerson().getWorkspaceMetrics().getFormulaVersion());
+        verify(workspaceMetricsRepository, times(2)).saveAll(anyList());
+        verify(workspaceStatisticsService).rebuild();
+
+        assertEquals(2, progress.getPendingRenders());
+        recomputeService.queuePendingRenders();
+        verify(pdfRenderQueue, times(1)).submit(anyLong());
+        assertEquals(1, recomputeService.getProgress().getPendingRenders());
+    }
+
+    @Test
+    void queuePendingRenders_LeavesHalfOfRenderQueueFree() throws Exception {
+        var first = anthropometrics(1L, 45.0, "old");
+        when(anthropometricsRepository.lockOutdatedWorkspaces(0L, "builtin-1", 2)).thenReturn(List.of(1L));
+        when(anthropometricsRepository.findWithWorkspacesByIdIn(List.of(1L))).thenReturn(List.of(first));
+        when(pdfRenderQueue.getStats()).thenReturn(RenderQueueStatsDto.builder().queueCapacity(10).queueDepth(5).build());
+
+        recomputeService.start();
+        awaitFinished();
+        recomputeService.queuePendingRenders();
+
+        verify(pdfRenderQueue, never()).submit(anyLong());
+        assertEquals(1, recomputeService.getProgress().getPendingRenders());
+    }
+
+    private RecomputeProgressDto awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            var progress = recomputeService.getProgress();
+            if (progress.getFinishedAt() != null) {
+                return progress;
+            }
+            Thread.sleep(20);
+        }
+        fail("Recompute did not finish.");
+        return null;
+    }
+
+    private static PersonAnthropometrics anthropometrics(final Long id, final double lowerLegLength, final String formulaVersion) {
+        var person = Person.builder().email(id + "@mail.com").build();
+        var anthropometrics = PersonAnthropometrics.builder().id(id).height(170.0).sittingHeight(90.0).shoulderHeight(60.0)
+                .lowerLegLength(lowerLegLength).hipBreadth(38.0).elbowHeight(25.0).eyeHeightStanding(160.0)
+                .elbowHeightStanding(105.0).thighClearance(15.0).eyeHeight(80.0).shoulderBreadth(42.0).kneeHeight(50.0)
+                .person(person).build();
+        person.setPersonAnthropometrics(anthropometrics);
+        if (formulaVersion != null) {
+            person.setWorkspaceMetrics(WorkspaceMetrics.builder().id(id).imagePath("key" + id).formulaVersion(formulaVersion).person(person).build());
+        }
+        return anthropometrics;
+    }
+}
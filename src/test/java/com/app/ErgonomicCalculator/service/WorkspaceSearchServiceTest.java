@@ -0,0 +1,86 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.dto.WorkspaceSearchResultDto;
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.repository.WorkspaceMetricsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceSearchServiceTest {
+
+    @Mock
+    private WorkspaceMetricsRepository workspaceMetricsRepository;
+
+    private WorkspaceSearchService workspaceSearchService;
+
+    @BeforeEach
+    void setUp() {
+        workspaceSearchService = new WorkspaceSearchService(workspaceMetricsRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(workspaceSearchService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(workspaceSearchService, "maxPageSize", 10);
+        ReflectionTestUtils.setField(workspaceSearchService, "streamPageSize", 2);
+        workspaceSearchService.init();
+    }
+
+    @Test
+    void parseRanges_OrdersByFirstIndexedMetric() throws InvalidDataException {
+        var ranges = WorkspaceSearchService.parseRanges(List.of("tableWidth:60:", "chairSeatHeight::48", "tableHeightSeated:70:74"));
+
+        assertEquals("chairSeatHeight", ranges.get(0).getMetric());
+        assertNull(ranges.get(0).getMin());
+        assertEquals(48.0, ranges.get(0).getMax());
+        assertEquals("tableWidth", ranges.get(1).getMetric());
+        assertThrows(InvalidDataException.class, () -> WorkspaceSearchService.parseRanges(List.of("tableWidth:60:80")));
+        assertThrows(InvalidDataException.class, () -> WorkspaceSearchService.parseRanges(List.of("password:1:2")));
+        assertThrows(InvalidDataException.class, () -> WorkspaceSearchService.parseRanges(List.of("tableHeightSeated:74:70")));
+        assertThrows(InvalidDataException.class, () -> WorkspaceSearchService.parseRanges(List.of("tableHeightSeated:x:70")));
+    }
+
+    @Test
+    void search_ReturnsNextKeysetOnFullPage() throws InvalidDataException {
+        when(workspaceMetricsRepository.search(anyList(), isNull(), isNull(), eq(2)))
+                .thenReturn(List.of(result(5L, 70.0), result(3L, 71.5)));
+
+        var page = workspaceSearchService.search(List.of("tableHeightSeated:70:74"), null, null, null);
+
+        assertEquals("tableHeightSeated", page.getOrderedBy());
+        assertEquals(71.5, page.getNextAfterValue());
+        assertEquals(3L, page.getNextAfterId());
+        assertThrows(InvalidDataException.class, () -> workspaceSearchService.search(List.of("tableHeightSeated:70:74"), null, null, 11));
+    }
+
+    @Test
+    void stream_WritesAllPagesAsNdjson() throws Exception {
+        when(workspaceMetricsRepository.search(anyList(), isNull(), isNull(), eq(2)))
+                .thenReturn(List.of(result(5L, 70.0), result(3L, 71.5)));
+        when(workspaceMetricsRepository.search(anyList(), eq(71.5), eq(3L), eq(2)))
+                .thenReturn(List.of(result(8L, 73.0)));
+        var output = new ByteArrayOutputStream();
+
+        var written = workspaceSearchService.stream(List.of("tableHeightSeated:70:74"), output);
+
+        assertEquals(3, written);
+        var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].contains("\"workspaceId\":8"));
+        verify(workspaceMetricsRepository, times(2)).search(anyList(), any(), any(), eq(2));
+    }
+
+    private static WorkspaceSearchResultDto result(final Long id, final Double tableHeightSeated) {
+        return WorkspaceSearchResultDto.builder().workspaceId(id).email(id + "@example.com").tableHeightSeated(tableHeightSeated).build();
+    }
+}
@@ -0,0 +1,156 @@
+package com.app.ErgonomicCalculator.service;
+
+import com.app.ErgonomicCalculator.exception.InvalidDataException;
+import com.app.ErgonomicCalculator.model.MetricSketch;
+import com.app.ErgonomicCalculator.model.Person;
+import com.app.ErgonomicCalculator.model.PersonAnthropometrics;
+import com.app.ErgonomicCalculator.model.WorkspaceMetrics;
+import com.app.ErgonomicCalculator.repository.AnthropometricsRepository;
+import com.app.ErgonomicCalculator.repository.MetricSketchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceStatisticsServiceTest {
+
+    @Mock
+    private MetricSketchRepository metricSketchRepository;
+    @Mock
+    private AnthropometricsRepository anthropometricsRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Captor
+    private ArgumentCaptor<List<MetricSketch>> savedSketches;
+
+    private WorkspaceStatisticsService statisticsService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(metricSketchRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        statisticsService = newService();
+    }
+
+    @Test
+    void getStatistics_PercentilesPerGroupSurviveRestart() throws InvalidDataException {
+        for (int i = 1; i <= 100; i++) {
+            statisticsService.record(anthropometrics(i + (i % 2 == 0 ? "@even.com" : "@odd.com"), i), workspace(i));
+        }
+
+        var all = statisticsService.getStatistics(null, null);
+        assertEquals(100, all.getPeople());
+        assertEquals(50.5, all.getPercentiles().get("chairSeatHeight").get("p50"), 1.0);
+        assertEquals(95.5, all.getPercentiles().get("chairSeatHeight").get("p95"), 1.0);
+        assertEquals(50.5, all.getPercentiles().get("lowerLegLength").get("p50"), 1.0);
+        var even = statisticsService.getStatistics(List.of("EVEN.com"), List.of(50.0));
+        assertEquals(50, even.getPeople());
+        assertEquals(51.0, even.getPercentiles().get("chairSeatHeight").get("p50"), 2.0);
+        assertNull(statisticsService.getStatistics(List.of("none.com"), null).getPercentiles().get("tableWidth").get("p5"));
+
+        statisticsService.flush();
+        verify(metricSketchRepository).lockSketches();
+        verify(metricSketchRepository).saveAll(savedSketches.capture());
+        var restarted = newService();
+        when(metricSketchRepository.findAll()).thenReturn(savedSketches.getValue());
+        restarted.init();
+        assertEquals(all, restarted.getStatistics(null, null));
+    }
+
+    @Test
+    void flush_MergesValuesStoredByOtherInstances() throws InvalidDataException {
+        var otherInstance = newService();
+        for (int i = 1; i <= 50; i++) {
+            otherInstance.record(anthropometrics(i + "@mail.com", i), workspace(i));
+        }
+        otherInstance.flush();
+        verify(metricSketchRepository).saveAll(savedSketches.capture());
+        when(metricSketchRepository.findAllById(anyList())).thenReturn(savedSketches.getValue());
+        for (int i = 51; i <= 100; i++) {
+            statisticsService.record(anthropometrics(i + "@mail.com", i), workspace(i));
+        }
+
+        statisticsService.flush();
+
+        var all = statisticsService.getStatistics(null, List.of(50.0));
+        assertEquals(100, all.getPeople());
+        assertEquals(50.5, all.getPercentiles().get("chairSeatHeight").get("p50"), 1.0);
+    }
+
+    @Test
+    void record_WaitsForCommit() throws InvalidDataException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            statisticsService.record(anthropometrics("a@mail.com", 10), workspace(10));
+            assertEquals(0, statisticsService.getStatistics(null, null).getPeople());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, statisticsService.getStatistics(null, null).getPeople());
+    }
+
+    @Test
+    void getStatistics_WhenPercentileOutOfRange() {
+        assertThrows(InvalidDataException.class, () -> statisticsService.getStatistics(null, List.of(101.0)));
+    }
+
+    @Test
+    void rebuild_ReplacesSketchesWithStoredValues() throws InvalidDataException {
+        statisticsService.record(anthropometrics("a@mail.com", 10), workspace(10));
+        var stored = anthropometrics("a@mail.com", 40);
+        stored.getPerson().setWorkspaceMetrics(workspace(40));
+        stored.setId(1L);
+        when(anthropometricsRepository.findWithWorkspacesAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(stored));
+
+        statisticsService.rebuild();
+
+        var statistics = statisticsService.getStatistics(List.of("mail.com"), List.of(50.0));
+        assertEquals(1, statistics.getPeople());
+        assertEquals(40.0, statistics.getPercentiles().get("chairSeatHeight").get("p50"));
+        var inOrder = inOrder(metricSketchRepository, transactionManager);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(metricSketchRepository).deleteAllInBatch();
+        inOrder.verify(metricSketchRepository).saveAll(anyList());
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    private WorkspaceStatisticsService newService() {
+        var service = new WorkspaceStatisticsService(metricSketchRepository, anthropometricsRepository,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "compression", 100.0);
+        ReflectionTestUtils.setField(service, "maxGroups", 10);
+        ReflectionTestUtils.setField(service, "rebuildChunkSize", 10);
+        return service;
+    }
+
+    private static PersonAnthropometrics anthropometrics(final String email, final double lowerLegLength) {
+        return PersonAnthropometrics.builder()
+                .lowerLegLength(lowerLegLength)
+                .person(Person.builder().email(email).build())
+                .build();
+    }
+
+    private static WorkspaceMetrics workspace(final double chairSeatHeight) {
+        return WorkspaceMetrics.builder().chairSeatHeight(chairSeatHeight).build();
+    }
+}
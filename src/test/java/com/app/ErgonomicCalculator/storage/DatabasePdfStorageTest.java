@@ -0,0 +1,56 @@
+package com.app.ErgonomicCalculator.storage;
+
+import com.app.ErgonomicCalculator.repository.WorkspacePdfBlobRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * Runs the storage contract against an embedded PostgreSQL migrated by Flyway, the upsert and the byte range reads
+ * are PostgreSQL specific. The contract methods are inherited and do not run in a test transaction, every storage
+ * call commits on its own as it does in the application, so the table is emptied before each test.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DatabasePdfStorageTest extends PdfStorageContractTest {
+
+    @Autowired
+    private WorkspacePdfBlobRepository workspacePdfBlobRepository;
+
+    private DatabasePdfStorage pdfStorage;
+
+    /**
+     * The database is a bean of the test context, so it is stopped only after the beans using it.
+     */
+    @TestConfiguration
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(final EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        workspacePdfBlobRepository.deleteAllInBatch();
+        pdfStorage = new DatabasePdfStorage(workspacePdfBlobRepository);
+    }
+
+    @Override
+    protected PdfStorage pdfStorage() {
+        return pdfStorage;
+    }
+}
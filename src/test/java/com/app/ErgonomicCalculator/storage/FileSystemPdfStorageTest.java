@@ -0,0 +1,28 @@
+package com.app.ErgonomicCalculator.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class FileSystemPdfStorageTest extends PdfStorageContractTest {
+
+    @TempDir
+    Path directory;
+
+    private FileSystemPdfStorage pdfStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pdfStorage = new FileSystemPdfStorage();
+        ReflectionTestUtils.setField(pdfStorage, "directory", directory);
+        pdfStorage.init();
+    }
+
+    @Override
+    protected PdfStorage pdfStorage() {
+        return pdfStorage;
+    }
+}
@@ -0,0 +1,102 @@
+package com.app.ErgonomicCalculator.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link PdfStorage} backend has to share, run against each backend by its subclass.
+ */
+abstract class PdfStorageContractTest {
+
+    private static final byte[] CONTENT = "%PDF-1.4 0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Returns the empty storage under test.
+     */
+    protected abstract PdfStorage pdfStorage();
+
+    @Test
+    void store_ThenFindReadsRanges() throws IOException {
+        pdfStorage().store(key('a'), outputStream -> outputStream.write(CONTENT));
+
+        assertTrue(pdfStorage().exists(key('a')));
+        var storedPdf = pdfStorage().find(key('a')).orElseThrow();
+        assertEquals(key('a'), storedPdf.getKey());
+        assertEquals(CONTENT.length, storedPdf.getSize());
+        assertTrue(Math.abs(Instant.now().toEpochMilli() - storedPdf.getLastModified()) < Duration.ofMinutes(1).toMillis());
+        assertEquals("%PDF-1.4 0123456789", read(storedPdf, 0, CONTENT.length));
+        assertEquals("234", read(storedPdf, 11, 3));
+        assertEquals("", read(storedPdf, 5, 0));
+    }
+
+    @Test
+    void store_WhenKeyStored_KeepsOnePdf() throws IOException {
+        pdfStorage().store(key('a'), outputStream -> outputStream.write(CONTENT));
+        pdfStorage().store(key('a'), outputStream -> outputStream.write(CONTENT));
+
+        assertEquals(CONTENT.length, pdfStorage().find(key('a')).orElseThrow().getSize());
+        assertEquals(List.of(key('a')), keys(pdfStorage().list(null, 10)));
+    }
+
+    @Test
+    void find_WhenMissing_IsEmpty() throws IOException {
+        assertFalse(pdfStorage().exists(key('a')));
+        assertTrue(pdfStorage().find(key('a')).isEmpty());
+        assertTrue(pdfStorage().list(null, 10).isEmpty());
+    }
+
+    @Test
+    void list_WalksKeysInAscendingOrderInBatches() throws IOException {
+        for (char c : new char[]{'c', 'a', 'e', 'b', 'd'}) {
+            pdfStorage().store(key(c), outputStream -> outputStream.write(CONTENT));
+        }
+
+        var firstBatch = pdfStorage().list(null, 2);
+
+        assertEquals(List.of(key('a'), key('b')), keys(firstBatch));
+        assertEquals(List.of(key('c'), key('d')), keys(pdfStorage().list(key('b'), 2)));
+        assertEquals(List.of(key('e')), keys(pdfStorage().list(key('d'), 2)));
+        assertTrue(pdfStorage().list(key('e'), 2).isEmpty());
+        assertEquals(CONTENT.length, firstBatch.get(0).getSize());
+        assertEquals("234", read(firstBatch.get(0), 11, 3));
+    }
+
+    @Test
+    void delete_RemovesPdf() throws IOException {
+        pdfStorage().store(key('a'), outputStream -> outputStream.write(CONTENT));
+        pdfStorage().store(key('b'), outputStream -> outputStream.write(CONTENT));
+
+        pdfStorage().delete(key('a'));
+        pdfStorage().delete(key('c'));
+
+        assertFalse(pdfStorage().exists(key('a')));
+        assertTrue(pdfStorage().find(key('a')).isEmpty());
+        assertEquals(List.of(key('b')), keys(pdfStorage().list(null, 10)));
+    }
+
+    /**
+     * Builds a content key of 64 equal hex digits.
+     */
+    static String key(final char digit) {
+        return String.valueOf(digit).repeat(64);
+    }
+
+    private static String read(final StoredPdf storedPdf, final long position, final long count) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        storedPdf.read(outputStream, position, count);
+        return outputStream.toString(StandardCharsets.US_ASCII);
+    }
+
+    static List<String> keys(final List<StoredPdf> storedPdfs) {
+        return storedPdfs.stream().map(StoredPdf::getKey).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,63 @@
+package com.app.ErgonomicCalculator.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the storage contract against {@link S3StandIn}, with the client configured as for the MinIO service of the
+ * {@code s3} docker compose profile.
+ */
+class S3PdfStorageTest extends PdfStorageContractTest {
+
+    private static final String BUCKET = "workspace-pdfs";
+
+    private S3StandIn s3StandIn;
+    private S3PdfStorage pdfStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3StandIn = new S3StandIn(BUCKET);
+        pdfStorage = new S3PdfStorage();
+        ReflectionTestUtils.setField(pdfStorage, "bucket", BUCKET);
+        ReflectionTestUtils.setField(pdfStorage, "prefix", "workspaces/");
+        ReflectionTestUtils.setField(pdfStorage, "region", "us-east-1");
+        ReflectionTestUtils.setField(pdfStorage, "endpoint", s3StandIn.endpoint());
+        ReflectionTestUtils.setField(pdfStorage, "pathStyleAccess", true);
+        ReflectionTestUtils.setField(pdfStorage, "accessKey", "minio");
+        ReflectionTestUtils.setField(pdfStorage, "secretKey", "minio-secret");
+        ReflectionTestUtils.setField(pdfStorage, "createBucket", false);
+        pdfStorage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pdfStorage.close();
+        s3StandIn.close();
+    }
+
+    @Override
+    protected PdfStorage pdfStorage() {
+        return pdfStorage;
+    }
+
+    @Test
+    void list_SkipsObjectsThatAreNotStoredPdfs() throws IOException {
+        s3StandIn.putObject("workspaces/", new byte[0]);
+        s3StandIn.putObject("workspaces/.pdf", new byte[0]);
+        s3StandIn.putObject("workspaces/README.txt", new byte[1]);
+        for (char c : new char[]{'a', 'b', 'c'}) {
+            pdfStorage.store(key(c), outputStream -> outputStream.write(1));
+        }
+        s3StandIn.putObject("workspaces/" + key('b') + ".pdf.tmp", new byte[1]);
+
+        assertEquals(List.of(key('a'), key('b')), keys(pdfStorage.list(null, 2)));
+        assertEquals(List.of(key('c')), keys(pdfStorage.list(key('b'), 2)));
+    }
+}
@@ -0,0 +1,246 @@
+package com.app.ErgonomicCalculator.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process stand-in for an S3 compatible object store, serving the path style requests {@link S3PdfStorage}
+ * sends: put, head, ranged get, delete and list objects v2 of a single bucket. Requests are not authenticated.
+ */
+class S3StandIn implements AutoCloseable {
+
+    private static final String STREAMING_PAYLOAD = "STREAMING-";
+
+    private final NavigableMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final HttpServer server;
+    private final String bucket;
+
+    private static final class StoredObject {
+        private final byte[] content;
+        private final Instant lastModified = Instant.now();
+
+        private StoredObject(final byte[] content) {
+            this.content = content;
+        }
+    }
+
+    S3StandIn(final String bucket) throws IOException {
+        this.bucket = bucket;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Returns the endpoint to point the S3 client at.
+     */
+    String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Stores an object directly, e.g. a folder marker another tool created.
+     */
+    void putObject(final String key, final byte[] content) {
+        objects.put(key, new StoredObject(content));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * Serves one request. The request body is read before the response is sent, a connection whose request was not
+     * read to the end is not kept alive by the JDK server.
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final byte[] body = exchange.getRequestBody().readAllBytes();
+            final String path = exchange.getRequestURI().getRawPath();
+            if (!path.startsWith("/" + bucket)) {
+                send(exchange, 404, new byte[0]);
+                return;
+            }
+            final String key = URLDecoder.decode(path.substring(bucket.length() + 1).replaceFirst("^/", ""), StandardCharsets.UTF_8);
+            if (key.isEmpty()) {
+                if ("GET".equals(exchange.getRequestMethod())) {
+                    list(exchange);
+                } else {
+                    send(exchange, 200, new byte[0]);
+                }
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "PUT":
+                    put(exchange, key, body);
+                    break;
+                case "HEAD":
+                    head(exchange, key);
+                    break;
+                case "GET":
+                    get(exchange, key);
+                    break;
+                case "DELETE":
+                    objects.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                default:
+                    send(exchange, 405, new byte[0]);
+            }
+        }
+    }
+
+    private void put(final HttpExchange exchange, final String key, final byte[] body) throws IOException {
+        byte[] content = body;
+        final String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (contentSha256 != null && contentSha256.startsWith(STREAMING_PAYLOAD)) {
+            content = decodeChunks(content);
+        }
+        objects.put(key, new StoredObject(content));
+        exchange.getResponseHeaders().set("ETag", etag(content));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void head(final HttpExchange exchange, final String key) throws IOException {
+        final StoredObject object = objects.get(key);
+        if (object == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        setObjectHeaders(exchange, object);
+        exchange.getResponseHeaders().set("Content-Length", Long.toString(object.content.length));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void get(final HttpExchange exchange, final String key) throws IOException {
+        final StoredObject object = objects.get(key);
+        if (object == null) {
+            send(exchange, 404, ("<Error><Code>NoSuchKey</Code><Key>" + key + "</Key></Error>").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        setObjectHeaders(exchange, object);
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            send(exchange, 200, object.content);
+            return;
+        }
+        final String[] bounds = range.substring("bytes=".length()).split("-");
+        final int first = Integer.parseInt(bounds[0]);
+        final int last = Math.min(Integer.parseInt(bounds[1]), object.content.length - 1);
+        final byte[] slice = new byte[last - first + 1];
+        System.arraycopy(object.content, first, slice, 0, slice.length);
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + object.content.length);
+        send(exchange, 206, slice);
+    }
+
+    private void list(final HttpExchange exchange) throws IOException {
+        final Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        final String prefix = query.getOrDefault("prefix", "");
+        final String startAfter = query.getOrDefault("start-after", "");
+        final int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        final StringBuilder contents = new StringBuilder();
+        int keyCount = 0;
+        boolean truncated = false;
+        for (Map.Entry<String, StoredObject> entry : objects.tailMap(startAfter, false).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                continue;
+            }
+            if (keyCount == maxKeys) {
+                truncated = true;
+                break;
+            }
+            keyCount++;
+            contents.append("<Contents><Key>").append(entry.getKey()).append("</Key>")
+                    .append("<LastModified>").append(entry.getValue().lastModified).append("</LastModified>")
+                    .append("<ETag>").append(etag(entry.getValue().content)).append("</ETag>")
+                    .append("<Size>").append(entry.getValue().content.length).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        final String body = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                + "<Name>" + bucket + "</Name><Prefix>" + prefix + "</Prefix><KeyCount>" + keyCount + "</KeyCount>"
+                + "<MaxKeys>" + maxKeys + "</MaxKeys><IsTruncated>" + truncated + "</IsTruncated>"
+                + contents
+                + "</ListBucketResult>";
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        send(exchange, 200, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void setObjectHeaders(final HttpExchange exchange, final StoredObject object) {
+        exchange.getResponseHeaders().set("Content-Type", "application/pdf");
+        exchange.getResponseHeaders().set("ETag", etag(object.content));
+        exchange.getResponseHeaders().set("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified.atOffset(ZoneOffset.UTC)));
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    /**
+     * Decodes a body sent with aws-chunked encoding: {@code <hex size>;chunk-signature=...\r\n<data>\r\n}, ended by
+     * a chunk of size 0.
+     */
+    private static byte[] decodeChunks(final byte[] body) {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < body.length) {
+            int lineEnd = position;
+            while (body[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            final String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+            final int size = Integer.parseInt(header.split(";")[0], 16);
+            if (size == 0) {
+                break;
+            }
+            content.write(body, lineEnd + 2, size);
+            position = lineEnd + 2 + size + 2;
+        }
+        return content.toByteArray();
+    }
+
+    private static Map<String, String> query(final String rawQuery) {
+        final Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            final String[] nameAndValue = parameter.split("=", 2);
+            query.put(nameAndValue[0], nameAndValue.length > 1 ? URLDecoder.decode(nameAndValue[1], StandardCharsets.UTF_8) : "");
+        }
+        return query;
+    }
+
+    private static String etag(final byte[] content) {
+        try {
+            final StringBuilder etag = new StringBuilder("\"");
+            for (byte b : MessageDigest.getInstance("MD5").digest(content)) {
+                etag.append(String.format("%02x", b));
+            }
+            return etag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
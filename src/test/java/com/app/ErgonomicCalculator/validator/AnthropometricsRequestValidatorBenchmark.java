@@ -0,0 +1,75 @@
+package com.app.ErgonomicCalculator.validator;
+
+import com.app.ErgonomicCalculator.dto.AnthropometricsRequestDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled validator against the reflective field walk it replaced, which only checked for
+ * null and zero values and stopped at the first violation.
+ * Run with the test classpath: {@code java -cp <test classpath> org.openjdk.jmh.Main AnthropometricsRequestValidatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnthropometricsRequestValidatorBenchmark {
+
+    private CompiledValidator<AnthropometricsRequestDto> validator;
+    private AnthropometricsRequestDto valid;
+    private AnthropometricsRequestDto invalid;
+
+    @Setup
+    public void setup() {
+        validator = AnthropometricsRequestValidator.compile(AnthropometricsRequestValidator.DEFAULT_RANGES,
+                AnthropometricsRequestValidator.DEFAULT_CROSS_FIELD_RULES);
+        valid = AnthropometricsRequestValidatorTest.createAnthropometricRequestDto();
+        invalid = AnthropometricsRequestValidatorTest.createAnthropometricRequestDto();
+        invalid.setKneeHeight(0.0);
+    }
+
+    @Benchmark
+    public List<String> compiledValid() {
+        return validator.violations(valid);
+    }
+
+    @Benchmark
+    public List<String> compiledInvalid() {
+        return validator.violations(invalid);
+    }
+
+    @Benchmark
+    public List<String> reflectiveValid() throws IllegalAccessException {
+        return reflectiveViolations(valid);
+    }
+
+    @Benchmark
+    public List<String> reflectiveInvalid() throws IllegalAccessException {
+        return reflectiveViolations(invalid);
+    }
+
+    /**
+     * The former validation: fields are looked up and made accessible on every call, the first violation ends it.
+     */
+    private static List<String> reflectiveViolations(final AnthropometricsRequestDto anthropometrics) throws IllegalAccessException {
+        final List<String> violations = new ArrayList<>();
+        for (Field field : anthropometrics.getClass().getDeclaredFields()) {
+            field.setAccessible(true);
+            final Object value = field.get(anthropometrics);
+            if (value instanceof String && ((String) value).trim().isEmpty()) {
+                violations.add("Field '" + field.getName() + "' must not be null or empty.");
+                return violations;
+            } else if (field.getType() == Double.class && (value == null || (Double) value == 0.0)) {
+                violations.add("Field '" + field.getName() + "' must not be null or zero.");
+                return violations;
+            }
+        }
+        return violations;
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,6 +29,16 @@ class AnthropometricsRequestValidatorTest {
         assertThrows(InvalidDataException.class, () -> validator.validate(data));
     }
 
+    @Test
+    void validate_WhenMetricIsNaN() {
+        var data = createAnthropometricRequestDto();
+        data.setHipBreadth(Double.NaN);
+
+        var exception = assertThrows(InvalidDataException.class, () -> validator.validate(data));
+
+        assertEquals("Field 'hipBreadth' must be between 15.0 and 80.0.", exception.getMessage());
+    }
+
     @Test
     void validate_WhenEmptyEmail() {
         var data = createAnthropometricRequestDto();
@@ -35,7 +46,49 @@ class AnthropometricsRequestValidatorTest {
         assertThrows(InvalidDataException.class, () -> validator.validate(data));
     }
 
-    private AnthropometricsRequestDto createAnthropometricRequestDto() {
+    @Test
+    void validate_WhenNoEmail() {
+        var data = createAnthropometricRequestDto();
+        data.setPersonEmail(null);
+        assertDoesNotThrow(() -> validator.validate(data));
+    }
+
+    @Test
+    void validate_ReportsAllViolations() {
+        var data = createAnthropometricRequestDto();
+        data.setHeight(null);
+        data.setKneeHeight(500.0);
+        data.setSittingHeight(80.0);
+        data.setEyeHeight(90.0);
+
+        var exception = assertThrows(InvalidDataException.class, () -> validator.validate(data));
+
+        assertTrue(exception.getMessage().contains("Field 'height' must not be null or zero."));
+        assertTrue(exception.getMessage().contains("Field 'kneeHeight' must be between 20.0 and 80.0."));
+        assertTrue(exception.getMessage().contains("Field 'eyeHeight' must be less than 'sittingHeight'."));
+        assertFalse(exception.getMessage().contains("'height'."), "rules of a missing measure are skipped");
+    }
+
+    @Test
+    void validate_UsesConfiguredRules() {
+        ReflectionTestUtils.setField(validator, "ranges", "height:100:160");
+        ReflectionTestUtils.setField(validator, "crossFieldRules", "kneeHeight<thighClearance");
+        validator.init();
+        var data = createAnthropometricRequestDto();
+
+        var exception = assertThrows(InvalidDataException.class, () -> validator.validate(data));
+
+        assertEquals("Field 'height' must be between 100.0 and 160.0. Field 'kneeHeight' must be less than 'thighClearance'.",
+                exception.getMessage());
+    }
+
+    @Test
+    void compile_RejectsUnknownMeasure() {
+        assertThrows(IllegalArgumentException.class, () -> AnthropometricsRequestValidator.compile("weight:1:2", ""));
+        assertThrows(IllegalArgumentException.class, () -> AnthropometricsRequestValidator.compile("", "height>kneeHeight"));
+    }
+
+    static AnthropometricsRequestDto createAnthropometricRequestDto() {
         return AnthropometricsRequestDto.builder()
                 .height(170.5)
                 .sittingHeight(95.2)